@@ -0,0 +1,31 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import software.amazon.awssdk.core.SdkBytes;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link ApiGatewayManagementApiClientSender}.
+ */
+public interface ApiGatewayManagementApiClientAsyncSender {
+
+    @NonNull
+    CompletableFuture<DeliveryStatus> send(@NonNull @NotNull @Valid WebSocketMessage message);
+
+    @NonNull
+    CompletableFuture<DeliveryStatus> send(@NonNull @NotNull @Valid WebSocketConnection connection,
+                                           @NonNull SdkBytes sdkBytes);
+
+    /**
+     * Posts any messages an implementation holds back, so that nothing is left pending when an invocation ends.
+     *
+     * @return A future which completes once those posts have, whatever their outcome.
+     */
+    @NonNull
+    default CompletableFuture<Void> flush() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,61 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.GoneException;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.PostToConnectionRequest;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Singleton
+public class ApiGatewayManagementApiClientAsyncSenderImpl implements ApiGatewayManagementApiClientAsyncSender {
+
+    private final ApiGatewayManagementApiClientRegistry clientRegistry;
+    private final StaleConnectionCollector staleConnectionCollector;
+    private final MessageCodecs messageCodecs;
+    private final SendGovernor sendGovernor;
+
+    public ApiGatewayManagementApiClientAsyncSenderImpl(ApiGatewayManagementApiClientRegistry clientRegistry,
+                                                        StaleConnectionCollector staleConnectionCollector,
+                                                        MessageCodecs messageCodecs,
+                                                        SendGovernor sendGovernor) {
+        this.clientRegistry = clientRegistry;
+        this.staleConnectionCollector = staleConnectionCollector;
+        this.messageCodecs = messageCodecs;
+        this.sendGovernor = sendGovernor;
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<DeliveryStatus> send(@NonNull @NotNull @Valid WebSocketMessage webSocketMessage) {
+        return send(webSocketMessage, SdkBytes.fromString(webSocketMessage.getMessage(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<DeliveryStatus> send(@NonNull @NotNull @Valid WebSocketConnection connection,
+                                                  @NonNull SdkBytes sdkBytes) {
+        PostToConnectionRequest request = PostToConnectionRequest.builder()
+                .data(messageCodecs.encode(connection.getCodec(), sdkBytes))
+                .connectionId(connection.getConnectionId())
+                .build();
+        return sendGovernor.submit(() -> clientRegistry.callAsync(connection, client -> client.postToConnection(request)))
+                .handle((response, throwable) -> {
+                    if (throwable == null) {
+                        return DeliveryStatus.DELIVERED;
+                    }
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+                            throwable.getCause() : throwable;
+                    if (cause instanceof GoneException) {
+                        staleConnectionCollector.add(connection);
+                        return DeliveryStatus.GONE;
+                    }
+                    throw throwable instanceof CompletionException ? (CompletionException) throwable : new CompletionException(throwable);
+                });
+    }
+}
@@ -0,0 +1,37 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.net.URI;
+import java.time.Duration;
+
+@ConfigurationProperties("apigateway.management.clients")
+public interface ApiGatewayManagementApiClientConfiguration {
+
+    /**
+     * @return Maximum number of management API clients (one per endpoint) kept alive at once.
+     */
+    @Positive
+    @Bindable(defaultValue = "16")
+    int getMaximumSize();
+
+    /**
+     * @return Time after which a client which has not been used is closed.
+     */
+    @NonNull
+    @NotNull
+    @Bindable(defaultValue = "15m")
+    Duration getIdleTimeout();
+
+    /**
+     * @return Base URI the management API is called on instead of the connection's API Gateway endpoint, for example a
+     * local emulator. The connection's stage is appended.
+     */
+    @Nullable
+    URI getEndpointOverride();
+}
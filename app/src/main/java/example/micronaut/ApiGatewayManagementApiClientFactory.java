@@ -3,6 +3,7 @@ package example.micronaut;
 import io.micronaut.aws.sdk.v2.service.AwsClientFactory;
 import io.micronaut.context.annotation.Bean;
 import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Prototype;
 import io.micronaut.context.annotation.Requires;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProviderChain;
 import software.amazon.awssdk.http.SdkHttpClient;
@@ -43,8 +44,11 @@ public class ApiGatewayManagementApiClientFactory extends AwsClientFactory<ApiGa
         return ApiGatewayManagementApiAsyncClient.builder();
     }
 
+    /**
+     * Builders are mutable, a new one is handed out on each injection so that callers can set an endpoint override safely.
+     */
     @Override
-    @Singleton
+    @Prototype
     public ApiGatewayManagementApiClientBuilder syncBuilder(SdkHttpClient httpClient) {
         return super.syncBuilder(httpClient);
     }
@@ -57,7 +61,7 @@ public class ApiGatewayManagementApiClientFactory extends AwsClientFactory<ApiGa
     }
 
     @Override
-    @Singleton
+    @Prototype
     @Requires(beans = SdkAsyncHttpClient.class)
     public ApiGatewayManagementApiAsyncClientBuilder asyncBuilder(SdkAsyncHttpClient httpClient) {
         return super.asyncBuilder(httpClient);
@@ -0,0 +1,211 @@
+package example.micronaut;
+
+import io.micronaut.context.BeanProvider;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.core.client.builder.SdkClientBuilder;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.services.apigatewaymanagementapi.ApiGatewayManagementApiAsyncClient;
+import software.amazon.awssdk.services.apigatewaymanagementapi.ApiGatewayManagementApiAsyncClientBuilder;
+import software.amazon.awssdk.services.apigatewaymanagementapi.ApiGatewayManagementApiClient;
+import software.amazon.awssdk.services.apigatewaymanagementapi.ApiGatewayManagementApiClientBuilder;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Keeps one {@link ApiGatewayManagementApiClient} and one {@link ApiGatewayManagementApiAsyncClient} per management endpoint
+ * (api id, stage and domain). Every client is built from a fresh builder, so they all share the application's
+ * {@link software.amazon.awssdk.http.SdkHttpClient} and {@link software.amazon.awssdk.http.async.SdkAsyncHttpClient}.
+ * Endpoints are resolved with {@link WebSocketConnectionUtils#uriOf(WebSocketConnection)}, in the connection's region,
+ * and memoized so that a send does not build a {@link URI}. The memo keeps the most recently used endpoints, as many as
+ * the clients cached.
+ */
+@Singleton
+public class ApiGatewayManagementApiClientRegistry {
+
+    private final EndpointClientCache<ApiGatewayManagementApiClient> clients;
+    private final EndpointClientCache<ApiGatewayManagementApiAsyncClient> asyncClients;
+    @Nullable
+    private final URI endpointOverride;
+    private final Map<Endpoint, URI> endpoints;
+
+    @Inject
+    public ApiGatewayManagementApiClientRegistry(ApiGatewayManagementApiClientConfiguration configuration,
+                                                 BeanProvider<ApiGatewayManagementApiClientBuilder> builderProvider,
+                                                 BeanProvider<ApiGatewayManagementApiAsyncClientBuilder> asyncBuilderProvider,
+                                                 SendGovernorConfiguration sendGovernorConfiguration) {
+        this(configuration,
+                endpoint -> withoutRetries(builderProvider.get(), sendGovernorConfiguration.isEnabled())
+                        .endpointOverride(endpoint)
+                        .build(),
+                endpoint -> withoutRetries(asyncBuilderProvider.get(), sendGovernorConfiguration.isEnabled())
+                        .endpointOverride(endpoint)
+                        .build());
+    }
+
+    ApiGatewayManagementApiClientRegistry(ApiGatewayManagementApiClientConfiguration configuration,
+                                          Function<URI, ApiGatewayManagementApiClient> clientFactory,
+                                          Function<URI, ApiGatewayManagementApiAsyncClient> asyncClientFactory) {
+        this.endpointOverride = configuration.getEndpointOverride();
+        int maximumEndpoints = configuration.getMaximumSize();
+        this.endpoints = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Endpoint, URI> eldest) {
+                return size() > maximumEndpoints;
+            }
+        };
+        this.clients = new EndpointClientCache<>(clientFactory,
+                configuration.getMaximumSize(),
+                configuration.getIdleTimeout().toNanos(),
+                System::nanoTime);
+        this.asyncClients = new EndpointClientCache<>(asyncClientFactory,
+                configuration.getMaximumSize(),
+                configuration.getIdleTimeout().toNanos(),
+                System::nanoTime);
+    }
+
+    /**
+     * Performs a blocking call with the client of a connection's endpoint.
+     */
+    public <T> T call(@NonNull @NotNull @Valid WebSocketConnection connection,
+                      @NonNull Function<ApiGatewayManagementApiClient, T> call) {
+        return call(endpointOf(connection), call);
+    }
+
+    public <T> T call(@NonNull URI endpoint, @NonNull Function<ApiGatewayManagementApiClient, T> call) {
+        return clients.call(endpoint, call);
+    }
+
+    /**
+     * Starts an asynchronous call with the client of a connection's endpoint.
+     */
+    @NonNull
+    public <T> CompletableFuture<T> callAsync(@NonNull @NotNull @Valid WebSocketConnection connection,
+                                              @NonNull Function<ApiGatewayManagementApiAsyncClient, CompletableFuture<T>> call) {
+        return callAsync(endpointOf(connection), call);
+    }
+
+    @NonNull
+    public <T> CompletableFuture<T> callAsync(@NonNull URI endpoint,
+                                              @NonNull Function<ApiGatewayManagementApiAsyncClient, CompletableFuture<T>> call) {
+        return asyncClients.callAsync(endpoint, call);
+    }
+
+    @NonNull
+    private URI endpointOf(@NonNull WebSocketConnection connection) {
+        Endpoint key = new Endpoint(connection);
+        URI endpoint;
+        synchronized (endpoints) {
+            endpoint = endpoints.get(key);
+        }
+        if (endpoint == null) {
+            endpoint = resolve(connection);
+            synchronized (endpoints) {
+                endpoints.put(key, endpoint);
+            }
+        }
+        return endpoint;
+    }
+
+    @NonNull
+    private URI resolve(@NonNull WebSocketConnection connection) {
+        if (endpointOverride == null) {
+            return WebSocketConnectionUtils.uriOf(connection);
+        }
+        String base = endpointOverride.toString();
+        return URI.create(base.endsWith("/") ? base + connection.getStage() : base + '/' + connection.getStage());
+    }
+
+    public long getHitCount() {
+        return clients.getHitCount() + asyncClients.getHitCount();
+    }
+
+    public long getMissCount() {
+        return clients.getMissCount() + asyncClients.getMissCount();
+    }
+
+    public long getEvictionCount() {
+        return clients.getEvictionCount() + asyncClients.getEvictionCount();
+    }
+
+    public int size() {
+        return clients.size() + asyncClients.size();
+    }
+
+    /**
+     * Drops every cached client, the next lookup builds a fresh one.
+     */
+    public void invalidateAll() {
+        clients.invalidateAll();
+        asyncClients.invalidateAll();
+    }
+
+    @PreDestroy
+    public void close() {
+        clients.close();
+        asyncClients.close();
+    }
+
+    /**
+     * The attributes of a connection its management endpoint is resolved from.
+     */
+    private static final class Endpoint {
+        private final String apiId;
+        private final String stage;
+        private final String region;
+        private final String domainName;
+        private final int hashCode;
+
+        private Endpoint(WebSocketConnection connection) {
+            this.apiId = connection.getApiId();
+            this.stage = connection.getStage();
+            this.region = connection.getRegion();
+            this.domainName = connection.getDomainName();
+            this.hashCode = Objects.hash(apiId, stage, region, domainName);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Endpoint)) {
+                return false;
+            }
+            Endpoint that = (Endpoint) o;
+            return apiId.equals(that.apiId)
+                    && stage.equals(that.stage)
+                    && Objects.equals(region, that.region)
+                    && Objects.equals(domainName, that.domainName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * {@link SendGovernor} retries posts itself, so that it sees every throttled attempt, which SDK retries would hide.
+     */
+    private static <B extends SdkClientBuilder<B, ?>> B withoutRetries(B builder, boolean governed) {
+        if (!governed) {
+            return builder;
+        }
+        ClientOverrideConfiguration overrideConfiguration = builder.overrideConfiguration();
+        return builder.overrideConfiguration((overrideConfiguration != null ? overrideConfiguration.toBuilder() : ClientOverrideConfiguration.builder())
+                .retryPolicy(RetryPolicy.none())
+                .build());
+    }
+}
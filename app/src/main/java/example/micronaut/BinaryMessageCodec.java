@@ -0,0 +1,107 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.micronaut.core.annotation.NonNull;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Base of the codecs which transcode a JSON message to a binary format with the same data model. The message is read
+ * into a tree first, because both formats put the size of a map or an array before its elements. Text which is not
+ * a single JSON value, such as {@code 42 is the answer}, is encoded as a string.
+ */
+public abstract class BinaryMessageCodec implements MessageCodec {
+    private final ObjectReader reader;
+
+    protected BinaryMessageCodec(ObjectMapper objectMapper) {
+        this.reader = objectMapper.reader().with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    }
+
+    @Override
+    @NonNull
+    public SdkBytes encode(@NonNull SdkBytes json) {
+        byte[] bytes = json.asByteArrayUnsafe();
+        JsonNode node;
+        try {
+            node = reader.readTree(bytes);
+        } catch (JsonProcessingException e) {
+            node = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (node == null || node.isMissingNode()) {
+            node = TextNode.valueOf(new String(bytes, StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        write(out, node);
+        return SdkBytes.fromByteArrayUnsafe(out.toByteArray());
+    }
+
+    private void write(ByteArrayOutputStream out, JsonNode node) {
+        switch (node.getNodeType()) {
+            case OBJECT:
+                writeMapHeader(out, node.size());
+                for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    writeString(out, field.getKey().getBytes(StandardCharsets.UTF_8));
+                    write(out, field.getValue());
+                }
+                break;
+            case ARRAY:
+                writeArrayHeader(out, node.size());
+                for (JsonNode element : node) {
+                    write(out, element);
+                }
+                break;
+            case STRING:
+                writeString(out, node.textValue().getBytes(StandardCharsets.UTF_8));
+                break;
+            case NUMBER:
+                if (node.isIntegralNumber() && node.canConvertToLong()) {
+                    writeLong(out, node.longValue());
+                } else {
+                    writeDouble(out, node.doubleValue());
+                }
+                break;
+            case BOOLEAN:
+                writeBoolean(out, node.booleanValue());
+                break;
+            default:
+                writeNull(out);
+        }
+    }
+
+    protected abstract void writeMapHeader(ByteArrayOutputStream out, int size);
+
+    protected abstract void writeArrayHeader(ByteArrayOutputStream out, int size);
+
+    protected abstract void writeString(ByteArrayOutputStream out, byte[] utf8);
+
+    protected abstract void writeLong(ByteArrayOutputStream out, long value);
+
+    protected abstract void writeDouble(ByteArrayOutputStream out, double value);
+
+    protected abstract void writeBoolean(ByteArrayOutputStream out, boolean value);
+
+    protected abstract void writeNull(ByteArrayOutputStream out);
+
+    /**
+     * Writes the {@code bytes} low-order bytes of a value, most significant first.
+     */
+    protected static void writeBigEndian(ByteArrayOutputStream out, long value, int bytes) {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import javax.validation.constraints.Positive;
+
+@ConfigurationProperties("broadcast")
+public interface BroadcastConfiguration {
+
+    /**
+     * @return Maximum number of {@code postToConnection} calls in flight during a broadcast. The default matches the
+     * default maximum concurrency of the Netty async HTTP client.
+     */
+    @Positive
+    @Bindable(defaultValue = "50")
+    int getMaxInFlight();
+}
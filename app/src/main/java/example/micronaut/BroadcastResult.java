@@ -0,0 +1,59 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.Introspected;
+
+/**
+ * Outcome of a broadcast.
+ */
+@Introspected
+public class BroadcastResult {
+    private final long delivered;
+    private final long gone;
+    private final long failed;
+    private final boolean interrupted;
+
+    public BroadcastResult(long delivered, long gone, long failed, boolean interrupted) {
+        this.delivered = delivered;
+        this.gone = gone;
+        this.failed = failed;
+        this.interrupted = interrupted;
+    }
+
+    /**
+     * @return Number of connections the payload was posted to.
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * @return Number of connections which no longer exist (HTTP 410).
+     */
+    public long getGone() {
+        return gone;
+    }
+
+    /**
+     * @return Number of posts which failed for any other reason.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return Whether a resumable broadcast stopped before reaching every connection, see {@link FanOutCursor}.
+     */
+    public boolean isInterrupted() {
+        return interrupted;
+    }
+
+    @Override
+    public String toString() {
+        return "BroadcastResult{" +
+                "delivered=" + delivered +
+                ", gone=" + gone +
+                ", failed=" + failed +
+                ", interrupted=" + interrupted +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Caches the subscribers of topics in the {@link CachingWebsocketConnectionRepository}, so that a publish reads them
+ * once per {@link ConnectionCacheConfiguration#getTtl()} in a warm container, and connections deleted or reported gone
+ * are filtered out of them. Subscriptions this container changes invalidate the cached list of their topic.
+ */
+public class CachingTopicSubscriptionRepository implements TopicSubscriptionRepository {
+    private final TopicSubscriptionRepository delegate;
+    private final CachingWebsocketConnectionRepository cache;
+
+    public CachingTopicSubscriptionRepository(@NonNull TopicSubscriptionRepository delegate,
+                                              @NonNull CachingWebsocketConnectionRepository cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @NonNull
+    public TopicSubscriptionRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void subscribe(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                          @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        delegate.subscribe(websocketConnection, topic);
+        cache.invalidate(key(websocketConnection, topic));
+    }
+
+    @Override
+    public void unsubscribe(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                            @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        delegate.unsubscribe(websocketConnection, topic);
+        cache.invalidate(key(websocketConnection, topic));
+    }
+
+    /**
+     * Does not invalidate the topics of the connection, which are not known here. A connection unsubscribed from every
+     * topic is disconnecting, and filtered out of the cached lists once deleted.
+     */
+    @Override
+    public void unsubscribeAll(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        delegate.unsubscribeAll(websocketConnection);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> subscribeAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                                                  @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        return delegate.subscribeAsync(websocketConnection, topic)
+                .thenRun(() -> cache.invalidate(key(websocketConnection, topic)));
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> unsubscribeAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                                                    @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        return delegate.unsubscribeAsync(websocketConnection, topic)
+                .thenRun(() -> cache.invalidate(key(websocketConnection, topic)));
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> unsubscribeAllAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return delegate.unsubscribeAllAsync(websocketConnection);
+    }
+
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByTopic(@NonNull @NotBlank String apiId,
+                                                            @NonNull @NotBlank String stage,
+                                                            @NonNull @NotBlank String topic) {
+        return cache.read(key(apiId, stage, topic), () -> delegate.findAllByTopic(apiId, stage, topic));
+    }
+
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByTopic(@NonNull @NotBlank String apiId,
+                                                            @NonNull @NotBlank String stage,
+                                                            @NonNull @NotBlank String topic,
+                                                            @NonNull FanOutCursor cursor) {
+        return cache.read(key(apiId, stage, topic), cursor,
+                () -> delegate.findAllByTopic(apiId, stage, topic),
+                () -> delegate.findAllByTopic(apiId, stage, topic, cursor));
+    }
+
+    /**
+     * Served by the delegate, so that counters maintained elsewhere are read as is.
+     */
+    @Override
+    public long countByTopic(@NonNull @NotBlank String apiId,
+                             @NonNull @NotBlank String stage,
+                             @NonNull @NotBlank String topic) {
+        return delegate.countByTopic(apiId, stage, topic);
+    }
+
+    @NonNull
+    private static String key(@NonNull WebSocketConnection connection, @NonNull String topic) {
+        return key(connection.getApiId(), connection.getStage(), topic);
+    }
+
+    /**
+     * Stage names cannot contain {@code #}, so a topic's key does not collide with the key of a stage's connections.
+     */
+    @NonNull
+    private static String key(@NonNull String apiId, @NonNull String stage, @NonNull String topic) {
+        return apiId + '/' + stage + '#' + topic;
+    }
+}
@@ -0,0 +1,34 @@
+package example.micronaut;
+
+import io.micronaut.context.BeanProvider;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.core.util.StringUtils;
+import jakarta.inject.Singleton;
+
+/**
+ * Wraps the {@link TopicSubscriptionRepository} in a {@link CachingTopicSubscriptionRepository} when
+ * {@code connection-cache.enabled} is set, caching in the {@link CachingWebsocketConnectionRepository} which
+ * {@link CachingWebsocketConnectionRepositoryListener} wraps the connection repository in.
+ */
+@Requires(property = "connection-cache.enabled", value = StringUtils.TRUE, defaultValue = StringUtils.FALSE)
+@Singleton
+public class CachingTopicSubscriptionRepositoryListener implements BeanCreatedEventListener<TopicSubscriptionRepository> {
+    private final BeanProvider<WebsocketConnectionRepository> websocketConnectionRepository;
+
+    public CachingTopicSubscriptionRepositoryListener(BeanProvider<WebsocketConnectionRepository> websocketConnectionRepository) {
+        this.websocketConnectionRepository = websocketConnectionRepository;
+    }
+
+    @Override
+    public TopicSubscriptionRepository onCreated(BeanCreatedEvent<TopicSubscriptionRepository> event) {
+        TopicSubscriptionRepository repository = event.getBean();
+        WebsocketConnectionRepository connections = websocketConnectionRepository.get();
+        if (repository instanceof CachingTopicSubscriptionRepository
+                || !(connections instanceof CachingWebsocketConnectionRepository)) {
+            return repository;
+        }
+        return new CachingTopicSubscriptionRepository(repository, (CachingWebsocketConnectionRepository) connections);
+    }
+}
@@ -0,0 +1,416 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * In-process cache in front of a {@link WebsocketConnectionRepository}, so that repeated fan-outs served by a warm
+ * container do not read the whole connection set every time. The subscribers of topics are cached alongside, see
+ * {@link CachingTopicSubscriptionRepository}. Connection lists are cached per API and stage, or topic, for
+ * {@link ConnectionCacheConfiguration#getTtl()}, in least-recently-used order up to
+ * {@link ConnectionCacheConfiguration#getMaximumSize()} lists. Connections this container saves invalidate the cached
+ * list; connections it deletes, including those reported gone, are filtered out of every read for
+ * {@link ConnectionCacheConfiguration#getGoneTtl()}.
+ */
+public class CachingWebsocketConnectionRepository implements WebsocketConnectionRepository {
+    public static final String METRIC_CACHE_HITS = "ConnectionCacheHits";
+    public static final String METRIC_CACHE_MISSES = "ConnectionCacheMisses";
+    static final String PARTITION_CACHED = "cached";
+
+    private final WebsocketConnectionRepository delegate;
+    private final MetricsRecorder metricsRecorder;
+    private final LongSupplier ticker;
+    private final int maximumSize;
+    private final int maximumConnections;
+    private final long ttlNanos;
+    private final long goneTtlNanos;
+    private final int maximumGone;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> gone = new LinkedHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long generation;
+
+    public CachingWebsocketConnectionRepository(@NonNull WebsocketConnectionRepository delegate,
+                                                @NonNull ConnectionCacheConfiguration configuration,
+                                                @NonNull MetricsRecorder metricsRecorder,
+                                                @NonNull LongSupplier ticker) {
+        this.delegate = delegate;
+        this.metricsRecorder = metricsRecorder;
+        this.ticker = ticker;
+        this.maximumSize = configuration.getMaximumSize();
+        this.maximumConnections = configuration.getMaximumConnections();
+        this.ttlNanos = configuration.getTtl().toNanos();
+        this.goneTtlNanos = configuration.getGoneTtl().toNanos();
+        this.maximumGone = configuration.getMaximumGone();
+    }
+
+    @NonNull
+    public WebsocketConnectionRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void save(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        delegate.save(websocketConnection);
+        onSaved(List.of(websocketConnection));
+    }
+
+    @Override
+    public void delete(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        markGone(List.of(websocketConnection));
+        delegate.delete(websocketConnection);
+    }
+
+    @Override
+    public void heartbeat(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        delegate.heartbeat(websocketConnection);
+    }
+
+    @Override
+    public void saveAll(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections) {
+        delegate.saveAll(websocketConnections);
+        onSaved(websocketConnections);
+    }
+
+    @Override
+    public void deleteAll(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections) {
+        markGone(websocketConnections);
+        delegate.deleteAll(websocketConnections);
+    }
+
+    @Override
+    public void deleteAllWithSubscriptions(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections,
+                                           @NonNull TopicSubscriptionRepository topicSubscriptionRepository) {
+        markGone(websocketConnections);
+        delegate.deleteAllWithSubscriptions(websocketConnections, topicSubscriptionRepository);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> saveAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return delegate.saveAsync(websocketConnection).thenRun(() -> onSaved(List.of(websocketConnection)));
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> deleteAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        markGone(List.of(websocketConnection));
+        return delegate.deleteAsync(websocketConnection);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> heartbeatAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return delegate.heartbeatAsync(websocketConnection);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<WebSocketConnection> heartbeatAndGetAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return delegate.heartbeatAndGetAsync(websocketConnection);
+    }
+
+    /**
+     * Serves the cached list when it has not expired. Otherwise pages are read lazily from the delegate and the list is
+     * cached once the stream has been consumed to the end, unless it exceeds
+     * {@link ConnectionCacheConfiguration#getMaximumConnections()} or a save invalidated it meanwhile.
+     */
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                                                    @NonNull @NotBlank String stage) {
+        return read(key(apiId, stage), () -> delegate.findAllByApiIdAndStage(apiId, stage));
+    }
+
+    /**
+     * Reads like {@link #findAllByApiIdAndStage(String, String)}, see {@link #read(String, FanOutCursor, Supplier, Supplier)}
+     * for how the cursor is kept.
+     */
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                                                    @NonNull @NotBlank String stage,
+                                                                    @NonNull FanOutCursor cursor) {
+        return read(key(apiId, stage), cursor,
+                () -> delegate.findAllByApiIdAndStage(apiId, stage),
+                () -> delegate.findAllByApiIdAndStage(apiId, stage, cursor));
+    }
+
+    /**
+     * Served by the delegate, so that counters maintained elsewhere are read as is.
+     */
+    @Override
+    public long countByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                     @NonNull @NotBlank String stage) {
+        return delegate.countByApiIdAndStage(apiId, stage);
+    }
+
+    /**
+     * Serves the pages of a list from the cache, else reads them from the delegate and caches them once consumed to the
+     * end.
+     *
+     * @param key   Key of the list, which {@link #invalidate(String)} drops
+     * @param pages Reads the list from the delegate
+     */
+    @NonNull
+    Stream<List<WebSocketConnection>> read(@NonNull String key,
+                                           @NonNull Supplier<Stream<List<WebSocketConnection>>> pages) {
+        List<List<WebSocketConnection>> cached = cached(key);
+        if (cached != null) {
+            return cached.stream().map(this::withoutGone);
+        }
+        return load(key, pages.get());
+    }
+
+    /**
+     * Reads the pages of a list from the positions of a cursor. Pages served from the cache are numbered as the
+     * {@value #PARTITION_CACHED} partition of the cursor, since cached lists have no page keys of the delegate. A fan-out
+     * resumed at the delegate's page keys is read through from the delegate. One resumed in the cached list reads it from
+     * its position if this container still caches it, else starts the list over from the delegate.
+     *
+     * @param pages       Reads the list from the delegate
+     * @param cursorPages Reads the list from the delegate at the positions of the cursor
+     */
+    @NonNull
+    Stream<List<WebSocketConnection>> read(@NonNull String key,
+                                           @NonNull FanOutCursor cursor,
+                                           @NonNull Supplier<Stream<List<WebSocketConnection>>> pages,
+                                           @NonNull Supplier<Stream<List<WebSocketConnection>>> cursorPages) {
+        boolean resumedInCache = cursor.resumes(PARTITION_CACHED);
+        if (cursor.isResumed() && !resumedInCache) {
+            return cursorPages.get().map(this::withoutGone);
+        }
+        List<List<WebSocketConnection>> cached = cached(key);
+        if (cached != null) {
+            return cursor.numbered(PARTITION_CACHED, cached.stream()).map(this::withoutGone);
+        }
+        if (resumedInCache) {
+            cursor.restart(PARTITION_CACHED);
+            return cursor.numbered(PARTITION_CACHED, load(key, pages.get()));
+        }
+        return load(key, cursorPages.get());
+    }
+
+    /**
+     * Drops a cached list.
+     */
+    void invalidate(@NonNull String key) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Drops every cached list and gone connection.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+            gone.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return The cached list, {@code null} if it is not cached or has expired. Counts the hit or miss.
+     */
+    private List<List<WebSocketConnection>> cached(String key) {
+        List<List<WebSocketConnection>> pages;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && ticker.getAsLong() - entry.loadedAt > ttlNanos) {
+                entries.remove(key);
+                entry = null;
+            }
+            pages = entry == null ? null : entry.pages;
+        }
+        if (pages != null) {
+            hits.increment();
+            metricsRecorder.count(METRIC_CACHE_HITS);
+        } else {
+            misses.increment();
+            metricsRecorder.count(METRIC_CACHE_MISSES);
+        }
+        return pages;
+    }
+
+    @NonNull
+    private Stream<List<WebSocketConnection>> load(@NonNull String key, @NonNull Stream<List<WebSocketConnection>> pages) {
+        Loader loader = new Loader(key, pages.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(loader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(this::withoutGone)
+                .onClose(pages::close);
+    }
+
+    private void onSaved(Collection<? extends WebSocketConnection> connections) {
+        synchronized (entries) {
+            generation++;
+            for (WebSocketConnection connection : connections) {
+                entries.remove(key(connection.getApiId(), connection.getStage()));
+                gone.remove(key(connection));
+            }
+        }
+    }
+
+    private void markGone(Collection<? extends WebSocketConnection> connections) {
+        synchronized (entries) {
+            long expiresAt = ticker.getAsLong() + goneTtlNanos;
+            for (WebSocketConnection connection : connections) {
+                String key = key(connection);
+                gone.remove(key);
+                gone.put(key, expiresAt);
+            }
+            Iterator<Long> iterator = gone.values().iterator();
+            int size = gone.size();
+            while (size > maximumGone && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                size--;
+            }
+        }
+    }
+
+    @NonNull
+    private List<WebSocketConnection> withoutGone(@NonNull List<WebSocketConnection> page) {
+        synchronized (entries) {
+            if (gone.isEmpty()) {
+                return page;
+            }
+            long now = ticker.getAsLong();
+            List<WebSocketConnection> result = null;
+            for (int i = 0; i < page.size(); i++) {
+                WebSocketConnection connection = page.get(i);
+                String key = key(connection);
+                Long expiresAt = gone.get(key);
+                if (expiresAt != null && now - expiresAt > 0) {
+                    gone.remove(key);
+                    expiresAt = null;
+                }
+                if (expiresAt != null && result == null) {
+                    result = new ArrayList<>(page.subList(0, i));
+                } else if (expiresAt == null && result != null) {
+                    result.add(connection);
+                }
+            }
+            return result != null ? result : page;
+        }
+    }
+
+    private void put(String key, List<List<WebSocketConnection>> pages, long loadedGeneration) {
+        synchronized (entries) {
+            if (generation != loadedGeneration) {
+                return;
+            }
+            entries.put(key, new Entry(List.copyOf(pages), ticker.getAsLong()));
+            Iterator<Entry> iterator = entries.values().iterator();
+            int size = entries.size();
+            while (size > maximumSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                size--;
+            }
+        }
+    }
+
+    @NonNull
+    private static String key(@NonNull String apiId, @NonNull String stage) {
+        return apiId + '/' + stage;
+    }
+
+    @NonNull
+    private static String key(@NonNull WebSocketConnection connection) {
+        return connection.getApiId() + '/' + connection.getStage() + '/' + connection.getConnectionId();
+    }
+
+    private static final class Entry {
+        private final List<List<WebSocketConnection>> pages;
+        private final long loadedAt;
+
+        private Entry(List<List<WebSocketConnection>> pages, long loadedAt) {
+            this.pages = pages;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Passes pages through while collecting them, and caches them once the delegate is exhausted.
+     */
+    private final class Loader implements Iterator<List<WebSocketConnection>> {
+        private final String key;
+        private final Iterator<List<WebSocketConnection>> pages;
+        private final long loadedGeneration;
+        private List<List<WebSocketConnection>> loaded = new ArrayList<>();
+        private int connections;
+
+        private Loader(String key, Iterator<List<WebSocketConnection>> pages) {
+            this.key = key;
+            this.pages = pages;
+            synchronized (entries) {
+                this.loadedGeneration = generation;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = pages.hasNext();
+            if (!hasNext && loaded != null) {
+                put(key, loaded, loadedGeneration);
+                loaded = null;
+            }
+            return hasNext;
+        }
+
+        @Override
+        public List<WebSocketConnection> next() {
+            List<WebSocketConnection> page = pages.next();
+            if (loaded != null) {
+                connections += page.size();
+                if (connections > maximumConnections) {
+                    loaded = null;
+                } else {
+                    loaded.add(List.copyOf(page));
+                }
+            }
+            return page;
+        }
+    }
+}
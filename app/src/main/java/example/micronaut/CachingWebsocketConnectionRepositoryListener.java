@@ -0,0 +1,35 @@
+package example.micronaut;
+
+import io.micronaut.context.BeanProvider;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.core.util.StringUtils;
+import jakarta.inject.Singleton;
+
+/**
+ * Wraps the {@link WebsocketConnectionRepository} in a {@link CachingWebsocketConnectionRepository} when
+ * {@code connection-cache.enabled} is set. Its dependencies are resolved lazily because bean created listeners are
+ * instantiated before type converters, such as the one binding {@link java.time.Duration}, are registered.
+ */
+@Requires(property = "connection-cache.enabled", value = StringUtils.TRUE, defaultValue = StringUtils.FALSE)
+@Singleton
+public class CachingWebsocketConnectionRepositoryListener implements BeanCreatedEventListener<WebsocketConnectionRepository> {
+    private final BeanProvider<ConnectionCacheConfiguration> configuration;
+    private final BeanProvider<MetricsRecorder> metricsRecorder;
+
+    public CachingWebsocketConnectionRepositoryListener(BeanProvider<ConnectionCacheConfiguration> configuration,
+                                                        BeanProvider<MetricsRecorder> metricsRecorder) {
+        this.configuration = configuration;
+        this.metricsRecorder = metricsRecorder;
+    }
+
+    @Override
+    public WebsocketConnectionRepository onCreated(BeanCreatedEvent<WebsocketConnectionRepository> event) {
+        WebsocketConnectionRepository repository = event.getBean();
+        if (repository instanceof CachingWebsocketConnectionRepository) {
+            return repository;
+        }
+        return new CachingWebsocketConnectionRepository(repository, configuration.get(), metricsRecorder.get(), System::nanoTime);
+    }
+}
@@ -0,0 +1,100 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encodes messages as CBOR (RFC 8949) with definite lengths. Doubles which a float represents exactly are written as
+ * single precision.
+ */
+@Singleton
+public class CborMessageCodec extends BinaryMessageCodec {
+    public static final String NAME = "cbor";
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_MAP = 5;
+
+    public CborMessageCodec(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected void writeMapHeader(ByteArrayOutputStream out, int size) {
+        writeHeader(out, MAJOR_MAP, size);
+    }
+
+    @Override
+    protected void writeArrayHeader(ByteArrayOutputStream out, int size) {
+        writeHeader(out, MAJOR_ARRAY, size);
+    }
+
+    @Override
+    protected void writeString(ByteArrayOutputStream out, byte[] utf8) {
+        writeHeader(out, MAJOR_TEXT, utf8.length);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    @Override
+    protected void writeLong(ByteArrayOutputStream out, long value) {
+        if (value >= 0) {
+            writeHeader(out, MAJOR_UNSIGNED, value);
+        } else {
+            writeHeader(out, MAJOR_NEGATIVE, -1 - value);
+        }
+    }
+
+    @Override
+    protected void writeDouble(ByteArrayOutputStream out, double value) {
+        float single = (float) value;
+        if (single == value) {
+            out.write(0xfa);
+            writeBigEndian(out, Float.floatToIntBits(single), 4);
+        } else {
+            out.write(0xfb);
+            writeBigEndian(out, Double.doubleToLongBits(value), 8);
+        }
+    }
+
+    @Override
+    protected void writeBoolean(ByteArrayOutputStream out, boolean value) {
+        out.write(value ? 0xf5 : 0xf4);
+    }
+
+    @Override
+    protected void writeNull(ByteArrayOutputStream out) {
+        out.write(0xf6);
+    }
+
+    /**
+     * Writes a major type with its argument, unsigned, in the shortest form.
+     */
+    private static void writeHeader(ByteArrayOutputStream out, int major, long argument) {
+        int type = major << 5;
+        if (argument < 24) {
+            out.write(type | (int) argument);
+        } else if (argument < 0x100) {
+            out.write(type | 24);
+            writeBigEndian(out, argument, 1);
+        } else if (argument < 0x10000) {
+            out.write(type | 25);
+            writeBigEndian(out, argument, 2);
+        } else if (argument < 0x100000000L) {
+            out.write(type | 26);
+            writeBigEndian(out, argument, 4);
+        } else {
+            out.write(type | 27);
+            writeBigEndian(out, argument, 8);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.core.annotation.NonNull;
+import software.amazon.awssdk.core.SdkBytes;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers outbound messages per connection and merges those pending for the same connection into one
+ * {@code postToConnection} call. Every post, even of a single message, is a JSON array with one element per message:
+ * a message which is a JSON value is an element as is, any other text is a JSON string, as {@link MessageCodec}s
+ * encode it. A batch is posted once it holds {@link OutboundCoalescingConfiguration#getMaximumMessages()} messages, once
+ * another message would make its array longer than {@link OutboundCoalescingConfiguration#getMaximumBytes()}, once
+ * {@link OutboundCoalescingConfiguration#getFlushWindow()} has passed since its first message, or on {@link #flush()}.
+ * Every message of a batch completes with the outcome of its post.
+ */
+public class CoalescingApiGatewayManagementApiClientAsyncSender implements ApiGatewayManagementApiClientAsyncSender {
+    public static final String METRIC_COALESCING_RATIO = "OutboundCoalescingRatio";
+
+    private final ApiGatewayManagementApiClientAsyncSender delegate;
+    private final JsonFactory jsonFactory;
+    private final MetricsRecorder metricsRecorder;
+    private final long flushWindowMillis;
+    private final int maximumMessages;
+    private final int maximumBytes;
+    private final Map<String, Batch> batches = new HashMap<>();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder posts = new LongAdder();
+    private final LongAdder messagesSinceFlush = new LongAdder();
+    private final LongAdder postsSinceFlush = new LongAdder();
+
+    public CoalescingApiGatewayManagementApiClientAsyncSender(@NonNull ApiGatewayManagementApiClientAsyncSender delegate,
+                                                              @NonNull OutboundCoalescingConfiguration configuration,
+                                                              @NonNull MetricsRecorder metricsRecorder,
+                                                              @NonNull ObjectMapper objectMapper) {
+        this.delegate = delegate;
+        this.jsonFactory = objectMapper.getFactory();
+        this.metricsRecorder = metricsRecorder;
+        this.flushWindowMillis = configuration.getFlushWindow().toMillis();
+        this.maximumMessages = configuration.getMaximumMessages();
+        this.maximumBytes = configuration.getMaximumBytes();
+    }
+
+    @NonNull
+    public ApiGatewayManagementApiClientAsyncSender getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<DeliveryStatus> send(@NonNull @NotNull @Valid WebSocketMessage webSocketMessage) {
+        return send(webSocketMessage, SdkBytes.fromString(webSocketMessage.getMessage(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<DeliveryStatus> send(@NonNull @NotNull @Valid WebSocketConnection connection,
+                                                  @NonNull SdkBytes sdkBytes) {
+        messages.increment();
+        messagesSinceFlush.increment();
+        CompletableFuture<DeliveryStatus> future = new CompletableFuture<>();
+        byte[] element = element(sdkBytes.asByteArrayUnsafe());
+        Batch previous = null;
+        Batch full = null;
+        Batch scheduled = null;
+        String key = key(connection);
+        synchronized (batches) {
+            Batch batch = batches.get(key);
+            if (batch != null && batch.bytes + element.length + 1 > maximumBytes) {
+                batches.remove(key);
+                previous = batch;
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(key, connection);
+                batches.put(key, batch);
+                scheduled = batch;
+            }
+            batch.add(element, future);
+            if (batch.size() >= maximumMessages || batch.bytes >= maximumBytes) {
+                batches.remove(key);
+                full = batch;
+                scheduled = null;
+            }
+        }
+        post(previous);
+        post(full);
+        if (scheduled != null) {
+            Batch batch = scheduled;
+            CompletableFuture.runAsync(() -> flush(batch),
+                    CompletableFuture.delayedExecutor(flushWindowMillis, TimeUnit.MILLISECONDS));
+        }
+        return future;
+    }
+
+    /**
+     * Posts every pending batch and records the coalescing ratio, messages per post, since the previous flush.
+     */
+    @Override
+    @NonNull
+    public CompletableFuture<Void> flush() {
+        List<Batch> pending;
+        synchronized (batches) {
+            pending = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+        List<CompletableFuture<DeliveryStatus>> futures = new ArrayList<>();
+        for (Batch batch : pending) {
+            post(batch);
+            futures.addAll(batch.futures);
+        }
+        long postCount = postsSinceFlush.sumThenReset();
+        long messageCount = messagesSinceFlush.sumThenReset();
+        if (postCount > 0) {
+            metricsRecorder.record(METRIC_COALESCING_RATIO, MetricsRecorder.Unit.NONE, (double) messageCount / postCount);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .handle((ignored, throwable) -> null);
+    }
+
+    public long getMessageCount() {
+        return messages.sum();
+    }
+
+    public long getPostCount() {
+        return posts.sum();
+    }
+
+    /**
+     * @return Messages per {@code postToConnection} call since this sender was created.
+     */
+    public double getCoalescingRatio() {
+        long postCount = posts.sum();
+        return postCount == 0 ? 0 : (double) messages.sum() / postCount;
+    }
+
+    private void flush(@NonNull Batch batch) {
+        synchronized (batches) {
+            if (!batches.remove(batch.key, batch)) {
+                return;
+            }
+        }
+        post(batch);
+    }
+
+    private void post(Batch batch) {
+        if (batch == null) {
+            return;
+        }
+        posts.increment();
+        postsSinceFlush.increment();
+        CompletableFuture<DeliveryStatus> post;
+        try {
+            post = delegate.send(batch.connection, batch.frame());
+        } catch (RuntimeException e) {
+            post = CompletableFuture.failedFuture(e);
+        }
+        post.whenComplete((status, throwable) -> {
+            for (CompletableFuture<DeliveryStatus> future : batch.futures) {
+                if (throwable == null) {
+                    future.complete(status);
+                } else {
+                    future.completeExceptionally(throwable);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The message as an element of a JSON array: as is if it is a single JSON value, else as a JSON string
+     */
+    @NonNull
+    private byte[] element(@NonNull byte[] message) {
+        return isJson(message) ? message : jsonString(new String(message, StandardCharsets.UTF_8));
+    }
+
+    private boolean isJson(byte[] bytes) {
+        try (JsonParser parser = jsonFactory.createParser(bytes)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (JsonProcessingException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] jsonString(String str) {
+        StringBuilder sb = new StringBuilder(str.length() + 2).append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @NonNull
+    private static String key(@NonNull WebSocketConnection connection) {
+        return connection.getApiId() + '/' + connection.getStage() + '/' + connection.getConnectionId();
+    }
+
+    private static final class Batch {
+        private final String key;
+        private final WebSocketConnection connection;
+        private final List<byte[]> elements = new ArrayList<>();
+        private final List<CompletableFuture<DeliveryStatus>> futures = new ArrayList<>();
+        // length of the JSON array, counting the opening bracket and a separator or the closing bracket per element
+        private int bytes = 1;
+
+        private Batch(String key, WebSocketConnection connection) {
+            this.key = key;
+            this.connection = connection;
+        }
+
+        private void add(byte[] element, CompletableFuture<DeliveryStatus> future) {
+            elements.add(element);
+            futures.add(future);
+            bytes += element.length + 1;
+        }
+
+        private int size() {
+            return elements.size();
+        }
+
+        private SdkBytes frame() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes);
+            out.write('[');
+            for (int i = 0; i < elements.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(elements.get(i), 0, elements.get(i).length);
+            }
+            out.write(']');
+            return SdkBytes.fromByteArrayUnsafe(out.toByteArray());
+        }
+    }
+}
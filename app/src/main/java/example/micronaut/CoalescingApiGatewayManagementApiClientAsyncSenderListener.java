@@ -0,0 +1,39 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.BeanProvider;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.core.util.StringUtils;
+import jakarta.inject.Singleton;
+
+/**
+ * Wraps the {@link ApiGatewayManagementApiClientAsyncSender} in a {@link CoalescingApiGatewayManagementApiClientAsyncSender}
+ * when {@code outbound-coalescing.enabled} is set. Its dependencies are resolved lazily, see
+ * {@link CachingWebsocketConnectionRepositoryListener}.
+ */
+@Requires(property = "outbound-coalescing.enabled", value = StringUtils.TRUE, defaultValue = StringUtils.FALSE)
+@Singleton
+public class CoalescingApiGatewayManagementApiClientAsyncSenderListener implements BeanCreatedEventListener<ApiGatewayManagementApiClientAsyncSender> {
+    private final BeanProvider<OutboundCoalescingConfiguration> configuration;
+    private final BeanProvider<MetricsRecorder> metricsRecorder;
+    private final BeanProvider<ObjectMapper> objectMapper;
+
+    public CoalescingApiGatewayManagementApiClientAsyncSenderListener(BeanProvider<OutboundCoalescingConfiguration> configuration,
+                                                                      BeanProvider<MetricsRecorder> metricsRecorder,
+                                                                      BeanProvider<ObjectMapper> objectMapper) {
+        this.configuration = configuration;
+        this.metricsRecorder = metricsRecorder;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ApiGatewayManagementApiClientAsyncSender onCreated(BeanCreatedEvent<ApiGatewayManagementApiClientAsyncSender> event) {
+        ApiGatewayManagementApiClientAsyncSender sender = event.getBean();
+        if (sender instanceof CoalescingApiGatewayManagementApiClientAsyncSender) {
+            return sender;
+        }
+        return new CoalescingApiGatewayManagementApiClientAsyncSender(sender, configuration.get(), metricsRecorder.get(), objectMapper.get());
+    }
+}
@@ -0,0 +1,54 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.time.Duration;
+
+@ConfigurationProperties("connection-cache")
+public interface ConnectionCacheConfiguration {
+
+    /**
+     * @return Whether connection lists are cached in front of {@link WebsocketConnectionRepository}.
+     */
+    @Bindable(defaultValue = "false")
+    boolean isEnabled();
+
+    /**
+     * @return Maximum number of connection lists, of API stages and of topic subscribers, held at once.
+     */
+    @Positive
+    @Bindable(defaultValue = "16")
+    int getMaximumSize();
+
+    /**
+     * @return Connection lists larger than this are read through and not cached.
+     */
+    @Positive
+    @Bindable(defaultValue = "10000")
+    int getMaximumConnections();
+
+    /**
+     * @return How long a connection list is served from the cache. Connections saved by other containers become
+     * visible once it expires.
+     */
+    @NotNull
+    @Bindable(defaultValue = "5s")
+    Duration getTtl();
+
+    /**
+     * @return How long a deleted or gone connection is filtered out of reads, covering eventually consistent index reads.
+     */
+    @NotNull
+    @Bindable(defaultValue = "1m")
+    Duration getGoneTtl();
+
+    /**
+     * @return Maximum number of gone connections remembered.
+     */
+    @Positive
+    @Bindable(defaultValue = "10000")
+    int getMaximumGone();
+}
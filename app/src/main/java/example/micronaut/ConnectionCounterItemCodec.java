@@ -0,0 +1,108 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import java.util.Map;
+
+/**
+ * Encodes the connection counters of the single table design. A counter of the connections of an API stage, or of the
+ * subscribers of one of its topics, is spread across {@link DynamoConfiguration#getCounterShards()} items with
+ * {@code pk} {@code COUNTER#<apiId>#<stage>}, or {@code COUNTER#<apiId>#<stage>#TOPIC#<topic>}, and {@code sk}
+ * {@code SHARD#<n>}. Its value is the sum of their {@value #ATTRIBUTE_CONNECTIONS} attributes, read with one query of
+ * at most that many items whatever the number of connections.
+ */
+@Singleton
+public class ConnectionCounterItemCodec {
+    public static final String ATTRIBUTE_CONNECTIONS = "connections";
+    private static final String HASH = "#";
+    private static final String KEY_PREFIX = "COUNTER" + HASH;
+    private static final String TOPIC_INFIX = HASH + "TOPIC" + HASH;
+    private static final String SHARD_PREFIX = "SHARD" + HASH;
+    private static final Map<String, String> UPDATE_NAMES = Map.of("#connections", ATTRIBUTE_CONNECTIONS);
+    private static final Map<String, String> QUERY_NAMES = Map.of(
+            "#pk", WebSocketConnectionItemCodec.ATTRIBUTE_PK,
+            "#connections", ATTRIBUTE_CONNECTIONS);
+
+    private final DynamoConfiguration dynamoConfiguration;
+    private final AttributeValue[] shardKeys;
+
+    public ConnectionCounterItemCodec(DynamoConfiguration dynamoConfiguration) {
+        this.dynamoConfiguration = dynamoConfiguration;
+        this.shardKeys = new AttributeValue[dynamoConfiguration.getCounterShards()];
+        for (int shard = 0; shard < shardKeys.length; shard++) {
+            shardKeys[shard] = s(SHARD_PREFIX + shard);
+        }
+    }
+
+    /**
+     * @param topic The topic, {@code null} for the counter of every connection of the stage
+     * @return The partition key of a counter
+     */
+    @NonNull
+    public String counterKey(@NonNull String apiId, @NonNull String stage, @Nullable String topic) {
+        String key = KEY_PREFIX + apiId + HASH + stage;
+        return topic == null ? key : key + TOPIC_INFIX + topic;
+    }
+
+    public int getShards() {
+        return shardKeys.length;
+    }
+
+    /**
+     * @return An atomic addition to one shard of a counter, as an item of a transaction.
+     */
+    @NonNull
+    public TransactWriteItem incrementRequest(@NonNull String counterKey, int shard, long delta) {
+        return TransactWriteItem.builder()
+                .update(Update.builder()
+                        .tableName(dynamoConfiguration.getTableName())
+                        .key(Map.of(WebSocketConnectionItemCodec.ATTRIBUTE_PK, s(counterKey),
+                                WebSocketConnectionItemCodec.ATTRIBUTE_SK, shardKeys[Math.floorMod(shard, shardKeys.length)]))
+                        .updateExpression("ADD #connections :delta")
+                        .expressionAttributeNames(UPDATE_NAMES)
+                        .expressionAttributeValues(Map.of(":delta", AttributeValue.builder().n(Long.toString(delta)).build()))
+                        .build())
+                .build();
+    }
+
+    /**
+     * @return A query for every shard of a counter.
+     */
+    @NonNull
+    public QueryRequest countRequest(@NonNull String counterKey) {
+        return QueryRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .keyConditionExpression("#pk = :pk")
+                .projectionExpression("#connections")
+                .expressionAttributeNames(QUERY_NAMES)
+                .expressionAttributeValues(Map.of(":pk", s(counterKey)))
+                .build();
+    }
+
+    /**
+     * @return The sum of the shards, never negative. Removals of items written before the counters existed may take
+     * the sum below zero, and batches of the counter consumer recorded in its dead-letter queue leave it off.
+     */
+    public long count(@NonNull QueryResponse response) {
+        long count = 0;
+        for (Map<String, AttributeValue> item : response.items()) {
+            AttributeValue connections = item.get(ATTRIBUTE_CONNECTIONS);
+            if (connections != null && connections.n() != null) {
+                count += Long.parseLong(connections.n());
+            }
+        }
+        return Math.max(0, count);
+    }
+
+    @NonNull
+    private static AttributeValue s(String str) {
+        return AttributeValue.builder().s(str).build();
+    }
+}
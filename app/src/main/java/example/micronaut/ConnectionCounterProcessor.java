@@ -0,0 +1,153 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Maintains the counters of {@link ConnectionCounterItemCodec} from a batch of the table's stream records. An
+ * {@code INSERT} of a connection or subscription item adds one to its counter and a {@code REMOVE}, including a TTL
+ * expiry, takes one off; a {@code MODIFY}, such as a heartbeat or a connection saved twice, leaves it as is. The
+ * deltas of a batch are summed per counter and written with one {@code ADD} per counter, in transactions of at most
+ * {@value #TRANSACTION_MAXIMUM_ITEMS} items. A transaction's client request token and the shard it adds to are derived
+ * from the batch's sequence numbers, so when a failure makes Lambda retry the same batch, transactions which had already
+ * succeeded are not applied twice. DynamoDB honours a token for 10 minutes only, so the event source must stop retrying
+ * a batch before then: its maximum record age is below 10 minutes. A batch which is still failing goes to the event
+ * source's dead-letter queue, and its counters are off by its deltas until corrected.
+ */
+@Singleton
+public class ConnectionCounterProcessor {
+    public static final String METRIC_RECORDS = "CounterRecords";
+    public static final String METRIC_TRANSACTIONS = "CounterTransactions";
+    static final int TRANSACTION_MAXIMUM_ITEMS = 25;
+    private static final String INSERT = "INSERT";
+    private static final String REMOVE = "REMOVE";
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionCounterProcessor.class);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ConnectionCounterItemCodec codec;
+    private final MetricsRecorder metricsRecorder;
+
+    public ConnectionCounterProcessor(DynamoDbClient dynamoDbClient,
+                                      ConnectionCounterItemCodec codec,
+                                      MetricsRecorder metricsRecorder) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.codec = codec;
+        this.metricsRecorder = metricsRecorder;
+    }
+
+    /**
+     * Applies the records of a batch. Any failure is thrown, so that Lambda retries the whole batch.
+     */
+    public void process(@NonNull List<DynamodbEvent.DynamodbStreamRecord> records) {
+        Map<String, Long> deltas = deltas(records);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        String batchId = sequenceNumber(records.get(0)) + ':' + sequenceNumber(records.get(records.size() - 1));
+        int shard = Math.floorMod(batchId.hashCode(), codec.getShards());
+        List<TransactWriteItem> items = new ArrayList<>(Math.min(deltas.size(), TRANSACTION_MAXIMUM_ITEMS));
+        int transaction = 0;
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            items.add(codec.incrementRequest(delta.getKey(), shard, delta.getValue()));
+            if (items.size() == TRANSACTION_MAXIMUM_ITEMS) {
+                write(items, batchId, transaction++);
+                items.clear();
+            }
+        }
+        if (!items.isEmpty()) {
+            write(items, batchId, transaction);
+        }
+    }
+
+    /**
+     * @return The non-zero delta of every counter the records change, in key order.
+     */
+    @NonNull
+    Map<String, Long> deltas(@NonNull List<DynamodbEvent.DynamodbStreamRecord> records) {
+        Map<String, Long> deltas = new TreeMap<>();
+        for (DynamodbEvent.DynamodbStreamRecord record : records) {
+            StreamRecord streamRecord = record.getDynamodb();
+            if (streamRecord == null) {
+                continue;
+            }
+            long delta;
+            Map<String, AttributeValue> image;
+            if (INSERT.equals(record.getEventName())) {
+                delta = 1;
+                image = streamRecord.getNewImage();
+            } else if (REMOVE.equals(record.getEventName())) {
+                delta = -1;
+                image = streamRecord.getOldImage();
+            } else {
+                continue;
+            }
+            String key = counterKey(image);
+            if (key != null) {
+                metricsRecorder.count(METRIC_RECORDS);
+                deltas.merge(key, delta, Long::sum);
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    @Nullable
+    private String counterKey(@Nullable Map<String, AttributeValue> image) {
+        if (image == null) {
+            return null;
+        }
+        String sk = s(image, WebSocketConnectionItemCodec.ATTRIBUTE_SK);
+        String apiId = s(image, "apiId");
+        String stage = s(image, "stage");
+        if (apiId == null || stage == null) {
+            return null;
+        }
+        if (WebSocketConnectionItemCodec.isConnectionSortKey(sk)) {
+            return codec.counterKey(apiId, stage, null);
+        }
+        if (TopicSubscriptionItemCodec.isSubscriptionSortKey(sk)) {
+            String topic = s(image, TopicSubscriptionItemCodec.ATTRIBUTE_TOPIC);
+            return topic == null ? null : codec.counterKey(apiId, stage, topic);
+        }
+        return null;
+    }
+
+    private void write(@NonNull List<TransactWriteItem> items, @NonNull String batchId, int transaction) {
+        String token = UUID.nameUUIDFromBytes((batchId + ':' + transaction).getBytes(StandardCharsets.UTF_8)).toString();
+        dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                .transactItems(items)
+                .clientRequestToken(token)
+                .build());
+        metricsRecorder.count(METRIC_TRANSACTIONS);
+        LOG.debug("applied {} counter deltas with token {}", items.size(), token);
+    }
+
+    @NonNull
+    private static String sequenceNumber(@NonNull DynamodbEvent.DynamodbStreamRecord record) {
+        StreamRecord streamRecord = record.getDynamodb();
+        String sequenceNumber = streamRecord == null ? null : streamRecord.getSequenceNumber();
+        return sequenceNumber == null ? String.valueOf(record.getEventID()) : sequenceNumber;
+    }
+
+    @Nullable
+    private static String s(@NonNull Map<String, AttributeValue> image, @NonNull String name) {
+        AttributeValue value = image.get(name);
+        return value == null ? null : value.getS();
+    }
+}
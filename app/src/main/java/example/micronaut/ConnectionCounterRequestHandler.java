@@ -0,0 +1,41 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.function.aws.MicronautRequestHandler;
+import jakarta.inject.Inject;
+
+/**
+ * Entry point of the function consuming the table's stream, which keeps the counters of
+ * {@link ConnectionCounterProcessor} up to date.
+ */
+public class ConnectionCounterRequestHandler extends MicronautRequestHandler<DynamodbEvent, Void> {
+    private static final String EVENT_TYPE = "STREAM";
+
+    @Inject
+    ConnectionCounterProcessor connectionCounterProcessor;
+
+    @Inject
+    MetricsRecorder metricsRecorder;
+
+    public ConnectionCounterRequestHandler() {
+    }
+
+    public ConnectionCounterRequestHandler(ApplicationContext applicationContext) {
+        super(applicationContext);
+    }
+
+    @Override
+    public Void execute(DynamodbEvent input) {
+        long start = System.nanoTime();
+        try {
+            if (input.getRecords() != null && !input.getRecords().isEmpty()) {
+                connectionCounterProcessor.process(input.getRecords());
+            }
+            return null;
+        } finally {
+            metricsRecorder.milliseconds(MetricsRecorder.METRIC_LATENCY, System.nanoTime() - start);
+            metricsRecorder.flush(EVENT_TYPE);
+        }
+    }
+}
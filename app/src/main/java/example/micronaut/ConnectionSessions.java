@@ -0,0 +1,110 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * What a warm container knows about the connections it handled events of, keyed by connection id: the codec negotiated
+ * at {@code $connect}, so that a message is replied to without reading its connection item first, and when the
+ * container last extended the expiry of the connection item. A message extends it only once half of
+ * {@link DynamoConfiguration#getConnectionTtl()} has passed since, rather than writing the item, its stream record and
+ * its replicas on every message. As API Gateway closes connections idle for 10 minutes, an open connection's item is
+ * extended before it expires as long as the TTL is longer than 20 minutes. Connections are forgotten in
+ * least-recently-used order beyond {@value #MAXIMUM_SIZE} and at {@code $disconnect}; a connection whose
+ * {@code $connect} ran in another container is learned from its first message.
+ */
+@Singleton
+public class ConnectionSessions {
+    static final int MAXIMUM_SIZE = 10_000;
+
+    private final Map<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+            return size() > MAXIMUM_SIZE;
+        }
+    };
+    private final long heartbeatIntervalMillis;
+    private final LongSupplier clock;
+
+    @Inject
+    public ConnectionSessions(DynamoConfiguration dynamoConfiguration) {
+        // wall clock, which keeps counting while the container is frozen between invocations
+        this(dynamoConfiguration.getConnectionTtl().dividedBy(2), System::currentTimeMillis);
+    }
+
+    ConnectionSessions(@NonNull Duration heartbeatInterval, @NonNull LongSupplier clock) {
+        this.heartbeatIntervalMillis = heartbeatInterval.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * @return The session of a connection, {@code null} if this container has not seen the connection.
+     */
+    @Nullable
+    public Session find(@NonNull String connectionId) {
+        synchronized (sessions) {
+            return sessions.get(connectionId);
+        }
+    }
+
+    /**
+     * Remembers a connection as stored, with its codec, whose expiry was just extended.
+     */
+    public void remember(@NonNull WebSocketConnection connection) {
+        synchronized (sessions) {
+            sessions.put(connection.getConnectionId(), new Session(connection.getCodec(), clock.getAsLong()));
+        }
+    }
+
+    /**
+     * @return Whether a message of the connection should extend the expiry of its item, which is then recorded as
+     * extended. Always for a connection this container has not seen.
+     */
+    public boolean isHeartbeatDue(@NonNull String connectionId) {
+        Session session = find(connectionId);
+        return session == null || session.claimHeartbeat(clock.getAsLong(), heartbeatIntervalMillis);
+    }
+
+    public void forget(@NonNull String connectionId) {
+        synchronized (sessions) {
+            sessions.remove(connectionId);
+        }
+    }
+
+    /**
+     * A connection seen by this container.
+     */
+    public static final class Session {
+        @Nullable
+        private final String codec;
+        private long lastHeartbeat;
+
+        private Session(@Nullable String codec, long lastHeartbeat) {
+            this.codec = codec;
+            this.lastHeartbeat = lastHeartbeat;
+        }
+
+        /**
+         * @return The codec negotiated at {@code $connect}, {@code null} for JSON.
+         */
+        @Nullable
+        public String getCodec() {
+            return codec;
+        }
+
+        private synchronized boolean claimHeartbeat(long now, long intervalMillis) {
+            if (now - lastHeartbeat < intervalMillis) {
+                return false;
+            }
+            lastHeartbeat = now;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import javax.validation.constraints.NotBlank;
+import java.util.Map;
+
+/**
+ * A fan-out handed from the route handler to the {@link DeliveryQueue} consumer: the payload for the subscribers of a
+ * topic, or for every connection of the stage without a topic. A job continuing an interrupted fan-out carries the
+ * {@link FanOutCursor#remaining()} positions to resume at.
+ */
+@Introspected
+public class DeliveryJob {
+    @NonNull
+    @NotBlank
+    private final String apiId;
+
+    @NonNull
+    @NotBlank
+    private final String stage;
+
+    @Nullable
+    private final String topic;
+
+    @NonNull
+    private final String data;
+
+    @Nullable
+    private final Map<String, Map<String, String>> cursor;
+
+    public DeliveryJob(@NonNull String apiId,
+                       @NonNull String stage,
+                       @Nullable String topic,
+                       @NonNull String data,
+                       @Nullable Map<String, Map<String, String>> cursor) {
+        this.apiId = apiId;
+        this.stage = stage;
+        this.topic = topic;
+        this.data = data;
+        this.cursor = cursor;
+    }
+
+    @NonNull
+    public String getApiId() {
+        return apiId;
+    }
+
+    @NonNull
+    public String getStage() {
+        return stage;
+    }
+
+    @Nullable
+    public String getTopic() {
+        return topic;
+    }
+
+    @NonNull
+    public String getData() {
+        return data;
+    }
+
+    /**
+     * @return The positions to resume the fan-out at, {@code null} to start it.
+     */
+    @Nullable
+    public Map<String, Map<String, String>> getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return The same fan-out, resuming at the given positions.
+     */
+    @NonNull
+    public DeliveryJob resumeAt(@NonNull Map<String, Map<String, String>> positions) {
+        return new DeliveryJob(apiId, stage, topic, data, positions);
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryJob{" +
+                "apiId='" + apiId + '\'' +
+                ", stage='" + stage + '\'' +
+                ", topic='" + topic + '\'' +
+                ", cursor=" + cursor +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a {@link DeliveryJob} as the JSON body of a queue message and reads it back, field by field. The cursor of a
+ * continued job is an object of partitions, each an object of the string key attributes to resume at.
+ */
+@Singleton
+public class DeliveryJobCodec {
+    private static final String FIELD_API_ID = "apiId";
+    private static final String FIELD_STAGE = "stage";
+    private static final String FIELD_TOPIC = "topic";
+    private static final String FIELD_DATA = "data";
+    private static final String FIELD_CURSOR = "cursor";
+
+    private final ObjectMapper objectMapper;
+
+    public DeliveryJobCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @NonNull
+    public String encode(@NonNull DeliveryJob job) {
+        ObjectNode node = objectMapper.createObjectNode()
+                .put(FIELD_API_ID, job.getApiId())
+                .put(FIELD_STAGE, job.getStage())
+                .put(FIELD_DATA, job.getData());
+        if (job.getTopic() != null) {
+            node.put(FIELD_TOPIC, job.getTopic());
+        }
+        if (job.getCursor() != null) {
+            ObjectNode cursor = node.putObject(FIELD_CURSOR);
+            job.getCursor().forEach((partition, key) -> {
+                ObjectNode position = cursor.putObject(partition);
+                key.forEach(position::put);
+            });
+        }
+        return node.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the body is not an encoded job
+     */
+    @NonNull
+    public DeliveryJob decode(@NonNull String body) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("delivery job is not JSON", e);
+        }
+        String apiId = node.path(FIELD_API_ID).textValue();
+        String stage = node.path(FIELD_STAGE).textValue();
+        String data = node.path(FIELD_DATA).textValue();
+        if (apiId == null || stage == null || data == null) {
+            throw new IllegalArgumentException("delivery job lacks apiId, stage or data");
+        }
+        return new DeliveryJob(apiId, stage, node.path(FIELD_TOPIC).textValue(), data, cursor(node.get(FIELD_CURSOR)));
+    }
+
+    @Nullable
+    private static Map<String, Map<String, String>> cursor(@Nullable JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("delivery job cursor is not an object");
+        }
+        Map<String, Map<String, String>> cursor = new HashMap<>();
+        node.fields().forEachRemaining(partition -> {
+            if (!partition.getValue().isObject()) {
+                throw new IllegalArgumentException("delivery job cursor partition " + partition.getKey() + " is not an object");
+            }
+            Map<String, String> key = new HashMap<>();
+            partition.getValue().fields().forEachRemaining(attribute -> {
+                if (!attribute.getValue().isTextual()) {
+                    throw new IllegalArgumentException("delivery job cursor key " + attribute.getKey() + " is not a string");
+                }
+                key.put(attribute.getKey(), attribute.getValue().textValue());
+            });
+            cursor.put(partition.getKey(), key);
+        });
+        return cursor;
+    }
+}
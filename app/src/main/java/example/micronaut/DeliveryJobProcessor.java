@@ -0,0 +1,125 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import io.micronaut.context.BeanProvider;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumes a batch of {@link DeliveryQueue} messages, performing the fan-out of each {@link DeliveryJob} in turn.
+ * Posts to single connections which fail are counted by the fan-out and not retried. A fan-out which stops early, once
+ * the {@link InvocationDeadline} is within {@link SendGovernorConfiguration#getDeadlineMargin()} or because a page of
+ * connections cannot be read, keeps a {@link FanOutCursor}: if it got past any page, the rest is queued as a new job
+ * resuming at the cursor, as an SQS message cannot be changed, and the job is done; otherwise, or if the rest cannot be
+ * queued, the job is reported as a batch item failure so that it is received again, and the queue's redrive policy
+ * bounds how often. Jobs left once the deadline is that close are reported as failures without being started. A
+ * message which is not a job is dropped, as receiving it again cannot succeed.
+ */
+@Singleton
+public class DeliveryJobProcessor {
+    public static final String METRIC_JOBS = "DeliveryJobs";
+    public static final String METRIC_JOB_FAILURES = "DeliveryJobFailures";
+    public static final String METRIC_JOBS_DROPPED = "DeliveryJobsDropped";
+    public static final String METRIC_JOBS_RESUMED = "DeliveryJobsResumed";
+    public static final String METRIC_QUEUE_AGE = "DeliveryQueueAge";
+    private static final String ATTRIBUTE_SENT_TIMESTAMP = "SentTimestamp";
+    private static final Logger LOG = LoggerFactory.getLogger(DeliveryJobProcessor.class);
+
+    private final DeliveryJobCodec deliveryJobCodec;
+    private final WebSocketBroadcaster webSocketBroadcaster;
+    private final BeanProvider<DeliveryQueue> deliveryQueue;
+    private final InvocationDeadline invocationDeadline;
+    private final MetricsRecorder metricsRecorder;
+    private final long deadlineMarginNanos;
+
+    public DeliveryJobProcessor(DeliveryJobCodec deliveryJobCodec,
+                                WebSocketBroadcaster webSocketBroadcaster,
+                                BeanProvider<DeliveryQueue> deliveryQueue,
+                                InvocationDeadline invocationDeadline,
+                                MetricsRecorder metricsRecorder,
+                                SendGovernorConfiguration sendGovernorConfiguration) {
+        this.deliveryJobCodec = deliveryJobCodec;
+        this.webSocketBroadcaster = webSocketBroadcaster;
+        this.deliveryQueue = deliveryQueue;
+        this.invocationDeadline = invocationDeadline;
+        this.metricsRecorder = metricsRecorder;
+        this.deadlineMarginNanos = sendGovernorConfiguration.getDeadlineMargin().toNanos();
+    }
+
+    /**
+     * @return The messages to receive again
+     */
+    @NonNull
+    public SQSBatchResponse process(@NonNull List<SQSEvent.SQSMessage> messages) {
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+        for (SQSEvent.SQSMessage message : messages) {
+            if (isDeadlineClose()) {
+                failures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+                continue;
+            }
+            metricsRecorder.count(METRIC_JOBS);
+            recordAge(message.getAttributes());
+            DeliveryJob job;
+            try {
+                job = deliveryJobCodec.decode(message.getBody());
+            } catch (IllegalArgumentException e) {
+                metricsRecorder.count(METRIC_JOBS_DROPPED);
+                LOG.error("dropping message {}, it is not a delivery job", message.getMessageId(), e);
+                continue;
+            }
+            try {
+                FanOutCursor cursor = job.getCursor() == null ? FanOutCursor.start() : FanOutCursor.resume(job.getCursor());
+                BroadcastResult result = deliver(job, cursor);
+                if (result.isInterrupted() && !cursor.hasProgressed()) {
+                    metricsRecorder.count(METRIC_JOB_FAILURES);
+                    LOG.warn("interrupted {} before any page, message {} will be received again", job, message.getMessageId());
+                    failures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+                } else if (result.isInterrupted() && !cursor.remaining().isEmpty()) {
+                    deliveryQueue.get().enqueue(job.resumeAt(cursor.remaining())).join();
+                    metricsRecorder.count(METRIC_JOBS_RESUMED);
+                    LOG.info("interrupted {} after {}, the rest is queued", job, result);
+                } else {
+                    LOG.debug("delivered {}: {}", job, result);
+                }
+            } catch (RuntimeException e) {
+                metricsRecorder.count(METRIC_JOB_FAILURES);
+                LOG.warn("could not deliver {}, message {} will be received again", job, message.getMessageId(), e);
+                failures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+            }
+        }
+        return new SQSBatchResponse(failures);
+    }
+
+    @NonNull
+    private BroadcastResult deliver(@NonNull DeliveryJob job, @NonNull FanOutCursor cursor) {
+        SdkBytes payload = SdkBytes.fromUtf8String(job.getData());
+        return job.getTopic() == null
+                ? webSocketBroadcaster.broadcast(job.getApiId(), job.getStage(), payload, cursor, this::isDeadlineClose)
+                : webSocketBroadcaster.publish(job.getApiId(), job.getStage(), job.getTopic(), payload, cursor, this::isDeadlineClose);
+    }
+
+    private boolean isDeadlineClose() {
+        return invocationDeadline.remainingNanos() <= deadlineMarginNanos;
+    }
+
+    private void recordAge(Map<String, String> attributes) {
+        String sentTimestamp = attributes == null ? null : attributes.get(ATTRIBUTE_SENT_TIMESTAMP);
+        if (sentTimestamp == null) {
+            return;
+        }
+        try {
+            long ageMillis = System.currentTimeMillis() - Long.parseLong(sentTimestamp);
+            metricsRecorder.milliseconds(METRIC_QUEUE_AGE, Math.max(0, ageMillis) * 1_000_000L);
+        } catch (NumberFormatException e) {
+            // not an SQS timestamp, nothing to record
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands fan-outs to a separate consumer, so that the invocation which received a message is answered without waiting
+ * for the posts. Used when {@link DeliveryQueueConfiguration#isEnabled()}.
+ */
+public interface DeliveryQueue {
+    /**
+     * @return A future completed once the job is durably queued, not once it is delivered
+     */
+    @NonNull
+    CompletableFuture<Void> enqueue(@NonNull @NotNull @Valid DeliveryJob job);
+}
@@ -0,0 +1,47 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import javax.validation.constraints.Positive;
+
+@ConfigurationProperties("delivery-queue")
+public interface DeliveryQueueConfiguration {
+
+    /**
+     * @return Whether the {@value WebSocketRoutes#PUBLISH} route enqueues a {@link DeliveryJob} instead of posting to
+     * the subscribers itself.
+     */
+    @Bindable(defaultValue = "false")
+    boolean isEnabled();
+
+    /**
+     * @return URL of the SQS queue, set by the deployment. Without it jobs are queued in memory and delivered in
+     * process, which {@link #isInMemory()} has to allow.
+     */
+    @Nullable
+    String getQueueUrl();
+
+    /**
+     * @return Whether jobs may be queued in memory when {@link #getQueueUrl()} is not set, for local runs and tests.
+     * Otherwise a queue enabled without a URL fails on startup instead of losing its jobs with the process.
+     */
+    @Bindable(defaultValue = "false")
+    boolean isInMemory();
+
+    /**
+     * @return Maximum number of jobs the in-memory queue passes to the consumer at once, as an SQS event source would.
+     */
+    @Positive
+    @Bindable(defaultValue = "10")
+    int getBatchSize();
+
+    /**
+     * @return Number of times the in-memory queue delivers a job which fails before dropping it, as an SQS redrive
+     * policy's {@code maxReceiveCount} would.
+     */
+    @Positive
+    @Bindable(defaultValue = "3")
+    int getMaxReceiveCount();
+}
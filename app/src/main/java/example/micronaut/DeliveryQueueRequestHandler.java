@@ -0,0 +1,51 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.function.aws.MicronautRequestHandler;
+import jakarta.inject.Inject;
+
+import java.util.Collections;
+
+/**
+ * Entry point of the consumer function of the SQS {@link DeliveryQueue}. The event source reports batch item failures,
+ * so only the jobs in {@link SQSBatchResponse#getBatchItemFailures()} are received again.
+ */
+public class DeliveryQueueRequestHandler extends MicronautRequestHandler<SQSEvent, SQSBatchResponse> {
+    private static final String EVENT_TYPE = "DELIVERY";
+
+    @Inject
+    DeliveryJobProcessor deliveryJobProcessor;
+
+    @Inject
+    MetricsRecorder metricsRecorder;
+
+    @Inject
+    SendGovernor sendGovernor;
+
+    @Inject
+    InvocationDeadline invocationDeadline;
+
+    public DeliveryQueueRequestHandler() {
+    }
+
+    public DeliveryQueueRequestHandler(ApplicationContext applicationContext) {
+        super(applicationContext);
+    }
+
+    @Override
+    public SQSBatchResponse execute(SQSEvent input) {
+        // MicronautRequestHandler registers the invocation's Context before calling execute
+        invocationDeadline.start(getApplicationContext().findBean(Context.class).orElse(null));
+        long start = System.nanoTime();
+        try {
+            return deliveryJobProcessor.process(input.getRecords() == null ? Collections.emptyList() : input.getRecords());
+        } finally {
+            metricsRecorder.milliseconds(MetricsRecorder.METRIC_LATENCY, System.nanoTime() - start);
+            sendGovernor.recordMetrics();
+            metricsRecorder.flush(EVENT_TYPE);
+        }
+    }
+}
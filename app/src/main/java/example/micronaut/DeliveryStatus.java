@@ -0,0 +1,16 @@
+package example.micronaut;
+
+/**
+ * Outcome of posting a message to a connection.
+ */
+public enum DeliveryStatus {
+    /**
+     * The message was posted.
+     */
+    DELIVERED,
+
+    /**
+     * The connection no longer exists (HTTP 410). It has been handed to the {@link StaleConnectionCollector}.
+     */
+    GONE
+}
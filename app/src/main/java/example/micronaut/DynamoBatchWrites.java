@@ -0,0 +1,158 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits and retry policy shared by the {@code BatchWriteItem} based repository operations.
+ */
+public final class DynamoBatchWrites {
+    /**
+     * Maximum number of items accepted by a single {@code BatchWriteItem} request.
+     */
+    public static final int MAX_ITEMS = 25;
+    public static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 1_000;
+
+    private DynamoBatchWrites() {
+
+    }
+
+    /**
+     * Splits the requests in chunks of {@value #MAX_ITEMS} items and writes the chunks in parallel on the executor.
+     */
+    public static void write(@NonNull DynamoDbClient dynamoDbClient,
+                             @NonNull String tableName,
+                             @NonNull List<WriteRequest> writeRequests,
+                             @NonNull ExecutorService executorService) {
+        if (writeRequests.size() <= MAX_ITEMS) {
+            if (!writeRequests.isEmpty()) {
+                writeChunk(dynamoDbClient, tableName, writeRequests);
+            }
+            return;
+        }
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (List<WriteRequest> chunk : chunks(writeRequests)) {
+            chunks.add(CompletableFuture.runAsync(() -> writeChunk(dynamoDbClient, tableName, chunk), executorService));
+        }
+        try {
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Splits the requests in chunks of {@value #MAX_ITEMS} items and writes the chunks in parallel.
+     */
+    @NonNull
+    public static CompletableFuture<Void> write(@NonNull DynamoDbAsyncClient dynamoDbAsyncClient,
+                                                @NonNull String tableName,
+                                                @NonNull List<WriteRequest> writeRequests) {
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (List<WriteRequest> chunk : chunks(writeRequests)) {
+            chunks.add(writeChunk(dynamoDbAsyncClient, Map.of(tableName, chunk), 1));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]));
+    }
+
+    @NonNull
+    public static List<List<WriteRequest>> chunks(@NonNull List<WriteRequest> writeRequests) {
+        List<List<WriteRequest>> chunks = new ArrayList<>(writeRequests.size() / MAX_ITEMS + 1);
+        for (int from = 0; from < writeRequests.size(); from += MAX_ITEMS) {
+            chunks.add(writeRequests.subList(from, Math.min(from + MAX_ITEMS, writeRequests.size())));
+        }
+        return chunks;
+    }
+
+    public static boolean isComplete(@NonNull BatchWriteItemResponse response) {
+        return !response.hasUnprocessedItems() || response.unprocessedItems().isEmpty();
+    }
+
+    /**
+     * @param attempt Attempt which left unprocessed items, starting at 1
+     * @return Exponential backoff capped at {@value #MAX_BACKOFF_MILLIS}ms with full jitter
+     */
+    public static long backoffMillis(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    @NonNull
+    public static SdkClientException unprocessedItemsException(@NonNull BatchWriteItemResponse response, int attempts) {
+        int unprocessed = 0;
+        for (Map.Entry<String, List<WriteRequest>> entry : response.unprocessedItems().entrySet()) {
+            unprocessed += entry.getValue().size();
+        }
+        return SdkClientException.create("BatchWriteItem left " + unprocessed + " unprocessed items after " + attempts + " attempts");
+    }
+
+    /**
+     * Writes a single chunk, retrying unprocessed items with exponential backoff and full jitter.
+     */
+    private static void writeChunk(@NonNull DynamoDbClient dynamoDbClient,
+                                   @NonNull String tableName,
+                                   @NonNull List<WriteRequest> chunk) {
+        Map<String, List<WriteRequest>> requestItems = Map.of(tableName, chunk);
+        for (int attempt = 1; ; attempt++) {
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(requestItems)
+                    .build());
+            if (isComplete(response)) {
+                return;
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                throw unprocessedItemsException(response, attempt);
+            }
+            requestItems = response.unprocessedItems();
+            sleep(backoffMillis(attempt));
+        }
+    }
+
+    /**
+     * Writes a single chunk. Unprocessed items are retried with exponential backoff and full jitter without blocking a thread.
+     */
+    @NonNull
+    private static CompletableFuture<Void> writeChunk(@NonNull DynamoDbAsyncClient dynamoDbAsyncClient,
+                                                      @NonNull Map<String, List<WriteRequest>> requestItems,
+                                                      int attempt) {
+        return dynamoDbAsyncClient.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(requestItems)
+                        .build())
+                .thenCompose(response -> {
+                    if (isComplete(response)) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (attempt == MAX_ATTEMPTS) {
+                        return CompletableFuture.failedFuture(unprocessedItemsException(response, attempt));
+                    }
+                    return CompletableFuture.supplyAsync(response::unprocessedItems,
+                                    CompletableFuture.delayedExecutor(backoffMillis(attempt), TimeUnit.MILLISECONDS))
+                            .thenCompose(unprocessedItems -> writeChunk(dynamoDbAsyncClient, unprocessedItems, attempt + 1));
+                });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SdkClientException.create("Interrupted while backing off BatchWriteItem", e);
+        }
+    }
+}
@@ -2,12 +2,57 @@ package example.micronaut;
 
 import io.micronaut.context.annotation.ConfigurationProperties;
 import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.bind.annotation.Bindable;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.time.Duration;
 
 @Requires(property = "dynamodb.table-name") // <1>
 @ConfigurationProperties("dynamodb") // <2>
 public interface DynamoConfiguration {
     @NotBlank
     String getTableName();
+
+    /**
+     * @return Number of GSI1 partition key values the connections of each API stage are spread across,
+     * {@code WebSocketConnection#<apiId>#<stage>#0} to {@code WebSocketConnection#<apiId>#<stage>#n-1}.
+     * Even a single shard is suffixed {@code #0}; connections written to the unsharded {@code WebSocketConnection}
+     * partition before are read while {@link #isGsi1ReadUnsharded()} holds. Only ever increase it: reads do not query
+     * the shards beyond a reduced count, so the connections written to them are not found until they expire.
+     */
+    @Positive
+    @Bindable(defaultValue = "1")
+    int getGsi1Shards();
+
+    /**
+     * @return Whether reads also query the unsharded {@code WebSocketConnection} GSI1 partition written before sharding was introduced.
+     */
+    @Bindable(defaultValue = "true")
+    boolean isGsi1ReadUnsharded();
+
+    /**
+     * @return Time after which a connection item expires unless a message from its client extends it. DynamoDB TTL
+     * deletes items which missed their {@code $disconnect}. API Gateway closes connections idle for 10 minutes, so a
+     * connection which is still open has sent a message more recently than that.
+     */
+    @NotNull
+    @Bindable(defaultValue = "30m")
+    Duration getConnectionTtl();
+
+    /**
+     * @return Number of items each connection counter is spread across, {@code SHARD#0} to {@code SHARD#n-1}, so that
+     * concurrent stream batches do not all update one item.
+     */
+    @Positive
+    @Bindable(defaultValue = "4")
+    int getCounterShards();
+
+    /**
+     * @return Whether the table's stream maintains connection counters, so that counts are read from them instead of
+     * from every connection item.
+     */
+    @Bindable(defaultValue = "false")
+    boolean isCounters();
 }
@@ -0,0 +1,26 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Answers a message no other route handles by echoing it to its sender.
+ */
+@WebSocketRoute(WebSocketRoutes.DEFAULT)
+public class EchoRouteHandler implements WebSocketRouteHandler {
+    private final ApiGatewayManagementApiClientAsyncSender asyncSender;
+
+    public EchoRouteHandler(ApiGatewayManagementApiClientAsyncSender asyncSender) {
+        this.asyncSender = asyncSender;
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<?> handle(@NonNull String routeKey,
+                                       @NonNull WebSocketConnection connection,
+                                       @Nullable String body) {
+        return asyncSender.send(new WebSocketMessage(connection, "You said " + body));
+    }
+}
@@ -0,0 +1,214 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of SDK clients keyed by endpoint. Entries are evicted in least-recently-used order once
+ * {@code maximumSize} is exceeded or when they have been idle longer than {@code idleTimeout}. Clients are only used
+ * within {@link #call(URI, Function)} and {@link #callAsync(URI, Function)}, so an evicted client is closed once the
+ * calls using it have completed. Clients are built outside the lock.
+ *
+ * @param <C> SDK client type
+ */
+public class EndpointClientCache<C extends SdkAutoCloseable> implements SdkAutoCloseable {
+
+    private final Map<URI, Entry<C>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Function<URI, C> clientFactory;
+    private final int maximumSize;
+    private final long idleTimeoutNanos;
+    private final LongSupplier ticker;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EndpointClientCache(@NonNull Function<URI, C> clientFactory,
+                               int maximumSize,
+                               long idleTimeoutNanos,
+                               @NonNull LongSupplier ticker) {
+        this.clientFactory = clientFactory;
+        this.maximumSize = maximumSize;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Performs a blocking call with the client of an endpoint.
+     */
+    public <T> T call(@NonNull URI endpoint, @NonNull Function<? super C, T> call) {
+        Entry<C> entry = acquire(endpoint);
+        try {
+            return call.apply(entry.client);
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * Starts an asynchronous call with the client of an endpoint, which stays open until the call completes.
+     */
+    @NonNull
+    public <T> CompletableFuture<T> callAsync(@NonNull URI endpoint, @NonNull Function<? super C, CompletableFuture<T>> call) {
+        Entry<C> entry = acquire(endpoint);
+        CompletableFuture<T> future;
+        try {
+            future = call.apply(entry.client);
+        } catch (RuntimeException e) {
+            release(entry);
+            throw e;
+        }
+        return future.whenComplete((value, throwable) -> release(entry));
+    }
+
+    /**
+     * Removes every cached client. Clients are closed once no call uses them.
+     */
+    public void invalidateAll() {
+        List<C> closing = null;
+        synchronized (entries) {
+            for (Entry<C> entry : entries.values()) {
+                closing = retire(closing, entry);
+            }
+            entries.clear();
+        }
+        closeAll(closing);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void close() {
+        invalidateAll();
+    }
+
+    @NonNull
+    private Entry<C> acquire(@NonNull URI endpoint) {
+        List<C> closing = null;
+        synchronized (entries) {
+            long now = ticker.getAsLong();
+            Entry<C> entry = entries.get(endpoint);
+            if (entry != null && now - entry.lastAccess > idleTimeoutNanos) {
+                entries.remove(endpoint);
+                evictions.increment();
+                closing = retire(closing, entry);
+            } else if (entry != null) {
+                hits.increment();
+                entry.lastAccess = now;
+                entry.users++;
+                return entry;
+            }
+        }
+        closeAll(closing);
+        misses.increment();
+        C client = clientFactory.apply(endpoint);
+        Entry<C> entry;
+        synchronized (entries) {
+            long now = ticker.getAsLong();
+            entry = entries.get(endpoint);
+            if (entry == null) {
+                entry = new Entry<>(client, now);
+                entries.put(endpoint, entry);
+                client = null;
+                closing = evict(now);
+            } else {
+                // another thread built one meanwhile
+                entry.lastAccess = now;
+                closing = null;
+            }
+            entry.users++;
+        }
+        if (client != null) {
+            client.close();
+        }
+        closeAll(closing);
+        return entry;
+    }
+
+    private void release(@NonNull Entry<C> entry) {
+        boolean close;
+        synchronized (entries) {
+            entry.users--;
+            close = entry.evicted && entry.users == 0;
+        }
+        if (close) {
+            entry.client.close();
+        }
+    }
+
+    private List<C> evict(long now) {
+        List<C> closing = null;
+        Iterator<Entry<C>> iterator = entries.values().iterator();
+        int size = entries.size();
+        while (iterator.hasNext()) {
+            Entry<C> eldest = iterator.next();
+            if (size <= maximumSize && now - eldest.lastAccess <= idleTimeoutNanos) {
+                break;
+            }
+            iterator.remove();
+            size--;
+            evictions.increment();
+            closing = retire(closing, eldest);
+        }
+        return closing;
+    }
+
+    /**
+     * @return The clients to close now, the entry's client added unless a call still uses it.
+     */
+    private static <C> List<C> retire(List<C> closing, Entry<C> entry) {
+        entry.evicted = true;
+        if (entry.users > 0) {
+            return closing;
+        }
+        List<C> result = closing != null ? closing : new ArrayList<>(2);
+        result.add(entry.client);
+        return result;
+    }
+
+    private static <C extends SdkAutoCloseable> void closeAll(List<C> clients) {
+        if (clients != null) {
+            for (C client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    private static final class Entry<C> {
+        private final C client;
+        private long lastAccess;
+        private int users;
+        private boolean evicted;
+
+        private Entry(C client, long lastAccess) {
+            this.client = client;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package example.micronaut;
 
 import io.micronaut.core.annotation.NonNull;
 
+import java.util.Locale;
 import java.util.Optional;
 
 public enum EventType {
@@ -9,15 +10,26 @@ public enum EventType {
     MESSAGE,
     DISCONNECT;
 
+    private static final Optional<EventType> OPTIONAL_CONNECT = Optional.of(CONNECT);
+    private static final Optional<EventType> OPTIONAL_MESSAGE = Optional.of(MESSAGE);
+    private static final Optional<EventType> OPTIONAL_DISCONNECT = Optional.of(DISCONNECT);
+
+    /**
+     * API Gateway sends event types in upper case, which a string switch matches with one hash lookup; any other case
+     * is upper-cased first.
+     */
     @NonNull
     public static Optional<EventType> of(@NonNull String str) {
-        if (str.equalsIgnoreCase(CONNECT.toString())) {
-            return Optional.of(CONNECT);
-        } else if (str.equalsIgnoreCase(DISCONNECT.toString())) {
-            return Optional.of(DISCONNECT);
-        } else if (str.equalsIgnoreCase(MESSAGE.toString())) {
-            return Optional.of(MESSAGE);
+        switch (str) {
+            case "MESSAGE":
+                return OPTIONAL_MESSAGE;
+            case "CONNECT":
+                return OPTIONAL_CONNECT;
+            case "DISCONNECT":
+                return OPTIONAL_DISCONNECT;
+            default:
+                String upperCase = str.toUpperCase(Locale.ROOT);
+                return upperCase.equals(str) ? Optional.empty() : of(upperCase);
         }
-        return Optional.empty();
     }
 }
@@ -0,0 +1,199 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Position of a fan-out in the paginated partitions it reads, so that a fan-out interrupted by the invocation deadline
+ * or by a failed page read resumes where it stopped instead of posting again to the connections it reached. Each
+ * partition maps to the key of its next page to read, empty for its first page; a partition read to the end is left
+ * out. A page whose posts are {@link Page#retry() retried} moves its partition back to that page, so a resumed fan-out
+ * may post again to connections of that page, never to connections of the pages before it.
+ */
+public final class FanOutCursor {
+    private static final String PARTITION_NUMBERED = "0";
+    private static final String KEY_PAGE = "page";
+
+    private final boolean resumed;
+    private final Map<String, Map<String, String>> positions;
+    private final Map<String, Map<String, String>> opened = new HashMap<>();
+    private final Map<String, Page> retries = new HashMap<>();
+    private final Map<String, Long> handedOut = new HashMap<>();
+    private Page current;
+
+    private FanOutCursor(boolean resumed, @NonNull Map<String, Map<String, String>> positions) {
+        this.resumed = resumed;
+        this.positions = new HashMap<>(positions);
+    }
+
+    /**
+     * @return A cursor reading every partition from its first page.
+     */
+    @NonNull
+    public static FanOutCursor start() {
+        return new FanOutCursor(false, Map.of());
+    }
+
+    /**
+     * @param positions The {@link #remaining()} positions of an interrupted fan-out
+     * @return A cursor reading only the given partitions, from the given pages.
+     */
+    @NonNull
+    public static FanOutCursor resume(@NonNull Map<String, Map<String, String>> positions) {
+        return new FanOutCursor(true, positions);
+    }
+
+    /**
+     * Registers a partition about to be read.
+     *
+     * @return The key of the page to read the partition from, empty for its first page, or {@code null} if a resumed
+     * fan-out already read it to the end.
+     */
+    @Nullable
+    public synchronized Map<String, String> open(@NonNull String partition) {
+        if (!resumed) {
+            positions.putIfAbsent(partition, Map.of());
+        }
+        Map<String, String> key = positions.get(partition);
+        if (key != null) {
+            opened.put(partition, key);
+        }
+        return key;
+    }
+
+    /**
+     * Records that a page of a partition is handed to the fan-out, which makes it the {@link #current()} page.
+     *
+     * @param key  The key the page was read from, empty for the first page
+     * @param next The key of the page after it, {@code null} if it is the last
+     */
+    public synchronized void handOut(@NonNull String partition,
+                                     @NonNull Map<String, String> key,
+                                     @Nullable Map<String, String> next) {
+        long sequence = handedOut.merge(partition, 1L, Long::sum);
+        current = new Page(partition, key, sequence);
+        if (next == null) {
+            positions.remove(partition);
+        } else {
+            positions.put(partition, next);
+        }
+    }
+
+    /**
+     * @return The page handed out last, {@code null} before the first.
+     */
+    @Nullable
+    public synchronized Page current() {
+        return current;
+    }
+
+    /**
+     * @return The positions to resume the fan-out at, keyed by partition. Empty once every partition is read to the end
+     * and no page is retried.
+     */
+    @NonNull
+    public synchronized Map<String, Map<String, String>> remaining() {
+        Map<String, Map<String, String>> remaining = new TreeMap<>(positions);
+        retries.forEach((partition, page) -> remaining.put(partition, page.key));
+        return remaining;
+    }
+
+    /**
+     * @return Whether resuming at {@link #remaining()} skips at least one page the fan-out was started with.
+     */
+    public synchronized boolean hasProgressed() {
+        Map<String, Map<String, String>> remaining = remaining();
+        for (Map.Entry<String, Map<String, String>> partition : opened.entrySet()) {
+            if (!Objects.equals(partition.getValue(), remaining.get(partition.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether the cursor was {@link #resume(Map) resumed} and has not read the given partition to the end.
+     */
+    public synchronized boolean resumes(@NonNull String partition) {
+        return resumed && positions.containsKey(partition);
+    }
+
+    /**
+     * @return Whether the cursor was {@link #resume(Map) resumed} rather than {@link #start() started}.
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * Moves a partition of a resumed fan-out back to its first page, because its pages can no longer be read from the
+     * position it stopped at. The fan-out posts again to the connections of that partition it reached.
+     */
+    public synchronized void restart(@NonNull String partition) {
+        positions.put(partition, Map.of());
+    }
+
+    /**
+     * Tracks the pages of a repository which has no page keys of its own as a single partition, numbering them. Such a
+     * fan-out resumes correctly as long as the repository lists its pages in the same order.
+     */
+    @NonNull
+    public Stream<List<WebSocketConnection>> numbered(@NonNull Stream<List<WebSocketConnection>> pages) {
+        return numbered(PARTITION_NUMBERED, pages);
+    }
+
+    /**
+     * Numbers pages like {@link #numbered(Stream)} as the given partition.
+     */
+    @NonNull
+    public Stream<List<WebSocketConnection>> numbered(@NonNull String partition,
+                                                      @NonNull Stream<List<WebSocketConnection>> pages) {
+        Map<String, String> key = open(partition);
+        if (key == null) {
+            pages.close();
+            return Stream.empty();
+        }
+        long first = key.isEmpty() ? 0 : Long.parseLong(key.get(KEY_PAGE));
+        AtomicLong number = new AtomicLong(first);
+        return pages.skip(first).map(page -> {
+            long n = number.getAndIncrement();
+            handOut(partition, n == 0 ? Map.of() : Map.of(KEY_PAGE, String.valueOf(n)),
+                    Map.of(KEY_PAGE, String.valueOf(n + 1)));
+            return page;
+        });
+    }
+
+    private synchronized void retry(@NonNull Page page) {
+        retries.merge(page.partition, page, (retried, other) -> other.sequence < retried.sequence ? other : retried);
+    }
+
+    /**
+     * A page handed out to the fan-out.
+     */
+    public final class Page {
+        private final String partition;
+        private final Map<String, String> key;
+        private final long sequence;
+
+        private Page(String partition, Map<String, String> key, long sequence) {
+            this.partition = partition;
+            this.key = key;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Moves the partition back to this page, because a post of it did not complete.
+         */
+        public void retry() {
+            FanOutCursor.this.retry(this);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.ApplicationContextProvider;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.function.aws.runtime.AbstractMicronautLambdaRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Custom runtime loop of the native executable deployed on {@code provided.al2}. Events are passed on as received to
+ * {@link FunctionRequestStreamHandler}, which reads them with {@link WebSocketRequestParser}, rather than bound to an
+ * {@link com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketEvent} first.
+ */
+public class FunctionLambdaRuntime extends AbstractMicronautLambdaRuntime<String, String, String, String> {
+    private static final Logger LOG = LoggerFactory.getLogger(FunctionLambdaRuntime.class);
+
+    public static void main(String[] args) {
+        try {
+            new FunctionLambdaRuntime().run(args);
+        } catch (MalformedURLException e) {
+            LOG.error("invalid AWS_LAMBDA_RUNTIME_API endpoint", e);
+            System.exit(1);
+        }
+    }
+
+    @Override
+    @Nullable
+    protected RequestStreamHandler createRequestStreamHandler(String... args) {
+        return new FunctionRequestStreamHandler();
+    }
+
+    /**
+     * The event loop invokes request handlers only, so the stream handler is invoked through one.
+     */
+    @Override
+    @Nullable
+    protected RequestHandler<String, String> createRequestHandler(String... args) {
+        return new StreamRequestHandler((FunctionRequestStreamHandler) createRequestStreamHandler(args));
+    }
+
+    /**
+     * Hands the event to a {@link FunctionRequestStreamHandler} as a stream and returns what it writes.
+     */
+    static final class StreamRequestHandler implements RequestHandler<String, String>, ApplicationContextProvider {
+        private final FunctionRequestStreamHandler handler;
+
+        StreamRequestHandler(@NonNull FunctionRequestStreamHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public String handleRequest(String event, Context context) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(128);
+            try {
+                handler.handleRequest(new ByteArrayInputStream(event.getBytes(StandardCharsets.UTF_8)), output, context);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return output.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public ApplicationContext getApplicationContext() {
+            return handler.getApplicationContext();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.BeanProvider;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProviderChain;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.PostToConnectionRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * CRaC hooks, honoured by Lambda SnapStart. Before the checkpoint the request path is exercised once so that the
+ * snapshot holds loaded classes, Jackson serializers and SDK marshallers: the event is deserialized, and the DynamoDB
+ * and management API clients are driven against a {@link LocalStandIn}. After restore, clients built before the
+ * snapshot and cached connection lists are dropped, credentials are resolved again and the connection to DynamoDB is
+ * re-established.
+ * Disabled with {@code priming.enabled: false}.
+ */
+@Requires(property = "priming.enabled", value = StringUtils.TRUE, defaultValue = StringUtils.TRUE)
+@Singleton
+public class FunctionPriming implements Resource {
+    private static final Logger LOG = LoggerFactory.getLogger(FunctionPriming.class);
+    private static final String PRIMING_EVENT = "priming-event.json";
+    private static final StaticCredentialsProvider PRIMING_CREDENTIALS =
+            StaticCredentialsProvider.create(AwsBasicCredentials.create("priming", "priming"));
+
+    private final ObjectMapper objectMapper;
+    private final WebSocketRequestParser webSocketRequestParser;
+    private final WebsocketConnectionRepository websocketConnectionRepository;
+    private final ApiGatewayManagementApiClientRegistry registry;
+    private final DynamoConfiguration dynamoConfiguration;
+    private final WebSocketConnectionItemCodec codec;
+    private final ConnectionCounterItemCodec counterCodec;
+    private final AwsCredentialsProviderChain credentialsProvider;
+    private final BeanProvider<SdkHttpClient> httpClient;
+    private final BeanProvider<SdkAsyncHttpClient> asyncHttpClient;
+    private final BeanProvider<DynamoDbClient> dynamoDbClient;
+    private final BeanProvider<DynamoDbAsyncClient> dynamoDbAsyncClient;
+    private final ExecutorService executorService;
+
+    public FunctionPriming(ObjectMapper objectMapper,
+                           WebSocketRequestParser webSocketRequestParser,
+                           WebsocketConnectionRepository websocketConnectionRepository,
+                           ApiGatewayManagementApiClientRegistry registry,
+                           DynamoConfiguration dynamoConfiguration,
+                           WebSocketConnectionItemCodec codec,
+                           ConnectionCounterItemCodec counterCodec,
+                           AwsCredentialsProviderChain credentialsProvider,
+                           BeanProvider<SdkHttpClient> httpClient,
+                           BeanProvider<SdkAsyncHttpClient> asyncHttpClient,
+                           BeanProvider<DynamoDbClient> dynamoDbClient,
+                           BeanProvider<DynamoDbAsyncClient> dynamoDbAsyncClient,
+                           @Named(TaskExecutors.IO) ExecutorService executorService) {
+        this.objectMapper = objectMapper;
+        this.webSocketRequestParser = webSocketRequestParser;
+        this.websocketConnectionRepository = websocketConnectionRepository;
+        this.registry = registry;
+        this.dynamoConfiguration = dynamoConfiguration;
+        this.codec = codec;
+        this.counterCodec = counterCodec;
+        this.credentialsProvider = credentialsProvider;
+        this.httpClient = httpClient;
+        this.asyncHttpClient = asyncHttpClient;
+        this.dynamoDbClient = dynamoDbClient;
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Registration is a no-op on a JVM without CRaC support.
+     */
+    @EventListener
+    public void onStartup(StartupEvent event) {
+        Core.getGlobalContext().register(this);
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        try {
+            prime();
+        } catch (Exception e) {
+            LOG.warn("priming failed, the snapshot is taken without it", e);
+        }
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        registry.invalidateAll();
+        if (websocketConnectionRepository instanceof CachingWebsocketConnectionRepository) {
+            ((CachingWebsocketConnectionRepository) websocketConnectionRepository).invalidateAll();
+        }
+        try {
+            credentialsProvider.resolveCredentials();
+            DescribeTableRequest describeTable = DescribeTableRequest.builder()
+                    .tableName(dynamoConfiguration.getTableName())
+                    .build();
+            if (isAsync()) {
+                dynamoDbAsyncClient.get().describeTable(describeTable).join();
+            } else {
+                dynamoDbClient.get().describeTable(describeTable);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("could not re-establish AWS connections after restore", e);
+        }
+    }
+
+    private boolean isAsync() {
+        WebsocketConnectionRepository repository = websocketConnectionRepository instanceof CachingWebsocketConnectionRepository
+                ? ((CachingWebsocketConnectionRepository) websocketConnectionRepository).getDelegate()
+                : websocketConnectionRepository;
+        return repository instanceof WebsocketConnectionRepositoryDynamoAsync;
+    }
+
+    void prime() throws IOException {
+        APIGatewayV2WebSocketEvent event = primeSerialization();
+        WebSocketConnection connection = new WebSocketConnection(Region.US_EAST_1.id(),
+                event.getRequestContext().getApiId(),
+                event.getRequestContext().getStage(),
+                event.getRequestContext().getConnectionId(),
+                event.getRequestContext().getDomainName());
+        try (LocalStandIn standIn = LocalStandIn.start()) {
+            primeDynamoDb(standIn.getUri(), connection);
+            primeManagementApi(standIn.getUri(), event.getBody());
+        } finally {
+            registry.invalidateAll();
+        }
+        LOG.info("primed function before checkpoint");
+    }
+
+    private APIGatewayV2WebSocketEvent primeSerialization() throws IOException {
+        APIGatewayV2WebSocketEvent event;
+        try (InputStream json = primingEvent()) {
+            event = objectMapper.readValue(json, APIGatewayV2WebSocketEvent.class);
+        }
+        try (InputStream json = primingEvent()) {
+            webSocketRequestParser.parse(json);
+        }
+        EventType.of(event.getRequestContext().getEventType());
+        APIGatewayV2WebSocketResponse response = new APIGatewayV2WebSocketResponse();
+        response.setStatusCode(200);
+        objectMapper.writeValueAsBytes(response);
+        return event;
+    }
+
+    private static InputStream primingEvent() throws IOException {
+        InputStream json = FunctionPriming.class.getClassLoader().getResourceAsStream(PRIMING_EVENT);
+        if (json == null) {
+            throw new IOException("resource " + PRIMING_EVENT + " not found");
+        }
+        return json;
+    }
+
+    /**
+     * Runs the repository in use against the stand-in, with clients sharing the application's HTTP clients.
+     */
+    private void primeDynamoDb(URI endpoint, WebSocketConnection connection) {
+        List<WebSocketConnection> connections = List.of(connection);
+        if (isAsync()) {
+            try (DynamoDbAsyncClient client = DynamoDbAsyncClient.builder()
+                    .httpClient(asyncHttpClient.get())
+                    .endpointOverride(endpoint)
+                    .region(Region.US_EAST_1)
+                    .credentialsProvider(PRIMING_CREDENTIALS)
+                    .build()) {
+                prime(new WebsocketConnectionRepositoryDynamoAsync(client, dynamoConfiguration, codec, counterCodec), connections);
+            }
+        } else {
+            try (DynamoDbClient client = DynamoDbClient.builder()
+                    .httpClient(httpClient.get())
+                    .endpointOverride(endpoint)
+                    .region(Region.US_EAST_1)
+                    .credentialsProvider(PRIMING_CREDENTIALS)
+                    .build()) {
+                prime(new WebsocketConnectionRepositoryDynamo(client, dynamoConfiguration, codec, counterCodec, executorService), connections);
+            }
+        }
+    }
+
+    private static void prime(WebsocketConnectionRepository repository, List<WebSocketConnection> connections) {
+        WebSocketConnection connection = connections.get(0);
+        repository.saveAsync(connection).join();
+        repository.deleteAsync(connection).join();
+        repository.saveAll(connections);
+        repository.deleteAll(connections);
+        try (Stream<List<WebSocketConnection>> pages = repository.findAllByApiIdAndStage(connection.getApiId(), connection.getStage())) {
+            pages.collect(Collectors.toList());
+        }
+    }
+
+    private void primeManagementApi(URI endpoint, String body) {
+        PostToConnectionRequest request = PostToConnectionRequest.builder()
+                .connectionId("priming")
+                .data(SdkBytes.fromUtf8String(body))
+                .overrideConfiguration(AwsRequestOverrideConfiguration.builder()
+                        .credentialsProvider(PRIMING_CREDENTIALS)
+                        .build())
+                .build();
+        registry.call(endpoint, client -> client.postToConnection(request));
+        registry.callAsync(endpoint, client -> client.postToConnection(request)).join();
+    }
+}
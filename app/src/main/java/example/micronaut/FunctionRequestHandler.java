@@ -1,54 +1,53 @@
 package example.micronaut;
 
+import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketResponse;
+import io.micronaut.context.ApplicationContext;
 import io.micronaut.function.aws.MicronautRequestHandler;
 import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
 public class FunctionRequestHandler extends MicronautRequestHandler<APIGatewayV2WebSocketEvent, APIGatewayV2WebSocketResponse> {
 
     @Inject
-    ApiGatewayManagementApiClientSender apiGatewayManagementApiClientSender;
+    WebSocketRequestDispatcher webSocketRequestDispatcher;
+
+    @Inject
+    MetricsRecorder metricsRecorder;
 
     @Inject
-    WebsocketConnectionRepository websocketConnectionRepository;
+    MessageCodecs messageCodecs;
+
+    @Inject
+    InvocationDeadline invocationDeadline;
 
     private static final Logger LOG = LoggerFactory.getLogger(FunctionRequestHandler.class);
 
+    public FunctionRequestHandler() {
+    }
+
+    public FunctionRequestHandler(ApplicationContext applicationContext) {
+        super(applicationContext);
+    }
+
     @Override
     public APIGatewayV2WebSocketResponse execute(APIGatewayV2WebSocketEvent input) {
-        LOG.info("input {}", input);
-        EventType.of(input.getRequestContext().getEventType()).ifPresent(eventType -> {
-            switch (eventType) {
-                case CONNECT:
-                    websocketConnectionRepository.save(connectionOfInput(input));
-                    break;
-                case DISCONNECT:
-                    websocketConnectionRepository.delete(connectionOfInput(input));
-                    break;
-                case MESSAGE:
-                    apiGatewayManagementApiClientSender.send(messageOfInput(input));
-            }
-        });
+        if (LOG.isDebugEnabled() && metricsRecorder.sampleEventLog()) {
+            LOG.debug("input {}", input);
+        }
+        // MicronautRequestHandler registers the invocation's Context before calling execute
+        invocationDeadline.start(getApplicationContext().findBean(Context.class).orElse(null));
+        WebSocketRequest request = WebSocketRequest.of(input);
+        webSocketRequestDispatcher.handle(request);
 
         APIGatewayV2WebSocketResponse response = new APIGatewayV2WebSocketResponse();
         response.setStatusCode(200);
+        messageCodecs.subprotocol(request)
+                .ifPresent(subprotocol -> response.setHeaders(Map.of(MessageCodecs.HEADER_SUBPROTOCOL, subprotocol)));
         return response;
     }
-
-    private WebSocketConnection connectionOfInput(APIGatewayV2WebSocketEvent input) {
-        return new WebSocketConnection(System.getenv("AWS_REGION"),
-                input.getRequestContext().getApiId(),
-                input.getRequestContext().getStage(),
-                input.getRequestContext().getConnectionId(),
-                input.getRequestContext().getDomainName());
-    }
-
-    private WebSocketMessage messageOfInput(APIGatewayV2WebSocketEvent input) {
-        return new WebSocketMessage(connectionOfInput(input),
-                "You said " + input.getBody());
-    }
 }
-
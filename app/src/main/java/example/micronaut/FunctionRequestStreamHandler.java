@@ -0,0 +1,68 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.ApplicationContextProvider;
+import io.micronaut.function.executor.FunctionInitializer;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Entry point reading the event with {@link WebSocketRequestParser} instead of binding a full
+ * {@link com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketEvent}, and writing a constant response.
+ * Only a {@code $connect} which negotiated a subprotocol gets a response echoing it.
+ */
+public class FunctionRequestStreamHandler extends FunctionInitializer implements RequestStreamHandler, ApplicationContextProvider {
+    private static final Logger LOG = LoggerFactory.getLogger(FunctionRequestStreamHandler.class);
+    private static final byte[] RESPONSE_OK = "{\"statusCode\":200,\"isBase64Encoded\":false}".getBytes(StandardCharsets.UTF_8);
+
+    @Inject
+    WebSocketRequestParser webSocketRequestParser;
+
+    @Inject
+    WebSocketRequestDispatcher webSocketRequestDispatcher;
+
+    @Inject
+    MetricsRecorder metricsRecorder;
+
+    @Inject
+    MessageCodecs messageCodecs;
+
+    @Inject
+    InvocationDeadline invocationDeadline;
+
+    public FunctionRequestStreamHandler() {
+    }
+
+    public FunctionRequestStreamHandler(ApplicationContext applicationContext) {
+        super(applicationContext);
+    }
+
+    @Override
+    public ApplicationContext getApplicationContext() {
+        return applicationContext;
+    }
+
+    @Override
+    public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+        invocationDeadline.start(context);
+        WebSocketRequest request = webSocketRequestParser.parse(input);
+        if (LOG.isDebugEnabled() && metricsRecorder.sampleEventLog()) {
+            LOG.debug("{} {} connection {}", request.getEventType(), request.getRouteKey(), request.getConnectionId());
+        }
+        webSocketRequestDispatcher.handle(request);
+        Optional<String> subprotocol = messageCodecs.subprotocol(request);
+        output.write(subprotocol.isPresent() ?
+                ("{\"statusCode\":200,\"headers\":{\"" + MessageCodecs.HEADER_SUBPROTOCOL + "\":\"" + subprotocol.get() +
+                        "\"},\"isBase64Encoded\":false}").getBytes(StandardCharsets.UTF_8) :
+                RESPONSE_OK);
+    }
+}
@@ -0,0 +1,110 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Moves connections written before GSI1 sharding was introduced from the unsharded {@code WebSocketConnection}
+ * partition to their shard, by updating only their GSI1 partition key. A one-off run outside the functions, by the
+ * {@code migrateGsi1Shards} task with {@code DYNAMODB_TABLE_NAME} and AWS credentials in its environment, rather than
+ * in the cold start of every function. It records the {@code LastEvaluatedKey} of each page it migrated in a marker
+ * item, so that a run which stopped resumes after it, and marks the item completed, so that later runs skip the
+ * migration. Connections an older deployment writes afterwards stay readable while
+ * {@code dynamodb.gsi1-read-unsharded} is {@code true} and expire with their TTL; once they have, set it to
+ * {@code false} so reads stop querying the unsharded partition.
+ */
+@Singleton
+public class Gsi1ShardMigration {
+    private static final Logger LOG = LoggerFactory.getLogger(Gsi1ShardMigration.class);
+    private static final AttributeValue MARKER = AttributeValue.builder().s("MIGRATION#GSI1SHARDS").build();
+    private static final String ATTRIBUTE_EXCLUSIVE_START_KEY = "exclusiveStartKey";
+    private static final String ATTRIBUTE_COMPLETED = "completed";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoConfiguration dynamoConfiguration;
+    private final WebSocketConnectionItemCodec codec;
+
+    public Gsi1ShardMigration(DynamoDbClient dynamoDbClient,
+                              DynamoConfiguration dynamoConfiguration,
+                              WebSocketConnectionItemCodec codec) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.dynamoConfiguration = dynamoConfiguration;
+        this.codec = codec;
+    }
+
+    public static void main(String[] args) {
+        try (ApplicationContext context = ApplicationContext.run()) {
+            context.getBean(Gsi1ShardMigration.class).migrate();
+        }
+    }
+
+    /**
+     * Migrates from where the last run stopped, unless a run completed already.
+     *
+     * @return Number of connections moved. Connections deleted while the migration runs are skipped.
+     */
+    public long migrate() {
+        GetItemResponse marker = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .key(marker())
+                .consistentRead(true)
+                .build());
+        if (marker.hasItem() && marker.item().containsKey(ATTRIBUTE_COMPLETED)) {
+            LOG.info("connections were moved to sharded GSI1 partitions already");
+            return 0;
+        }
+        Map<String, AttributeValue> exclusiveStartKey = marker.hasItem() && marker.item().containsKey(ATTRIBUTE_EXCLUSIVE_START_KEY)
+                ? marker.item().get(ATTRIBUTE_EXCLUSIVE_START_KEY).m()
+                : null;
+        long migrated = 0;
+        do {
+            QueryResponse page = dynamoDbClient.query(codec.findAllUnshardedRequest().toBuilder()
+                    .exclusiveStartKey(exclusiveStartKey)
+                    .build());
+            for (WebSocketConnection connection : codec.connections(page.items())) {
+                try {
+                    dynamoDbClient.updateItem(codec.shardRequest(connection));
+                    migrated++;
+                } catch (ConditionalCheckFailedException e) {
+                    LOG.debug("connection {} was deleted or moved while migrating", connection.getConnectionId());
+                }
+            }
+            exclusiveStartKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty() ? page.lastEvaluatedKey() : null;
+            saveProgress(exclusiveStartKey);
+        } while (exclusiveStartKey != null);
+        LOG.info("moved {} connections to sharded GSI1 partitions", migrated);
+        return migrated;
+    }
+
+    /**
+     * @param exclusiveStartKey The key to resume after, {@code null} once every page is migrated
+     */
+    private void saveProgress(Map<String, AttributeValue> exclusiveStartKey) {
+        Map<String, AttributeValue> item = new HashMap<>(marker());
+        if (exclusiveStartKey == null) {
+            item.put(ATTRIBUTE_COMPLETED, AttributeValue.builder().bool(true).build());
+        } else {
+            item.put(ATTRIBUTE_EXCLUSIVE_START_KEY, AttributeValue.builder().m(exclusiveStartKey).build());
+        }
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .item(item)
+                .build());
+    }
+
+    private static Map<String, AttributeValue> marker() {
+        return Map.of(WebSocketConnectionItemCodec.ATTRIBUTE_PK, MARKER, WebSocketConnectionItemCodec.ATTRIBUTE_SK, MARKER);
+    }
+}
@@ -0,0 +1,152 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queues {@link DeliveryJob}s in memory and passes them, in batches of at most
+ * {@link DeliveryQueueConfiguration#getBatchSize()}, to the same {@link DeliveryJobProcessor} the SQS consumer uses,
+ * so that the whole pipeline runs in one process for local runs, tests and offline load tests. Like SQS, it delivers
+ * the batch item failures again, up to {@link DeliveryQueueConfiguration#getMaxReceiveCount()} times. Jobs do not
+ * survive the process, so this queue is not meant for a deployed function: it is present whenever no queue URL is set,
+ * but refuses to start if the queue is enabled without {@link DeliveryQueueConfiguration#isInMemory()}.
+ */
+@Requires(missingProperty = "delivery-queue.queue-url")
+@Singleton
+public class InMemoryDeliveryQueue implements DeliveryQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryDeliveryQueue.class);
+    private static final String ATTRIBUTE_SENT_TIMESTAMP = "SentTimestamp";
+    private static final String ATTRIBUTE_RECEIVE_COUNT = "ApproximateReceiveCount";
+
+    private final DeliveryJobProcessor deliveryJobProcessor;
+    private final DeliveryJobCodec deliveryJobCodec;
+    private final Executor executor;
+    private final int batchSize;
+    private final int maxReceiveCount;
+    private final Queue<SQSEvent.SQSMessage> messages = new ArrayDeque<>();
+    private final LongAdder deadLetters = new LongAdder();
+    private boolean draining;
+
+    @Inject
+    public InMemoryDeliveryQueue(DeliveryJobProcessor deliveryJobProcessor,
+                                 DeliveryJobCodec deliveryJobCodec,
+                                 DeliveryQueueConfiguration configuration) {
+        this(deliveryJobProcessor, deliveryJobCodec, configuration, ForkJoinPool.commonPool());
+    }
+
+    InMemoryDeliveryQueue(DeliveryJobProcessor deliveryJobProcessor,
+                          DeliveryJobCodec deliveryJobCodec,
+                          DeliveryQueueConfiguration configuration,
+                          Executor executor) {
+        if (configuration.isEnabled() && !configuration.isInMemory()) {
+            throw new ConfigurationException("delivery-queue.enabled is true but delivery-queue.queue-url is not set; " +
+                    "set delivery-queue.in-memory to true to deliver jobs in process");
+        }
+        this.deliveryJobProcessor = deliveryJobProcessor;
+        this.deliveryJobCodec = deliveryJobCodec;
+        this.executor = executor;
+        this.batchSize = configuration.getBatchSize();
+        this.maxReceiveCount = configuration.getMaxReceiveCount();
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> enqueue(@NonNull @NotNull @Valid DeliveryJob job) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(UUID.randomUUID().toString());
+        message.setBody(deliveryJobCodec.encode(job));
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put(ATTRIBUTE_SENT_TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+        attributes.put(ATTRIBUTE_RECEIVE_COUNT, "0");
+        message.setAttributes(attributes);
+        boolean start;
+        synchronized (messages) {
+            messages.add(message);
+            start = !draining;
+            draining = true;
+        }
+        if (start) {
+            executor.execute(this::drain);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    public int size() {
+        synchronized (messages) {
+            return messages.size();
+        }
+    }
+
+    /**
+     * @return Number of jobs dropped after failing {@link DeliveryQueueConfiguration#getMaxReceiveCount()} times.
+     */
+    public long getDeadLetterCount() {
+        return deadLetters.sum();
+    }
+
+    private void drain() {
+        while (true) {
+            List<SQSEvent.SQSMessage> batch = new ArrayList<>(batchSize);
+            synchronized (messages) {
+                while (batch.size() < batchSize && !messages.isEmpty()) {
+                    batch.add(messages.poll());
+                }
+                if (batch.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+            }
+            Map<String, SQSEvent.SQSMessage> received = new HashMap<>();
+            for (SQSEvent.SQSMessage message : batch) {
+                Map<String, String> attributes = message.getAttributes();
+                attributes.put(ATTRIBUTE_RECEIVE_COUNT, String.valueOf(Integer.parseInt(attributes.get(ATTRIBUTE_RECEIVE_COUNT)) + 1));
+                received.put(message.getMessageId(), message);
+            }
+            SQSBatchResponse response;
+            try {
+                response = deliveryJobProcessor.process(batch);
+            } catch (RuntimeException e) {
+                LOG.warn("delivery batch failed, every job of it will be received again", e);
+                response = new SQSBatchResponse(new ArrayList<>());
+                for (SQSEvent.SQSMessage message : batch) {
+                    response.getBatchItemFailures().add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+                }
+            }
+            for (SQSBatchResponse.BatchItemFailure failure : response.getBatchItemFailures()) {
+                SQSEvent.SQSMessage message = received.get(failure.getItemIdentifier());
+                if (message == null) {
+                    continue;
+                }
+                if (Integer.parseInt(message.getAttributes().get(ATTRIBUTE_RECEIVE_COUNT)) >= maxReceiveCount) {
+                    deadLetters.increment();
+                    LOG.error("dropping delivery job {} after {} attempts", message.getMessageId(), maxReceiveCount);
+                } else {
+                    synchronized (messages) {
+                        messages.add(message);
+                    }
+                }
+            }
+        }
+    }
+}
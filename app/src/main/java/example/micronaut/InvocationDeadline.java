@@ -0,0 +1,45 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.function.LongSupplier;
+
+/**
+ * When the current invocation times out, taken from the Lambda {@link Context} by the entry points. A function
+ * container runs one invocation at a time, so a single deadline is shared. Without a context, for example in the
+ * emulator, there is no deadline.
+ */
+@Singleton
+public class InvocationDeadline {
+    private final LongSupplier ticker;
+    private volatile long deadlineNanos;
+    private volatile boolean bounded;
+
+    @Inject
+    public InvocationDeadline() {
+        this(System::nanoTime);
+    }
+
+    InvocationDeadline(LongSupplier ticker) {
+        this.ticker = ticker;
+    }
+
+    public void start(@Nullable Context context) {
+        if (context == null) {
+            bounded = false;
+            return;
+        }
+        deadlineNanos = ticker.getAsLong() + context.getRemainingTimeInMillis() * 1_000_000L;
+        bounded = true;
+    }
+
+    /**
+     * @return Nanoseconds left in the invocation, {@link Long#MAX_VALUE} without a deadline.
+     */
+    public long remainingNanos() {
+        return bounded ? deadlineNanos - ticker.getAsLong() : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,25 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.core.SdkBytes;
+
+/**
+ * Sends messages as they are, the codec of connections which did not negotiate one.
+ */
+@Singleton
+public class JsonMessageCodec implements MessageCodec {
+    public static final String NAME = "json";
+
+    @Override
+    @NonNull
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    @NonNull
+    public SdkBytes encode(@NonNull SdkBytes json) {
+        return json;
+    }
+}
@@ -0,0 +1,53 @@
+package example.micronaut;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micronaut.core.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loopback HTTP server answering every request with an empty JSON document. Priming points SDK clients at it so
+ * that marshalling, signing and the HTTP client are exercised without touching AWS.
+ */
+final class LocalStandIn implements AutoCloseable {
+    private static final byte[] EMPTY_JSON = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+
+    private LocalStandIn(HttpServer server) {
+        this.server = server;
+    }
+
+    @NonNull
+    static LocalStandIn start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+            exchange.sendResponseHeaders(200, EMPTY_JSON.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(EMPTY_JSON);
+            }
+        });
+        server.start();
+        return new LocalStandIn(server);
+    }
+
+    @NonNull
+    URI getUri() {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,24 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import software.amazon.awssdk.core.SdkBytes;
+
+/**
+ * Encodes outbound messages, written as JSON text by the application, to the wire format a client negotiated at
+ * {@code $connect}. Every implementation registered as a bean can be negotiated by its {@link #getName()}.
+ */
+public interface MessageCodec {
+
+    /**
+     * @return Name the client asks for with the {@code codec} query parameter or as a WebSocket subprotocol.
+     */
+    @NonNull
+    String getName();
+
+    /**
+     * @param json A message, normally JSON. Text which is not JSON is encoded as a string.
+     * @return The message in this codec's format
+     */
+    @NonNull
+    SdkBytes encode(@NonNull SdkBytes json);
+}
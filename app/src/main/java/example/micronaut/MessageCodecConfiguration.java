@@ -0,0 +1,18 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import javax.validation.constraints.PositiveOrZero;
+
+@ConfigurationProperties("message-codec")
+public interface MessageCodecConfiguration {
+
+    /**
+     * @return Size in bytes above which an encoded message is gzipped, for connections which negotiated a codec with
+     * the {@code -gzip} suffix. Smaller messages gain too little to pay for the compression.
+     */
+    @PositiveOrZero
+    @Bindable(defaultValue = "1024")
+    int getCompressionThreshold();
+}
@@ -0,0 +1,137 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Negotiates a {@link MessageCodec} at {@code $connect} and encodes outbound messages with the one stored on the
+ * connection. A client names a codec as a WebSocket subprotocol or with the {@value #QUERY_PARAMETER} query parameter,
+ * for example {@code cbor} or {@code msgpack-gzip}. The {@value #COMPRESSION_SUFFIX} suffix asks for messages larger
+ * than {@link MessageCodecConfiguration#getCompressionThreshold()} to be gzipped; clients tell them apart by the gzip
+ * magic bytes, which neither JSON, CBOR nor a MessagePack message of more than one byte starts with.
+ * The last message encoded per codec is remembered, so that a broadcast encodes its payload once per codec rather than
+ * once per connection.
+ */
+@Singleton
+public class MessageCodecs {
+    public static final String QUERY_PARAMETER = "codec";
+    public static final String HEADER_SUBPROTOCOL = "Sec-WebSocket-Protocol";
+    public static final String COMPRESSION_SUFFIX = "-gzip";
+
+    private final MessageCodec defaultCodec;
+    private final Map<String, Encoder> encoders;
+    private final int compressionThreshold;
+
+    public MessageCodecs(List<MessageCodec> codecs, MessageCodecConfiguration configuration) {
+        this.compressionThreshold = configuration.getCompressionThreshold();
+        Map<String, Encoder> encoders = new HashMap<>();
+        MessageCodec json = null;
+        for (MessageCodec codec : codecs) {
+            encoders.put(codec.getName(), new Encoder(codec, false));
+            encoders.put(codec.getName() + COMPRESSION_SUFFIX, new Encoder(codec, true));
+            if (JsonMessageCodec.NAME.equals(codec.getName())) {
+                json = codec;
+            }
+        }
+        this.defaultCodec = json != null ? json : new JsonMessageCodec();
+        this.encoders = Map.copyOf(encoders);
+    }
+
+    /**
+     * @return The codec a {@code $connect} request asks for: the first supported subprotocol, else the query parameter
+     * if it names a supported codec.
+     */
+    @NonNull
+    public Optional<String> negotiate(@NonNull WebSocketRequest request) {
+        Optional<String> subprotocol = subprotocol(request);
+        if (subprotocol.isPresent()) {
+            return subprotocol;
+        }
+        String parameter = request.getCodec();
+        return parameter != null && isSupported(parameter.trim()) ? Optional.of(parameter.trim()) : Optional.empty();
+    }
+
+    /**
+     * @return The first subprotocol of a {@code $connect} request naming a supported codec. The response must echo it in
+     * the {@value #HEADER_SUBPROTOCOL} header or browsers fail the handshake.
+     */
+    @NonNull
+    public Optional<String> subprotocol(@NonNull WebSocketRequest request) {
+        String subprotocols = request.getSubprotocols();
+        if (subprotocols == null) {
+            return Optional.empty();
+        }
+        for (String subprotocol : subprotocols.split(",")) {
+            String name = subprotocol.trim();
+            if (isSupported(name)) {
+                return Optional.of(name);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public boolean isSupported(@NonNull String codec) {
+        return encoders.containsKey(codec);
+    }
+
+    /**
+     * @param codec The connection's codec, see {@link WebSocketConnection#getCodec()}. Unknown codecs fall back to JSON.
+     * @param json The message as written by the application
+     */
+    @NonNull
+    public SdkBytes encode(@Nullable String codec, @NonNull SdkBytes json) {
+        Encoder encoder = codec == null ? null : encoders.get(codec);
+        return encoder == null ? defaultCodec.encode(json) : encoder.encode(json);
+    }
+
+    @NonNull
+    private SdkBytes gzip(@NonNull SdkBytes bytes) {
+        byte[] uncompressed = bytes.asByteArrayUnsafe();
+        if (uncompressed.length <= compressionThreshold) {
+            return bytes;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(uncompressed.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(uncompressed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return SdkBytes.fromByteArrayUnsafe(out.toByteArray());
+    }
+
+    private final class Encoder {
+        private final MessageCodec codec;
+        private final boolean compress;
+        private final AtomicReference<SdkBytes[]> last = new AtomicReference<>(new SdkBytes[2]);
+
+        private Encoder(MessageCodec codec, boolean compress) {
+            this.codec = codec;
+            this.compress = compress;
+        }
+
+        private SdkBytes encode(SdkBytes json) {
+            SdkBytes[] previous = last.get();
+            if (previous[0] == json) {
+                return previous[1];
+            }
+            SdkBytes encoded = codec.encode(json);
+            if (compress) {
+                encoded = gzip(encoded);
+            }
+            last.set(new SdkBytes[] {json, encoded});
+            return encoded;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encodes messages as MessagePack, each value in its smallest format. Doubles which a float represents exactly are
+ * written as float 32.
+ */
+@Singleton
+public class MessagePackMessageCodec extends BinaryMessageCodec {
+    public static final String NAME = "msgpack";
+
+    public MessagePackMessageCodec(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected void writeMapHeader(ByteArrayOutputStream out, int size) {
+        writeHeader(out, size, 0x80, 16, 0xde, 0xdf);
+    }
+
+    @Override
+    protected void writeArrayHeader(ByteArrayOutputStream out, int size) {
+        writeHeader(out, size, 0x90, 16, 0xdc, 0xdd);
+    }
+
+    @Override
+    protected void writeString(ByteArrayOutputStream out, byte[] utf8) {
+        if (utf8.length < 32) {
+            out.write(0xa0 | utf8.length);
+        } else if (utf8.length < 0x100) {
+            out.write(0xd9);
+            writeBigEndian(out, utf8.length, 1);
+        } else {
+            writeHeader(out, utf8.length, 0, 0, 0xda, 0xdb);
+        }
+        out.write(utf8, 0, utf8.length);
+    }
+
+    @Override
+    protected void writeLong(ByteArrayOutputStream out, long value) {
+        if (value >= 0) {
+            if (value < 0x80) {
+                out.write((int) value);
+            } else if (value < 0x100) {
+                out.write(0xcc);
+                writeBigEndian(out, value, 1);
+            } else if (value < 0x10000) {
+                out.write(0xcd);
+                writeBigEndian(out, value, 2);
+            } else if (value < 0x100000000L) {
+                out.write(0xce);
+                writeBigEndian(out, value, 4);
+            } else {
+                out.write(0xcf);
+                writeBigEndian(out, value, 8);
+            }
+        } else if (value >= -32) {
+            out.write((int) value & 0xff);
+        } else if (value >= Byte.MIN_VALUE) {
+            out.write(0xd0);
+            writeBigEndian(out, value, 1);
+        } else if (value >= Short.MIN_VALUE) {
+            out.write(0xd1);
+            writeBigEndian(out, value, 2);
+        } else if (value >= Integer.MIN_VALUE) {
+            out.write(0xd2);
+            writeBigEndian(out, value, 4);
+        } else {
+            out.write(0xd3);
+            writeBigEndian(out, value, 8);
+        }
+    }
+
+    @Override
+    protected void writeDouble(ByteArrayOutputStream out, double value) {
+        float single = (float) value;
+        if (single == value) {
+            out.write(0xca);
+            writeBigEndian(out, Float.floatToIntBits(single), 4);
+        } else {
+            out.write(0xcb);
+            writeBigEndian(out, Double.doubleToLongBits(value), 8);
+        }
+    }
+
+    @Override
+    protected void writeBoolean(ByteArrayOutputStream out, boolean value) {
+        out.write(value ? 0xc3 : 0xc2);
+    }
+
+    @Override
+    protected void writeNull(ByteArrayOutputStream out) {
+        out.write(0xc0);
+    }
+
+    /**
+     * Writes the header of a map, an array or a long string: the fix format below {@code fixLimit}, then the 16 bit
+     * and the 32 bit format.
+     */
+    private static void writeHeader(ByteArrayOutputStream out, int size, int fixPrefix, int fixLimit, int prefix16, int prefix32) {
+        if (size < fixLimit) {
+            out.write(fixPrefix | size);
+        } else if (size < 0x10000) {
+            out.write(prefix16);
+            writeBigEndian(out, size, 2);
+        } else {
+            out.write(prefix32);
+            writeBigEndian(out, size, 4);
+        }
+    }
+}
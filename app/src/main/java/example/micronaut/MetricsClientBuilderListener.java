@@ -0,0 +1,29 @@
+package example.micronaut;
+
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+
+/**
+ * Registers {@link MetricsExecutionInterceptor} on every AWS SDK client builder bean, such as the DynamoDB and
+ * management API ones.
+ */
+@Singleton
+public class MetricsClientBuilderListener implements BeanCreatedEventListener<AwsClientBuilder<?, ?>> {
+    private final MetricsExecutionInterceptor interceptor;
+
+    public MetricsClientBuilderListener(MetricsExecutionInterceptor interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    @Override
+    public AwsClientBuilder<?, ?> onCreated(BeanCreatedEvent<AwsClientBuilder<?, ?>> event) {
+        AwsClientBuilder<?, ?> builder = event.getBean();
+        builder.overrideConfiguration(ClientOverrideConfiguration.builder()
+                .addExecutionInterceptor(interceptor)
+                .build());
+        return builder;
+    }
+}
@@ -0,0 +1,30 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotBlank;
+
+@ConfigurationProperties("metrics")
+public interface MetricsConfiguration {
+
+    /**
+     * @return Whether metrics are written to standard output in CloudWatch Embedded Metric Format.
+     */
+    @Bindable(defaultValue = "true")
+    boolean isEnabled();
+
+    @NotBlank
+    @Bindable(defaultValue = "MicronautApigatewayWebsockets")
+    String getNamespace();
+
+    /**
+     * @return Fraction of events logged in full at debug level.
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    @Bindable(defaultValue = "0.01")
+    double getEventLogSampleRate();
+}
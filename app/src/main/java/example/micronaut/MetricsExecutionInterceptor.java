@@ -0,0 +1,120 @@
+package example.micronaut;
+
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+
+import java.util.List;
+
+/**
+ * Records the latency and failures of every call made by the clients it is registered on, as
+ * {@code <service>.<operation>.Latency} and {@code Errors.<exception class>}, and the capacity consumed by DynamoDB
+ * writes and queries, which it asks DynamoDB to return. Each call is recorded for the invocation it started in.
+ */
+@Singleton
+public class MetricsExecutionInterceptor implements ExecutionInterceptor {
+    private static final ExecutionAttribute<Long> START = new ExecutionAttribute<>("MetricsStartNanos");
+    private static final ExecutionAttribute<Long> INVOCATION = new ExecutionAttribute<>("MetricsInvocation");
+
+    private final MetricsRecorder metricsRecorder;
+
+    public MetricsExecutionInterceptor(MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(START, System.nanoTime());
+        executionAttributes.putAttribute(INVOCATION, metricsRecorder.getInvocation());
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        SdkRequest request = context.request();
+        if (!metricsRecorder.isEnabled()) {
+            return request;
+        }
+        if (request instanceof PutItemRequest && ((PutItemRequest) request).returnConsumedCapacity() == null) {
+            return ((PutItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof DeleteItemRequest && ((DeleteItemRequest) request).returnConsumedCapacity() == null) {
+            return ((DeleteItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof QueryRequest && ((QueryRequest) request).returnConsumedCapacity() == null) {
+            return ((QueryRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof BatchWriteItemRequest && ((BatchWriteItemRequest) request).returnConsumedCapacity() == null) {
+            return ((BatchWriteItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        return request;
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        recordLatency(executionAttributes);
+        SdkResponse response = context.response();
+        if (response instanceof PutItemResponse) {
+            recordConsumedCapacity(executionAttributes, ((PutItemResponse) response).consumedCapacity());
+        } else if (response instanceof DeleteItemResponse) {
+            recordConsumedCapacity(executionAttributes, ((DeleteItemResponse) response).consumedCapacity());
+        } else if (response instanceof QueryResponse) {
+            recordConsumedCapacity(executionAttributes, ((QueryResponse) response).consumedCapacity());
+        } else if (response instanceof BatchWriteItemResponse && ((BatchWriteItemResponse) response).hasConsumedCapacity()) {
+            List<ConsumedCapacity> consumedCapacities = ((BatchWriteItemResponse) response).consumedCapacity();
+            for (ConsumedCapacity consumedCapacity : consumedCapacities) {
+                recordConsumedCapacity(executionAttributes, consumedCapacity);
+            }
+        }
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        recordLatency(executionAttributes);
+        metricsRecorder.record(invocation(executionAttributes),
+                MetricsRecorder.METRIC_ERRORS + "." + context.exception().getClass().getSimpleName(),
+                MetricsRecorder.Unit.COUNT,
+                1);
+    }
+
+    private void recordLatency(ExecutionAttributes executionAttributes) {
+        Long start = executionAttributes.getAttribute(START);
+        if (start == null) {
+            return;
+        }
+        metricsRecorder.record(invocation(executionAttributes),
+                executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME) + "." +
+                        executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME) + "." +
+                        MetricsRecorder.METRIC_LATENCY,
+                MetricsRecorder.Unit.MILLISECONDS,
+                (System.nanoTime() - start) / 1_000_000d);
+    }
+
+    private void recordConsumedCapacity(ExecutionAttributes executionAttributes, ConsumedCapacity consumedCapacity) {
+        if (consumedCapacity != null && consumedCapacity.capacityUnits() != null) {
+            metricsRecorder.record(invocation(executionAttributes),
+                    MetricsRecorder.METRIC_CONSUMED_CAPACITY,
+                    MetricsRecorder.Unit.COUNT,
+                    consumedCapacity.capacityUnits());
+        }
+    }
+
+    private long invocation(ExecutionAttributes executionAttributes) {
+        Long invocation = executionAttributes.getAttribute(INVOCATION);
+        return invocation != null ? invocation : metricsRecorder.getInvocation();
+    }
+}
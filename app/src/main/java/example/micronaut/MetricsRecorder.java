@@ -0,0 +1,197 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects the metrics of an invocation and writes them as CloudWatch Embedded Metric Format lines with an
+ * {@code EventType} dimension, one line per 100 values of the busiest metric. CloudWatch extracts the metrics from the
+ * function's log, nothing is sent over the network. Value buffers and the line builder are reused across invocations.
+ */
+@Singleton
+public class MetricsRecorder {
+    public static final String METRIC_LATENCY = "Latency";
+    public static final String METRIC_ERRORS = "Errors";
+    public static final String METRIC_COLD_START = "ColdStart";
+    public static final String METRIC_CONSUMED_CAPACITY = "DynamoDbConsumedCapacity";
+
+    // EMF accepts up to 100 values per metric and line
+    private static final int MAX_VALUES = 100;
+    private static final String DIMENSION_EVENT_TYPE = "EventType";
+    private static final String UNKNOWN_EVENT_TYPE = "UNKNOWN";
+
+    private final MetricsConfiguration configuration;
+    private final PrintStream out;
+    private final LongSupplier clock;
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+    private final StringBuilder line = new StringBuilder(1024);
+    private boolean coldStart = true;
+    private volatile long invocation;
+    private String previousEventType = UNKNOWN_EVENT_TYPE;
+
+    @Inject
+    public MetricsRecorder(MetricsConfiguration configuration) {
+        this(configuration, System.out, System::currentTimeMillis);
+    }
+
+    MetricsRecorder(MetricsConfiguration configuration, PrintStream out, LongSupplier clock) {
+        this.configuration = configuration;
+        this.out = out;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return configuration.isEnabled();
+    }
+
+    /**
+     * @return Whether this event should be logged in full, according to {@link MetricsConfiguration#getEventLogSampleRate()}
+     */
+    public boolean sampleEventLog() {
+        return ThreadLocalRandom.current().nextDouble() < configuration.getEventLogSampleRate();
+    }
+
+    /**
+     * @return The invocation values are currently recorded for, to pass to {@link #record(long, String, Unit, double)}
+     * by work which may complete after the invocation has been flushed.
+     */
+    public long getInvocation() {
+        return invocation;
+    }
+
+    public void milliseconds(@NonNull String name, long nanos) {
+        record(name, Unit.MILLISECONDS, nanos / 1_000_000d);
+    }
+
+    public void count(@NonNull String name) {
+        record(name, Unit.COUNT, 1);
+    }
+
+    public synchronized void record(@NonNull String name, @NonNull Unit unit, double value) {
+        record(invocation, name, unit, value);
+    }
+
+    /**
+     * Records a value for the invocation it was measured in. A value arriving after that invocation was flushed is
+     * written at once on a line of its own, with the event type of the invocation if it was the previous one, rather
+     * than being attributed to the current invocation.
+     */
+    public synchronized void record(long invocation, @NonNull String name, @NonNull Unit unit, double value) {
+        if (!configuration.isEnabled()) {
+            return;
+        }
+        if (invocation == this.invocation) {
+            metrics.computeIfAbsent(name, key -> new Metric(unit)).add(value);
+        } else {
+            Metric late = new Metric(unit);
+            late.add(value);
+            write(invocation == this.invocation - 1 ? previousEventType : UNKNOWN_EVENT_TYPE, Map.of(name, late), 0);
+        }
+    }
+
+    /**
+     * Writes the metrics recorded since the previous flush, flagging the first invocation as a cold start.
+     *
+     * @param eventType Value of the {@code EventType} dimension
+     */
+    public synchronized void flush(@NonNull String eventType) {
+        if (!configuration.isEnabled()) {
+            return;
+        }
+        record(METRIC_COLD_START, Unit.COUNT, coldStart ? 1 : 0);
+        coldStart = false;
+        int size = 0;
+        for (Metric metric : metrics.values()) {
+            size = Math.max(size, metric.size);
+        }
+        for (int offset = 0; offset < size; offset += MAX_VALUES) {
+            write(eventType, metrics, offset);
+        }
+        for (Metric metric : metrics.values()) {
+            metric.size = 0;
+        }
+        invocation++;
+        previousEventType = eventType;
+    }
+
+    /**
+     * Writes one line with up to {@value #MAX_VALUES} values of every metric, starting at a value offset.
+     */
+    private void write(String eventType, Map<String, Metric> metrics, int offset) {
+        line.setLength(0);
+        line.append("{\"_aws\":{\"Timestamp\":").append(clock.getAsLong())
+                .append(",\"CloudWatchMetrics\":[{\"Namespace\":\"").append(configuration.getNamespace())
+                .append("\",\"Dimensions\":[[\"").append(DIMENSION_EVENT_TYPE).append("\"]],\"Metrics\":[");
+        boolean first = true;
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            if (entry.getValue().size <= offset) {
+                continue;
+            }
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+            line.append("{\"Name\":\"").append(entry.getKey())
+                    .append("\",\"Unit\":\"").append(entry.getValue().unit.getName()).append("\"}");
+        }
+        line.append("]}]},\"").append(DIMENSION_EVENT_TYPE).append("\":\"").append(eventType).append('"');
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            Metric metric = entry.getValue();
+            if (metric.size <= offset) {
+                continue;
+            }
+            line.append(",\"").append(entry.getKey()).append("\":[");
+            int end = Math.min(metric.size, offset + MAX_VALUES);
+            for (int i = offset; i < end; i++) {
+                if (i > offset) {
+                    line.append(',');
+                }
+                line.append(metric.values[i]);
+            }
+            line.append(']');
+        }
+        line.append('}');
+        out.println(line);
+    }
+
+    public enum Unit {
+        MILLISECONDS("Milliseconds"),
+        COUNT("Count"),
+        NONE("None");
+
+        private final String name;
+
+        Unit(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final class Metric {
+        private final Unit unit;
+        private double[] values = new double[MAX_VALUES];
+        private int size;
+
+        private Metric(Unit unit) {
+            this.unit = unit;
+        }
+
+        private void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.time.Duration;
+
+@ConfigurationProperties("outbound-coalescing")
+public interface OutboundCoalescingConfiguration {
+
+    /**
+     * @return Whether messages pending for the same connection are merged into one {@code postToConnection} call. Clients
+     * then receive every message as an element of a JSON array, even when it was posted alone.
+     */
+    @Bindable(defaultValue = "false")
+    boolean isEnabled();
+
+    /**
+     * @return Longest time a message waits for others to the same connection before it is posted.
+     */
+    @NotNull
+    @Bindable(defaultValue = "10ms")
+    Duration getFlushWindow();
+
+    /**
+     * @return Maximum number of messages merged into one post.
+     */
+    @Positive
+    @Bindable(defaultValue = "25")
+    int getMaximumMessages();
+
+    /**
+     * @return Maximum size in bytes of the JSON array of a merged post, before a codec encodes it. The default fits a
+     * single 32 KB WebSocket frame.
+     */
+    @Positive
+    @Bindable(defaultValue = "32768")
+    int getMaximumBytes();
+}
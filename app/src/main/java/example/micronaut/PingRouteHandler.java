@@ -0,0 +1,23 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keep-alive for clients with nothing else to send. Like any message, it keeps the sender's connection item from
+ * expiring, which {@link WebSocketRequestDispatcher} does for every route at the pace set by {@link ConnectionSessions}.
+ */
+@WebSocketRoute(WebSocketRoutes.PING)
+public class PingRouteHandler implements WebSocketRouteHandler {
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    @Override
+    @NonNull
+    public CompletableFuture<?> handle(@NonNull String routeKey,
+                                       @NonNull WebSocketConnection connection,
+                                       @Nullable String body) {
+        return DONE;
+    }
+}
@@ -0,0 +1,150 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs several paginated queries, for example one per GSI1 shard, in parallel and hands out their pages in completion
+ * order. The next page of a query is requested as soon as its previous page arrives, so fetching overlaps with whatever
+ * the consumer does with the pages already handed out. The queries are the partitions of a {@link FanOutCursor},
+ * numbered in the order they are given, and a page is recorded in it as it is handed out.
+ */
+public final class ScatterGatherPageIterator implements Iterator<List<WebSocketConnection>> {
+    private final Function<QueryRequest, CompletableFuture<QueryResponse>> query;
+    private final WebSocketConnectionItemCodec codec;
+    private final FanOutCursor cursor;
+    private final BlockingQueue<CompletedPage> completedPages = new LinkedBlockingQueue<>();
+    private int outstanding;
+
+    public ScatterGatherPageIterator(@NonNull Function<QueryRequest, CompletableFuture<QueryResponse>> query,
+                                     @NonNull Collection<QueryRequest> requests,
+                                     @NonNull WebSocketConnectionItemCodec codec) {
+        this(query, requests, codec, FanOutCursor.start());
+    }
+
+    public ScatterGatherPageIterator(@NonNull Function<QueryRequest, CompletableFuture<QueryResponse>> query,
+                                     @NonNull Collection<QueryRequest> requests,
+                                     @NonNull WebSocketConnectionItemCodec codec,
+                                     @NonNull FanOutCursor cursor) {
+        this.query = query;
+        this.codec = codec;
+        this.cursor = cursor;
+        int partition = 0;
+        for (QueryRequest request : requests) {
+            String name = String.valueOf(partition++);
+            Map<String, String> key = cursor.open(name);
+            if (key != null) {
+                submit(name, key, key.isEmpty() ? request : request.toBuilder().exclusiveStartKey(attributes(key)).build());
+            }
+        }
+    }
+
+    @NonNull
+    public static Stream<List<WebSocketConnection>> stream(@NonNull Function<QueryRequest, CompletableFuture<QueryResponse>> query,
+                                                           @NonNull Collection<QueryRequest> requests,
+                                                           @NonNull WebSocketConnectionItemCodec codec) {
+        return stream(query, requests, codec, FanOutCursor.start());
+    }
+
+    @NonNull
+    public static Stream<List<WebSocketConnection>> stream(@NonNull Function<QueryRequest, CompletableFuture<QueryResponse>> query,
+                                                           @NonNull Collection<QueryRequest> requests,
+                                                           @NonNull WebSocketConnectionItemCodec codec,
+                                                           @NonNull FanOutCursor cursor) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new ScatterGatherPageIterator(query, requests, codec, cursor),
+                Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return outstanding > 0;
+    }
+
+    @Override
+    public List<WebSocketConnection> next() {
+        if (outstanding == 0) {
+            throw new NoSuchElementException();
+        }
+        CompletedPage completed;
+        try {
+            completed = completedPages.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SdkClientException.create("Interrupted while waiting for a query page", e);
+        }
+        outstanding--;
+        if (completed.throwable != null) {
+            Throwable cause = completed.throwable instanceof CompletionException && completed.throwable.getCause() != null ?
+                    completed.throwable.getCause() : completed.throwable;
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+        }
+        QueryResponse page = completed.response;
+        Map<String, String> next = null;
+        if (page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty()) {
+            next = strings(page.lastEvaluatedKey());
+            submit(completed.partition, next, completed.request.toBuilder()
+                    .exclusiveStartKey(page.lastEvaluatedKey())
+                    .build());
+        }
+        cursor.handOut(completed.partition, completed.key, next);
+        return codec.connections(page.items());
+    }
+
+    private void submit(@NonNull String partition, @NonNull Map<String, String> key, @NonNull QueryRequest request) {
+        outstanding++;
+        query.apply(request).whenComplete((response, throwable) ->
+                completedPages.add(new CompletedPage(partition, key, request, response, throwable)));
+    }
+
+    /**
+     * Every key attribute of the table and its indexes is a string.
+     */
+    @NonNull
+    private static Map<String, String> strings(@NonNull Map<String, AttributeValue> key) {
+        Map<String, String> strings = new HashMap<>();
+        key.forEach((name, value) -> strings.put(name, value.s()));
+        return strings;
+    }
+
+    @NonNull
+    private static Map<String, AttributeValue> attributes(@NonNull Map<String, String> key) {
+        Map<String, AttributeValue> attributes = new HashMap<>();
+        key.forEach((name, value) -> attributes.put(name, AttributeValue.builder().s(value).build()));
+        return attributes;
+    }
+
+    private static final class CompletedPage {
+        private final String partition;
+        private final Map<String, String> key;
+        private final QueryRequest request;
+        private final QueryResponse response;
+        private final Throwable throwable;
+
+        private CompletedPage(String partition, Map<String, String> key, QueryRequest request, QueryResponse response, Throwable throwable) {
+            this.partition = partition;
+            this.key = key;
+            this.request = request;
+            this.response = response;
+            this.throwable = throwable;
+        }
+    }
+}
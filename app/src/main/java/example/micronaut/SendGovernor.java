@@ -0,0 +1,296 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Limits the management API posts in flight with an additive increase, multiplicative decrease (AIMD) limit. Every
+ * successful post raises the limit by one over the current limit, so by about one per round of posts. A post which is
+ * throttled (429), fails with a server error (5xx) or does not reach the API multiplies it by
+ * {@link SendGovernorConfiguration#getBackoffRatio()} and is retried after a jittered exponential backoff. Any other
+ * error, such as 410 for a gone connection or 403, is terminal and passed on as is. Posts over the limit wait in a
+ * queue. Nothing is started or retried within {@link SendGovernorConfiguration#getDeadlineMargin()} of the
+ * {@link InvocationDeadline}; such posts fail with a {@link TimeoutException}, or an {@link ApiCallTimeoutException}
+ * caused by it when blocking.
+ */
+@Singleton
+public class SendGovernor {
+    public static final String METRIC_LIMIT = "SendConcurrencyLimit";
+    public static final String METRIC_QUEUE_DEPTH = "SendQueueDepth";
+    public static final String METRIC_THROTTLED = "SendThrottled";
+    public static final String METRIC_RETRIES = "SendRetries";
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private final InvocationDeadline deadline;
+    private final MetricsRecorder metricsRecorder;
+    private final LongSupplier ticker;
+    private final boolean enabled;
+    private final int minimumLimit;
+    private final int maximumLimit;
+    private final double backoffRatio;
+    private final int maximumAttempts;
+    private final long baseBackoffNanos;
+    private final long maximumBackoffNanos;
+    private final long deadlineMarginNanos;
+    private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    @Inject
+    public SendGovernor(SendGovernorConfiguration configuration,
+                        InvocationDeadline deadline,
+                        MetricsRecorder metricsRecorder) {
+        this(configuration, deadline, metricsRecorder, System::nanoTime);
+    }
+
+    SendGovernor(SendGovernorConfiguration configuration,
+                 InvocationDeadline deadline,
+                 MetricsRecorder metricsRecorder,
+                 LongSupplier ticker) {
+        this.deadline = deadline;
+        this.metricsRecorder = metricsRecorder;
+        this.ticker = ticker;
+        this.enabled = configuration.isEnabled();
+        this.minimumLimit = configuration.getMinimumLimit();
+        this.maximumLimit = Math.max(minimumLimit, configuration.getMaximumLimit());
+        this.backoffRatio = configuration.getBackoffRatio();
+        this.maximumAttempts = configuration.getMaximumAttempts();
+        this.baseBackoffNanos = configuration.getBaseBackoff().toNanos();
+        this.maximumBackoffNanos = configuration.getMaximumBackoff().toNanos();
+        this.deadlineMarginNanos = configuration.getDeadlineMargin().toNanos();
+        this.limit = Math.min(maximumLimit, Math.max(minimumLimit, configuration.getInitialLimit()));
+        this.lastDecrease = ticker.getAsLong() - baseBackoffNanos;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts an asynchronous call once the limit allows, retrying it while it fails with a retryable error.
+     */
+    @NonNull
+    public <T> CompletableFuture<T> submit(@NonNull Supplier<CompletableFuture<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, 1, result);
+        return result;
+    }
+
+    /**
+     * Performs a blocking call once the limit allows, retrying it while it fails with a retryable error.
+     */
+    public <T> T call(@NonNull Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                acquire().join();
+            } catch (CompletionException e) {
+                // refused because the deadline is too close
+                throw ApiCallTimeoutException.builder()
+                        .message(e.getCause().getMessage())
+                        .cause(e.getCause())
+                        .build();
+            }
+            RuntimeException failure = null;
+            T value = null;
+            try {
+                value = call.get();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            release(failure);
+            if (failure == null) {
+                return value;
+            }
+            long backoff = retryBackoffNanos(failure, attempt);
+            if (backoff < 0) {
+                throw failure;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Records the current limit and the number of posts waiting for it.
+     */
+    public void recordMetrics() {
+        if (!enabled) {
+            return;
+        }
+        double currentLimit;
+        int queueDepth;
+        synchronized (this) {
+            currentLimit = limit;
+            queueDepth = waiters.size();
+        }
+        metricsRecorder.record(METRIC_LIMIT, MetricsRecorder.Unit.COUNT, Math.floor(currentLimit));
+        metricsRecorder.record(METRIC_QUEUE_DEPTH, MetricsRecorder.Unit.COUNT, queueDepth);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth() {
+        return waiters.size();
+    }
+
+    /**
+     * @return Whether an error is worth retrying and signals congestion: throttling, a server error or a call which did
+     * not get a response.
+     */
+    static boolean isRetryable(@Nullable Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        if (cause instanceof SdkServiceException) {
+            SdkServiceException e = (SdkServiceException) cause;
+            return e.isThrottlingException() || e.statusCode() == 429 || e.statusCode() >= 500;
+        }
+        return cause instanceof SdkClientException;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> call, int attempt, CompletableFuture<T> result) {
+        acquire().whenComplete((granted, refused) -> {
+            if (refused != null) {
+                result.completeExceptionally(refused);
+                return;
+            }
+            CompletableFuture<T> future;
+            try {
+                future = call.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((value, throwable) -> {
+                release(throwable);
+                if (throwable == null) {
+                    result.complete(value);
+                    return;
+                }
+                long backoff = retryBackoffNanos(throwable, attempt);
+                if (backoff < 0) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    CompletableFuture.delayedExecutor(backoff, TimeUnit.NANOSECONDS)
+                            .execute(() -> attempt(call, attempt + 1, result));
+                }
+            });
+        });
+    }
+
+    /**
+     * @return A future completed once a post may start, failed if the deadline is too close.
+     */
+    private CompletableFuture<Void> acquire() {
+        if (deadline.remainingNanos() <= deadlineMarginNanos) {
+            return CompletableFuture.failedFuture(deadlineReached());
+        }
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return GRANTED;
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    /**
+     * Frees the slot of a finished call and hands free slots to waiting calls. Once the deadline is too close, every
+     * waiting call is refused instead.
+     */
+    private void release(@Nullable Throwable throwable) {
+        boolean retryable = throwable != null && isRetryable(throwable);
+        boolean expired = deadline.remainingNanos() <= deadlineMarginNanos;
+        List<CompletableFuture<Void>> granted = null;
+        List<CompletableFuture<Void>> refused = null;
+        synchronized (this) {
+            inFlight--;
+            if (throwable == null) {
+                limit = Math.min(maximumLimit, limit + 1 / limit);
+            } else if (retryable) {
+                long now = ticker.getAsLong();
+                if (now - lastDecrease >= baseBackoffNanos) {
+                    limit = Math.max(minimumLimit, limit * backoffRatio);
+                    lastDecrease = now;
+                }
+            }
+            if (expired && !waiters.isEmpty()) {
+                refused = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                if (granted == null) {
+                    granted = new ArrayList<>();
+                }
+                granted.add(waiters.poll());
+                inFlight++;
+            }
+        }
+        if (retryable && unwrap(throwable) instanceof SdkServiceException) {
+            metricsRecorder.count(METRIC_THROTTLED);
+        }
+        if (granted != null) {
+            granted.forEach(waiter -> waiter.complete(null));
+        }
+        if (refused != null) {
+            refused.forEach(waiter -> waiter.completeExceptionally(deadlineReached()));
+        }
+    }
+
+    /**
+     * @return Full jitter backoff before the next attempt, or -1 if the call is not to be retried.
+     */
+    private long retryBackoffNanos(Throwable throwable, int attempt) {
+        if (attempt >= maximumAttempts || !isRetryable(throwable)) {
+            return -1;
+        }
+        long cap = Math.min(maximumBackoffNanos, baseBackoffNanos << Math.min(attempt - 1, 30));
+        long backoff = cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+        if (deadline.remainingNanos() - backoff <= deadlineMarginNanos) {
+            return -1;
+        }
+        metricsRecorder.count(METRIC_RETRIES);
+        return backoff;
+    }
+
+    private static TimeoutException deadlineReached() {
+        return new TimeoutException("not enough time left in the invocation to post");
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+}
@@ -0,0 +1,69 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.time.Duration;
+
+@ConfigurationProperties("send-governor")
+public interface SendGovernorConfiguration {
+
+    /**
+     * @return Whether management API posts go through {@link SendGovernor}. When disabled the SDK's default retries apply.
+     */
+    @Bindable(defaultValue = "true")
+    boolean isEnabled();
+
+    /**
+     * @return Limit of posts in flight before any feedback.
+     */
+    @Positive
+    @Bindable(defaultValue = "50")
+    int getInitialLimit();
+
+    @Positive
+    @Bindable(defaultValue = "1")
+    int getMinimumLimit();
+
+    @Positive
+    @Bindable(defaultValue = "1000")
+    int getMaximumLimit();
+
+    /**
+     * @return Factor the limit is multiplied by when a post is throttled or fails with a server error.
+     */
+    @DecimalMin("0.1")
+    @DecimalMax("0.9")
+    @Bindable(defaultValue = "0.5")
+    double getBackoffRatio();
+
+    /**
+     * @return Attempts of a post, including the first, while it fails with a retryable error.
+     */
+    @Positive
+    @Bindable(defaultValue = "3")
+    int getMaximumAttempts();
+
+    /**
+     * @return Cap of the first retry's jittered backoff, doubled on each further attempt. The limit is decreased at most
+     * once per base backoff, so that a burst of throttled posts counts as one congestion signal.
+     */
+    @NotNull
+    @Bindable(defaultValue = "50ms")
+    Duration getBaseBackoff();
+
+    @NotNull
+    @Bindable(defaultValue = "1s")
+    Duration getMaximumBackoff();
+
+    /**
+     * @return Time kept free at the end of an invocation: no post is started or retried closer than this to the deadline.
+     */
+    @NotNull
+    @Bindable(defaultValue = "200ms")
+    Duration getDeadlineMargin();
+}
@@ -0,0 +1,41 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends each {@link DeliveryJob} as a message of the SQS queue at {@link DeliveryQueueConfiguration#getQueueUrl()},
+ * consumed by {@link DeliveryQueueRequestHandler}.
+ */
+@Requires(property = "delivery-queue.queue-url")
+@Singleton
+public class SqsDeliveryQueue implements DeliveryQueue {
+    private final SqsAsyncClient sqsAsyncClient;
+    private final DeliveryJobCodec deliveryJobCodec;
+    private final String queueUrl;
+
+    public SqsDeliveryQueue(SqsAsyncClient sqsAsyncClient,
+                            DeliveryJobCodec deliveryJobCodec,
+                            DeliveryQueueConfiguration configuration) {
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.deliveryJobCodec = deliveryJobCodec;
+        this.queueUrl = configuration.getQueueUrl();
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> enqueue(@NonNull @NotNull @Valid DeliveryJob job) {
+        return sqsAsyncClient.sendMessage(SendMessageRequest.builder()
+                        .queueUrl(queueUrl)
+                        .messageBody(deliveryJobCodec.encode(job))
+                        .build())
+                .thenApply(response -> null);
+    }
+}
@@ -0,0 +1,59 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects connections which API Gateway reported as gone, so that their rows are removed in batches instead of
+ * lingering until every later fan-out trips over them.
+ */
+@Singleton
+public class StaleConnectionCollector {
+    private static final Logger LOG = LoggerFactory.getLogger(StaleConnectionCollector.class);
+
+    private final Map<String, WebSocketConnection> staleConnections = new ConcurrentHashMap<>();
+    private final WebsocketConnectionRepository websocketConnectionRepository;
+    private final TopicSubscriptionRepository topicSubscriptionRepository;
+
+    public StaleConnectionCollector(WebsocketConnectionRepository websocketConnectionRepository,
+                                    TopicSubscriptionRepository topicSubscriptionRepository) {
+        this.websocketConnectionRepository = websocketConnectionRepository;
+        this.topicSubscriptionRepository = topicSubscriptionRepository;
+    }
+
+    /**
+     * Collects a connection once, however many posts to it were reported gone.
+     */
+    public void add(@NonNull WebSocketConnection connection) {
+        staleConnections.putIfAbsent(connection.getConnectionId(), connection);
+    }
+
+    /**
+     * Deletes every collected connection together with its topic subscriptions. Failures are logged and do not propagate, pruning is best effort.
+     */
+    public void prune() {
+        List<WebSocketConnection> connections = new ArrayList<>(staleConnections.size());
+        Iterator<WebSocketConnection> iterator = staleConnections.values().iterator();
+        while (iterator.hasNext()) {
+            connections.add(iterator.next());
+            iterator.remove();
+        }
+        if (connections.isEmpty()) {
+            return;
+        }
+        try {
+            websocketConnectionRepository.deleteAllWithSubscriptions(connections, topicSubscriptionRepository);
+            LOG.debug("pruned {} stale connections", connections.size());
+        } catch (RuntimeException e) {
+            LOG.warn("could not prune {} stale connections", connections.size(), e);
+        }
+    }
+}
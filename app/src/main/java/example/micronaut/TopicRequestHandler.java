@@ -0,0 +1,102 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Named;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Handles the {@value WebSocketRoutes#SUBSCRIBE}, {@value WebSocketRoutes#UNSUBSCRIBE} and
+ * {@value WebSocketRoutes#PUBLISH} routes. A message without a usable topic is answered on the sender's connection.
+ * With {@link DeliveryQueueConfiguration#isEnabled()}, a publish is only enqueued, and the fan-out is left to the
+ * {@link DeliveryQueue} consumer. Otherwise the blocking fan-out runs on the IO executor, off the thread which
+ * completed the previous stage, which may be an SDK client's.
+ */
+@WebSocketRoute({WebSocketRoutes.SUBSCRIBE, WebSocketRoutes.UNSUBSCRIBE, WebSocketRoutes.PUBLISH})
+public class TopicRequestHandler implements WebSocketRouteHandler {
+    private static final String FIELD_TOPIC = "topic";
+    private static final String FIELD_DATA = "data";
+
+    private final ObjectMapper objectMapper;
+    private final TopicSubscriptionRepository topicSubscriptionRepository;
+    private final WebSocketBroadcaster webSocketBroadcaster;
+    private final ApiGatewayManagementApiClientAsyncSender asyncSender;
+    private final DeliveryQueue deliveryQueue;
+    private final boolean queued;
+    private final ExecutorService executorService;
+
+    public TopicRequestHandler(ObjectMapper objectMapper,
+                               TopicSubscriptionRepository topicSubscriptionRepository,
+                               WebSocketBroadcaster webSocketBroadcaster,
+                               ApiGatewayManagementApiClientAsyncSender asyncSender,
+                               DeliveryQueue deliveryQueue,
+                               DeliveryQueueConfiguration deliveryQueueConfiguration,
+                               @Named(TaskExecutors.IO) ExecutorService executorService) {
+        this.objectMapper = objectMapper;
+        this.topicSubscriptionRepository = topicSubscriptionRepository;
+        this.webSocketBroadcaster = webSocketBroadcaster;
+        this.asyncSender = asyncSender;
+        this.deliveryQueue = deliveryQueue;
+        this.queued = deliveryQueueConfiguration.isEnabled();
+        this.executorService = executorService;
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<?> handle(@NonNull String routeKey,
+                                       @NonNull WebSocketConnection connection,
+                                       @Nullable String body) {
+        JsonNode message = parse(body);
+        String topic = message == null ? null : message.path(FIELD_TOPIC).textValue();
+        if (topic == null || topic.isBlank() || topic.length() > TopicSubscriptionRepository.TOPIC_MAX_LENGTH) {
+            return asyncSender.send(new WebSocketMessage(connection, "A topic of at most " +
+                    TopicSubscriptionRepository.TOPIC_MAX_LENGTH + " characters is required"));
+        }
+        switch (routeKey) {
+            case WebSocketRoutes.SUBSCRIBE:
+                return topicSubscriptionRepository.subscribeAsync(connection, topic);
+            case WebSocketRoutes.UNSUBSCRIBE:
+                return topicSubscriptionRepository.unsubscribeAsync(connection, topic);
+            case WebSocketRoutes.PUBLISH:
+                JsonNode data = message.path(FIELD_DATA);
+                String text = data.isTextual() ? data.textValue() : data.toString();
+                if (queued) {
+                    return deliveryQueue.enqueue(new DeliveryJob(connection.getApiId(), connection.getStage(), topic, text, null));
+                }
+                SdkBytes payload = SdkBytes.fromUtf8String(text);
+                return CompletableFuture.supplyAsync(() -> webSocketBroadcaster.publish(connection.getApiId(),
+                        connection.getStage(),
+                        topic,
+                        payload), executorService);
+            default:
+                return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Removes the subscriptions of a connection which disconnected.
+     */
+    @NonNull
+    public CompletableFuture<Void> disconnect(@NonNull WebSocketConnection connection) {
+        return topicSubscriptionRepository.unsubscribeAllAsync(connection);
+    }
+
+    @Nullable
+    private JsonNode parse(@Nullable String body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
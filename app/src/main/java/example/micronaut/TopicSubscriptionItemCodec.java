@@ -0,0 +1,140 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes topic subscriptions to items of the single table design. A subscription lives in the partition of its
+ * connection, {@code pk} of the connection item and {@code sk} {@code TOPIC#<topic>}, so that every subscription of a
+ * connection is found with one query on disconnect. GSI2 groups the subscriptions of a topic per API and stage,
+ * {@code GSI2PK} {@code TOPIC#<apiId>#<stage>#<topic>}, so that publishing reads only that topic's subscribers.
+ * A subscription cannot outlive its connection, so it expires {@link WebSocketConnectionItemCodec#MAX_CONNECTION_DURATION}
+ * after it was made without needing a heartbeat of its own.
+ */
+@Singleton
+public class TopicSubscriptionItemCodec {
+    public static final String ATTRIBUTE_GSI_2_PK = "GSI2PK";
+    public static final String ATTRIBUTE_GSI_2_SK = "GSI2SK";
+    public static final String ATTRIBUTE_TOPIC = "topic";
+    public static final String INDEX_GSI_2 = "GSI2";
+    private static final String HASH = "#";
+    private static final String SORT_KEY_PREFIX = "TOPIC" + HASH;
+    private static final Map<String, String> KEY_NAMES = Map.of(
+            "#pk", WebSocketConnectionItemCodec.ATTRIBUTE_PK,
+            "#sk", WebSocketConnectionItemCodec.ATTRIBUTE_SK);
+
+    private final DynamoConfiguration dynamoConfiguration;
+    private final WebSocketConnectionItemCodec connectionCodec;
+    private final int itemCapacity;
+    private final AttributeValue sortKeyPrefix = s(SORT_KEY_PREFIX);
+
+    public TopicSubscriptionItemCodec(DynamoConfiguration dynamoConfiguration,
+                                      WebSocketConnectionItemCodec connectionCodec) {
+        this.dynamoConfiguration = dynamoConfiguration;
+        this.connectionCodec = connectionCodec;
+        this.itemCapacity = (int) ((6 + connectionCodec.getAttributeCount()) / 0.75f) + 1;
+    }
+
+    @NonNull
+    public Map<String, AttributeValue> item(@NonNull WebSocketConnection websocketConnection, @NonNull String topic) {
+        AttributeValue pk = connectionCodec.partitionKey(websocketConnection);
+        Map<String, AttributeValue> item = new HashMap<>(itemCapacity);
+        item.put(WebSocketConnectionItemCodec.ATTRIBUTE_PK, pk);
+        item.put(WebSocketConnectionItemCodec.ATTRIBUTE_SK, s(SORT_KEY_PREFIX + topic));
+        item.put(ATTRIBUTE_GSI_2_PK, s(gsi2pk(websocketConnection.getApiId(), websocketConnection.getStage(), topic)));
+        item.put(ATTRIBUTE_GSI_2_SK, pk);
+        item.put(ATTRIBUTE_TOPIC, s(topic));
+        item.put(WebSocketConnectionItemCodec.ATTRIBUTE_EXPIRES_AT,
+                connectionCodec.expiresAfter(WebSocketConnectionItemCodec.MAX_CONNECTION_DURATION));
+        connectionCodec.putAttributes(item, websocketConnection);
+        return item;
+    }
+
+    @NonNull
+    public Map<String, AttributeValue> key(@NonNull WebSocketConnection websocketConnection, @NonNull String topic) {
+        return Map.of(WebSocketConnectionItemCodec.ATTRIBUTE_PK, connectionCodec.partitionKey(websocketConnection),
+                WebSocketConnectionItemCodec.ATTRIBUTE_SK, s(SORT_KEY_PREFIX + topic));
+    }
+
+    /**
+     * @return Whether a sort key is that of a subscription item.
+     */
+    public static boolean isSubscriptionSortKey(@Nullable String sk) {
+        return sk != null && sk.startsWith(SORT_KEY_PREFIX);
+    }
+
+    /**
+     * @return A GSI2 query for the subscribers of a topic. Its pages decode with {@link WebSocketConnectionItemCodec#connections(List)}.
+     */
+    @NonNull
+    public QueryRequest findAllByTopicRequest(@NonNull String apiId, @NonNull String stage, @NonNull String topic) {
+        return QueryRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .indexName(INDEX_GSI_2)
+                .keyConditionExpression("#gsi2pk = :gsi2pk")
+                .filterExpression(WebSocketConnectionItemCodec.notExpiredFilter())
+                .expressionAttributeNames(Map.of(
+                        "#gsi2pk", ATTRIBUTE_GSI_2_PK,
+                        "#expiresAt", WebSocketConnectionItemCodec.ATTRIBUTE_EXPIRES_AT))
+                .expressionAttributeValues(Map.of(
+                        ":gsi2pk", s(gsi2pk(apiId, stage, topic)),
+                        ":now", connectionCodec.now()))
+                .build();
+    }
+
+    /**
+     * @return A query for the keys of every subscription of a connection, which leaves the connection item out.
+     */
+    @NonNull
+    public QueryRequest findAllKeysByConnectionRequest(@NonNull WebSocketConnection websocketConnection) {
+        return QueryRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .keyConditionExpression("#pk = :pk AND begins_with(#sk, :topic)")
+                .projectionExpression("#pk, #sk")
+                .expressionAttributeNames(KEY_NAMES)
+                .expressionAttributeValues(Map.of(
+                        ":pk", connectionCodec.partitionKey(websocketConnection),
+                        ":topic", sortKeyPrefix))
+                .build();
+    }
+
+    @NonNull
+    public List<WriteRequest> deleteRequests(@NonNull List<Map<String, AttributeValue>> keys) {
+        List<WriteRequest> writeRequests = new ArrayList<>(keys.size());
+        for (Map<String, AttributeValue> key : keys) {
+            writeRequests.add(WriteRequest.builder()
+                    .deleteRequest(DeleteRequest.builder()
+                            .key(key)
+                            .build())
+                    .build());
+        }
+        return writeRequests;
+    }
+
+    @NonNull
+    private static String gsi2pk(@NonNull String apiId, @NonNull String stage, @NonNull String topic) {
+        return new StringBuilder(SORT_KEY_PREFIX.length() + apiId.length() + stage.length() + topic.length() + 2)
+                .append(SORT_KEY_PREFIX)
+                .append(apiId)
+                .append(HASH)
+                .append(stage)
+                .append(HASH)
+                .append(topic)
+                .toString();
+    }
+
+    @NonNull
+    private static AttributeValue s(String str) {
+        return AttributeValue.builder().s(str).build();
+    }
+}
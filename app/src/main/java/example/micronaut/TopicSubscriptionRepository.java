@@ -0,0 +1,107 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+public interface TopicSubscriptionRepository {
+    /**
+     * Maximum length of a topic name, well within the limit DynamoDB puts on key attributes.
+     */
+    int TOPIC_MAX_LENGTH = 256;
+
+    void subscribe(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                   @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic);
+
+    void unsubscribe(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                     @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic);
+
+    /**
+     * Removes every subscription of a connection.
+     */
+    void unsubscribeAll(@NonNull @NotNull @Valid WebSocketConnection websocketConnection);
+
+    /**
+     * @return The subscribers of a topic, one list per page. Pages are fetched lazily as the stream is consumed.
+     */
+    @NonNull
+    Stream<List<WebSocketConnection>> findAllByTopic(@NonNull @NotBlank String apiId,
+                                                     @NonNull @NotBlank String stage,
+                                                     @NonNull @NotBlank String topic);
+
+    /**
+     * Reads like {@link #findAllByTopic(String, String, String)} from the positions of a cursor, recording the pages
+     * handed out in it. The default implementation {@link FanOutCursor#numbered(Stream) numbers} the pages.
+     */
+    @NonNull
+    default Stream<List<WebSocketConnection>> findAllByTopic(@NonNull @NotBlank String apiId,
+                                                             @NonNull @NotBlank String stage,
+                                                             @NonNull @NotBlank String topic,
+                                                             @NonNull FanOutCursor cursor) {
+        return cursor.numbered(findAllByTopic(apiId, stage, topic));
+    }
+
+    /**
+     * Counts the subscribers of a topic, for instance before publishing to it. A topic's counter is kept apart from the
+     * stage's connection counter, so a count is O(1) in the DynamoDB repositories when
+     * {@link DynamoConfiguration#isCounters()} holds. Otherwise, as in the default implementation, it reads every page
+     * of the topic's subscribers from {@link #findAllByTopic(String, String, String)}.
+     *
+     * @return The number of connections subscribed to the topic.
+     */
+    default long countByTopic(@NonNull @NotBlank String apiId,
+                              @NonNull @NotBlank String stage,
+                              @NonNull @NotBlank String topic) {
+        try (Stream<List<WebSocketConnection>> pages = findAllByTopic(apiId, stage, topic)) {
+            return pages.mapToLong(List::size).sum();
+        }
+    }
+
+    /**
+     * Subscribes without blocking the caller. The default implementation performs a blocking {@link #subscribe(WebSocketConnection, String)}.
+     */
+    @NonNull
+    default CompletableFuture<Void> subscribeAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                                                   @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        try {
+            subscribe(websocketConnection, topic);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Unsubscribes without blocking the caller. The default implementation performs a blocking {@link #unsubscribe(WebSocketConnection, String)}.
+     */
+    @NonNull
+    default CompletableFuture<Void> unsubscribeAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                                                     @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        try {
+            unsubscribe(websocketConnection, topic);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Removes every subscription of a connection without blocking the caller. The default implementation performs a
+     * blocking {@link #unsubscribeAll(WebSocketConnection)}.
+     */
+    @NonNull
+    default CompletableFuture<Void> unsubscribeAllAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        try {
+            unsubscribeAll(websocketConnection);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Requires(property = "dynamodb.client", value = "sync", defaultValue = "sync")
+@Singleton
+public class TopicSubscriptionRepositoryDynamo implements TopicSubscriptionRepository {
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoConfiguration dynamoConfiguration;
+    private final TopicSubscriptionItemCodec codec;
+    private final WebSocketConnectionItemCodec connectionCodec;
+    private final ConnectionCounterItemCodec counterCodec;
+    private final ExecutorService executorService;
+
+    public TopicSubscriptionRepositoryDynamo(DynamoDbClient dynamoDbClient,
+                                             DynamoConfiguration dynamoConfiguration,
+                                             TopicSubscriptionItemCodec codec,
+                                             WebSocketConnectionItemCodec connectionCodec,
+                                             ConnectionCounterItemCodec counterCodec,
+                                             @Named(TaskExecutors.IO) ExecutorService executorService) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.dynamoConfiguration = dynamoConfiguration;
+        this.codec = codec;
+        this.connectionCodec = connectionCodec;
+        this.counterCodec = counterCodec;
+        this.executorService = executorService;
+    }
+
+    @Override
+    public void subscribe(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                          @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .item(codec.item(websocketConnection, topic))
+                .build());
+    }
+
+    @Override
+    public void unsubscribe(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                            @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        dynamoDbClient.deleteItem(DeleteItemRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .key(codec.key(websocketConnection, topic))
+                .build());
+    }
+
+    @Override
+    public void unsubscribeAll(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        List<Map<String, AttributeValue>> keys = dynamoDbClient.queryPaginator(codec.findAllKeysByConnectionRequest(websocketConnection))
+                .items()
+                .stream()
+                .collect(Collectors.toList());
+        DynamoBatchWrites.write(dynamoDbClient, dynamoConfiguration.getTableName(), codec.deleteRequests(keys), executorService);
+    }
+
+    /**
+     * Puts on the IO executor, so that the caller's other calls overlap it.
+     */
+    @Override
+    @NonNull
+    public CompletableFuture<Void> subscribeAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                                                  @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        return CompletableFuture.runAsync(() -> subscribe(websocketConnection, topic), executorService);
+    }
+
+    /**
+     * Deletes on the IO executor, so that the caller's other calls overlap it.
+     */
+    @Override
+    @NonNull
+    public CompletableFuture<Void> unsubscribeAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                                                    @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        return CompletableFuture.runAsync(() -> unsubscribe(websocketConnection, topic), executorService);
+    }
+
+    /**
+     * Queries and deletes on the IO executor, so that the caller's other calls overlap it.
+     */
+    @Override
+    @NonNull
+    public CompletableFuture<Void> unsubscribeAllAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return CompletableFuture.runAsync(() -> unsubscribeAll(websocketConnection), executorService);
+    }
+
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByTopic(@NonNull @NotBlank String apiId,
+                                                            @NonNull @NotBlank String stage,
+                                                            @NonNull @NotBlank String topic) {
+        return findAllByTopic(apiId, stage, topic, FanOutCursor.start());
+    }
+
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByTopic(@NonNull @NotBlank String apiId,
+                                                            @NonNull @NotBlank String stage,
+                                                            @NonNull @NotBlank String topic,
+                                                            @NonNull FanOutCursor cursor) {
+        return ScatterGatherPageIterator.stream(request -> CompletableFuture.supplyAsync(() -> dynamoDbClient.query(request), executorService),
+                List.of(codec.findAllByTopicRequest(apiId, stage, topic)),
+                connectionCodec,
+                cursor);
+    }
+
+    /**
+     * Sums the shards of the topic's counter when the table's stream maintains it, else reads the topic's GSI2 partition.
+     */
+    @Override
+    public long countByTopic(@NonNull @NotBlank String apiId,
+                             @NonNull @NotBlank String stage,
+                             @NonNull @NotBlank String topic) {
+        if (!dynamoConfiguration.isCounters()) {
+            return TopicSubscriptionRepository.super.countByTopic(apiId, stage, topic);
+        }
+        return counterCodec.count(dynamoDbClient.query(counterCodec.countRequest(counterCodec.counterKey(apiId, stage, topic))));
+    }
+}
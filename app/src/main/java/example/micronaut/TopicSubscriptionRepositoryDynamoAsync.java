@@ -0,0 +1,148 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+/**
+ * {@link TopicSubscriptionRepository} built on {@link DynamoDbAsyncClient}, enabled with {@code dynamodb.client: async}.
+ */
+@Requires(property = "dynamodb.client", value = "async")
+@Singleton
+public class TopicSubscriptionRepositoryDynamoAsync implements TopicSubscriptionRepository {
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final DynamoConfiguration dynamoConfiguration;
+    private final TopicSubscriptionItemCodec codec;
+    private final WebSocketConnectionItemCodec connectionCodec;
+    private final ConnectionCounterItemCodec counterCodec;
+
+    public TopicSubscriptionRepositoryDynamoAsync(DynamoDbAsyncClient dynamoDbAsyncClient,
+                                                  DynamoConfiguration dynamoConfiguration,
+                                                  TopicSubscriptionItemCodec codec,
+                                                  WebSocketConnectionItemCodec connectionCodec,
+                                                  ConnectionCounterItemCodec counterCodec) {
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+        this.dynamoConfiguration = dynamoConfiguration;
+        this.codec = codec;
+        this.connectionCodec = connectionCodec;
+        this.counterCodec = counterCodec;
+    }
+
+    @Override
+    public void subscribe(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                          @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        join(subscribeAsync(websocketConnection, topic));
+    }
+
+    @Override
+    public void unsubscribe(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                            @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        join(unsubscribeAsync(websocketConnection, topic));
+    }
+
+    @Override
+    public void unsubscribeAll(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        join(unsubscribeAllAsync(websocketConnection));
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> subscribeAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                                                  @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        return dynamoDbAsyncClient.putItem(PutItemRequest.builder()
+                        .tableName(dynamoConfiguration.getTableName())
+                        .item(codec.item(websocketConnection, topic))
+                        .build())
+                .thenApply(response -> null);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> unsubscribeAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection,
+                                                    @NonNull @NotBlank @Size(max = TOPIC_MAX_LENGTH) String topic) {
+        return dynamoDbAsyncClient.deleteItem(DeleteItemRequest.builder()
+                        .tableName(dynamoConfiguration.getTableName())
+                        .key(codec.key(websocketConnection, topic))
+                        .build())
+                .thenApply(response -> null);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> unsubscribeAllAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return keys(codec.findAllKeysByConnectionRequest(websocketConnection), new ArrayList<>())
+                .thenCompose(keys -> DynamoBatchWrites.write(dynamoDbAsyncClient,
+                        dynamoConfiguration.getTableName(),
+                        codec.deleteRequests(keys)));
+    }
+
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByTopic(@NonNull @NotBlank String apiId,
+                                                            @NonNull @NotBlank String stage,
+                                                            @NonNull @NotBlank String topic) {
+        return findAllByTopic(apiId, stage, topic, FanOutCursor.start());
+    }
+
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByTopic(@NonNull @NotBlank String apiId,
+                                                            @NonNull @NotBlank String stage,
+                                                            @NonNull @NotBlank String topic,
+                                                            @NonNull FanOutCursor cursor) {
+        return ScatterGatherPageIterator.stream(dynamoDbAsyncClient::query,
+                List.of(codec.findAllByTopicRequest(apiId, stage, topic)),
+                connectionCodec,
+                cursor);
+    }
+
+    /**
+     * Sums the shards of the topic's counter when the table's stream maintains it, else reads the topic's GSI2 partition.
+     */
+    @Override
+    public long countByTopic(@NonNull @NotBlank String apiId,
+                             @NonNull @NotBlank String stage,
+                             @NonNull @NotBlank String topic) {
+        if (!dynamoConfiguration.isCounters()) {
+            return TopicSubscriptionRepository.super.countByTopic(apiId, stage, topic);
+        }
+        return join(dynamoDbAsyncClient.query(counterCodec.countRequest(counterCodec.counterKey(apiId, stage, topic)))
+                .thenApply(counterCodec::count));
+    }
+
+    @NonNull
+    private CompletableFuture<List<Map<String, AttributeValue>>> keys(@NonNull QueryRequest request,
+                                                                     @NonNull List<Map<String, AttributeValue>> keys) {
+        return dynamoDbAsyncClient.query(request).thenCompose(response -> {
+            keys.addAll(response.items());
+            if (response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()) {
+                return keys(request.toBuilder().exclusiveStartKey(response.lastEvaluatedKey()).build(), keys);
+            }
+            return CompletableFuture.completedFuture(keys);
+        });
+    }
+
+    private static <T> T join(@NonNull CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+
+import javax.validation.constraints.NotBlank;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Posts a payload to every connection of an API stage, or to the subscribers of a topic. Connections are read page by
+ * page and the posts are fanned out asynchronously, with at most {@link BroadcastConfiguration#getMaxInFlight()} of them
+ * in flight at once. Connections reported as gone are pruned once the broadcast completes. A broadcast given a
+ * {@link FanOutCursor} can be interrupted and resumed later.
+ */
+@Singleton
+public class WebSocketBroadcaster {
+    private static final Logger LOG = LoggerFactory.getLogger(WebSocketBroadcaster.class);
+
+    private final WebsocketConnectionRepository websocketConnectionRepository;
+    private final TopicSubscriptionRepository topicSubscriptionRepository;
+    private final ApiGatewayManagementApiClientAsyncSender asyncSender;
+    private final StaleConnectionCollector staleConnectionCollector;
+    private final int maxInFlight;
+
+    public WebSocketBroadcaster(WebsocketConnectionRepository websocketConnectionRepository,
+                                TopicSubscriptionRepository topicSubscriptionRepository,
+                                ApiGatewayManagementApiClientAsyncSender asyncSender,
+                                StaleConnectionCollector staleConnectionCollector,
+                                BroadcastConfiguration broadcastConfiguration) {
+        this.websocketConnectionRepository = websocketConnectionRepository;
+        this.topicSubscriptionRepository = topicSubscriptionRepository;
+        this.asyncSender = asyncSender;
+        this.staleConnectionCollector = staleConnectionCollector;
+        this.maxInFlight = broadcastConfiguration.getMaxInFlight();
+    }
+
+    @NonNull
+    public BroadcastResult broadcast(@NonNull @NotBlank String apiId,
+                                     @NonNull @NotBlank String stage,
+                                     @NonNull SdkBytes payload) {
+        BroadcastResult result = fanOut(() -> websocketConnectionRepository.findAllByApiIdAndStage(apiId, stage), payload,
+                null, () -> false);
+        LOG.debug("broadcast to api {} stage {}: {}", apiId, stage, result);
+        return result;
+    }
+
+    /**
+     * Broadcasts from the positions of a cursor, stopping once {@code stop} holds or a page cannot be read. Posts which
+     * do not complete because of a deadline are retried by resuming the cursor, not counted as failed.
+     */
+    @NonNull
+    public BroadcastResult broadcast(@NonNull @NotBlank String apiId,
+                                     @NonNull @NotBlank String stage,
+                                     @NonNull SdkBytes payload,
+                                     @NonNull FanOutCursor cursor,
+                                     @NonNull BooleanSupplier stop) {
+        BroadcastResult result = fanOut(() -> websocketConnectionRepository.findAllByApiIdAndStage(apiId, stage, cursor),
+                payload, cursor, stop);
+        LOG.debug("broadcast to api {} stage {}: {}", apiId, stage, result);
+        return result;
+    }
+
+    /**
+     * Posts a payload to the subscribers of a topic only, reading them from the topic's partition of GSI2.
+     */
+    @NonNull
+    public BroadcastResult publish(@NonNull @NotBlank String apiId,
+                                   @NonNull @NotBlank String stage,
+                                   @NonNull @NotBlank String topic,
+                                   @NonNull SdkBytes payload) {
+        BroadcastResult result = fanOut(() -> topicSubscriptionRepository.findAllByTopic(apiId, stage, topic), payload,
+                null, () -> false);
+        LOG.debug("published to api {} stage {} topic {}: {}", apiId, stage, topic, result);
+        return result;
+    }
+
+    /**
+     * Publishes from the positions of a cursor, like {@link #broadcast(String, String, SdkBytes, FanOutCursor, BooleanSupplier)}.
+     */
+    @NonNull
+    public BroadcastResult publish(@NonNull @NotBlank String apiId,
+                                   @NonNull @NotBlank String stage,
+                                   @NonNull @NotBlank String topic,
+                                   @NonNull SdkBytes payload,
+                                   @NonNull FanOutCursor cursor,
+                                   @NonNull BooleanSupplier stop) {
+        BroadcastResult result = fanOut(() -> topicSubscriptionRepository.findAllByTopic(apiId, stage, topic, cursor),
+                payload, cursor, stop);
+        LOG.debug("published to api {} stage {} topic {}: {}", apiId, stage, topic, result);
+        return result;
+    }
+
+    @NonNull
+    private BroadcastResult fanOut(@NonNull Supplier<Stream<List<WebSocketConnection>>> connections,
+                                   @NonNull SdkBytes payload,
+                                   @Nullable FanOutCursor cursor,
+                                   @NonNull BooleanSupplier stop) {
+        Semaphore permits = new Semaphore(maxInFlight);
+        LongAdder delivered = new LongAdder();
+        LongAdder gone = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        try (Stream<List<WebSocketConnection>> pages = connections.get()) {
+            Iterator<List<WebSocketConnection>> iterator = pages.iterator();
+            while (true) {
+                // checked before hasNext, which may already hand the next page out
+                if (cursor != null && (interrupted.get() || stop.getAsBoolean())) {
+                    interrupted.set(true);
+                    break;
+                }
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                List<WebSocketConnection> page = iterator.next();
+                FanOutCursor.Page position = cursor == null ? null : cursor.current();
+                for (WebSocketConnection connection : page) {
+                    if (position != null && (interrupted.get() || stop.getAsBoolean())) {
+                        position.retry();
+                        interrupted.set(true);
+                        break;
+                    }
+                    if (!permits.tryAcquire()) {
+                        // messages held back by a coalescing sender keep their permits until posted
+                        asyncSender.flush();
+                        permits.acquireUninterruptibly();
+                    }
+                    try {
+                        asyncSender.send(connection, payload).whenComplete((status, throwable) -> {
+                            if (throwable == null) {
+                                (status == DeliveryStatus.GONE ? gone : delivered).increment();
+                            } else if (position != null && isDeadline(unwrap(throwable))) {
+                                position.retry();
+                                interrupted.set(true);
+                            } else {
+                                failed.increment();
+                                LOG.warn("could not post to connection {}", connection.getConnectionId(), unwrap(throwable));
+                            }
+                            permits.release();
+                        });
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                        LOG.warn("could not post to connection {}", connection.getConnectionId(), e);
+                        permits.release();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            if (cursor == null) {
+                throw e;
+            }
+            interrupted.set(true);
+            LOG.warn("could not read the connections to post to, the fan-out stops at its cursor", e);
+        } finally {
+            asyncSender.flush();
+            permits.acquireUninterruptibly(maxInFlight);
+            staleConnectionCollector.prune();
+        }
+        return new BroadcastResult(delivered.sum(), gone.sum(), failed.sum(), interrupted.get());
+    }
+
+    private static boolean isDeadline(@NonNull Throwable throwable) {
+        return throwable instanceof TimeoutException || throwable instanceof ApiCallTimeoutException;
+    }
+
+    @NonNull
+    private static Throwable unwrap(@NonNull Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+}
@@ -1,5 +1,6 @@
 package example.micronaut;
 
+import io.micronaut.core.annotation.Creator;
 import io.micronaut.core.annotation.Introspected;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.core.annotation.Nullable;
@@ -28,16 +29,33 @@ public class WebSocketConnection {
     @Nullable
     private final String domainName;
 
+    @Nullable
+    private final String codec;
+
     public WebSocketConnection(@NonNull String region,
                                @NonNull String apiId,
                                @NonNull String stage,
                                @NonNull String connectionId,
                                @Nullable String domainName) {
+        this(region, apiId, stage, connectionId, domainName, null);
+    }
+
+    /**
+     * @param codec Name of the {@link MessageCodec} negotiated at {@code $connect}, {@code null} for JSON
+     */
+    @Creator
+    public WebSocketConnection(@NonNull String region,
+                               @NonNull String apiId,
+                               @NonNull String stage,
+                               @NonNull String connectionId,
+                               @Nullable String domainName,
+                               @Nullable String codec) {
         this.region = region;
         this.apiId = apiId;
         this.stage = stage;
         this.connectionId = connectionId;
         this.domainName = domainName;
+        this.codec = codec;
     }
 
     @NonNull
@@ -65,6 +83,11 @@ public class WebSocketConnection {
         return domainName;
     }
 
+    @Nullable
+    public String getCodec() {
+        return codec;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
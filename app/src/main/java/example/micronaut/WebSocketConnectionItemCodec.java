@@ -0,0 +1,421 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.beans.BeanIntrospection;
+import io.micronaut.core.beans.BeanProperty;
+import io.micronaut.core.type.Argument;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes {@link WebSocketConnection} to the DynamoDB items of the single table design and decodes them back.
+ * The data attributes are the properties of the compile-time {@link BeanIntrospection} of {@link WebSocketConnection};
+ * they, the projection and every constant attribute value are resolved once, so encoding only allocates the item itself.
+ */
+@Singleton
+public class WebSocketConnectionItemCodec {
+    public static final String ATTRIBUTE_PK = "pk";
+    public static final String ATTRIBUTE_SK = "sk";
+    public static final String ATTRIBUTE_GSI_1_PK = "GSI1PK";
+    public static final String ATTRIBUTE_GSI_1_SK = "GSI1SK";
+    public static final String INDEX_GSI_1 = "GSI1";
+    /**
+     * Expiry in epoch seconds, the table's TTL attribute.
+     */
+    public static final String ATTRIBUTE_EXPIRES_AT = "expiresAt";
+    /**
+     * API Gateway closes every WebSocket connection after two hours.
+     */
+    public static final Duration MAX_CONNECTION_DURATION = Duration.ofHours(2);
+    private static final String HASH = "#";
+    private static final String KEY_PREFIX = WebSocketConnection.class.getSimpleName().toUpperCase() + HASH;
+    private static final String UNSHARDED_GSI_1_PK = WebSocketConnection.class.getSimpleName();
+    private static final String PLACEHOLDER_GSI_1_PK = "#gsi1pk";
+    private static final String PLACEHOLDER_PK = "#pk";
+    private static final String PLACEHOLDER_EXPIRES_AT = "#expiresAt";
+    private static final String NOT_EXPIRED = "(attribute_not_exists(" + PLACEHOLDER_EXPIRES_AT + ") OR " + PLACEHOLDER_EXPIRES_AT + " > :now)";
+
+    private final DynamoConfiguration dynamoConfiguration;
+    private final Clock clock;
+    private final long ttlSeconds;
+    private final BeanIntrospection<WebSocketConnection> introspection;
+    private final List<BeanProperty<WebSocketConnection, Object>> properties;
+    private final String[] constructorAttributes;
+    private final int itemCapacity;
+    private final int gsi1Shards;
+    private final String projectionExpression;
+    private final Map<String, String> expressionAttributeNames;
+
+    @Inject
+    public WebSocketConnectionItemCodec(DynamoConfiguration dynamoConfiguration) {
+        this(dynamoConfiguration, Clock.systemUTC());
+    }
+
+    WebSocketConnectionItemCodec(DynamoConfiguration dynamoConfiguration, Clock clock) {
+        this.dynamoConfiguration = dynamoConfiguration;
+        this.clock = clock;
+        this.ttlSeconds = dynamoConfiguration.getConnectionTtl().getSeconds();
+        this.introspection = BeanIntrospection.getIntrospection(WebSocketConnection.class);
+        this.properties = new ArrayList<>(introspection.getBeanProperties());
+        Argument<?>[] constructorArguments = introspection.getConstructorArguments();
+        this.constructorAttributes = new String[constructorArguments.length];
+        for (int i = 0; i < constructorArguments.length; i++) {
+            constructorAttributes[i] = constructorArguments[i].getName();
+        }
+        this.itemCapacity = capacity(5 + properties.size());
+        this.gsi1Shards = dynamoConfiguration.getGsi1Shards();
+        Map<String, String> names = new HashMap<>(capacity(properties.size() + 1));
+        StringBuilder projection = new StringBuilder();
+        for (BeanProperty<WebSocketConnection, Object> property : properties) {
+            String placeholder = HASH + property.getName();
+            names.put(placeholder, property.getName());
+            if (projection.length() > 0) {
+                projection.append(", ");
+            }
+            projection.append(placeholder);
+        }
+        names.put(PLACEHOLDER_GSI_1_PK, ATTRIBUTE_GSI_1_PK);
+        names.put(PLACEHOLDER_EXPIRES_AT, ATTRIBUTE_EXPIRES_AT);
+        this.projectionExpression = projection.toString();
+        this.expressionAttributeNames = Map.copyOf(names);
+    }
+
+    @NonNull
+    public Map<String, AttributeValue> item(@NonNull WebSocketConnection websocketConnection) {
+        AttributeValue pk = partitionKey(websocketConnection);
+        Map<String, AttributeValue> item = new HashMap<>(itemCapacity);
+        item.put(ATTRIBUTE_PK, pk);
+        item.put(ATTRIBUTE_SK, pk);
+        item.put(ATTRIBUTE_GSI_1_PK, gsi1PartitionKey(websocketConnection));
+        item.put(ATTRIBUTE_GSI_1_SK, pk);
+        item.put(ATTRIBUTE_EXPIRES_AT, expiresAfter(ttlSeconds));
+        putAttributes(item, websocketConnection);
+        return item;
+    }
+
+    /**
+     * @return An update extending the expiry of a connection item by {@link DynamoConfiguration#getConnectionTtl()},
+     * conditional on the item still existing so that a ping racing a {@code $disconnect} does not recreate it. It returns
+     * the updated item, so that the codec stored with the connection is read without another request.
+     */
+    @NonNull
+    public UpdateItemRequest heartbeatRequest(@NonNull WebSocketConnection websocketConnection) {
+        return UpdateItemRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .key(key(websocketConnection))
+                .updateExpression("SET " + PLACEHOLDER_EXPIRES_AT + " = :expiresAt")
+                .conditionExpression("attribute_exists(" + PLACEHOLDER_PK + ")")
+                .expressionAttributeNames(Map.of(PLACEHOLDER_EXPIRES_AT, ATTRIBUTE_EXPIRES_AT, PLACEHOLDER_PK, ATTRIBUTE_PK))
+                .expressionAttributeValues(Map.of(":expiresAt", expiresAfter(ttlSeconds)))
+                .returnValues(ReturnValue.ALL_NEW)
+                .build();
+    }
+
+    /**
+     * @return An update moving a connection item from the unsharded GSI1 partition to its shard, changing nothing else.
+     * It is conditional on the item still existing and still being unsharded, so that it neither recreates a connection
+     * a {@code $disconnect} deleted nor touches one moved already.
+     */
+    @NonNull
+    public UpdateItemRequest shardRequest(@NonNull WebSocketConnection websocketConnection) {
+        return UpdateItemRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .key(key(websocketConnection))
+                .updateExpression("SET " + PLACEHOLDER_GSI_1_PK + " = :gsi1pk")
+                .conditionExpression("attribute_exists(" + PLACEHOLDER_PK + ") AND " + PLACEHOLDER_GSI_1_PK + " = :unsharded")
+                .expressionAttributeNames(Map.of(PLACEHOLDER_GSI_1_PK, ATTRIBUTE_GSI_1_PK, PLACEHOLDER_PK, ATTRIBUTE_PK))
+                .expressionAttributeValues(Map.of(
+                        ":gsi1pk", gsi1PartitionKey(websocketConnection),
+                        ":unsharded", s(UNSHARDED_GSI_1_PK)))
+                .build();
+    }
+
+    /**
+     * @return The current time in epoch seconds, to compare {@value #ATTRIBUTE_EXPIRES_AT} with.
+     */
+    @NonNull
+    public AttributeValue now() {
+        return n(clock.instant().getEpochSecond());
+    }
+
+    /**
+     * @return The epoch second a given duration from now.
+     */
+    @NonNull
+    public AttributeValue expiresAfter(@NonNull Duration duration) {
+        return expiresAfter(duration.getSeconds());
+    }
+
+    /**
+     * @return A filter expression, named {@code #expiresAt} and valued {@code :now}, for items DynamoDB has not deleted
+     * yet although they expired. Items written before expiry was introduced never expire.
+     */
+    @NonNull
+    public static String notExpiredFilter() {
+        return NOT_EXPIRED;
+    }
+
+    /**
+     * @return Whether a sort key is that of a connection item.
+     */
+    public static boolean isConnectionSortKey(@Nullable String sk) {
+        return sk != null && sk.startsWith(KEY_PREFIX);
+    }
+
+    /**
+     * @return The partition key of the connection item, shared by the other items belonging to the connection.
+     */
+    @NonNull
+    public AttributeValue partitionKey(@NonNull WebSocketConnection websocketConnection) {
+        return s(pk(websocketConnection));
+    }
+
+    /**
+     * Adds the data attributes of a connection, which {@link #connection(Map)} reads back, to an item.
+     */
+    public void putAttributes(@NonNull Map<String, AttributeValue> item, @NonNull WebSocketConnection websocketConnection) {
+        for (BeanProperty<WebSocketConnection, Object> property : properties) {
+            Object value = property.get(websocketConnection);
+            if (value != null) {
+                item.put(property.getName(), s(value.toString()));
+            }
+        }
+    }
+
+    /**
+     * @return The number of data attributes {@link #putAttributes(Map, WebSocketConnection)} adds at most.
+     */
+    public int getAttributeCount() {
+        return properties.size();
+    }
+
+    @NonNull
+    public Map<String, AttributeValue> key(@NonNull WebSocketConnection websocketConnection) {
+        AttributeValue pk = partitionKey(websocketConnection);
+        return Map.of(ATTRIBUTE_PK, pk, ATTRIBUTE_SK, pk);
+    }
+
+    @NonNull
+    public WebSocketConnection connection(@NonNull Map<String, AttributeValue> item) {
+        Object[] arguments = new Object[constructorAttributes.length];
+        for (int i = 0; i < constructorAttributes.length; i++) {
+            AttributeValue value = item.get(constructorAttributes[i]);
+            arguments[i] = value != null ? value.s() : null;
+        }
+        return introspection.instantiate(arguments);
+    }
+
+    @NonNull
+    public List<WebSocketConnection> connections(@NonNull List<Map<String, AttributeValue>> items) {
+        List<WebSocketConnection> connections = new ArrayList<>(items.size());
+        for (Map<String, AttributeValue> item : items) {
+            connections.add(connection(item));
+        }
+        return connections;
+    }
+
+    /**
+     * @return One put request per distinct key. A batch must not contain the same key twice.
+     */
+    @NonNull
+    public List<WriteRequest> putRequests(@NonNull Collection<? extends WebSocketConnection> websocketConnections) {
+        Collection<WebSocketConnection> distinctConnections = distinctByKey(websocketConnections);
+        List<WriteRequest> writeRequests = new ArrayList<>(distinctConnections.size());
+        for (WebSocketConnection websocketConnection : distinctConnections) {
+            writeRequests.add(WriteRequest.builder()
+                    .putRequest(PutRequest.builder()
+                            .item(item(websocketConnection))
+                            .build())
+                    .build());
+        }
+        return writeRequests;
+    }
+
+    /**
+     * @return One delete request per distinct key. A batch must not contain the same key twice.
+     */
+    @NonNull
+    public List<WriteRequest> deleteRequests(@NonNull Collection<? extends WebSocketConnection> websocketConnections) {
+        Collection<WebSocketConnection> distinctConnections = distinctByKey(websocketConnections);
+        List<WriteRequest> writeRequests = new ArrayList<>(distinctConnections.size());
+        for (WebSocketConnection websocketConnection : distinctConnections) {
+            writeRequests.add(WriteRequest.builder()
+                    .deleteRequest(DeleteRequest.builder()
+                            .key(key(websocketConnection))
+                            .build())
+                    .build());
+        }
+        return writeRequests;
+    }
+
+    /**
+     * @return A consistent query for the keys of every item in the partition of a connection: the connection item and
+     * its topic subscriptions.
+     */
+    @NonNull
+    public QueryRequest findAllKeysInPartitionRequest(@NonNull WebSocketConnection websocketConnection) {
+        return QueryRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .keyConditionExpression(PLACEHOLDER_PK + " = :pk")
+                .projectionExpression(PLACEHOLDER_PK + ", #sk")
+                .expressionAttributeNames(Map.of(PLACEHOLDER_PK, ATTRIBUTE_PK, "#sk", ATTRIBUTE_SK))
+                .expressionAttributeValues(Map.of(":pk", partitionKey(websocketConnection)))
+                .consistentRead(true)
+                .build();
+    }
+
+    /**
+     * @return One delete request per key, such as those read by {@link #findAllKeysInPartitionRequest(WebSocketConnection)}.
+     */
+    @NonNull
+    public List<WriteRequest> deleteKeyRequests(@NonNull List<Map<String, AttributeValue>> keys) {
+        List<WriteRequest> writeRequests = new ArrayList<>(keys.size());
+        for (Map<String, AttributeValue> key : keys) {
+            writeRequests.add(WriteRequest.builder()
+                    .deleteRequest(DeleteRequest.builder()
+                            .key(key)
+                            .build())
+                    .build());
+        }
+        return writeRequests;
+    }
+
+    /**
+     * @return The GSI1 partition key of a connection, {@code WebSocketConnection#<apiId>#<stage>#<shard>}, so that
+     * reading the connections of an API stage only reads that stage's partitions.
+     */
+    @NonNull
+    public AttributeValue gsi1PartitionKey(@NonNull WebSocketConnection websocketConnection) {
+        return s(gsi1PartitionKeyPrefix(websocketConnection.getApiId(), websocketConnection.getStage())
+                + shard(websocketConnection));
+    }
+
+    /**
+     * @return One GSI1 query per shard of the API stage (and for the unsharded partition if configured), projecting
+     * only the connection attributes.
+     */
+    @NonNull
+    public List<QueryRequest> findAllByApiIdAndStageRequests(@NonNull String apiId, @NonNull String stage) {
+        List<QueryRequest> requests = new ArrayList<>(gsi1Shards + 1);
+        String prefix = gsi1PartitionKeyPrefix(apiId, stage);
+        for (int shard = 0; shard < gsi1Shards; shard++) {
+            requests.add(findAllRequest(s(prefix + shard), NOT_EXPIRED, Map.of()));
+        }
+        if (dynamoConfiguration.isGsi1ReadUnsharded()) {
+            requests.add(findAllRequest(s(UNSHARDED_GSI_1_PK),
+                    "#apiId = :apiId AND #stage = :stage AND " + NOT_EXPIRED,
+                    Map.of(":apiId", s(apiId), ":stage", s(stage))));
+        }
+        return requests;
+    }
+
+    /**
+     * @return A query for every connection still indexed under the unsharded GSI1 partition, regardless of API and stage.
+     */
+    @NonNull
+    public QueryRequest findAllUnshardedRequest() {
+        return findAllRequest(s(UNSHARDED_GSI_1_PK), NOT_EXPIRED, Map.of());
+    }
+
+    @NonNull
+    private QueryRequest findAllRequest(@NonNull AttributeValue gsi1PartitionKey,
+                                        @NonNull String filterExpression,
+                                        @NonNull Map<String, AttributeValue> filterValues) {
+        Map<String, AttributeValue> values = new HashMap<>(capacity(filterValues.size() + 2));
+        values.putAll(filterValues);
+        values.put(":gsi1pk", gsi1PartitionKey);
+        values.put(":now", now());
+        return QueryRequest.builder()
+                .tableName(dynamoConfiguration.getTableName())
+                .indexName(INDEX_GSI_1)
+                .keyConditionExpression(PLACEHOLDER_GSI_1_PK + " = :gsi1pk")
+                .filterExpression(filterExpression)
+                .projectionExpression(projectionExpression)
+                .expressionAttributeNames(expressionAttributeNames)
+                .expressionAttributeValues(values)
+                .build();
+    }
+
+    /**
+     * @return The GSI1 shard of a connection, derived from its connection id.
+     */
+    private int shard(@NonNull WebSocketConnection websocketConnection) {
+        return Math.floorMod(websocketConnection.getConnectionId().hashCode(), gsi1Shards);
+    }
+
+    @NonNull
+    private static String gsi1PartitionKeyPrefix(@NonNull String apiId, @NonNull String stage) {
+        return new StringBuilder(UNSHARDED_GSI_1_PK.length() + apiId.length() + stage.length() + 3)
+                .append(UNSHARDED_GSI_1_PK)
+                .append(HASH)
+                .append(apiId)
+                .append(HASH)
+                .append(stage)
+                .append(HASH)
+                .toString();
+    }
+
+    /**
+     * @return The connections with distinct keys, the last one given for a key winning. Connections which only differ in
+     * attributes outside the key, such as the domain name, share an item.
+     */
+    @NonNull
+    private static Collection<WebSocketConnection> distinctByKey(@NonNull Collection<? extends WebSocketConnection> websocketConnections) {
+        Map<String, WebSocketConnection> distinctConnections = new LinkedHashMap<>(capacity(websocketConnections.size()));
+        for (WebSocketConnection websocketConnection : websocketConnections) {
+            distinctConnections.put(pk(websocketConnection), websocketConnection);
+        }
+        return distinctConnections.values();
+    }
+
+    @NonNull
+    private static String pk(@NonNull WebSocketConnection websocketConnection) {
+        String connectionId = websocketConnection.getConnectionId();
+        String apiId = websocketConnection.getApiId();
+        String stage = websocketConnection.getStage();
+        return new StringBuilder(KEY_PREFIX.length() + connectionId.length() + apiId.length() + stage.length() + 2)
+                .append(KEY_PREFIX)
+                .append(connectionId)
+                .append(HASH)
+                .append(apiId)
+                .append(HASH)
+                .append(stage)
+                .toString();
+    }
+
+    private static int capacity(int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
+
+    @NonNull
+    private AttributeValue expiresAfter(long seconds) {
+        return n(clock.instant().getEpochSecond() + seconds);
+    }
+
+    @NonNull
+    private static AttributeValue n(long number) {
+        return AttributeValue.builder().n(Long.toString(number)).build();
+    }
+
+    @NonNull
+    private static AttributeValue s(String str) {
+        return AttributeValue.builder().s(str).build();
+    }
+}
@@ -1,21 +1,47 @@
 package example.micronaut;
 
 import io.micronaut.core.annotation.NonNull;
-import io.micronaut.http.uri.UriBuilder;
+import io.micronaut.core.annotation.Nullable;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.net.URI;
 
 public final class WebSocketConnectionUtils {
+    private static final String EXECUTE_API = ".execute-api.";
+    private static final String AWS_DOMAIN = ".amazonaws.com";
+    private static final String AWS_CN_DOMAIN = ".amazonaws.com.cn";
+    private static final String CN_REGION_PREFIX = "cn-";
+
     private WebSocketConnectionUtils() {
 
     }
 
+    /**
+     * @return The management endpoint of the connection's API and stage in the connection's region. A connection made
+     * through the API's default domain posts through that domain. A connection made through a custom domain posts
+     * through the regional {@code execute-api} domain instead, as the custom domain's base path mapping need not match
+     * the stage.
+     */
     @NonNull
     public static URI uriOf(@NonNull @NotNull @Valid WebSocketConnection webSocketConnection) {
-        return UriBuilder.of("https://" + webSocketConnection.getApiId() + ".execute-api.us-east-1.amazonaws.com")
-                .path(webSocketConnection.getStage())
-                .build();
+        String host = isExecuteApiDomain(webSocketConnection.getDomainName(), webSocketConnection.getApiId())
+                ? webSocketConnection.getDomainName()
+                : executeApiHost(webSocketConnection.getApiId(), webSocketConnection.getRegion());
+        return URI.create("https://" + host + '/' + webSocketConnection.getStage());
+    }
+
+    /**
+     * @return The default domain of an API in a region, e.g. {@code abc123.execute-api.eu-west-1.amazonaws.com}.
+     */
+    @NonNull
+    public static String executeApiHost(@NonNull String apiId, @NonNull String region) {
+        return apiId + EXECUTE_API + region + (region.startsWith(CN_REGION_PREFIX) ? AWS_CN_DOMAIN : AWS_DOMAIN);
+    }
+
+    private static boolean isExecuteApiDomain(@Nullable String domainName, @NonNull String apiId) {
+        return domainName != null
+                && domainName.startsWith(apiId)
+                && domainName.startsWith(EXECUTE_API, apiId.length());
     }
 }
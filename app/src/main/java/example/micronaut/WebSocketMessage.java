@@ -14,12 +14,13 @@ public class WebSocketMessage extends WebSocketConnection {
 
     public WebSocketMessage(@NonNull WebSocketConnection webSocketConnection,
                             @NonNull String message) {
-        this(webSocketConnection.getRegion(),
+        super(webSocketConnection.getRegion(),
                 webSocketConnection.getApiId(),
                 webSocketConnection.getStage(),
                 webSocketConnection.getConnectionId(),
                 webSocketConnection.getDomainName(),
-                message);
+                webSocketConnection.getCodec());
+        this.message = message;
     }
 
     public WebSocketMessage(@NonNull String region,
@@ -0,0 +1,146 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketEvent;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.Map;
+
+/**
+ * The fields of an API Gateway WebSocket event the function uses.
+ */
+public class WebSocketRequest {
+
+    @Nullable
+    private final String eventType;
+
+    @Nullable
+    private final String routeKey;
+
+    @Nullable
+    private final String connectionId;
+
+    @Nullable
+    private final String apiId;
+
+    @Nullable
+    private final String stage;
+
+    @Nullable
+    private final String domainName;
+
+    @Nullable
+    private final String body;
+
+    @Nullable
+    private final String codec;
+
+    @Nullable
+    private final String subprotocols;
+
+    public WebSocketRequest(@Nullable String eventType,
+                            @Nullable String routeKey,
+                            @Nullable String connectionId,
+                            @Nullable String apiId,
+                            @Nullable String stage,
+                            @Nullable String domainName,
+                            @Nullable String body) {
+        this(eventType, routeKey, connectionId, apiId, stage, domainName, body, null, null);
+    }
+
+    /**
+     * @param codec Value of the {@value MessageCodecs#QUERY_PARAMETER} query parameter of {@code $connect}
+     * @param subprotocols Value of the {@value MessageCodecs#HEADER_SUBPROTOCOL} header of {@code $connect}
+     */
+    public WebSocketRequest(@Nullable String eventType,
+                            @Nullable String routeKey,
+                            @Nullable String connectionId,
+                            @Nullable String apiId,
+                            @Nullable String stage,
+                            @Nullable String domainName,
+                            @Nullable String body,
+                            @Nullable String codec,
+                            @Nullable String subprotocols) {
+        this.eventType = eventType;
+        this.routeKey = routeKey;
+        this.connectionId = connectionId;
+        this.apiId = apiId;
+        this.stage = stage;
+        this.domainName = domainName;
+        this.body = body;
+        this.codec = codec;
+        this.subprotocols = subprotocols;
+    }
+
+    @NonNull
+    public static WebSocketRequest of(@NonNull APIGatewayV2WebSocketEvent event) {
+        APIGatewayV2WebSocketEvent.RequestContext requestContext = event.getRequestContext();
+        return new WebSocketRequest(requestContext.getEventType(),
+                requestContext.getRouteKey(),
+                requestContext.getConnectionId(),
+                requestContext.getApiId(),
+                requestContext.getStage(),
+                requestContext.getDomainName(),
+                event.getBody(),
+                event.getQueryStringParameters() == null ? null : event.getQueryStringParameters().get(MessageCodecs.QUERY_PARAMETER),
+                header(event.getHeaders(), MessageCodecs.HEADER_SUBPROTOCOL));
+    }
+
+    @Nullable
+    private static String header(@Nullable Map<String, String> headers, @NonNull String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    public String getEventType() {
+        return eventType;
+    }
+
+    @Nullable
+    public String getRouteKey() {
+        return routeKey;
+    }
+
+    @Nullable
+    public String getConnectionId() {
+        return connectionId;
+    }
+
+    @Nullable
+    public String getApiId() {
+        return apiId;
+    }
+
+    @Nullable
+    public String getStage() {
+        return stage;
+    }
+
+    @Nullable
+    public String getDomainName() {
+        return domainName;
+    }
+
+    @Nullable
+    public String getBody() {
+        return body;
+    }
+
+    @Nullable
+    public String getCodec() {
+        return codec;
+    }
+
+    @Nullable
+    public String getSubprotocols() {
+        return subprotocols;
+    }
+}
@@ -0,0 +1,169 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Handles a {@link WebSocketRequest}, whichever entry point received it.
+ */
+@Singleton
+public class WebSocketRequestDispatcher {
+    public static final String METRIC_UNROUTED = "UnroutedMessages";
+    private static final Logger LOG = LoggerFactory.getLogger(WebSocketRequestDispatcher.class);
+    private static final String UNKNOWN_EVENT_TYPE = "UNKNOWN";
+
+    private final ApiGatewayManagementApiClientAsyncSender apiGatewayManagementApiClientAsyncSender;
+    private final WebsocketConnectionRepository websocketConnectionRepository;
+    private final StaleConnectionCollector staleConnectionCollector;
+    private final TopicRequestHandler topicRequestHandler;
+    private final WebSocketRouteTable webSocketRouteTable;
+    private final MessageCodecs messageCodecs;
+    private final ConnectionSessions connectionSessions;
+    private final SendGovernor sendGovernor;
+    private final MetricsRecorder metricsRecorder;
+    @Nullable
+    private final String region;
+
+    /**
+     * @param region Region of the API, bound from {@code AWS_REGION} in Lambda
+     */
+    public WebSocketRequestDispatcher(ApiGatewayManagementApiClientAsyncSender apiGatewayManagementApiClientAsyncSender,
+                                      WebsocketConnectionRepository websocketConnectionRepository,
+                                      StaleConnectionCollector staleConnectionCollector,
+                                      TopicRequestHandler topicRequestHandler,
+                                      WebSocketRouteTable webSocketRouteTable,
+                                      MessageCodecs messageCodecs,
+                                      ConnectionSessions connectionSessions,
+                                      SendGovernor sendGovernor,
+                                      MetricsRecorder metricsRecorder,
+                                      @Nullable @Property(name = "aws.region") String region) {
+        this.apiGatewayManagementApiClientAsyncSender = apiGatewayManagementApiClientAsyncSender;
+        this.websocketConnectionRepository = websocketConnectionRepository;
+        this.staleConnectionCollector = staleConnectionCollector;
+        this.topicRequestHandler = topicRequestHandler;
+        this.webSocketRouteTable = webSocketRouteTable;
+        this.messageCodecs = messageCodecs;
+        this.connectionSessions = connectionSessions;
+        this.sendGovernor = sendGovernor;
+        this.metricsRecorder = metricsRecorder;
+        this.region = region;
+    }
+
+    /**
+     * Handles the request and writes its metrics: the latency per event type, the downstream calls recorded by
+     * {@link MetricsExecutionInterceptor}, the state of the {@link SendGovernor} and the class of the error, if any.
+     */
+    public void handle(@NonNull WebSocketRequest request) {
+        long start = System.nanoTime();
+        Optional<EventType> eventType = request.getEventType() == null ? Optional.empty() : EventType.of(request.getEventType());
+        try {
+            Optional<CompletableFuture<?>> dispatched = eventType.map(type -> dispatch(type, request));
+            // posts held back for coalescing must not outlive the invocation
+            CompletableFuture<Void> flushed = apiGatewayManagementApiClientAsyncSender.flush();
+            dispatched.ifPresent(WebSocketRequestDispatcher::join);
+            join(flushed);
+        } catch (RuntimeException e) {
+            metricsRecorder.count(MetricsRecorder.METRIC_ERRORS + "." + e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            try {
+                // including those queued once the first flush was done, as the I/O of the event completed
+                apiGatewayManagementApiClientAsyncSender.flush().join();
+            } catch (RuntimeException e) {
+                // must neither hide the exception of the event nor skip the metrics
+                LOG.warn("flushing the posts held back for coalescing failed", e);
+                metricsRecorder.count(MetricsRecorder.METRIC_ERRORS + "." + e.getClass().getSimpleName());
+            }
+            // connections found gone are pruned even when the invocation failed
+            staleConnectionCollector.prune();
+            metricsRecorder.milliseconds(MetricsRecorder.METRIC_LATENCY, System.nanoTime() - start);
+            sendGovernor.recordMetrics();
+            metricsRecorder.flush(eventType.map(EventType::name).orElse(UNKNOWN_EVENT_TYPE));
+        }
+    }
+
+    /**
+     * Starts the I/O for an event. Independent calls are started before anything is awaited so that they overlap;
+     * the returned future completes once all of them have.
+     */
+    private CompletableFuture<?> dispatch(EventType eventType, WebSocketRequest request) {
+        switch (eventType) {
+            case CONNECT:
+                WebSocketConnection connected = connectionOf(request, messageCodecs.negotiate(request).orElse(null));
+                connectionSessions.remember(connected);
+                return websocketConnectionRepository.saveAsync(connected);
+            case DISCONNECT:
+                WebSocketConnection connection = connectionOf(request);
+                connectionSessions.forget(connection.getConnectionId());
+                return CompletableFuture.allOf(websocketConnectionRepository.deleteAsync(connection),
+                        topicRequestHandler.disconnect(connection));
+            case MESSAGE:
+                // any message shows the client is still there, so its connection item is kept from expiring, see ConnectionSessions
+                WebSocketConnection sender = connectionOf(request);
+                String routeKey = webSocketRouteTable.routeKeyOf(request.getRouteKey(), request.getBody());
+                Optional<WebSocketRouteHandler> handler = webSocketRouteTable.find(routeKey);
+                if (handler.isEmpty()) {
+                    // a route deployed without a handler in this function
+                    LOG.warn("no handler for route {}, message of connection {} dropped", routeKey, sender.getConnectionId());
+                    metricsRecorder.count(METRIC_UNROUTED);
+                    return heartbeatIfDue(sender);
+                }
+                ConnectionSessions.Session session = connectionSessions.find(sender.getConnectionId());
+                if (session == null) {
+                    // first message seen by this container: the heartbeat reads back the codec stored at $connect
+                    return websocketConnectionRepository.heartbeatAndGetAsync(sender)
+                            .thenCompose(stored -> {
+                                connectionSessions.remember(stored);
+                                return handler.get().handle(routeKey, stored, request.getBody());
+                            });
+                }
+                return CompletableFuture.allOf(heartbeatIfDue(sender),
+                        handler.get().handle(routeKey, connectionOf(request, session.getCodec()), request.getBody()));
+            default:
+                return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private CompletableFuture<Void> heartbeatIfDue(WebSocketConnection sender) {
+        return connectionSessions.isHeartbeatDue(sender.getConnectionId())
+                ? websocketConnectionRepository.heartbeatAsync(sender)
+                : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Waits for a future, throwing what it failed with rather than the {@link CompletionException} wrapping it.
+     */
+    private static void join(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private WebSocketConnection connectionOf(WebSocketRequest request) {
+        return connectionOf(request, null);
+    }
+
+    /**
+     * Events after {@code $connect} do not carry the negotiated codec; a message handler gets it from the
+     * {@link ConnectionSessions} of this container, else from the connection as stored, see
+     * {@link WebsocketConnectionRepository#heartbeatAndGetAsync(WebSocketConnection)}.
+     */
+    private WebSocketConnection connectionOf(WebSocketRequest request, @Nullable String codec) {
+        return new WebSocketConnection(region,
+                request.getApiId(),
+                request.getStage(),
+                request.getConnectionId(),
+                request.getDomainName(),
+                codec);
+    }
+}
@@ -0,0 +1,133 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a {@link WebSocketRequest} from the raw event in a single pass. Only the body, six fields of
+ * {@code requestContext} and the codec negotiation of {@code $connect}, a query parameter and a header, are read;
+ * identity and every other subtree are skipped without being bound.
+ */
+@Singleton
+public class WebSocketRequestParser {
+    private static final String FIELD_BODY = "body";
+    private static final String FIELD_REQUEST_CONTEXT = "requestContext";
+    private static final String FIELD_QUERY_STRING_PARAMETERS = "queryStringParameters";
+    private static final String FIELD_HEADERS = "headers";
+
+    private final JsonFactory jsonFactory;
+
+    public WebSocketRequestParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @NonNull
+    public WebSocketRequest parse(@NonNull InputStream inputStream) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "WebSocket event is not a JSON object");
+            }
+            String body = null;
+            String codec = null;
+            String subprotocols = null;
+            WebSocketRequest requestContext = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (FIELD_BODY.equals(field)) {
+                    body = valueAsString(parser);
+                } else if (FIELD_REQUEST_CONTEXT.equals(field) && value == JsonToken.START_OBJECT) {
+                    requestContext = parseRequestContext(parser);
+                } else if (FIELD_QUERY_STRING_PARAMETERS.equals(field) && value == JsonToken.START_OBJECT) {
+                    codec = parseField(parser, MessageCodecs.QUERY_PARAMETER);
+                } else if (FIELD_HEADERS.equals(field) && value == JsonToken.START_OBJECT) {
+                    subprotocols = parseField(parser, MessageCodecs.HEADER_SUBPROTOCOL);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return requestContext == null ?
+                    new WebSocketRequest(null, null, null, null, null, null, body, codec, subprotocols) :
+                    new WebSocketRequest(requestContext.getEventType(),
+                            requestContext.getRouteKey(),
+                            requestContext.getConnectionId(),
+                            requestContext.getApiId(),
+                            requestContext.getStage(),
+                            requestContext.getDomainName(),
+                            body,
+                            codec,
+                            subprotocols);
+        }
+    }
+
+    /**
+     * @return The string value of a field of the current object, matched ignoring case as HTTP header names are.
+     */
+    private static String parseField(JsonParser parser, String name) throws IOException {
+        String result = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (name.equalsIgnoreCase(field)) {
+                result = valueAsString(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static WebSocketRequest parseRequestContext(JsonParser parser) throws IOException {
+        String eventType = null;
+        String routeKey = null;
+        String connectionId = null;
+        String apiId = null;
+        String stage = null;
+        String domainName = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "eventType":
+                    eventType = valueAsString(parser);
+                    break;
+                case "routeKey":
+                    routeKey = valueAsString(parser);
+                    break;
+                case "connectionId":
+                    connectionId = valueAsString(parser);
+                    break;
+                case "apiId":
+                    apiId = valueAsString(parser);
+                    break;
+                case "stage":
+                    stage = valueAsString(parser);
+                    break;
+                case "domainName":
+                    domainName = valueAsString(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new WebSocketRequest(eventType, routeKey, connectionId, apiId, stage, domainName, null);
+    }
+
+    /**
+     * @return The text of the current scalar value, or {@code null} for an object or array, which is skipped so that
+     * parsing resumes after it.
+     */
+    private static String valueAsString(JsonParser parser) throws IOException {
+        String value = parser.getValueAsString();
+        parser.skipChildren();
+        return value;
+    }
+}
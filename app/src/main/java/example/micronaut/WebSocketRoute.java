@@ -0,0 +1,26 @@
+package example.micronaut;
+
+import jakarta.inject.Singleton;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a {@link WebSocketRouteHandler} as the handler of one or more route keys. The route keys are read from the
+ * bean definitions written at compile time into the {@link WebSocketRouteTable}; a route key which does not start with
+ * {@code $} becomes a custom route of the API, selected by the {@value WebSocketRoutes#ROUTE_SELECTION_KEY} field of a
+ * JSON message.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Singleton
+public @interface WebSocketRoute {
+    /**
+     * @return The route keys handled
+     */
+    String[] value();
+}
@@ -0,0 +1,22 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handles the messages of the routes named by its {@link WebSocketRoute} annotation.
+ */
+public interface WebSocketRouteHandler {
+    /**
+     * @param routeKey The route key the message was dispatched on
+     * @param connection The sender's connection
+     * @param body The message
+     * @return A future completed once the I/O started for the message has
+     */
+    @NonNull
+    CompletableFuture<?> handle(@NonNull String routeKey,
+                                @NonNull WebSocketConnection connection,
+                                @Nullable String body);
+}
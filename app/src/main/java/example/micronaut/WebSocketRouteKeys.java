@@ -0,0 +1,24 @@
+package example.micronaut;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the custom route keys of the {@link WebSocketRoute} handlers, one per line, to the file named by the only
+ * argument. Run by the {@code generateRouteKeys} task, so that the deployment creates a route per key without the
+ * application on its classpath.
+ */
+public final class WebSocketRouteKeys {
+
+    private WebSocketRouteKeys() {
+
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = Path.of(args[0]);
+        Files.createDirectories(output.getParent());
+        Files.write(output, WebSocketRouteTable.customRouteKeys(WebSocketRouteKeys.class.getClassLoader()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,141 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.io.service.SoftServiceLoader;
+import io.micronaut.inject.BeanDefinition;
+import io.micronaut.inject.BeanDefinitionReference;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Route key to {@link WebSocketRouteHandler} lookup table, built once from the {@link WebSocketRoute} values of the
+ * handlers' bean definitions. Those values are part of the annotation metadata generated at compile time, so neither
+ * building the table nor dispatching through it uses reflection.
+ */
+@Singleton
+public class WebSocketRouteTable {
+    private final Map<String, WebSocketRouteHandler> handlers;
+    private final JsonFactory jsonFactory;
+    private final boolean customRoutes;
+
+    @Inject
+    public WebSocketRouteTable(BeanContext beanContext, ObjectMapper objectMapper) {
+        this(handlers(beanContext), objectMapper);
+    }
+
+    WebSocketRouteTable(Map<String, WebSocketRouteHandler> handlers, ObjectMapper objectMapper) {
+        this.handlers = Collections.unmodifiableMap(new HashMap<>(handlers));
+        this.jsonFactory = objectMapper.getFactory();
+        this.customRoutes = handlers.keySet().stream().anyMatch(WebSocketRouteTable::isCustomRoute);
+    }
+
+    /**
+     * @return The route key a message is dispatched on. A message on {@value WebSocketRoutes#DEFAULT} whose
+     * {@value WebSocketRoutes#ROUTE_SELECTION_KEY} names a custom route, as when that route is not deployed, is
+     * dispatched on that route.
+     */
+    @NonNull
+    public String routeKeyOf(@Nullable String routeKey, @Nullable String body) {
+        if (routeKey != null && !WebSocketRoutes.DEFAULT.equals(routeKey)) {
+            return routeKey;
+        }
+        String action = customRoutes ? action(body) : null;
+        return action != null && isCustomRoute(action) && handlers.containsKey(action) ? action : WebSocketRoutes.DEFAULT;
+    }
+
+    @NonNull
+    public Optional<WebSocketRouteHandler> find(@NonNull String routeKey) {
+        return Optional.ofNullable(handlers.get(routeKey));
+    }
+
+    @NonNull
+    public Map<String, WebSocketRouteHandler> getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * Reads the custom route keys from the bean definition references on the classpath, without starting a context.
+     * {@link WebSocketRouteKeys} writes them at build time for the deployment, which creates an API Gateway route per
+     * custom route.
+     *
+     * @return The custom route keys, sorted
+     */
+    @NonNull
+    public static List<String> customRouteKeys(@NonNull ClassLoader classLoader) {
+        List<BeanDefinitionReference> references = new ArrayList<>();
+        SoftServiceLoader.load(BeanDefinitionReference.class, classLoader)
+                .collectAll(references, reference -> reference.isPresent() && reference.getAnnotationMetadata().hasStereotype(WebSocketRoute.class));
+        TreeSet<String> routeKeys = new TreeSet<>();
+        for (BeanDefinitionReference<?> reference : references) {
+            for (String routeKey : reference.getAnnotationMetadata().stringValues(WebSocketRoute.class)) {
+                if (isCustomRoute(routeKey)) {
+                    routeKeys.add(routeKey);
+                }
+            }
+        }
+        return new ArrayList<>(routeKeys);
+    }
+
+    @NonNull
+    private static Map<String, WebSocketRouteHandler> handlers(@NonNull BeanContext beanContext) {
+        Map<String, WebSocketRouteHandler> handlers = new HashMap<>();
+        for (BeanDefinition<WebSocketRouteHandler> definition : beanContext.getBeanDefinitions(WebSocketRouteHandler.class)) {
+            WebSocketRouteHandler handler = beanContext.getBean(definition);
+            for (String routeKey : definition.stringValues(WebSocketRoute.class)) {
+                WebSocketRouteHandler previous = handlers.put(routeKey, handler);
+                if (previous != null && previous != handler) {
+                    throw new ConfigurationException("Route " + routeKey + " is handled by both " +
+                            previous.getClass().getName() + " and " + handler.getClass().getName());
+                }
+            }
+        }
+        return handlers;
+    }
+
+    private static boolean isCustomRoute(@NonNull String routeKey) {
+        return !routeKey.isEmpty() && routeKey.charAt(0) != '$';
+    }
+
+    /**
+     * @return The top level {@value WebSocketRoutes#ROUTE_SELECTION_KEY} field of a JSON object, read without building a
+     * tree of the message.
+     */
+    @Nullable
+    private String action(@Nullable String body) {
+        if (body == null || body.indexOf('{') < 0) {
+            return null;
+        }
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (WebSocketRoutes.ROUTE_SELECTION_KEY.equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package example.micronaut;
+
+/**
+ * Route keys of the WebSocket API. API Gateway selects a custom route by the {@value #ROUTE_SELECTION_KEY} field of a
+ * JSON message and falls back to {@value #DEFAULT} otherwise.
+ */
+public final class WebSocketRoutes {
+    public static final String ROUTE_SELECTION_KEY = "action";
+    public static final String CONNECT = "$connect";
+    public static final String DISCONNECT = "$disconnect";
+    public static final String DEFAULT = "$default";
+    /**
+     * {@code {"action": "subscribe", "topic": "news"}}
+     */
+    public static final String SUBSCRIBE = "subscribe";
+    /**
+     * {@code {"action": "unsubscribe", "topic": "news"}}
+     */
+    public static final String UNSUBSCRIBE = "unsubscribe";
+    /**
+     * {@code {"action": "publish", "topic": "news", "data": ...}}, {@code data} is posted to every subscriber of the
+     * topic, as is when it is a string and as JSON otherwise.
+     */
+    public static final String PUBLISH = "publish";
+    /**
+     * {@code {"action": "ping"}} extends the expiry of the sender's connection item.
+     */
+    public static final String PING = "ping";
+
+    private WebSocketRoutes() {
+
+    }
+}
@@ -3,10 +3,132 @@ package example.micronaut;
 import io.micronaut.core.annotation.NonNull;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 
 public interface WebsocketConnectionRepository {
     void save(@NonNull @NotNull @Valid WebSocketConnection websocketConnection);
 
     void delete(@NonNull @NotNull @Valid WebSocketConnection websocketConnection);
+
+    void saveAll(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections);
+
+    void deleteAll(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections);
+
+    /**
+     * Deletes connections together with every subscription of them, as when pruning the connections API Gateway
+     * reported gone. The default implementation removes the subscriptions of each connection from the given repository
+     * while {@link #deleteAll(Collection)} runs.
+     */
+    default void deleteAllWithSubscriptions(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections,
+                                            @NonNull TopicSubscriptionRepository topicSubscriptionRepository) {
+        List<CompletableFuture<Void>> subscriptions = new ArrayList<>(websocketConnections.size());
+        for (WebSocketConnection websocketConnection : websocketConnections) {
+            subscriptions.add(topicSubscriptionRepository.unsubscribeAllAsync(websocketConnection));
+        }
+        deleteAll(websocketConnections);
+        try {
+            CompletableFuture.allOf(subscriptions.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * @param apiId API Gateway identifier
+     * @param stage API Gateway stage
+     * @return The connections of the given API and stage, one list per page. Pages are fetched lazily as the stream is consumed.
+     */
+    @NonNull
+    Stream<List<WebSocketConnection>> findAllByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                                             @NonNull @NotBlank String stage);
+
+    /**
+     * Reads like {@link #findAllByApiIdAndStage(String, String)} from the positions of a cursor, recording the pages
+     * handed out in it. The default implementation {@link FanOutCursor#numbered(Stream) numbers} the pages.
+     */
+    @NonNull
+    default Stream<List<WebSocketConnection>> findAllByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                                                     @NonNull @NotBlank String stage,
+                                                                     @NonNull FanOutCursor cursor) {
+        return cursor.numbered(findAllByApiIdAndStage(apiId, stage));
+    }
+
+    /**
+     * Counts the open connections of an API stage, for instance to report how many clients are online. The DynamoDB
+     * repositories read it in O(1) from the shards of the stage's counter when {@link DynamoConfiguration#isCounters()}
+     * holds; otherwise, as the default implementation does, the count reads every page of
+     * {@link #findAllByApiIdAndStage(String, String)}, which grows with the number of connections.
+     *
+     * @return The number of connections of the given API and stage.
+     */
+    default long countByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                      @NonNull @NotBlank String stage) {
+        try (Stream<List<WebSocketConnection>> pages = findAllByApiIdAndStage(apiId, stage)) {
+            return pages.mapToLong(List::size).sum();
+        }
+    }
+
+    /**
+     * Saves without blocking the caller. The default implementation performs a blocking {@link #save(WebSocketConnection)}.
+     */
+    @NonNull
+    default CompletableFuture<Void> saveAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        try {
+            save(websocketConnection);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Deletes without blocking the caller. The default implementation performs a blocking {@link #delete(WebSocketConnection)}.
+     */
+    @NonNull
+    default CompletableFuture<Void> deleteAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        try {
+            delete(websocketConnection);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Extends the expiry of a connection which is still open. A connection which is no longer stored is not recreated.
+     * The default implementation does nothing, for repositories whose connections do not expire.
+     */
+    default void heartbeat(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+    }
+
+    /**
+     * Extends the expiry without blocking the caller. The default implementation performs a blocking {@link #heartbeat(WebSocketConnection)}.
+     */
+    @NonNull
+    default CompletableFuture<Void> heartbeatAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        try {
+            heartbeat(websocketConnection);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Extends the expiry like {@link #heartbeatAsync(WebSocketConnection)} and reads back the stored connection, which
+     * carries the codec negotiated at {@code $connect}. The default implementation returns the given connection.
+     *
+     * @return The stored connection, or the given one if it is no longer stored
+     */
+    @NonNull
+    default CompletableFuture<WebSocketConnection> heartbeatAndGetAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return heartbeatAsync(websocketConnection).thenApply(ignored -> websocketConnection);
+    }
 }
@@ -1,44 +1,57 @@
 package example.micronaut;
 
+import io.micronaut.context.annotation.Requires;
 import io.micronaut.core.annotation.NonNull;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Requires(property = "dynamodb.client", value = "sync", defaultValue = "sync")
 @Singleton
 public class WebsocketConnectionRepositoryDynamo implements WebsocketConnectionRepository {
-    private static final String HASH = "#";
-    private static final String ATTRIBUTE_PK = "pk";
-    private static final String ATTRIBUTE_SK = "sk";
-    private static final String ATTRIBUTE_GSI_1_PK = "GSI1PK";
-    private static final String ATTRIBUTE_GSI_1_SK = "GSI1SK";
-    private static final String INDEX_GSI_1 = "GSI1";
-    private static final String ATTRIBUTE_CONNECTION_ID = "connectionId";
-    private static final String ATTRIBUTE_STAGE = "stage";
-    private static final String ATTRIBUTE_API_ID = "apiId";
-    private static final String ATTRIBUTE_DOMAIN_NAME = "domainName";
-    public static final String ATTRIBUTE_REGION = "region";
     private final DynamoDbClient dynamoDbClient;
     private final DynamoConfiguration dynamoConfiguration;
+    private final WebSocketConnectionItemCodec codec;
+    private final ConnectionCounterItemCodec counterCodec;
+    private final ExecutorService executorService;
 
     public WebsocketConnectionRepositoryDynamo(DynamoDbClient dynamoDbClient,
-                                               DynamoConfiguration dynamoConfiguration) {
+                                               DynamoConfiguration dynamoConfiguration,
+                                               WebSocketConnectionItemCodec codec,
+                                               ConnectionCounterItemCodec counterCodec,
+                                               @Named(TaskExecutors.IO) ExecutorService executorService) {
         this.dynamoDbClient = dynamoDbClient;
         this.dynamoConfiguration = dynamoConfiguration;
+        this.codec = codec;
+        this.counterCodec = counterCodec;
+        this.executorService = executorService;
     }
 
     @Override
     public void save(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
         dynamoDbClient.putItem(PutItemRequest.builder()
                 .tableName(dynamoConfiguration.getTableName())
-                .item(item(websocketConnection))
+                .item(codec.item(websocketConnection))
                 .build());
     }
 
@@ -46,49 +59,132 @@ public class WebsocketConnectionRepositoryDynamo implements WebsocketConnectionR
     public void delete(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
         dynamoDbClient.deleteItem(DeleteItemRequest.builder()
                         .tableName(dynamoConfiguration.getTableName())
-                        .key(keyForItem(websocketConnection))
+                        .key(codec.key(websocketConnection))
                 .build());
     }
 
-    private static Map<String, AttributeValue> keyForItem(WebSocketConnection websocketConnection) {
-        Map<String, AttributeValue> item = new HashMap<>();
-        AttributeValue pk = s(prefix(websocketConnection.getClass()) + websocketConnection.getConnectionId() +
-                HASH + websocketConnection.getApiId() + HASH + websocketConnection.getStage());
-        item.put(ATTRIBUTE_PK, pk);
-        item.put(ATTRIBUTE_SK, pk);
-        return item;
+    @Override
+    public void heartbeat(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        heartbeatAndGet(websocketConnection);
     }
 
-    private static String prefix(@NonNull Class<?> cls) {
-        return cls.getSimpleName().toUpperCase() + HASH;
+    /**
+     * Puts on the IO executor, so that the caller's other calls overlap it.
+     */
+    @Override
+    @NonNull
+    public CompletableFuture<Void> saveAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return CompletableFuture.runAsync(() -> save(websocketConnection), executorService);
     }
 
+    /**
+     * Deletes on the IO executor, so that the caller's other calls overlap it.
+     */
+    @Override
     @NonNull
-    private static AttributeValue classAttributeValue(@NonNull Class<?> cls) {
-        return AttributeValue.builder()
-                .s(cls.getSimpleName())
-                .build();
+    public CompletableFuture<Void> deleteAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return CompletableFuture.runAsync(() -> delete(websocketConnection), executorService);
     }
 
+    /**
+     * Updates on the IO executor, so that the caller's other calls overlap it.
+     */
+    @Override
+    @NonNull
+    public CompletableFuture<Void> heartbeatAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return CompletableFuture.runAsync(() -> heartbeatAndGet(websocketConnection), executorService);
+    }
+
+    @Override
     @NonNull
-    private static Map<String, AttributeValue> item(@NonNull WebSocketConnection websocketConnection) {
-        Map<String, AttributeValue> result = new HashMap<>();
-        result.putAll(keyForItem(websocketConnection));
-        result.put(ATTRIBUTE_GSI_1_PK, classAttributeValue(websocketConnection.getClass()));
-        result.put(ATTRIBUTE_GSI_1_SK, result.get(ATTRIBUTE_PK));
-        result.put(ATTRIBUTE_REGION, s(websocketConnection.getRegion()));
-        result.put(ATTRIBUTE_CONNECTION_ID, s(websocketConnection.getConnectionId()));
-        result.put(ATTRIBUTE_STAGE, s(websocketConnection.getStage()));
-        result.put(ATTRIBUTE_API_ID, s(websocketConnection.getApiId()));
-        if (websocketConnection.getDomainName() != null) {
-            result.put(ATTRIBUTE_DOMAIN_NAME, s(websocketConnection.getDomainName()));
+    public CompletableFuture<WebSocketConnection> heartbeatAndGetAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return CompletableFuture.supplyAsync(() -> heartbeatAndGet(websocketConnection), executorService);
+    }
+
+    @NonNull
+    private WebSocketConnection heartbeatAndGet(@NonNull WebSocketConnection websocketConnection) {
+        try {
+            UpdateItemResponse response = dynamoDbClient.updateItem(codec.heartbeatRequest(websocketConnection));
+            return response.hasAttributes() ? codec.connection(response.attributes()) : websocketConnection;
+        } catch (ConditionalCheckFailedException e) {
+            // disconnected or expired meanwhile
+            return websocketConnection;
         }
-        return  result;
     }
 
+    @Override
+    public void saveAll(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections) {
+        batchWrite(codec.putRequests(websocketConnections));
+    }
+
+    @Override
+    public void deleteAll(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections) {
+        batchWrite(codec.deleteRequests(websocketConnections));
+    }
+
+    /**
+     * Subscriptions are items of their connection's partition, so the given repository is not used: the partitions'
+     * keys are queried in parallel on the IO executor and every item is deleted in a single batch write, rather than
+     * one query and batch per connection.
+     */
+    @Override
+    public void deleteAllWithSubscriptions(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections,
+                                           @NonNull TopicSubscriptionRepository topicSubscriptionRepository) {
+        List<CompletableFuture<List<Map<String, AttributeValue>>>> partitions = new ArrayList<>(websocketConnections.size());
+        for (WebSocketConnection websocketConnection : websocketConnections) {
+            partitions.add(CompletableFuture.supplyAsync(() -> dynamoDbClient.queryPaginator(codec.findAllKeysInPartitionRequest(websocketConnection))
+                    .items()
+                    .stream()
+                    .collect(Collectors.toList()), executorService));
+        }
+        List<Map<String, AttributeValue>> keys = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<Map<String, AttributeValue>>> partition : partitions) {
+                keys.addAll(partition.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        batchWrite(codec.deleteKeyRequests(keys));
+    }
+
+    /**
+     * Queries every GSI1 shard in parallel on the IO executor.
+     */
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                                                    @NonNull @NotBlank String stage) {
+        return findAllByApiIdAndStage(apiId, stage, FanOutCursor.start());
+    }
+
+    /**
+     * Each GSI1 shard is a partition of the cursor.
+     */
+    @Override
     @NonNull
-    private static AttributeValue s(String str) {
-        return AttributeValue.builder().s(str).build();
+    public Stream<List<WebSocketConnection>> findAllByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                                                    @NonNull @NotBlank String stage,
+                                                                    @NonNull FanOutCursor cursor) {
+        return ScatterGatherPageIterator.stream(request -> CompletableFuture.supplyAsync(() -> dynamoDbClient.query(request), executorService),
+                codec.findAllByApiIdAndStageRequests(apiId, stage),
+                codec,
+                cursor);
+    }
+
+    /**
+     * Sums the shards of the connection counter when the table's stream maintains it, else reads every GSI1 shard.
+     */
+    @Override
+    public long countByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                     @NonNull @NotBlank String stage) {
+        if (!dynamoConfiguration.isCounters()) {
+            return WebsocketConnectionRepository.super.countByApiIdAndStage(apiId, stage);
+        }
+        return counterCodec.count(dynamoDbClient.query(counterCodec.countRequest(counterCodec.counterKey(apiId, stage, null))));
     }
 
+    private void batchWrite(@NonNull List<WriteRequest> writeRequests) {
+        DynamoBatchWrites.write(dynamoDbClient, dynamoConfiguration.getTableName(), writeRequests, executorService);
+    }
 }
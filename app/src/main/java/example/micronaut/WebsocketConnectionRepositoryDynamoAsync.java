@@ -0,0 +1,199 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+/**
+ * {@link WebsocketConnectionRepository} built on {@link DynamoDbAsyncClient}, enabled with {@code dynamodb.client: async}.
+ * The client shares the application's {@link software.amazon.awssdk.http.async.SdkAsyncHttpClient} with the management API clients.
+ */
+@Requires(property = "dynamodb.client", value = "async")
+@Singleton
+public class WebsocketConnectionRepositoryDynamoAsync implements WebsocketConnectionRepository {
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final DynamoConfiguration dynamoConfiguration;
+    private final WebSocketConnectionItemCodec codec;
+    private final ConnectionCounterItemCodec counterCodec;
+
+    public WebsocketConnectionRepositoryDynamoAsync(DynamoDbAsyncClient dynamoDbAsyncClient,
+                                                    DynamoConfiguration dynamoConfiguration,
+                                                    WebSocketConnectionItemCodec codec,
+                                                    ConnectionCounterItemCodec counterCodec) {
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+        this.dynamoConfiguration = dynamoConfiguration;
+        this.codec = codec;
+        this.counterCodec = counterCodec;
+    }
+
+    @Override
+    public void save(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        join(saveAsync(websocketConnection));
+    }
+
+    @Override
+    public void delete(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        join(deleteAsync(websocketConnection));
+    }
+
+    @Override
+    public void heartbeat(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        join(heartbeatAsync(websocketConnection));
+    }
+
+    @Override
+    public void saveAll(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections) {
+        join(batchWrite(codec.putRequests(websocketConnections)));
+    }
+
+    @Override
+    public void deleteAll(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections) {
+        join(batchWrite(codec.deleteRequests(websocketConnections)));
+    }
+
+    /**
+     * Subscriptions are items of their connection's partition, so the given repository is not used: the partitions'
+     * keys are queried concurrently and every item is deleted in a single batch write, rather than one query and batch
+     * per connection.
+     */
+    @Override
+    public void deleteAllWithSubscriptions(@NonNull @NotNull Collection<? extends WebSocketConnection> websocketConnections,
+                                           @NonNull TopicSubscriptionRepository topicSubscriptionRepository) {
+        List<CompletableFuture<List<Map<String, AttributeValue>>>> partitions = new ArrayList<>(websocketConnections.size());
+        for (WebSocketConnection websocketConnection : websocketConnections) {
+            partitions.add(keys(codec.findAllKeysInPartitionRequest(websocketConnection), new ArrayList<>()));
+        }
+        join(CompletableFuture.allOf(partitions.toArray(new CompletableFuture[0]))
+                .thenCompose(ignored -> {
+                    List<Map<String, AttributeValue>> keys = new ArrayList<>();
+                    for (CompletableFuture<List<Map<String, AttributeValue>>> partition : partitions) {
+                        keys.addAll(partition.join());
+                    }
+                    return batchWrite(codec.deleteKeyRequests(keys));
+                }));
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> saveAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return dynamoDbAsyncClient.putItem(PutItemRequest.builder()
+                        .tableName(dynamoConfiguration.getTableName())
+                        .item(codec.item(websocketConnection))
+                        .build())
+                .thenApply(response -> null);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> deleteAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return dynamoDbAsyncClient.deleteItem(DeleteItemRequest.builder()
+                        .tableName(dynamoConfiguration.getTableName())
+                        .key(codec.key(websocketConnection))
+                        .build())
+                .thenApply(response -> null);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> heartbeatAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return heartbeatAndGetAsync(websocketConnection).thenApply(connection -> null);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<WebSocketConnection> heartbeatAndGetAsync(@NonNull @NotNull @Valid WebSocketConnection websocketConnection) {
+        return dynamoDbAsyncClient.updateItem(codec.heartbeatRequest(websocketConnection))
+                .handle((response, throwable) -> {
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                    if (cause == null) {
+                        return response.hasAttributes() ? codec.connection(response.attributes()) : websocketConnection;
+                    }
+                    if (cause instanceof ConditionalCheckFailedException) {
+                        // disconnected or expired meanwhile
+                        return websocketConnection;
+                    }
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+                });
+    }
+
+    /**
+     * Queries every GSI1 shard in parallel. The query for the next page of a shard is sent as soon as its previous
+     * page arrives, so fetching overlaps with whatever the consumer does with the current page.
+     */
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                                                    @NonNull @NotBlank String stage) {
+        return findAllByApiIdAndStage(apiId, stage, FanOutCursor.start());
+    }
+
+    /**
+     * Each GSI1 shard is a partition of the cursor.
+     */
+    @Override
+    @NonNull
+    public Stream<List<WebSocketConnection>> findAllByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                                                    @NonNull @NotBlank String stage,
+                                                                    @NonNull FanOutCursor cursor) {
+        return ScatterGatherPageIterator.stream(dynamoDbAsyncClient::query,
+                codec.findAllByApiIdAndStageRequests(apiId, stage),
+                codec,
+                cursor);
+    }
+
+    /**
+     * Sums the shards of the connection counter when the table's stream maintains it, else reads every GSI1 shard.
+     */
+    @Override
+    public long countByApiIdAndStage(@NonNull @NotBlank String apiId,
+                                     @NonNull @NotBlank String stage) {
+        if (!dynamoConfiguration.isCounters()) {
+            return WebsocketConnectionRepository.super.countByApiIdAndStage(apiId, stage);
+        }
+        return join(dynamoDbAsyncClient.query(counterCodec.countRequest(counterCodec.counterKey(apiId, stage, null)))
+                .thenApply(counterCodec::count));
+    }
+
+    @NonNull
+    private CompletableFuture<Void> batchWrite(@NonNull List<WriteRequest> writeRequests) {
+        return DynamoBatchWrites.write(dynamoDbAsyncClient, dynamoConfiguration.getTableName(), writeRequests);
+    }
+
+    @NonNull
+    private CompletableFuture<List<Map<String, AttributeValue>>> keys(@NonNull QueryRequest request,
+                                                                     @NonNull List<Map<String, AttributeValue>> keys) {
+        return dynamoDbAsyncClient.query(request).thenCompose(response -> {
+            keys.addAll(response.items());
+            if (response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()) {
+                return keys(request.toBuilder().exclusiveStartKey(response.lastEvaluatedKey()).build(), keys);
+            }
+            return CompletableFuture.completedFuture(keys);
+        });
+    }
+
+    private static <T> T join(@NonNull CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+}
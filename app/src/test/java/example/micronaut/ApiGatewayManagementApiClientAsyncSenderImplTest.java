@@ -0,0 +1,124 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.apigatewaymanagementapi.ApiGatewayManagementApiAsyncClient;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.ForbiddenException;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.GoneException;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.PostToConnectionRequest;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.PostToConnectionResponse;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiGatewayManagementApiClientAsyncSenderImplTest {
+    private final List<String> posts = new CopyOnWriteArrayList<>();
+    private final Map<String, RuntimeException> failures = Map.of(
+            "forbidden", ForbiddenException.builder().statusCode(403).build(),
+            "gone", GoneException.builder().statusCode(410).build());
+    private final InMemoryWebsocketConnectionRepository connections = new InMemoryWebsocketConnectionRepository();
+    private final InMemoryTopicSubscriptionRepository subscriptions = new InMemoryTopicSubscriptionRepository();
+    private final StaleConnectionCollector staleConnections = new StaleConnectionCollector(connections, subscriptions);
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.enabled", false,
+            "send-governor.enabled", false));
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void postIsSentToTheConnectionsEndpoint() {
+        ApiGatewayManagementApiClientAsyncSender sender = sender();
+
+        assertEquals(DeliveryStatus.DELIVERED, sender.send(new WebSocketMessage(connection("alive"), "hola")).join());
+        assertEquals(List.of("https://ydvi4h9bvd.execute-api.us-east-1.amazonaws.com/production alive hola"), posts);
+    }
+
+    @Test
+    void goneConnectionsArePrunedOnce() {
+        ApiGatewayManagementApiClientAsyncSender sender = sender();
+        WebSocketConnection gone = connection("gone");
+        connections.save(gone);
+        connections.save(connection("alive"));
+        subscriptions.subscribe(gone, "news");
+
+        assertEquals(DeliveryStatus.GONE, sender.send(new WebSocketMessage(gone, "hola")).join());
+        assertEquals(DeliveryStatus.GONE, sender.send(new WebSocketMessage(gone, "adios")).join());
+        staleConnections.prune();
+
+        assertEquals(List.of("alive"), connectionIds(connections.findAllByApiIdAndStage(gone.getApiId(), gone.getStage())));
+        assertEquals(List.of(), connectionIds(subscriptions.findAllByTopic(gone.getApiId(), gone.getStage(), "news")));
+        assertTrue(posts.isEmpty());
+    }
+
+    @Test
+    void otherErrorsFailTheSend() {
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> sender().send(new WebSocketMessage(connection("forbidden"), "hola")).join());
+        assertTrue(e.getCause() instanceof ForbiddenException);
+    }
+
+    private static WebSocketConnection connection(String connectionId) {
+        return new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", connectionId, null);
+    }
+
+    private static List<String> connectionIds(Stream<List<WebSocketConnection>> pages) {
+        try (pages) {
+            return pages.flatMap(List::stream).map(WebSocketConnection::getConnectionId).collect(Collectors.toList());
+        }
+    }
+
+    private ApiGatewayManagementApiClientAsyncSender sender() {
+        ApiGatewayManagementApiClientRegistry registry = new ApiGatewayManagementApiClientRegistry(applicationContext.getBean(ApiGatewayManagementApiClientConfiguration.class),
+                endpoint -> {
+                    throw new IllegalStateException("the async sender does not use blocking clients");
+                },
+                FakeClient::new);
+        return new ApiGatewayManagementApiClientAsyncSenderImpl(registry,
+                staleConnections,
+                new MessageCodecs(List.of(new JsonMessageCodec()), () -> 1024),
+                new SendGovernor(applicationContext.getBean(SendGovernorConfiguration.class), new InvocationDeadline(),
+                        applicationContext.getBean(MetricsRecorder.class)));
+    }
+
+    private final class FakeClient implements ApiGatewayManagementApiAsyncClient {
+        private final URI endpoint;
+
+        private FakeClient(URI endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public CompletableFuture<PostToConnectionResponse> postToConnection(PostToConnectionRequest request) {
+            RuntimeException failure = failures.get(request.connectionId());
+            if (failure != null) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            posts.add(endpoint + " " + request.connectionId() + " " + request.data().asUtf8String());
+            return CompletableFuture.completedFuture(PostToConnectionResponse.builder().build());
+        }
+
+        @Override
+        public String serviceName() {
+            return "execute-api";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingWebsocketConnectionRepositoryTest {
+    private static final String API_ID = "ydvi4h9bvd";
+    private static final String STAGE = "production";
+
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.enabled", false,
+            "connection-cache.enabled", true,
+            "connection-cache.maximum-size", 2,
+            "connection-cache.maximum-connections", 2,
+            "connection-cache.maximum-gone", 10));
+    private final LaggingRepository delegate = new LaggingRepository();
+    private final AtomicLong ticker = new AtomicLong();
+    private final CachingWebsocketConnectionRepository cache = new CachingWebsocketConnectionRepository(delegate,
+            applicationContext.getBean(ConnectionCacheConfiguration.class),
+            applicationContext.getBean(MetricsRecorder.class),
+            ticker::get);
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void connectionsAreReadOnceWithinTtl() {
+        delegate.save(connection("a"));
+        assertEquals(List.of("a"), connectionIds());
+        assertEquals(List.of("a"), connectionIds());
+        assertEquals(1, delegate.reads);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+
+        ticker.addAndGet(Duration.ofSeconds(6).toNanos());
+        connectionIds();
+        assertEquals(2, delegate.reads);
+    }
+
+    @Test
+    void saveInvalidatesTheCachedList() {
+        delegate.save(connection("a"));
+        connectionIds();
+        cache.save(connection("b"));
+        assertEquals(List.of("a", "b"), connectionIds());
+        assertEquals(2, delegate.reads);
+    }
+
+    @Test
+    void deletedConnectionsAreFilteredUntilGoneTtl() {
+        delegate.save(connection("a"));
+        delegate.save(connection("b"));
+        connectionIds();
+        cache.deleteAll(List.of(connection("a")));
+        assertEquals(List.of("b"), connectionIds());
+        assertEquals(1, delegate.reads);
+
+        // the fake still returns the deleted connection, as an eventually consistent read may
+        ticker.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertEquals(List.of("b"), connectionIds());
+
+        ticker.addAndGet(Duration.ofMinutes(1).toNanos());
+        cache.invalidateAll();
+        assertEquals(List.of("a", "b"), connectionIds());
+    }
+
+    @Test
+    void listsLargerThanMaximumConnectionsAreNotCached() {
+        delegate.save(connection("a"));
+        delegate.save(connection("b"));
+        delegate.save(connection("c"));
+        connectionIds();
+        connectionIds();
+        assertEquals(2, delegate.reads);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void partiallyConsumedListsAreNotCached() {
+        delegate.save(connection("a"));
+        try (Stream<List<WebSocketConnection>> pages = cache.findAllByApiIdAndStage(API_ID, STAGE)) {
+            assertTrue(pages.findFirst().isPresent());
+        }
+        assertEquals(0, cache.size());
+        assertTrue(delegate.closed);
+    }
+
+    @Test
+    void aFanOutWithACursorIsServedFromTheCachedListAndResumedInIt() {
+        delegate.saveAll(List.of(connection("a"), connection("b")));
+        connectionIds();
+        FanOutCursor cursor = FanOutCursor.start();
+        try (Stream<List<WebSocketConnection>> pages = cache.findAllByApiIdAndStage(API_ID, STAGE, cursor)) {
+            assertEquals(List.of(connection("a")), pages.findFirst().get());
+        }
+
+        assertEquals(List.of("b"), connectionIds(FanOutCursor.resume(cursor.remaining())));
+        assertEquals(1, delegate.reads);
+    }
+
+    @Test
+    void aFanOutResumedInAListNoLongerCachedStartsItOverFromTheDelegate() {
+        delegate.saveAll(List.of(connection("a"), connection("b")));
+        connectionIds();
+        FanOutCursor cursor = FanOutCursor.start();
+        try (Stream<List<WebSocketConnection>> pages = cache.findAllByApiIdAndStage(API_ID, STAGE, cursor)) {
+            pages.findFirst();
+        }
+        cache.invalidateAll();
+
+        assertEquals(List.of("a", "b"), connectionIds(FanOutCursor.resume(cursor.remaining())));
+        assertEquals(2, delegate.reads);
+    }
+
+    @Test
+    void aFanOutResumedAtThePageKeysOfTheDelegateIsReadThrough() {
+        delegate.saveAll(List.of(connection("a"), connection("b")));
+        connectionIds();
+
+        assertEquals(List.of("b"), connectionIds(FanOutCursor.resume(Map.of("0", Map.of("page", "1")))));
+        assertEquals(2, delegate.reads);
+    }
+
+    @Test
+    void theSubscribersOfATopicAreCachedUntilThisContainerChangesThem() {
+        AtomicInteger reads = new AtomicInteger();
+        InMemoryTopicSubscriptionRepository subscriptions = new InMemoryTopicSubscriptionRepository() {
+            @Override
+            public synchronized Stream<List<WebSocketConnection>> findAllByTopic(String apiId, String stage, String topic) {
+                reads.incrementAndGet();
+                return super.findAllByTopic(apiId, stage, topic);
+            }
+        };
+        CachingTopicSubscriptionRepository topics = new CachingTopicSubscriptionRepository(subscriptions, cache);
+        topics.subscribe(connection("a"), "news");
+
+        assertEquals(List.of("a"), subscriberIds(topics));
+        assertEquals(List.of("a"), subscriberIds(topics));
+        assertEquals(1, reads.get());
+
+        topics.subscribe(connection("b"), "news");
+        assertEquals(List.of("a", "b"), subscriberIds(topics));
+        cache.delete(connection("a"));
+        assertEquals(List.of("b"), subscriberIds(topics));
+        assertEquals(2, reads.get());
+    }
+
+    private static WebSocketConnection connection(String connectionId) {
+        return new WebSocketConnection("us-east-1", API_ID, STAGE, connectionId, null);
+    }
+
+    private List<String> connectionIds() {
+        try (Stream<List<WebSocketConnection>> pages = cache.findAllByApiIdAndStage(API_ID, STAGE)) {
+            return pages.flatMap(List::stream)
+                    .map(WebSocketConnection::getConnectionId)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private List<String> connectionIds(FanOutCursor cursor) {
+        try (Stream<List<WebSocketConnection>> pages = cache.findAllByApiIdAndStage(API_ID, STAGE, cursor)) {
+            return pages.flatMap(List::stream)
+                    .map(WebSocketConnection::getConnectionId)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> subscriberIds(TopicSubscriptionRepository topics) {
+        try (Stream<List<WebSocketConnection>> pages = topics.findAllByTopic(API_ID, STAGE, "news")) {
+            return pages.flatMap(List::stream)
+                    .map(WebSocketConnection::getConnectionId)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Pages of one connection, which counts its reads and keeps deleted rows, as an index read lagging behind the
+     * delete would.
+     */
+    private static class LaggingRepository extends InMemoryWebsocketConnectionRepository {
+        private int reads;
+        private boolean closed;
+
+        LaggingRepository() {
+            super(1);
+        }
+
+        @Override
+        public void deleteAll(Collection<? extends WebSocketConnection> websocketConnections) {
+        }
+
+        @Override
+        public synchronized Stream<List<WebSocketConnection>> findAllByApiIdAndStage(String apiId, String stage) {
+            reads++;
+            return super.findAllByApiIdAndStage(apiId, stage).onClose(() -> closed = true);
+        }
+    }
+}
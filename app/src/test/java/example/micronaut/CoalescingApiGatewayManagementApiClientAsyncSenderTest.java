@@ -0,0 +1,100 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingApiGatewayManagementApiClientAsyncSenderTest {
+
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.enabled", false,
+            "outbound-coalescing.enabled", true,
+            "outbound-coalescing.flush-window", "1m",
+            "outbound-coalescing.maximum-messages", 3,
+            "outbound-coalescing.maximum-bytes", 64));
+    private final InMemoryApiGatewayManagementApiClientAsyncSender delegate = new InMemoryApiGatewayManagementApiClientAsyncSender(null, true);
+    private final CoalescingApiGatewayManagementApiClientAsyncSender sender = new CoalescingApiGatewayManagementApiClientAsyncSender(delegate,
+            applicationContext.getBean(OutboundCoalescingConfiguration.class),
+            applicationContext.getBean(MetricsRecorder.class),
+            applicationContext.getBean(ObjectMapper.class));
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void messagesToTheSameConnectionAreMergedIntoAJsonArray() {
+        CompletableFuture<DeliveryStatus> first = send("a", "{\"tick\":1}");
+        CompletableFuture<DeliveryStatus> second = send("a", "plain \"text\"");
+        CompletableFuture<DeliveryStatus> other = send("gone-b", "{\"tick\":1}");
+        assertTrue(delegate.getPosted().isEmpty());
+        assertFalse(first.isDone());
+
+        sender.flush().join();
+
+        assertEquals(List.of("a:[{\"tick\":1},\"plain \\\"text\\\"\"]"), delegate.getPosted());
+        assertEquals(DeliveryStatus.DELIVERED, first.join());
+        assertEquals(DeliveryStatus.DELIVERED, second.join());
+        assertEquals(DeliveryStatus.GONE, other.join());
+        assertEquals(1.5, sender.getCoalescingRatio());
+    }
+
+    @Test
+    void aMessagePostedAloneIsStillAnElementOfAnArray() {
+        send("a", "{\"tick\":1}");
+        sender.flush().join();
+
+        assertEquals(List.of("a:[{\"tick\":1}]"), delegate.getPosted());
+    }
+
+    @Test
+    void onlyWholeJsonValuesAreFramedAsIs() {
+        send("a", "42 is the answer");
+        send("a", "[1] [2]");
+        send("a", " \"quoted\" ");
+        sender.flush().join();
+
+        assertEquals(List.of("a:[\"42 is the answer\",\"[1] [2]\", \"quoted\" ]"), delegate.getPosted());
+    }
+
+    @Test
+    void batchesArePostedOnceFullWithoutWaitingForTheWindow() {
+        send("a", "{\"tick\":1}");
+        send("a", "{\"tick\":2}");
+        send("a", "{\"tick\":3}");
+        assertEquals(List.of("a:[{\"tick\":1},{\"tick\":2},{\"tick\":3}]"), delegate.getPosted());
+
+        // the second message would make the array of the pending batch longer than 64 bytes
+        send("a", "{\"tick\":4}");
+        send("a", "{\"padding\":\"" + "x".repeat(40) + "\"}");
+        assertEquals(List.of("a:[{\"tick\":1},{\"tick\":2},{\"tick\":3}]", "a:[{\"tick\":4}]"), delegate.getPosted());
+        assertEquals(2, sender.getPostCount());
+        assertEquals(5, sender.getMessageCount());
+    }
+
+    @Test
+    void escapingCountsTowardsTheMaximumBytes() {
+        // 11 characters become a 64 byte element, which does not fit next to the first and is posted alone
+        send("a", "\"\"");
+        send("a", "\u0001".repeat(10) + "\\");
+        assertEquals(List.of("a:[\"\"]", "a:[\"" + "\\u0001".repeat(10) + "\\\\\"]"), delegate.getPosted());
+    }
+
+    private CompletableFuture<DeliveryStatus> send(String connectionId, String message) {
+        return sender.send(new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", connectionId, null),
+                SdkBytes.fromString(message, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,186 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ConnectionCounterProcessorTest {
+    private static final String API_ID = "ydvi4h9bvd";
+    private static final String STAGE = "production";
+
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.enabled", false,
+            "dynamodb.table-name", "websockets",
+            "dynamodb.gsi1-shards", 4,
+            "dynamodb.counters", true));
+    private final DynamoConfiguration configuration = applicationContext.getBean(DynamoConfiguration.class);
+    private final WebSocketConnectionItemCodec connectionCodec = applicationContext.getBean(WebSocketConnectionItemCodec.class);
+    private final TopicSubscriptionItemCodec subscriptionCodec = applicationContext.getBean(TopicSubscriptionItemCodec.class);
+    private final ConnectionCounterItemCodec codec = applicationContext.getBean(ConnectionCounterItemCodec.class);
+    private final MetricsRecorder metricsRecorder = applicationContext.getBean(MetricsRecorder.class);
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void insertsAndRemovesOfConnectionsAndSubscriptionsAreSummedPerCounter() {
+        List<TransactWriteItemsRequest> requests = new ArrayList<>();
+        ConnectionCounterProcessor processor = new ConnectionCounterProcessor(fakeClient(requests, new HashMap<>()), codec, metricsRecorder);
+        WebSocketConnection a = connection("a");
+        WebSocketConnection b = connection("b");
+
+        processor.process(List.of(
+                record("1", "INSERT", null, connectionCodec.item(a)),
+                record("2", "INSERT", null, connectionCodec.item(b)),
+                record("3", "INSERT", null, subscriptionCodec.item(a, "news")),
+                record("4", "MODIFY", connectionCodec.item(a), connectionCodec.item(a)),
+                record("5", "REMOVE", subscriptionCodec.item(a, "news"), null),
+                record("6", "REMOVE", connectionCodec.item(b), null),
+                record("7", "INSERT", null, connectionCodec.item(connection("c")))));
+
+        assertEquals(1, requests.size());
+        Map<String, String> deltas = new HashMap<>();
+        for (TransactWriteItem item : requests.get(0).transactItems()) {
+            Update update = item.update();
+            deltas.put(update.key().get(WebSocketConnectionItemCodec.ATTRIBUTE_PK).s(), update.expressionAttributeValues().get(":delta").n());
+        }
+        // the subscription was added and removed within the batch
+        assertEquals(Map.of(codec.counterKey(API_ID, STAGE, null), "2"), deltas);
+    }
+
+    @Test
+    void retriedBatchReusesTokensAndShards() {
+        List<TransactWriteItemsRequest> requests = new ArrayList<>();
+        ConnectionCounterProcessor processor = new ConnectionCounterProcessor(fakeClient(requests, new HashMap<>()), codec, metricsRecorder);
+        List<DynamodbEvent.DynamodbStreamRecord> records = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            records.add(record(String.valueOf(i), "INSERT", null, subscriptionCodec.item(connection("a"), "topic-" + i)));
+        }
+
+        processor.process(records);
+        processor.process(records);
+
+        assertEquals(4, requests.size());
+        assertEquals(ConnectionCounterProcessor.TRANSACTION_MAXIMUM_ITEMS, requests.get(0).transactItems().size());
+        assertEquals(5, requests.get(1).transactItems().size());
+        assertNotEquals(requests.get(0).clientRequestToken(), requests.get(1).clientRequestToken());
+        assertEquals(requests.get(0).clientRequestToken(), requests.get(2).clientRequestToken());
+        assertEquals(requests.get(1).clientRequestToken(), requests.get(3).clientRequestToken());
+        assertEquals(requests.get(0).transactItems(), requests.get(2).transactItems());
+    }
+
+    @Test
+    void repositoriesReadCountsFromCounterShards() {
+        Map<String, Long> shards = new HashMap<>();
+        DynamoDbClient client = fakeClient(new ArrayList<>(), shards);
+        ConnectionCounterProcessor processor = new ConnectionCounterProcessor(client, codec, metricsRecorder);
+        processor.process(List.of(
+                record("1", "INSERT", null, connectionCodec.item(connection("a"))),
+                record("2", "INSERT", null, connectionCodec.item(connection("b"))),
+                record("3", "INSERT", null, subscriptionCodec.item(connection("a"), "news"))));
+        processor.process(List.of(record("4", "REMOVE", connectionCodec.item(connection("b")), null)));
+        processor.process(List.of(record("5", "INSERT", null, connectionCodec.item(connection("c")))));
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            WebsocketConnectionRepository connections = new WebsocketConnectionRepositoryDynamo(client, configuration,
+                    connectionCodec, codec, executorService);
+            TopicSubscriptionRepository subscriptions = new TopicSubscriptionRepositoryDynamo(client, configuration,
+                    subscriptionCodec, connectionCodec, codec, executorService);
+
+            assertEquals(2, connections.countByApiIdAndStage(API_ID, STAGE));
+            assertEquals(1, subscriptions.countByTopic(API_ID, STAGE, "news"));
+            assertEquals(0, subscriptions.countByTopic(API_ID, STAGE, "sports"));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static WebSocketConnection connection(String connectionId) {
+        return new WebSocketConnection("us-east-1", API_ID, STAGE, connectionId, null);
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord record(String sequenceNumber,
+                                                            String eventName,
+                                                            Map<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue> oldImage,
+                                                            Map<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue> newImage) {
+        StreamRecord streamRecord = new StreamRecord();
+        streamRecord.setSequenceNumber(sequenceNumber);
+        streamRecord.setOldImage(image(oldImage));
+        streamRecord.setNewImage(image(newImage));
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventID(sequenceNumber);
+        record.setEventName(eventName);
+        record.setDynamodb(streamRecord);
+        return record;
+    }
+
+    private static Map<String, AttributeValue> image(Map<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue> item) {
+        if (item == null) {
+            return null;
+        }
+        Map<String, AttributeValue> image = new HashMap<>();
+        item.forEach((name, value) -> {
+            if (value.s() != null) {
+                image.put(name, new AttributeValue().withS(value.s()));
+            } else if (value.n() != null) {
+                image.put(name, new AttributeValue().withN(value.n()));
+            }
+        });
+        return image;
+    }
+
+    /**
+     * Applies transactions to an in-memory map of shard values and answers counter queries from it.
+     */
+    private static DynamoDbClient fakeClient(List<TransactWriteItemsRequest> requests, Map<String, Long> shards) {
+        return new FakeDynamoDbClient() {
+            @Override
+            public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+                requests.add(request);
+                for (TransactWriteItem item : request.transactItems()) {
+                    Update update = item.update();
+                    String key = update.key().get(WebSocketConnectionItemCodec.ATTRIBUTE_PK).s() + "|" + update.key().get(WebSocketConnectionItemCodec.ATTRIBUTE_SK).s();
+                    shards.merge(key, Long.parseLong(update.expressionAttributeValues().get(":delta").n()), Long::sum);
+                }
+                return TransactWriteItemsResponse.builder().build();
+            }
+
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                String pk = request.expressionAttributeValues().get(":pk").s();
+                List<Map<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue>> items = new ArrayList<>();
+                shards.forEach((key, value) -> {
+                    if (key.startsWith(pk + "|")) {
+                        items.add(Map.of(ConnectionCounterItemCodec.ATTRIBUTE_CONNECTIONS,
+                                software.amazon.awssdk.services.dynamodb.model.AttributeValue.builder().n(Long.toString(value)).build()));
+                    }
+                });
+                return QueryResponse.builder().items(items).build();
+            }
+        };
+    }
+}
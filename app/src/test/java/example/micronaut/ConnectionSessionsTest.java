@@ -0,0 +1,53 @@
+package example.micronaut;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionSessionsTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ConnectionSessions sessions = new ConnectionSessions(Duration.ofMinutes(15), clock::get);
+
+    @Test
+    void aConnectionIsRememberedWithItsCodecUntilItDisconnects() {
+        sessions.remember(connection("a", "cbor"));
+
+        assertEquals("cbor", sessions.find("a").getCodec());
+        sessions.forget("a");
+        assertNull(sessions.find("a"));
+    }
+
+    @Test
+    void theExpiryIsExtendedOncePerInterval() {
+        assertTrue(sessions.isHeartbeatDue("unknown"));
+
+        sessions.remember(connection("a", null));
+        clock.set(Duration.ofMinutes(14).toMillis());
+        assertFalse(sessions.isHeartbeatDue("a"));
+        clock.set(Duration.ofMinutes(15).toMillis());
+        assertTrue(sessions.isHeartbeatDue("a"));
+        assertFalse(sessions.isHeartbeatDue("a"));
+    }
+
+    @Test
+    void theLeastRecentlyUsedConnectionsAreForgottenBeyondTheMaximumSize() {
+        for (int i = 0; i <= ConnectionSessions.MAXIMUM_SIZE; i++) {
+            sessions.remember(connection(String.valueOf(i), null));
+        }
+
+        assertNull(sessions.find("0"));
+        assertNotNull(sessions.find("1"));
+    }
+
+    private static WebSocketConnection connection(String connectionId, String codec) {
+        return new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", connectionId, null, codec);
+    }
+}
@@ -0,0 +1,105 @@
+package example.micronaut;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EndpointClientCacheTest {
+
+    private static final URI PRODUCTION = URI.create("https://ydvi4h9bvd.execute-api.us-east-1.amazonaws.com/production");
+    private static final URI STAGING = URI.create("https://ydvi4h9bvd.execute-api.us-east-1.amazonaws.com/staging");
+    private static final URI DEV = URI.create("https://ydvi4h9bvd.execute-api.us-east-1.amazonaws.com/dev");
+
+    @Test
+    void clientsAreReusedPerEndpoint() {
+        EndpointClientCache<FakeClient> cache = new EndpointClientCache<>(endpoint -> new FakeClient(), 2, Duration.ofMinutes(1).toNanos(), () -> 0);
+        FakeClient client = cache.call(PRODUCTION, Function.identity());
+        assertSame(client, cache.call(PRODUCTION, Function.identity()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedClientIsEvictedAndClosed() {
+        EndpointClientCache<FakeClient> cache = new EndpointClientCache<>(endpoint -> new FakeClient(), 2, Duration.ofMinutes(1).toNanos(), () -> 0);
+        FakeClient production = cache.call(PRODUCTION, Function.identity());
+        FakeClient staging = cache.call(STAGING, Function.identity());
+        cache.call(PRODUCTION, Function.identity());
+        cache.call(DEV, Function.identity());
+        assertTrue(staging.closed);
+        assertFalse(production.closed);
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void idleClientIsEvictedAndClosed() {
+        AtomicLong ticker = new AtomicLong();
+        EndpointClientCache<FakeClient> cache = new EndpointClientCache<>(endpoint -> new FakeClient(), 2, Duration.ofMinutes(1).toNanos(), ticker::get);
+        FakeClient client = cache.call(PRODUCTION, Function.identity());
+        ticker.addAndGet(Duration.ofMinutes(2).toNanos());
+        FakeClient refreshed = cache.call(PRODUCTION, Function.identity());
+        assertNotSame(client, refreshed);
+        assertTrue(client.closed);
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getMissCount());
+
+        cache.close();
+        assertTrue(refreshed.closed);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictedClientIsClosedOnceItsCallsComplete() {
+        EndpointClientCache<FakeClient> cache = new EndpointClientCache<>(endpoint -> new FakeClient(), 1, Duration.ofMinutes(1).toNanos(), () -> 0);
+        CompletableFuture<Void> post = new CompletableFuture<>();
+        FakeClient[] production = new FakeClient[1];
+        CompletableFuture<Void> call = cache.callAsync(PRODUCTION, client -> {
+            production[0] = client;
+            return post;
+        });
+        cache.call(STAGING, Function.identity());
+        assertEquals(1, cache.getEvictionCount());
+        assertFalse(production[0].closed);
+
+        post.complete(null);
+        assertTrue(call.isDone());
+        assertTrue(production[0].closed);
+    }
+
+    @Test
+    void factoryRunsOutsideTheLock() {
+        EndpointClientCache<FakeClient>[] cache = new EndpointClientCache[1];
+        cache[0] = new EndpointClientCache<>(endpoint -> {
+            if (endpoint.equals(STAGING)) {
+                // a lookup from another thread while this client is being built
+                assertEquals(1, CompletableFuture.supplyAsync(() -> cache[0].size()).join());
+            }
+            return new FakeClient();
+        }, 2, Duration.ofMinutes(1).toNanos(), () -> 0);
+        cache[0].call(PRODUCTION, Function.identity());
+        cache[0].call(STAGING, Function.identity());
+        assertEquals(2, cache[0].size());
+    }
+
+    static class FakeClient implements SdkAutoCloseable {
+        private volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package example.micronaut;
 import example.micronaut.EventType;
 import org.junit.jupiter.api.Test;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EventTypeTest {
@@ -12,4 +14,11 @@ class EventTypeTest {
         assertEquals("DISCONNECT", EventType.DISCONNECT.toString());
         assertEquals("CONNECT", EventType.CONNECT.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void ofIgnoresCase() {
+        assertEquals(Optional.of(EventType.MESSAGE), EventType.of("MESSAGE"));
+        assertEquals(Optional.of(EventType.DISCONNECT), EventType.of("disconnect"));
+        assertEquals(Optional.empty(), EventType.of("UPGRADE"));
+    }
+}
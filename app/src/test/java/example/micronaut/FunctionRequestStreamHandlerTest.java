@@ -0,0 +1,70 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FunctionRequestStreamHandlerTest {
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.enabled", false,
+            "dynamodb.client", "memory",
+            "apigateway.management.client", "memory",
+            "apigateway.management.recording", true));
+    private final FunctionRequestStreamHandler handler = new FunctionRequestStreamHandler(applicationContext);
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void aMessageIsDispatchedAndAnsweredWithAConstantResponse() throws IOException {
+        String response;
+        try (InputStream event = FunctionRequestStreamHandlerTest.class.getClassLoader().getResourceAsStream("message-event.json")) {
+            response = handle(event);
+        }
+
+        assertEquals("{\"statusCode\":200,\"isBase64Encoded\":false}", response);
+        assertEquals(List.of("VfDNVfH0oAMCJAg=:You said {\"action\":\"hello\",\"values\":[1,2,3]}"),
+                applicationContext.getBean(InMemoryApiGatewayManagementApiClientAsyncSender.class).getPosted());
+    }
+
+    @Test
+    void aConnectWhichNegotiatedASubprotocolIsAnsweredWithIt() throws IOException {
+        String response = handle(json("{\"headers\":{\"sec-websocket-protocol\":\"chat, msgpack\"}," +
+                "\"requestContext\":{\"routeKey\":\"$connect\",\"eventType\":\"CONNECT\",\"stage\":\"production\"," +
+                "\"connectionId\":\"abc\",\"apiId\":\"ydvi4h9bvd\"}}"));
+
+        assertEquals("{\"statusCode\":200,\"headers\":{\"Sec-WebSocket-Protocol\":\"msgpack\"},\"isBase64Encoded\":false}", response);
+    }
+
+    @Test
+    void aConnectWithoutSubprotocolGetsTheConstantResponse() throws IOException {
+        String response = handle(json("{\"queryStringParameters\":{\"codec\":\"cbor\"}," +
+                "\"requestContext\":{\"routeKey\":\"$connect\",\"eventType\":\"CONNECT\",\"stage\":\"production\"," +
+                "\"connectionId\":\"abc\",\"apiId\":\"ydvi4h9bvd\"}}"));
+
+        assertEquals("{\"statusCode\":200,\"isBase64Encoded\":false}", response);
+    }
+
+    private String handle(InputStream event) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        handler.handleRequest(event, output, null);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
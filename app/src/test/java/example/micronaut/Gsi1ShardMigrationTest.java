@@ -0,0 +1,146 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Gsi1ShardMigrationTest {
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "dynamodb.table-name", "websockets",
+            "dynamodb.gsi1-shards", 4));
+    private final DynamoConfiguration configuration = applicationContext.getBean(DynamoConfiguration.class);
+    private final WebSocketConnectionItemCodec codec = applicationContext.getBean(WebSocketConnectionItemCodec.class);
+    private final List<UpdateItemRequest> updates = new ArrayList<>();
+    private final Map<String, Map<String, AttributeValue>> items = new HashMap<>();
+    private final UnshardedTable dynamoDbClient = new UnshardedTable();
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void migrationUpdatesOnlyTheGsi1PartitionKeyOfConnectionsStillPresent() {
+        Gsi1ShardMigration migration = new Gsi1ShardMigration(dynamoDbClient, configuration, codec);
+
+        assertEquals(2, migration.migrate());
+
+        assertEquals(2, updates.size());
+        UpdateItemRequest update = updates.get(0);
+        assertEquals("SET #gsi1pk = :gsi1pk", update.updateExpression());
+        assertEquals("attribute_exists(#pk) AND #gsi1pk = :unsharded", update.conditionExpression());
+        assertEquals(codec.gsi1PartitionKey(connection("alive")), update.expressionAttributeValues().get(":gsi1pk"));
+        assertEquals("MIGRATION#GSI1SHARDS", marker().get("pk").s());
+        assertTrue(marker().get("completed").bool());
+    }
+
+    @Test
+    void migrationRunsOncePerTable() {
+        Gsi1ShardMigration migration = new Gsi1ShardMigration(dynamoDbClient, configuration, codec);
+
+        migration.migrate();
+        assertEquals(0, migration.migrate());
+
+        assertEquals(2, updates.size());
+        assertEquals(3, dynamoDbClient.queries);
+        assertTrue(updates.stream().noneMatch(update -> update.key().get("pk").s().contains("disconnected")));
+    }
+
+    @Test
+    void anInterruptedMigrationResumesAfterTheLastPageItMigrated() {
+        Gsi1ShardMigration migration = new Gsi1ShardMigration(dynamoDbClient, configuration, codec);
+        dynamoDbClient.failSecondPage = true;
+
+        assertThrows(IllegalStateException.class, migration::migrate);
+        assertEquals(1, updates.size());
+        assertEquals(codec.key(connection("alive")), marker().get("exclusiveStartKey").m());
+
+        dynamoDbClient.failSecondPage = false;
+        assertEquals(1, migration.migrate());
+        assertEquals(2, updates.size());
+        assertTrue(marker().get("completed").bool());
+    }
+
+    private static WebSocketConnection connection(String connectionId) {
+        return new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", connectionId, null);
+    }
+
+    private Map<String, AttributeValue> marker() {
+        return items.get("MIGRATION#GSI1SHARDS");
+    }
+
+    /**
+     * Lists the unsharded connections one per page.
+     */
+    private class UnshardedTable extends FakeDynamoDbClient {
+        private final List<WebSocketConnection> unsharded = List.of(connection("alive"),
+                connection("disconnected"),
+                connection("also-alive"));
+        private int queries;
+        private boolean failSecondPage;
+
+        @Override
+        public QueryResponse query(QueryRequest request) {
+            assertEquals("WebSocketConnection", request.expressionAttributeValues().get(":gsi1pk").s());
+            queries++;
+            int page = 0;
+            if (request.hasExclusiveStartKey()) {
+                while (!codec.key(unsharded.get(page)).equals(request.exclusiveStartKey())) {
+                    page++;
+                }
+                page++;
+                if (failSecondPage && page == 1) {
+                    throw new IllegalStateException("throttled");
+                }
+            }
+            QueryResponse.Builder response = QueryResponse.builder().items(codec.item(unsharded.get(page)));
+            if (page + 1 < unsharded.size()) {
+                response.lastEvaluatedKey(codec.key(unsharded.get(page)));
+            }
+            return response.build();
+        }
+
+        @Override
+        public UpdateItemResponse updateItem(UpdateItemRequest request) {
+            if (request.key().get("pk").s().contains("disconnected")) {
+                throw ConditionalCheckFailedException.builder().message("deleted").build();
+            }
+            updates.add(request);
+            return UpdateItemResponse.builder().build();
+        }
+
+        @Override
+        public GetItemResponse getItem(GetItemRequest request) {
+            Map<String, AttributeValue> item = items.get(request.key().get("pk").s());
+            return item != null
+                    ? GetItemResponse.builder().item(item).build()
+                    : GetItemResponse.builder().build();
+        }
+
+        @Override
+        public PutItemResponse putItem(PutItemRequest request) {
+            items.put(request.item().get("pk").s(), request.item());
+            return PutItemResponse.builder().build();
+        }
+    }
+}
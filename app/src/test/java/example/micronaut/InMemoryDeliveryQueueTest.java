@@ -0,0 +1,216 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.exceptions.ConfigurationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InMemoryDeliveryQueueTest {
+    private static final String API_ID = "ydvi4h9bvd";
+    private static final String STAGE = "production";
+
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.enabled", false,
+            "delivery-queue.enabled", true,
+            "delivery-queue.in-memory", true,
+            "delivery-queue.batch-size", 2));
+    private final AtomicInteger brokenReads = new AtomicInteger();
+    private final DeliveryJobCodec codec = new DeliveryJobCodec(new ObjectMapper());
+    private InMemoryDeliveryQueue queue;
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void jobsAreDeliveredByTheConsumerAndFailedJobsAreReceivedAgainUpToTheMaxReceiveCount() {
+        InMemoryApiGatewayManagementApiClientAsyncSender sender = new InMemoryApiGatewayManagementApiClientAsyncSender(null, true);
+        queue = new InMemoryDeliveryQueue(processor(new InMemoryWebsocketConnectionRepository(), sender), codec,
+                applicationContext.getBean(DeliveryQueueConfiguration.class), Runnable::run);
+
+        queue.enqueue(new DeliveryJob(API_ID, STAGE, "broken", "lost", null));
+        queue.enqueue(new DeliveryJob(API_ID, STAGE, "news", "hello", null));
+
+        assertEquals(List.of("news-1:hello", "news-2:hello"), sender.getPosted());
+        assertEquals(3, brokenReads.get());
+        assertEquals(1, queue.getDeadLetterCount());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void onlyTheJobsWhichFailAreReportedAndMessagesWhichAreNotJobsAreDropped() {
+        InMemoryApiGatewayManagementApiClientAsyncSender sender = new InMemoryApiGatewayManagementApiClientAsyncSender(null, true);
+        SQSBatchResponse response = processor(new InMemoryWebsocketConnectionRepository(), sender).process(List.of(
+                message("1", codec.encode(new DeliveryJob(API_ID, STAGE, "news", "hello", null))),
+                message("2", "not a job"),
+                message("3", codec.encode(new DeliveryJob(API_ID, STAGE, "broken", "lost", null)))));
+
+        assertEquals(1, response.getBatchItemFailures().size());
+        assertEquals("3", response.getBatchItemFailures().get(0).getItemIdentifier());
+        assertEquals(List.of("news-1:hello", "news-2:hello"), sender.getPosted());
+    }
+
+    @Test
+    void aFanOutCutOffByTheDeadlineResumesAtThePageItStoppedIn() {
+        InMemoryWebsocketConnectionRepository repository = new InMemoryWebsocketConnectionRepository(2);
+        repository.saveAll(List.of(connection("ok-1"), connection("ok-2"), connection("late-1"), connection("ok-3"),
+                connection("ok-4")));
+        TimingOutSender sender = new TimingOutSender();
+        queue = new InMemoryDeliveryQueue(processor(repository, sender), codec,
+                applicationContext.getBean(DeliveryQueueConfiguration.class), Runnable::run);
+
+        queue.enqueue(new DeliveryJob(API_ID, STAGE, null, "hello", null));
+
+        assertEquals(List.of("ok-1:hello", "ok-2:hello", "late-1:hello", "ok-3:hello", "ok-4:hello"), sender.getPosted());
+        assertEquals(0, queue.getDeadLetterCount());
+    }
+
+    @Test
+    void aPageWhichCannotBeReadIsReadAgainWithoutPostingToTheEarlierPages() {
+        FlakyRepository repository = new FlakyRepository();
+        repository.saveAll(List.of(connection("ok-1"), connection("ok-2"), connection("ok-3"), connection("ok-4")));
+        InMemoryApiGatewayManagementApiClientAsyncSender sender = new InMemoryApiGatewayManagementApiClientAsyncSender(null, true);
+        queue = new InMemoryDeliveryQueue(processor(repository, sender), codec,
+                applicationContext.getBean(DeliveryQueueConfiguration.class), Runnable::run);
+
+        queue.enqueue(new DeliveryJob(API_ID, STAGE, null, "hello", null));
+
+        assertEquals(List.of("ok-1:hello", "ok-2:hello", "ok-3:hello", "ok-4:hello"), sender.getPosted());
+        assertEquals(0, queue.getDeadLetterCount());
+    }
+
+    @Test
+    void anEnabledQueueWithoutUrlRefusesToStartUnlessInMemoryIsAllowed() {
+        DeliveryJobProcessor processor = processor(new InMemoryWebsocketConnectionRepository(),
+                new InMemoryApiGatewayManagementApiClientAsyncSender(null, true));
+
+        try (ApplicationContext withoutInMemory = ApplicationContext.run(Map.of("priming.enabled", false,
+                "delivery-queue.enabled", true))) {
+            DeliveryQueueConfiguration configuration = withoutInMemory.getBean(DeliveryQueueConfiguration.class);
+            assertThrows(ConfigurationException.class, () -> new InMemoryDeliveryQueue(processor, codec, configuration, Runnable::run));
+        }
+    }
+
+    @Test
+    void aJobWithoutTopicRoundTrips() {
+        DeliveryJob job = codec.decode(codec.encode(new DeliveryJob(API_ID, STAGE, null, "{\"a\":1}", null)));
+        assertEquals(API_ID, job.getApiId());
+        assertEquals(STAGE, job.getStage());
+        assertNull(job.getTopic());
+        assertEquals("{\"a\":1}", job.getData());
+        assertNull(job.getCursor());
+    }
+
+    @Test
+    void theCursorOfAContinuedJobRoundTrips() {
+        Map<String, Map<String, String>> cursor = Map.of("0", Map.of(), "1", Map.of("GSI1SK", "WEBSOCKETCONNECTION#ok-2"));
+
+        DeliveryJob job = codec.decode(codec.encode(new DeliveryJob(API_ID, STAGE, "news", "hello", cursor)));
+
+        assertEquals(cursor, job.getCursor());
+    }
+
+    private DeliveryJobProcessor processor(WebsocketConnectionRepository repository,
+                                           ApiGatewayManagementApiClientAsyncSender sender) {
+        InMemoryTopicSubscriptionRepository subscriptions = new BrokenTopicSubscriptionRepository();
+        subscriptions.subscribe(connection("news-1"), "news");
+        subscriptions.subscribe(connection("news-2"), "news");
+        WebSocketBroadcaster broadcaster = new WebSocketBroadcaster(repository,
+                subscriptions,
+                sender,
+                new StaleConnectionCollector(repository, subscriptions),
+                () -> 4);
+        return new DeliveryJobProcessor(codec,
+                broadcaster,
+                () -> queue,
+                new InvocationDeadline(),
+                applicationContext.getBean(MetricsRecorder.class),
+                applicationContext.getBean(SendGovernorConfiguration.class));
+    }
+
+    private static WebSocketConnection connection(String connectionId) {
+        return new WebSocketConnection("us-east-1", API_ID, STAGE, connectionId, null);
+    }
+
+    private static SQSEvent.SQSMessage message(String messageId, String body) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(messageId);
+        message.setBody(body);
+        return message;
+    }
+
+    /**
+     * Reading the subscribers of topic {@code broken} fails.
+     */
+    private class BrokenTopicSubscriptionRepository extends InMemoryTopicSubscriptionRepository {
+        @Override
+        public Stream<List<WebSocketConnection>> findAllByTopic(String apiId, String stage, String topic) {
+            if ("broken".equals(topic)) {
+                brokenReads.incrementAndGet();
+                throw new IllegalStateException("table unavailable");
+            }
+            return super.findAllByTopic(apiId, stage, topic);
+        }
+    }
+
+    /**
+     * Pages of 2 connections, the second of which fails to be read the first time.
+     */
+    private static class FlakyRepository extends InMemoryWebsocketConnectionRepository {
+        private boolean failed;
+
+        FlakyRepository() {
+            super(2);
+        }
+
+        @Override
+        public synchronized Stream<List<WebSocketConnection>> findAllByApiIdAndStage(String apiId, String stage) {
+            AtomicInteger read = new AtomicInteger();
+            return super.findAllByApiIdAndStage(apiId, stage).map(page -> {
+                if (read.incrementAndGet() == 2 && !failed) {
+                    failed = true;
+                    throw new IllegalStateException("throttled");
+                }
+                return page;
+            });
+        }
+    }
+
+    /**
+     * The first post to each connection whose id starts with {@code late} fails as posts refused by the deadline do.
+     */
+    private static class TimingOutSender extends InMemoryApiGatewayManagementApiClientAsyncSender {
+        private final Set<String> timedOut = new HashSet<>();
+
+        TimingOutSender() {
+            super(null, true);
+        }
+
+        @Override
+        public synchronized CompletableFuture<DeliveryStatus> send(WebSocketConnection connection, SdkBytes sdkBytes) {
+            if (connection.getConnectionId().startsWith("late") && timedOut.add(connection.getConnectionId())) {
+                return CompletableFuture.failedFuture(new TimeoutException("not enough time left in the invocation to post"));
+            }
+            return super.send(connection, sdkBytes);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MessageCodecsTest {
+    private static final SdkBytes MESSAGE = SdkBytes.fromUtf8String("{\"a\":[1,-2,1.5,true,null],\"b\":\"hé\"}");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MessageCodecs codecs = new MessageCodecs(List.of(new JsonMessageCodec(),
+            new CborMessageCodec(objectMapper),
+            new MessagePackMessageCodec(objectMapper)), () -> 16);
+
+    @Test
+    void subprotocolIsPreferredToTheQueryParameter() {
+        assertEquals(Optional.of("cbor-gzip"), codecs.negotiate(connect("msgpack", "chat, cbor-gzip")));
+        assertEquals(Optional.of("cbor-gzip"), codecs.subprotocol(connect("msgpack", "chat, cbor-gzip")));
+        assertEquals(Optional.of("msgpack"), codecs.negotiate(connect("msgpack", null)));
+        assertEquals(Optional.empty(), codecs.subprotocol(connect("msgpack", null)));
+        assertEquals(Optional.empty(), codecs.negotiate(connect("xml", "chat")));
+    }
+
+    @Test
+    void cbor() {
+        assertArrayEquals(bytes(0xa2, 0x61, 'a', 0x85, 0x01, 0x21, 0xfa, 0x3f, 0xc0, 0x00, 0x00, 0xf5, 0xf6,
+                0x61, 'b', 0x63, 'h', 0xc3, 0xa9), codecs.encode("cbor", MESSAGE).asByteArray());
+        assertArrayEquals(bytes(0x62, 'h', 'i'), codecs.encode("cbor", SdkBytes.fromUtf8String("hi")).asByteArray());
+    }
+
+    @Test
+    void messagePack() {
+        assertArrayEquals(bytes(0x82, 0xa1, 'a', 0x95, 0x01, 0xfe, 0xca, 0x3f, 0xc0, 0x00, 0x00, 0xc3, 0xc0,
+                0xa1, 'b', 0xa3, 'h', 0xc3, 0xa9), codecs.encode("msgpack", MESSAGE).asByteArray());
+        assertArrayEquals(bytes(0xcd, 0x01, 0x2c), codecs.encode("msgpack", SdkBytes.fromUtf8String("300")).asByteArray());
+    }
+
+    @Test
+    void textWhichIsNotASingleJsonValueIsEncodedAsAString() {
+        assertArrayEquals(bytes(0x66, 'n', 'u', 'l', 'l', ' ', 'x'), codecs.encode("cbor", SdkBytes.fromUtf8String("null x")).asByteArray());
+        assertEquals(0xb0, codecs.encode("msgpack", SdkBytes.fromUtf8String("42 is the answer")).asByteArray()[0] & 0xff);
+    }
+
+    @Test
+    void messagesAboveTheThresholdAreGzipped() throws IOException {
+        SdkBytes encoded = codecs.encode("json-gzip", MESSAGE);
+        assertEquals(0x1f, encoded.asByteArray()[0]);
+        assertEquals(0x8b, encoded.asByteArray()[1] & 0xff);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded.asByteArray()))) {
+            assertEquals(MESSAGE.asUtf8String(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        SdkBytes small = SdkBytes.fromUtf8String("{}");
+        assertSame(small, codecs.encode("json-gzip", small));
+    }
+
+    @Test
+    void broadcastPayloadIsEncodedOncePerCodec() {
+        assertSame(codecs.encode("cbor", MESSAGE), codecs.encode("cbor", MESSAGE));
+        assertSame(MESSAGE, codecs.encode(null, MESSAGE));
+        assertSame(MESSAGE, codecs.encode("unknown", MESSAGE));
+    }
+
+    private static WebSocketRequest connect(String codec, String subprotocols) {
+        return new WebSocketRequest("CONNECT", "$connect", "abc", "ydvi4h9bvd", "production", null, null, codec, subprotocols);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,61 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsExecutionInterceptorTest {
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.namespace", "test"));
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void recordsDownstreamLatency() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MetricsRecorder recorder = new MetricsRecorder(applicationContext.getBean(MetricsConfiguration.class),
+                new PrintStream(out, true, StandardCharsets.UTF_8),
+                System::currentTimeMillis);
+        try (LocalStandIn standIn = LocalStandIn.start();
+             DynamoDbClient client = DynamoDbClient.builder()
+                     .endpointOverride(standIn.getUri())
+                     .region(Region.US_EAST_1)
+                     .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                     .overrideConfiguration(ClientOverrideConfiguration.builder()
+                             .addExecutionInterceptor(new MetricsExecutionInterceptor(recorder))
+                             .build())
+                     .build()) {
+            client.putItem(PutItemRequest.builder()
+                    .tableName("test")
+                    .item(Map.of("pk", AttributeValue.builder().s("pk").build()))
+                    .build());
+        }
+        recorder.flush("CONNECT");
+
+        JsonNode line = new ObjectMapper().readTree(out.toString(StandardCharsets.UTF_8));
+        assertEquals(1, line.get("DynamoDb.PutItem.Latency").size());
+        assertTrue(line.at("/DynamoDb.PutItem.Latency/0").asDouble() > 0);
+    }
+}
@@ -0,0 +1,120 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsRecorderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.namespace", "test"));
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void flushWritesOneEmbeddedMetricFormatLinePerInvocation() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MetricsRecorder recorder = new MetricsRecorder(applicationContext.getBean(MetricsConfiguration.class), new PrintStream(out, true, StandardCharsets.UTF_8), () -> 1657793742012L);
+
+        recorder.milliseconds(MetricsRecorder.METRIC_LATENCY, 12_500_000);
+        recorder.milliseconds("DynamoDb.PutItem.Latency", 3_000_000);
+        recorder.record(MetricsRecorder.METRIC_CONSUMED_CAPACITY, MetricsRecorder.Unit.COUNT, 1.0);
+        recorder.flush("CONNECT");
+        recorder.count(MetricsRecorder.METRIC_ERRORS + ".GoneException");
+        recorder.flush("MESSAGE");
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+
+        JsonNode connect = objectMapper.readTree(lines[0]);
+        assertEquals(1657793742012L, connect.at("/_aws/Timestamp").asLong());
+        JsonNode directive = connect.at("/_aws/CloudWatchMetrics/0");
+        assertEquals("test", directive.get("Namespace").asText());
+        assertEquals("EventType", directive.at("/Dimensions/0/0").asText());
+        assertEquals(List.of("Latency", "DynamoDb.PutItem.Latency", "DynamoDbConsumedCapacity", "ColdStart"), names(directive.get("Metrics")));
+        assertEquals("Milliseconds", directive.at("/Metrics/0/Unit").asText());
+        assertEquals("CONNECT", connect.get("EventType").asText());
+        assertEquals(12.5, connect.at("/Latency/0").asDouble());
+        assertEquals(1, connect.at("/ColdStart/0").asInt());
+
+        JsonNode message = objectMapper.readTree(lines[1]);
+        assertEquals(List.of("ColdStart", "Errors.GoneException"), names(message.at("/_aws/CloudWatchMetrics/0/Metrics")));
+        assertEquals(0, message.at("/ColdStart/0").asInt());
+        assertFalse(message.has("Latency"));
+    }
+
+    @Test
+    void valuesBeyondOneHundredGoOnAnotherLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MetricsRecorder recorder = new MetricsRecorder(applicationContext.getBean(MetricsConfiguration.class), new PrintStream(out, true, StandardCharsets.UTF_8), () -> 0);
+
+        for (int i = 0; i < 250; i++) {
+            recorder.count("Posts");
+        }
+        recorder.flush("MESSAGE");
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(100, objectMapper.readTree(lines[0]).get("Posts").size());
+        assertEquals(1, objectMapper.readTree(lines[0]).get("ColdStart").size());
+        assertEquals(100, objectMapper.readTree(lines[1]).get("Posts").size());
+        JsonNode last = objectMapper.readTree(lines[2]);
+        assertEquals(50, last.get("Posts").size());
+        assertEquals(List.of("Posts"), names(last.at("/_aws/CloudWatchMetrics/0/Metrics")));
+        assertFalse(last.has("ColdStart"));
+    }
+
+    @Test
+    void valuesOfAFlushedInvocationAreWrittenWithItsEventType() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MetricsRecorder recorder = new MetricsRecorder(applicationContext.getBean(MetricsConfiguration.class), new PrintStream(out, true, StandardCharsets.UTF_8), () -> 0);
+
+        long connect = recorder.getInvocation();
+        recorder.flush("CONNECT");
+        recorder.record(connect, "DynamoDb.PutItem.Latency", MetricsRecorder.Unit.MILLISECONDS, 3);
+        recorder.flush("MESSAGE");
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode late = objectMapper.readTree(lines[1]);
+        assertEquals("CONNECT", late.get("EventType").asText());
+        assertEquals(3, late.at("/DynamoDb.PutItem.Latency/0").asDouble());
+        assertFalse(objectMapper.readTree(lines[2]).has("DynamoDb.PutItem.Latency"));
+    }
+
+    @Test
+    void disabledRecorderWritesNothing() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ApplicationContext disabled = ApplicationContext.run(Map.of("priming.enabled", false, "metrics.enabled", false))) {
+            MetricsRecorder recorder = new MetricsRecorder(disabled.getBean(MetricsConfiguration.class), new PrintStream(out, true, StandardCharsets.UTF_8), System::currentTimeMillis);
+            recorder.count(MetricsRecorder.METRIC_ERRORS);
+            recorder.flush("CONNECT");
+        }
+        assertTrue(out.toString(StandardCharsets.UTF_8).isEmpty());
+    }
+
+    private static List<String> names(JsonNode metrics) {
+        List<String> names = new ArrayList<>();
+        metrics.forEach(metric -> names.add(metric.get("Name").asText()));
+        return names;
+    }
+}
@@ -0,0 +1,163 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.ApiGatewayManagementApiException;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.ForbiddenException;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.GoneException;
+import software.amazon.awssdk.services.apigatewaymanagementapi.model.LimitExceededException;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendGovernorTest {
+
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.enabled", false,
+            "send-governor.initial-limit", 4,
+            "send-governor.maximum-limit", 4,
+            "send-governor.base-backoff", "1ms",
+            "send-governor.maximum-backoff", "10ms"));
+    private final AtomicLong ticker = new AtomicLong();
+    private final InvocationDeadline deadline = new InvocationDeadline(ticker::get);
+    private final SendGovernor governor = new SendGovernor(applicationContext.getBean(SendGovernorConfiguration.class), deadline,
+            applicationContext.getBean(MetricsRecorder.class),
+            ticker::get);
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void throttledCallsAreRetriedAndHalveTheLimit() {
+        AtomicInteger attempts = new AtomicInteger();
+        String result = governor.submit(() -> attempts.incrementAndGet() == 1 ?
+                CompletableFuture.failedFuture(LimitExceededException.builder().statusCode(429).build()) :
+                CompletableFuture.completedFuture("posted")).join();
+        assertEquals("posted", result);
+        assertEquals(2, attempts.get());
+        assertEquals(2, governor.getLimit());
+        assertEquals(0, governor.getInFlight());
+    }
+
+    @Test
+    void terminalErrorsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> gone = governor.submit(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(GoneException.builder().statusCode(410).build());
+        });
+        CompletionException e = assertThrows(CompletionException.class, gone::join);
+        assertTrue(e.getCause() instanceof GoneException);
+        assertThrows(ForbiddenException.class, () -> governor.call(() -> {
+            attempts.incrementAndGet();
+            throw ForbiddenException.builder().statusCode(403).build();
+        }));
+        assertEquals(2, attempts.get());
+        assertEquals(4, governor.getLimit());
+    }
+
+    @Test
+    void callsOverTheLimitWaitInAQueue() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        for (int i = 0; i < 4; i++) {
+            governor.submit(() -> first);
+        }
+        CompletableFuture<String> queued = governor.submit(() -> CompletableFuture.completedFuture("queued"));
+        assertEquals(4, governor.getInFlight());
+        assertEquals(1, governor.getQueueDepth());
+        assertFalse(queued.isDone());
+
+        first.complete("first");
+        assertEquals("queued", queued.join());
+        assertEquals(0, governor.getQueueDepth());
+        assertEquals(0, governor.getInFlight());
+    }
+
+    @Test
+    void nothingStartsCloseToTheDeadline() {
+        deadline.start(context(100));
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> late = governor.submit(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture("posted");
+        });
+        CompletionException e = assertThrows(CompletionException.class, late::join);
+        assertTrue(e.getCause() instanceof TimeoutException);
+        assertEquals(0, attempts.get());
+
+        deadline.start(null);
+        assertEquals("posted", governor.submit(() -> CompletableFuture.completedFuture("posted")).join());
+    }
+
+    @Test
+    void waitingCallsAreRefusedOnceTheDeadlineIsClose() {
+        try (ApplicationContext serialContext = ApplicationContext.run(Map.of("priming.enabled", false,
+                "metrics.enabled", false,
+                "send-governor.initial-limit", 1))) {
+            SendGovernor serial = new SendGovernor(serialContext.getBean(SendGovernorConfiguration.class), deadline,
+                    serialContext.getBean(MetricsRecorder.class),
+                    ticker::get);
+            CompletableFuture<String> first = new CompletableFuture<>();
+            serial.submit(() -> first);
+            List<CompletableFuture<String>> queued = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                queued.add(serial.submit(() -> CompletableFuture.completedFuture("queued")));
+            }
+            assertEquals(10_000, serial.getQueueDepth());
+
+            deadline.start(context(100));
+            first.complete("first");
+
+            for (CompletableFuture<String> call : queued) {
+                CompletionException e = assertThrows(CompletionException.class, call::join);
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            assertEquals(0, serial.getQueueDepth());
+            assertEquals(0, serial.getInFlight());
+        }
+    }
+
+    @Test
+    void blockingCallsCloseToTheDeadlineFailWithAnApiCallTimeout() {
+        deadline.start(context(100));
+        AtomicInteger attempts = new AtomicInteger();
+
+        ApiCallTimeoutException e = assertThrows(ApiCallTimeoutException.class, () -> governor.call(attempts::incrementAndGet));
+
+        assertTrue(e.getCause() instanceof TimeoutException);
+        assertEquals(0, attempts.get());
+    }
+
+    @Test
+    void retryableErrors() {
+        assertTrue(SendGovernor.isRetryable(LimitExceededException.builder().statusCode(429).build()));
+        assertTrue(SendGovernor.isRetryable(new CompletionException(ApiGatewayManagementApiException.builder().statusCode(503).build())));
+        assertTrue(SendGovernor.isRetryable(SdkClientException.create("timeout")));
+        assertFalse(SendGovernor.isRetryable(GoneException.builder().statusCode(410).build()));
+        assertFalse(SendGovernor.isRetryable(ForbiddenException.builder().statusCode(403).build()));
+    }
+
+    private static Context context(int remainingMillis) {
+        return (Context) Proxy.newProxyInstance(Context.class.getClassLoader(), new Class<?>[] {Context.class},
+                (proxy, method, args) -> "getRemainingTimeInMillis".equals(method.getName()) ? remainingMillis : null);
+    }
+}
@@ -0,0 +1,79 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopicRequestHandlerTest {
+    private static final String API_ID = "ydvi4h9bvd";
+    private static final String STAGE = "production";
+
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "metrics.enabled", false,
+            "dynamodb.client", "memory",
+            "apigateway.management.client", "memory",
+            "apigateway.management.recording", true));
+    private final TopicRequestHandler handler = applicationContext.getBean(TopicRequestHandler.class);
+    private final InMemoryApiGatewayManagementApiClientAsyncSender sender = applicationContext.getBean(InMemoryApiGatewayManagementApiClientAsyncSender.class);
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void aPublishReachesTheSubscribersOfItsTopicOnly() {
+        handler.handle(WebSocketRoutes.SUBSCRIBE, connection("news-1"), "{\"action\":\"subscribe\",\"topic\":\"news\"}").join();
+        handler.handle(WebSocketRoutes.SUBSCRIBE, connection("sports-1"), "{\"action\":\"subscribe\",\"topic\":\"sports\"}").join();
+        handler.handle(WebSocketRoutes.SUBSCRIBE, connection("news-2"), "{\"action\":\"subscribe\",\"topic\":\"news\"}").join();
+
+        handler.handle(WebSocketRoutes.PUBLISH, connection("sports-1"), "{\"action\":\"publish\",\"topic\":\"news\",\"data\":\"hello\"}").join();
+
+        assertEquals(List.of("news-1:hello", "news-2:hello"), sender.getPosted());
+    }
+
+    @Test
+    void dataWhichIsNotTextIsPublishedAsJson() {
+        handler.handle(WebSocketRoutes.SUBSCRIBE, connection("news-1"), "{\"action\":\"subscribe\",\"topic\":\"news\"}").join();
+
+        handler.handle(WebSocketRoutes.PUBLISH, connection("news-1"), "{\"action\":\"publish\",\"topic\":\"news\",\"data\":{\"a\":[1,2]}}").join();
+
+        assertEquals(List.of("news-1:{\"a\":[1,2]}"), sender.getPosted());
+    }
+
+    @Test
+    void anUnsubscribedOrDisconnectedConnectionReceivesNoMorePublishes() {
+        handler.handle(WebSocketRoutes.SUBSCRIBE, connection("news-1"), "{\"action\":\"subscribe\",\"topic\":\"news\"}").join();
+        handler.handle(WebSocketRoutes.SUBSCRIBE, connection("news-2"), "{\"action\":\"subscribe\",\"topic\":\"news\"}").join();
+        handler.handle(WebSocketRoutes.SUBSCRIBE, connection("news-3"), "{\"action\":\"subscribe\",\"topic\":\"news\"}").join();
+
+        handler.handle(WebSocketRoutes.UNSUBSCRIBE, connection("news-1"), "{\"action\":\"unsubscribe\",\"topic\":\"news\"}").join();
+        handler.disconnect(connection("news-2")).join();
+        handler.handle(WebSocketRoutes.PUBLISH, connection("news-3"), "{\"action\":\"publish\",\"topic\":\"news\",\"data\":\"hello\"}").join();
+
+        assertEquals(List.of("news-3:hello"), sender.getPosted());
+    }
+
+    @Test
+    void aMessageWithoutAUsableTopicIsAnsweredOnTheSendersConnection() {
+        String reply = "news-1:A topic of at most " + TopicSubscriptionRepository.TOPIC_MAX_LENGTH + " characters is required";
+
+        handler.handle(WebSocketRoutes.SUBSCRIBE, connection("news-1"), "{\"action\":\"subscribe\"}").join();
+        handler.handle(WebSocketRoutes.SUBSCRIBE, connection("news-1"), "{\"action\":\"subscribe\",\"topic\":\" \"}").join();
+        handler.handle(WebSocketRoutes.PUBLISH, connection("news-1"), "{\"action\":\"publish\",\"topic\":\"" +
+                "x".repeat(TopicSubscriptionRepository.TOPIC_MAX_LENGTH + 1) + "\",\"data\":\"hello\"}").join();
+        handler.handle(WebSocketRoutes.PUBLISH, connection("news-1"), "not json").join();
+
+        assertEquals(List.of(reply, reply, reply, reply), sender.getPosted());
+    }
+
+    private static WebSocketConnection connection(String connectionId) {
+        return new WebSocketConnection("us-east-1", API_ID, STAGE, connectionId, null);
+    }
+}
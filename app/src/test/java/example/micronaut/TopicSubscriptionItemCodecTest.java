@@ -0,0 +1,59 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TopicSubscriptionItemCodecTest {
+
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "dynamodb.table-name", "websockets",
+            "dynamodb.gsi1-shards", 4));
+    private final WebSocketConnectionItemCodec connectionCodec = applicationContext.getBean(WebSocketConnectionItemCodec.class);
+    private final TopicSubscriptionItemCodec codec = applicationContext.getBean(TopicSubscriptionItemCodec.class);
+    private final WebSocketConnection connection = new WebSocketConnection("us-east-1",
+            "ydvi4h9bvd",
+            "production",
+            "x94eGsoAMCLig=",
+            "ydvi4h9bvd.execute-api.us-east-1.amazonaws.com");
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void subscriptionSharesThePartitionOfItsConnectionAndIsIndexedByTopic() {
+        Map<String, AttributeValue> item = codec.item(connection, "news");
+
+        assertEquals(connectionCodec.key(connection).get("pk"), item.get("pk"));
+        assertEquals("TOPIC#news", item.get("sk").s());
+        assertEquals("TOPIC#ydvi4h9bvd#production#news", item.get("GSI2PK").s());
+        assertEquals(item.get("pk"), item.get("GSI2SK"));
+        assertFalse(item.containsKey("GSI1PK"), "subscriptions must not show up in connection queries");
+        assertEquals(Map.of("pk", item.get("pk"), "sk", item.get("sk")), codec.key(connection, "news"));
+        assertEquals(connection, connectionCodec.connection(item));
+    }
+
+    @Test
+    void queries() {
+        QueryRequest byTopic = codec.findAllByTopicRequest("ydvi4h9bvd", "production", "news");
+        assertEquals("GSI2", byTopic.indexName());
+        assertEquals("TOPIC#ydvi4h9bvd#production#news", byTopic.expressionAttributeValues().get(":gsi2pk").s());
+
+        QueryRequest byConnection = codec.findAllKeysByConnectionRequest(connection);
+        assertNull(byConnection.indexName());
+        assertEquals("#pk = :pk AND begins_with(#sk, :topic)", byConnection.keyConditionExpression());
+        assertEquals(connectionCodec.key(connection).get("pk"), byConnection.expressionAttributeValues().get(":pk"));
+        assertEquals("TOPIC#", byConnection.expressionAttributeValues().get(":topic").s());
+    }
+}
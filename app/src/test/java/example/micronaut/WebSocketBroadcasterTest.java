@@ -0,0 +1,63 @@
+package example.micronaut;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WebSocketBroadcasterTest {
+    private static final String API_ID = "ydvi4h9bvd";
+    private static final String STAGE = "production";
+
+    @Test
+    void broadcastSummarizesDeliveredGoneAndFailedAndPrunesGone() {
+        InMemoryWebsocketConnectionRepository repository = new InMemoryWebsocketConnectionRepository(2);
+        repository.saveAll(List.of(connection("ok-1"), connection("gone-1"), connection("ok-2"), connection("fail-1")));
+        InMemoryTopicSubscriptionRepository subscriptions = new InMemoryTopicSubscriptionRepository();
+        subscriptions.subscribe(connection("gone-1"), "news");
+        subscriptions.subscribe(connection("ok-1"), "news");
+        StaleConnectionCollector staleConnections = new StaleConnectionCollector(repository, subscriptions);
+        InMemoryApiGatewayManagementApiClientAsyncSender sender = new InMemoryApiGatewayManagementApiClientAsyncSender(staleConnections, true);
+        WebSocketBroadcaster broadcaster = new WebSocketBroadcaster(repository, subscriptions, sender, staleConnections, () -> 1);
+
+        BroadcastResult result = broadcaster.broadcast(API_ID, STAGE, SdkBytes.fromUtf8String("hello"));
+
+        assertEquals(2, result.getDelivered());
+        assertEquals(1, result.getGone());
+        assertEquals(1, result.getFailed());
+        assertEquals(List.of("ok-1", "ok-2", "fail-1"), connectionIds(repository.findAllByApiIdAndStage(API_ID, STAGE)));
+        assertEquals(List.of("ok-1"), connectionIds(subscriptions.findAllByTopic(API_ID, STAGE, "news")));
+    }
+
+    @Test
+    void publishPostsOnlyToTopicSubscribers() {
+        InMemoryTopicSubscriptionRepository subscriptions = new InMemoryTopicSubscriptionRepository();
+        subscriptions.subscribe(connection("news-1"), "news");
+        subscriptions.subscribe(connection("sports-1"), "sports");
+        subscriptions.subscribe(connection("news-2"), "news");
+        InMemoryWebsocketConnectionRepository repository = new InMemoryWebsocketConnectionRepository();
+        repository.saveAll(List.of(connection("news-1"), connection("sports-1"), connection("news-2")));
+        StaleConnectionCollector staleConnections = new StaleConnectionCollector(repository, subscriptions);
+        InMemoryApiGatewayManagementApiClientAsyncSender sender = new InMemoryApiGatewayManagementApiClientAsyncSender(staleConnections, true);
+        WebSocketBroadcaster broadcaster = new WebSocketBroadcaster(repository, subscriptions, sender, staleConnections, () -> 1);
+
+        BroadcastResult result = broadcaster.publish(API_ID, STAGE, "news", SdkBytes.fromUtf8String("hello"));
+
+        assertEquals(2, result.getDelivered());
+        assertEquals(List.of("news-1:hello", "news-2:hello"), sender.getPosted());
+    }
+
+    private static WebSocketConnection connection(String connectionId) {
+        return new WebSocketConnection("us-east-1", API_ID, STAGE, connectionId, null);
+    }
+
+    private static List<String> connectionIds(Stream<List<WebSocketConnection>> pages) {
+        try (pages) {
+            return pages.flatMap(List::stream).map(WebSocketConnection::getConnectionId).collect(Collectors.toList());
+        }
+    }
+}
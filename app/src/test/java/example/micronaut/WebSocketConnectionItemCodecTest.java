@@ -0,0 +1,116 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebSocketConnectionItemCodecTest {
+
+    private static final Instant NOW = Instant.parse("2022-07-01T10:00:00Z");
+
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "dynamodb.table-name", "websockets",
+            "dynamodb.gsi1-shards", 4));
+    private final WebSocketConnectionItemCodec codec = new WebSocketConnectionItemCodec(applicationContext.getBean(DynamoConfiguration.class),
+            Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void itemRoundTrip() {
+        WebSocketConnection connection = new WebSocketConnection("us-east-1",
+                "ydvi4h9bvd",
+                "production",
+                "x94eGsoAMCLig=",
+                "ydvi4h9bvd.execute-api.us-east-1.amazonaws.com",
+                "cbor");
+        Map<String, AttributeValue> item = codec.item(connection);
+
+        assertEquals("WEBSOCKETCONNECTION#x94eGsoAMCLig=#ydvi4h9bvd#production", item.get("pk").s());
+        assertEquals(item.get("pk"), item.get("sk"));
+        assertEquals(item.get("pk"), item.get("GSI1SK"));
+        assertEquals("WebSocketConnection#ydvi4h9bvd#production#" + Math.floorMod("x94eGsoAMCLig=".hashCode(), 4), item.get("GSI1PK").s());
+        assertEquals("us-east-1", item.get("region").s());
+        assertEquals(String.valueOf(NOW.plus(Duration.ofMinutes(30)).getEpochSecond()), item.get("expiresAt").n());
+        assertEquals(Map.of("pk", item.get("pk"), "sk", item.get("sk")), codec.key(connection));
+
+        WebSocketConnection decoded = codec.connection(item);
+        assertEquals(connection, decoded);
+        assertEquals("us-east-1", decoded.getRegion());
+        assertEquals("cbor", decoded.getCodec());
+    }
+
+    @Test
+    void nullDomainNameIsNotWritten() {
+        WebSocketConnection connection = new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", "x94eGsoAMCLig=", null);
+        Map<String, AttributeValue> item = codec.item(connection);
+        assertFalse(item.containsKey("domainName"));
+        assertNull(codec.connection(item).getDomainName());
+    }
+
+    @Test
+    void queriesProjectOnlyConnectionAttributes() {
+        List<QueryRequest> requests = codec.findAllByApiIdAndStageRequests("ydvi4h9bvd", "production");
+        assertEquals(5, requests.size());
+        QueryRequest request = requests.get(0);
+        assertEquals("GSI1", request.indexName());
+        for (String attribute : List.of("region", "apiId", "stage", "connectionId", "domainName")) {
+            assertTrue(request.projectionExpression().contains("#" + attribute));
+            assertEquals(attribute, request.expressionAttributeNames().get("#" + attribute));
+        }
+        assertEquals("WebSocketConnection#ydvi4h9bvd#production#0", request.expressionAttributeValues().get(":gsi1pk").s());
+        assertEquals("(attribute_not_exists(#expiresAt) OR #expiresAt > :now)", request.filterExpression());
+        QueryRequest unsharded = requests.get(4);
+        assertEquals("WebSocketConnection", unsharded.expressionAttributeValues().get(":gsi1pk").s());
+        assertEquals("#apiId = :apiId AND #stage = :stage AND (attribute_not_exists(#expiresAt) OR #expiresAt > :now)",
+                unsharded.filterExpression());
+        assertEquals("ydvi4h9bvd", unsharded.expressionAttributeValues().get(":apiId").s());
+        assertEquals(String.valueOf(NOW.getEpochSecond()), request.expressionAttributeValues().get(":now").n());
+    }
+
+    @Test
+    void writeRequestsAreDistinctByKey() {
+        WebSocketConnection connection = new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", "x94eGsoAMCLig=", null);
+        WebSocketConnection withDomainName = new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", "x94eGsoAMCLig=",
+                "ydvi4h9bvd.execute-api.us-east-1.amazonaws.com");
+        List<WebSocketConnection> connections = List.of(connection, withDomainName);
+
+        List<WriteRequest> puts = codec.putRequests(connections);
+        assertEquals(1, puts.size());
+        assertEquals("ydvi4h9bvd.execute-api.us-east-1.amazonaws.com", puts.get(0).putRequest().item().get("domainName").s());
+        assertEquals(1, codec.deleteRequests(connections).size());
+    }
+
+    @Test
+    void heartbeatExtendsExpiryOfExistingItemOnly() {
+        WebSocketConnection connection = new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", "x94eGsoAMCLig=", null);
+        UpdateItemRequest request = codec.heartbeatRequest(connection);
+        assertEquals(codec.key(connection), request.key());
+        assertEquals("SET #expiresAt = :expiresAt", request.updateExpression());
+        assertEquals("attribute_exists(#pk)", request.conditionExpression());
+        assertEquals(ReturnValue.ALL_NEW, request.returnValues());
+        assertEquals(String.valueOf(NOW.plus(Duration.ofMinutes(30)).getEpochSecond()),
+                request.expressionAttributeValues().get(":expiresAt").n());
+    }
+}
@@ -18,4 +18,32 @@ class WebSocketConnectionUtilsTest {
         assertEquals(WebSocketConnectionUtils.uriOf(webSocketConnection).toString(),
                 "https://" + webSocketConnection.getDomainName() + "/production");
     }
-}
\ No newline at end of file
+
+    @Test
+    void uriOfUsesTheRegionOfTheConnection() {
+        WebSocketConnection webSocketConnection = new WebSocketConnection("eu-west-1",
+                "ydvi4h9bvd",
+                "production",
+                "x94eGsoAMCLig=",
+                null);
+        assertEquals("https://ydvi4h9bvd.execute-api.eu-west-1.amazonaws.com/production",
+                WebSocketConnectionUtils.uriOf(webSocketConnection).toString());
+    }
+
+    @Test
+    void uriOfACustomDomainConnectionUsesTheRegionalExecuteApiDomain() {
+        WebSocketConnection webSocketConnection = new WebSocketConnection("ap-southeast-2",
+                "ydvi4h9bvd",
+                "production",
+                "x94eGsoAMCLig=",
+                "ws.example.com");
+        assertEquals("https://ydvi4h9bvd.execute-api.ap-southeast-2.amazonaws.com/production",
+                WebSocketConnectionUtils.uriOf(webSocketConnection).toString());
+    }
+
+    @Test
+    void executeApiHostInChinaRegions() {
+        assertEquals("ydvi4h9bvd.execute-api.cn-north-1.amazonaws.com.cn",
+                WebSocketConnectionUtils.executeApiHost("ydvi4h9bvd", "cn-north-1"));
+    }
+}
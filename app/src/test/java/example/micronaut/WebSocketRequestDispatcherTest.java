@@ -0,0 +1,178 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebSocketRequestDispatcherTest {
+    private static final String SPEC_NAME = "WebSocketRequestDispatcherTest";
+    private static final String API_ID = "ydvi4h9bvd";
+    private static final String STAGE = "production";
+    private static final String DOMAIN_NAME = "ydvi4h9bvd.execute-api.us-east-1.amazonaws.com";
+
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "spec.name", SPEC_NAME,
+            "priming.enabled", false,
+            "aws.region", "us-east-1",
+            "dynamodb.client", "memory",
+            "apigateway.management.client", "memory",
+            "apigateway.management.recording", true));
+    private final WebSocketRequestDispatcher dispatcher = applicationContext.getBean(WebSocketRequestDispatcher.class);
+    private final HeartbeatCountingRepository connections = applicationContext.getBean(HeartbeatCountingRepository.class);
+    private final InMemoryApiGatewayManagementApiClientAsyncSender sender = applicationContext.getBean(InMemoryApiGatewayManagementApiClientAsyncSender.class);
+
+    @AfterEach
+    void close() {
+        applicationContext.close();
+    }
+
+    @Test
+    void connectSavesTheConnectionWithTheNegotiatedCodec() {
+        dispatcher.handle(new WebSocketRequest("CONNECT", WebSocketRoutes.CONNECT, "abc", API_ID, STAGE, DOMAIN_NAME,
+                null, "msgpack", null));
+
+        assertEquals(List.of("abc"), connectionIds());
+        assertEquals("msgpack", connections.heartbeatAndGetAsync(connection("abc")).join().getCodec());
+        assertEquals("msgpack", applicationContext.getBean(ConnectionSessions.class).find("abc").getCodec());
+        assertTrue(metrics().contains("\"EventType\":\"CONNECT\""));
+    }
+
+    @Test
+    void aMessageIsRoutedToItsHandlerWithoutAHeartbeatRightAfterConnect() {
+        dispatcher.handle(new WebSocketRequest("CONNECT", WebSocketRoutes.CONNECT, "abc", API_ID, STAGE, DOMAIN_NAME, null));
+
+        dispatcher.handle(new WebSocketRequest("MESSAGE", WebSocketRoutes.DEFAULT, "abc", API_ID, STAGE, DOMAIN_NAME, "hola"));
+
+        assertEquals(List.of("abc:You said hola"), sender.getPosted());
+        assertEquals(0, connections.heartbeats.get());
+    }
+
+    @Test
+    void aMessageOfAConnectionThisContainerHasNotSeenHeartbeatsAndHandsTheStoredCodecOn() {
+        connections.save(new WebSocketConnection("us-east-1", API_ID, STAGE, "abc", DOMAIN_NAME, "cbor"));
+
+        dispatcher.handle(new WebSocketRequest("MESSAGE", WebSocketRoutes.PING, "abc", API_ID, STAGE, DOMAIN_NAME, null));
+
+        assertEquals(1, connections.heartbeats.get());
+        assertEquals("cbor", applicationContext.getBean(ConnectionSessions.class).find("abc").getCodec());
+        assertTrue(sender.getPosted().isEmpty());
+    }
+
+    @Test
+    void anUnroutedMessageIsDroppedAndCountedButStillHeartbeats() {
+        dispatcher.handle(new WebSocketRequest("MESSAGE", "undeployed", "abc", API_ID, STAGE, DOMAIN_NAME, "hola"));
+
+        assertTrue(sender.getPosted().isEmpty());
+        assertEquals(1, connections.heartbeats.get());
+        String metrics = metrics();
+        assertTrue(metrics.contains("\"" + WebSocketRequestDispatcher.METRIC_UNROUTED + "\""));
+        assertTrue(metrics.contains("\"EventType\":\"MESSAGE\""));
+    }
+
+    @Test
+    void disconnectDeletesTheConnectionAndItsSubscriptions() {
+        dispatcher.handle(new WebSocketRequest("CONNECT", WebSocketRoutes.CONNECT, "abc", API_ID, STAGE, DOMAIN_NAME, null));
+        dispatcher.handle(new WebSocketRequest("CONNECT", WebSocketRoutes.CONNECT, "def", API_ID, STAGE, DOMAIN_NAME, null));
+        dispatcher.handle(new WebSocketRequest("MESSAGE", WebSocketRoutes.SUBSCRIBE, "abc", API_ID, STAGE, DOMAIN_NAME,
+                "{\"action\":\"subscribe\",\"topic\":\"news\"}"));
+
+        dispatcher.handle(new WebSocketRequest("DISCONNECT", WebSocketRoutes.DISCONNECT, "abc", API_ID, STAGE, DOMAIN_NAME, null));
+
+        assertEquals(List.of("def"), connectionIds());
+        TopicSubscriptionRepository subscriptions = applicationContext.getBean(TopicSubscriptionRepository.class);
+        try (Stream<List<WebSocketConnection>> pages = subscriptions.findAllByTopic(API_ID, STAGE, "news")) {
+            assertEquals(0, pages.mapToInt(List::size).sum());
+        }
+        assertNull(applicationContext.getBean(ConnectionSessions.class).find("abc"));
+    }
+
+    @Test
+    void aConnectionFoundGoneWhileHandlingIsPrunedBeforeTheInvocationEnds() {
+        dispatcher.handle(new WebSocketRequest("CONNECT", WebSocketRoutes.CONNECT, "gone-1", API_ID, STAGE, DOMAIN_NAME, null));
+
+        dispatcher.handle(new WebSocketRequest("MESSAGE", WebSocketRoutes.DEFAULT, "gone-1", API_ID, STAGE, DOMAIN_NAME, "hola"));
+
+        assertEquals(List.of(), connectionIds());
+    }
+
+    @Test
+    void anEventOfAnUnknownTypeOnlyWritesItsMetrics() {
+        dispatcher.handle(new WebSocketRequest(null, null, "abc", API_ID, STAGE, DOMAIN_NAME, null));
+
+        assertEquals(List.of(), connectionIds());
+        assertTrue(metrics().contains("\"EventType\":\"UNKNOWN\""));
+    }
+
+    private List<String> connectionIds() {
+        try (Stream<List<WebSocketConnection>> pages = connections.findAllByApiIdAndStage(API_ID, STAGE)) {
+            return pages.flatMap(List::stream).map(WebSocketConnection::getConnectionId).collect(Collectors.toList());
+        }
+    }
+
+    private String metrics() {
+        return applicationContext.getBean(RecordingMetricsRecorder.class).out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static WebSocketConnection connection(String connectionId) {
+        return new WebSocketConnection("us-east-1", API_ID, STAGE, connectionId, DOMAIN_NAME);
+    }
+
+    /**
+     * Counts the heartbeats the dispatcher writes.
+     */
+    @Requires(property = "spec.name", value = SPEC_NAME)
+    @Replaces(InMemoryWebsocketConnectionRepository.class)
+    @Singleton
+    static class HeartbeatCountingRepository extends InMemoryWebsocketConnectionRepository {
+        private final AtomicInteger heartbeats = new AtomicInteger();
+
+        @Override
+        public void heartbeat(@NonNull WebSocketConnection websocketConnection) {
+            heartbeats.incrementAndGet();
+        }
+
+        @Override
+        @NonNull
+        public CompletableFuture<WebSocketConnection> heartbeatAndGetAsync(@NonNull WebSocketConnection websocketConnection) {
+            heartbeats.incrementAndGet();
+            return super.heartbeatAndGetAsync(websocketConnection);
+        }
+    }
+
+    /**
+     * Keeps the metric lines rather than writing them to standard output.
+     */
+    @Requires(property = "spec.name", value = SPEC_NAME)
+    @Replaces(MetricsRecorder.class)
+    @Singleton
+    static class RecordingMetricsRecorder extends MetricsRecorder {
+        private final ByteArrayOutputStream out;
+
+        RecordingMetricsRecorder(MetricsConfiguration configuration) {
+            this(configuration, new ByteArrayOutputStream());
+        }
+
+        private RecordingMetricsRecorder(MetricsConfiguration configuration, ByteArrayOutputStream out) {
+            super(configuration, new PrintStream(out, true, StandardCharsets.UTF_8), System::currentTimeMillis);
+            this.out = out;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WebSocketRequestParserTest {
+
+    private final WebSocketRequestParser parser = new WebSocketRequestParser(new ObjectMapper());
+
+    @Test
+    void parseReadsOnlyTheUsedFields() throws IOException {
+        WebSocketRequest request;
+        try (InputStream json = WebSocketRequestParserTest.class.getClassLoader().getResourceAsStream("message-event.json")) {
+            request = parser.parse(json);
+        }
+        assertEquals("MESSAGE", request.getEventType());
+        assertEquals("$default", request.getRouteKey());
+        assertEquals("VfDNVfH0oAMCJAg=", request.getConnectionId());
+        assertEquals("ydvi4h9bvd", request.getApiId());
+        assertEquals("production", request.getStage());
+        assertEquals("ydvi4h9bvd.execute-api.us-east-1.amazonaws.com", request.getDomainName());
+        assertEquals("{\"action\":\"hello\",\"values\":[1,2,3]}", request.getBody());
+    }
+
+    @Test
+    void parseWithoutBody() throws IOException {
+        WebSocketRequest request = parser.parse(json("{\"requestContext\":{\"eventType\":\"CONNECT\",\"identity\":{\"sourceIp\":\"127.0.0.1\"},\"connectionId\":\"abc\"},\"body\":null}"));
+        assertEquals("CONNECT", request.getEventType());
+        assertEquals("abc", request.getConnectionId());
+        assertNull(request.getBody());
+        assertNull(request.getApiId());
+    }
+
+    @Test
+    void parseReadsCodecNegotiation() throws IOException {
+        WebSocketRequest request = parser.parse(json("{\"headers\":{\"Host\":\"example.com\",\"sec-websocket-protocol\":\"cbor, json\"}," +
+                "\"queryStringParameters\":{\"token\":\"x\",\"codec\":\"msgpack\"},\"requestContext\":{\"eventType\":\"CONNECT\"}}"));
+        assertEquals("CONNECT", request.getEventType());
+        assertEquals("cbor, json", request.getSubprotocols());
+        assertEquals("msgpack", request.getCodec());
+    }
+
+    @Test
+    void parseSkipsAnObjectOrArrayBody() throws IOException {
+        WebSocketRequest request = parser.parse(json("{\"body\":{\"action\":\"hello\",\"requestContext\":{}}," +
+                "\"headers\":{\"sec-websocket-protocol\":[\"cbor\"]}," +
+                "\"requestContext\":{\"eventType\":\"MESSAGE\",\"routeKey\":{\"nested\":true},\"connectionId\":\"abc\"}}"));
+        assertNull(request.getBody());
+        assertNull(request.getSubprotocols());
+        assertNull(request.getRouteKey());
+        assertEquals("MESSAGE", request.getEventType());
+        assertEquals("abc", request.getConnectionId());
+    }
+
+    @Test
+    void parseRejectsNonObject() {
+        assertThrows(IOException.class, () -> parser.parse(json("[]")));
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,44 @@
+package example.micronaut;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebSocketRouteTableTest {
+
+    private static final WebSocketRouteHandler HANDLER = (routeKey, connection, body) -> CompletableFuture.completedFuture(null);
+
+    private final WebSocketRouteTable table = new WebSocketRouteTable(Map.of(
+            WebSocketRoutes.DEFAULT, HANDLER,
+            WebSocketRoutes.SUBSCRIBE, HANDLER), new ObjectMapper());
+
+    @Test
+    void customRouteKeysAreReadFromTheCompiledBeanDefinitions() {
+        assertEquals(List.of(WebSocketRoutes.PING, WebSocketRoutes.PUBLISH, WebSocketRoutes.SUBSCRIBE, WebSocketRoutes.UNSUBSCRIBE),
+                WebSocketRouteTable.customRouteKeys(getClass().getClassLoader()));
+    }
+
+    @Test
+    void aRouteKeyOtherThanDefaultIsKept() {
+        assertEquals(WebSocketRoutes.SUBSCRIBE, table.routeKeyOf(WebSocketRoutes.SUBSCRIBE, "{\"action\":\"publish\"}"));
+        assertTrue(table.find(WebSocketRoutes.SUBSCRIBE).isPresent());
+        assertFalse(table.find(WebSocketRoutes.PUBLISH).isPresent());
+    }
+
+    @Test
+    void aDefaultMessageIsRoutedByItsActionWhenItNamesAKnownCustomRoute() {
+        assertEquals(WebSocketRoutes.SUBSCRIBE,
+                table.routeKeyOf(WebSocketRoutes.DEFAULT, "{\"topic\":{\"action\":\"x\"},\"action\":\"subscribe\"}"));
+        assertEquals(WebSocketRoutes.DEFAULT, table.routeKeyOf(WebSocketRoutes.DEFAULT, "{\"action\":\"publish\"}"));
+        assertEquals(WebSocketRoutes.DEFAULT, table.routeKeyOf(WebSocketRoutes.DEFAULT, "{\"action\":\"$connect\"}"));
+        assertEquals(WebSocketRoutes.DEFAULT, table.routeKeyOf(null, "hola"));
+        assertEquals(WebSocketRoutes.DEFAULT, table.routeKeyOf(null, "{not json"));
+    }
+}
@@ -0,0 +1,227 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebsocketConnectionRepositoryDynamoTest {
+
+    private static final String TABLE = "websockets";
+
+    private static final String API_ID = "ydvi4h9bvd";
+    private static final String STAGE = "production";
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    private final ApplicationContext applicationContext = ApplicationContext.run(Map.of(
+            "priming.enabled", false,
+            "dynamodb.table-name", TABLE,
+            "dynamodb.gsi1-shards", 4));
+    private final DynamoConfiguration dynamoConfiguration = applicationContext.getBean(DynamoConfiguration.class);
+
+    @AfterEach
+    void shutdown() {
+        executorService.shutdownNow();
+        applicationContext.close();
+    }
+
+    @Test
+    void saveAllWritesChunksOf25AndRetriesUnprocessedItems() {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean throttled = new AtomicBoolean();
+        DynamoDbClient dynamoDbClient = new FakeDynamoDbClient() {
+            @Override
+            public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+                List<WriteRequest> writeRequests = request.requestItems().get(TABLE);
+                batchSizes.add(writeRequests.size());
+                if (writeRequests.size() == 25 && throttled.compareAndSet(false, true)) {
+                    return BatchWriteItemResponse.builder()
+                            .unprocessedItems(Map.of(TABLE, writeRequests.subList(0, 3)))
+                            .build();
+                }
+                return BatchWriteItemResponse.builder().build();
+            }
+        };
+        WebsocketConnectionRepository repository = new WebsocketConnectionRepositoryDynamo(dynamoDbClient, dynamoConfiguration, applicationContext.getBean(WebSocketConnectionItemCodec.class), applicationContext.getBean(ConnectionCounterItemCodec.class), executorService);
+
+        List<WebSocketConnection> connections = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            connections.add(new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", "connection-" + i, null));
+        }
+        connections.add(connections.get(0));
+        repository.saveAll(connections);
+
+        List<Integer> sorted = new ArrayList<>(batchSizes);
+        Collections.sort(sorted);
+        assertEquals(List.of(3, 10, 25, 25), sorted);
+    }
+
+    @Test
+    void heartbeatReadsBackTheCodecStoredAtConnect() {
+        WebSocketConnectionItemCodec codec = applicationContext.getBean(WebSocketConnectionItemCodec.class);
+        WebSocketConnection stored = new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", "abc", null, "msgpack");
+        DynamoDbClient dynamoDbClient = new FakeDynamoDbClient() {
+            @Override
+            public UpdateItemResponse updateItem(UpdateItemRequest request) {
+                return UpdateItemResponse.builder().attributes(codec.item(stored)).build();
+            }
+        };
+        WebsocketConnectionRepository repository = new WebsocketConnectionRepositoryDynamo(dynamoDbClient, dynamoConfiguration, codec, applicationContext.getBean(ConnectionCounterItemCodec.class), executorService);
+
+        WebSocketConnection connection = repository.heartbeatAndGetAsync(connection("abc")).join();
+
+        assertEquals("msgpack", connection.getCodec());
+    }
+
+    @Test
+    void findAllByApiIdAndStageQueriesEveryShardAndTheUnshardedPartition() {
+        Map<String, Integer> pagesByPartition = new ConcurrentHashMap<>();
+        WebSocketConnectionItemCodec codec = applicationContext.getBean(WebSocketConnectionItemCodec.class);
+        DynamoDbClient dynamoDbClient = new FakeDynamoDbClient() {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                String partition = request.expressionAttributeValues().get(":gsi1pk").s();
+                int page = pagesByPartition.merge(partition, 1, Integer::sum);
+                QueryResponse.Builder builder = QueryResponse.builder()
+                        .items(List.of(codec.item(new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", partition + "-" + page, null))));
+                if (page == 1) {
+                    builder.lastEvaluatedKey(Map.of("pk", AttributeValue.builder().s(partition).build()));
+                }
+                return builder.build();
+            }
+        };
+        WebsocketConnectionRepository repository = new WebsocketConnectionRepositoryDynamo(dynamoDbClient, dynamoConfiguration, applicationContext.getBean(WebSocketConnectionItemCodec.class), applicationContext.getBean(ConnectionCounterItemCodec.class), executorService);
+
+        List<String> connectionIds;
+        try (Stream<List<WebSocketConnection>> pages = repository.findAllByApiIdAndStage("ydvi4h9bvd", "production")) {
+            connectionIds = pages.flatMap(List::stream)
+                    .map(WebSocketConnection::getConnectionId)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        assertEquals(10, connectionIds.size());
+        assertTrue(connectionIds.contains("WebSocketConnection#ydvi4h9bvd#production#3-2"));
+        assertTrue(connectionIds.contains("WebSocketConnection-1"));
+        assertEquals(Set.of("WebSocketConnection",
+                        "WebSocketConnection#ydvi4h9bvd#production#0",
+                        "WebSocketConnection#ydvi4h9bvd#production#1",
+                        "WebSocketConnection#ydvi4h9bvd#production#2",
+                        "WebSocketConnection#ydvi4h9bvd#production#3"),
+                pagesByPartition.keySet());
+    }
+
+    @Test
+    void findAllByApiIdAndStageResumesOnlyTheShardsLeftAtTheirCursorPosition() {
+        Map<String, Map<String, AttributeValue>> startKeys = new ConcurrentHashMap<>();
+        WebSocketConnectionItemCodec codec = applicationContext.getBean(WebSocketConnectionItemCodec.class);
+        DynamoDbClient dynamoDbClient = new FakeDynamoDbClient() {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                String partition = request.expressionAttributeValues().get(":gsi1pk").s();
+                boolean first = !request.hasExclusiveStartKey();
+                if (!first) {
+                    startKeys.put(partition, request.exclusiveStartKey());
+                }
+                QueryResponse.Builder builder = QueryResponse.builder()
+                        .items(List.of(codec.item(new WebSocketConnection("us-east-1", "ydvi4h9bvd", "production", partition + (first ? "-1" : "-2"), null))));
+                if (first) {
+                    builder.lastEvaluatedKey(Map.of("pk", AttributeValue.builder().s(partition).build()));
+                }
+                return builder.build();
+            }
+        };
+        WebsocketConnectionRepository repository = new WebsocketConnectionRepositoryDynamo(dynamoDbClient, dynamoConfiguration, codec, applicationContext.getBean(ConnectionCounterItemCodec.class), executorService);
+        FanOutCursor cursor = FanOutCursor.resume(Map.of("0", Map.of("pk", "WebSocketConnection#ydvi4h9bvd#production#0"), "2", Map.of()));
+
+        List<String> connectionIds;
+        try (Stream<List<WebSocketConnection>> pages = repository.findAllByApiIdAndStage("ydvi4h9bvd", "production", cursor)) {
+            connectionIds = pages.flatMap(List::stream)
+                    .map(WebSocketConnection::getConnectionId)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        assertEquals(List.of("WebSocketConnection#ydvi4h9bvd#production#0-2",
+                        "WebSocketConnection#ydvi4h9bvd#production#2-1",
+                        "WebSocketConnection#ydvi4h9bvd#production#2-2"),
+                connectionIds);
+        assertEquals("WebSocketConnection#ydvi4h9bvd#production#0",
+                startKeys.get("WebSocketConnection#ydvi4h9bvd#production#0").get("pk").s());
+        assertTrue(cursor.remaining().isEmpty());
+        assertTrue(cursor.hasProgressed());
+    }
+
+    @Test
+    void deleteAllWithSubscriptionsDeletesEveryPartitionInOneBatchWrite() {
+        WebSocketConnectionItemCodec codec = applicationContext.getBean(WebSocketConnectionItemCodec.class);
+        TopicSubscriptionItemCodec subscriptionCodec = applicationContext.getBean(TopicSubscriptionItemCodec.class);
+        Map<String, Integer> topicsByConnection = Map.of("gone-1", 20, "gone-2", 2, "gone-3", 1);
+        List<String> queried = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        Set<Map<String, AttributeValue>> deleted = ConcurrentHashMap.newKeySet();
+        DynamoDbClient dynamoDbClient = new FakeDynamoDbClient() {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                AttributeValue pk = request.expressionAttributeValues().get(":pk");
+                String connectionId = topicsByConnection.keySet().stream()
+                        .filter(id -> codec.partitionKey(connection(id)).equals(pk))
+                        .findFirst()
+                        .orElseThrow();
+                queried.add(connectionId);
+                WebSocketConnection connection = connection(connectionId);
+                List<Map<String, AttributeValue>> keys = new ArrayList<>();
+                keys.add(codec.key(connection));
+                for (int i = 0; i < topicsByConnection.get(connectionId); i++) {
+                    keys.add(subscriptionCodec.key(connection, "topic-" + i));
+                }
+                return QueryResponse.builder().items(keys).build();
+            }
+
+            @Override
+            public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+                List<WriteRequest> writeRequests = request.requestItems().get(TABLE);
+                batchSizes.add(writeRequests.size());
+                writeRequests.forEach(writeRequest -> deleted.add(writeRequest.deleteRequest().key()));
+                return BatchWriteItemResponse.builder().build();
+            }
+        };
+        WebsocketConnectionRepository repository = new WebsocketConnectionRepositoryDynamo(dynamoDbClient, dynamoConfiguration, codec, applicationContext.getBean(ConnectionCounterItemCodec.class), executorService);
+
+        repository.deleteAllWithSubscriptions(List.of(connection("gone-1"), connection("gone-2"),
+                connection("gone-3")), new InMemoryTopicSubscriptionRepository());
+
+        assertEquals(3, queried.size());
+        List<Integer> sorted = new ArrayList<>(batchSizes);
+        Collections.sort(sorted);
+        assertEquals(List.of(1, 25), sorted);
+        assertEquals(26, deleted.size());
+        assertTrue(deleted.contains(codec.key(connection("gone-3"))));
+        assertTrue(deleted.contains(subscriptionCodec.key(connection("gone-1"), "topic-19")));
+    }
+
+    private static WebSocketConnection connection(String connectionId) {
+        return new WebSocketConnection("us-east-1", API_ID, STAGE, connectionId, null);
+    }
+}
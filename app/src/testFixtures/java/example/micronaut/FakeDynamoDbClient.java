@@ -0,0 +1,25 @@
+package example.micronaut;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.paginators.QueryIterable;
+
+/**
+ * A DynamoDB client whose operations a test overrides as it needs them. Paginated queries read the pages of
+ * {@link #query(QueryRequest)}.
+ */
+public abstract class FakeDynamoDbClient implements DynamoDbClient {
+    @Override
+    public QueryIterable queryPaginator(QueryRequest request) {
+        return new QueryIterable(this, request);
+    }
+
+    @Override
+    public String serviceName() {
+        return "dynamodb";
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,73 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.core.SdkBytes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers posts in memory instead of calling the management API, for the benchmarks and the unit tests. Used with
+ * {@code apigateway.management.client: memory}. Posts to connections whose id starts with {@code gone} are reported
+ * gone and their connections collected as stale, and posts to those whose id starts with {@code fail} fail. Posts are
+ * recorded with {@code apigateway.management.recording: true}.
+ */
+@Requires(property = "apigateway.management.client", value = "memory")
+@Replaces(ApiGatewayManagementApiClientAsyncSenderImpl.class)
+@Singleton
+public class InMemoryApiGatewayManagementApiClientAsyncSender implements ApiGatewayManagementApiClientAsyncSender {
+    @Nullable
+    private final StaleConnectionCollector staleConnections;
+    @Nullable
+    private final List<String> posted;
+
+    /**
+     * @param staleConnections Collector of the connections reported gone, if any
+     * @param recording        Whether posts are recorded for {@link #getPosted()}, which a benchmark must not do
+     */
+    public InMemoryApiGatewayManagementApiClientAsyncSender(@Nullable StaleConnectionCollector staleConnections,
+                                                            @Property(name = "apigateway.management.recording", defaultValue = "false") boolean recording) {
+        this.staleConnections = staleConnections;
+        this.posted = recording ? new ArrayList<>() : null;
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<DeliveryStatus> send(@NonNull WebSocketMessage message) {
+        return send(message, SdkBytes.fromUtf8String(message.getMessage()));
+    }
+
+    @Override
+    @NonNull
+    public synchronized CompletableFuture<DeliveryStatus> send(@NonNull WebSocketConnection connection, @NonNull SdkBytes sdkBytes) {
+        if (connection.getConnectionId().startsWith("gone")) {
+            if (staleConnections != null) {
+                staleConnections.add(connection);
+            }
+            return CompletableFuture.completedFuture(DeliveryStatus.GONE);
+        } else if (connection.getConnectionId().startsWith("fail")) {
+            return CompletableFuture.failedFuture(new IllegalStateException("post to " + connection.getConnectionId() + " failed"));
+        }
+        if (posted != null) {
+            posted.add(connection.getConnectionId() + ":" + sdkBytes.asUtf8String());
+        }
+        return CompletableFuture.completedFuture(DeliveryStatus.DELIVERED);
+    }
+
+    /**
+     * @return The posts delivered so far, as {@code connectionId:payload}.
+     */
+    @NonNull
+    public synchronized List<String> getPosted() {
+        if (posted == null) {
+            throw new IllegalStateException("posts are not recorded");
+        }
+        return List.copyOf(posted);
+    }
+}
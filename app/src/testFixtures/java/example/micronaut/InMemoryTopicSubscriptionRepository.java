@@ -0,0 +1,56 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Keeps topic subscriptions in memory in the order they were made, for the emulator, the benchmarks and the unit
+ * tests. Used with {@code dynamodb.client: memory}, which none of the DynamoDB repositories match. Subscribers are
+ * keyed by connection id, as the table keys them.
+ */
+@Requires(property = "dynamodb.client", value = "memory")
+@Singleton
+public class InMemoryTopicSubscriptionRepository implements TopicSubscriptionRepository {
+    private final Map<String, Map<String, WebSocketConnection>> subscribers = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void subscribe(@NonNull WebSocketConnection websocketConnection, @NonNull String topic) {
+        subscribers.computeIfAbsent(key(websocketConnection.getApiId(), websocketConnection.getStage(), topic),
+                key -> new LinkedHashMap<>()).put(websocketConnection.getConnectionId(), websocketConnection);
+    }
+
+    @Override
+    public synchronized void unsubscribe(@NonNull WebSocketConnection websocketConnection, @NonNull String topic) {
+        Map<String, WebSocketConnection> connections = subscribers.get(key(websocketConnection.getApiId(), websocketConnection.getStage(), topic));
+        if (connections != null) {
+            connections.remove(websocketConnection.getConnectionId());
+        }
+    }
+
+    @Override
+    public synchronized void unsubscribeAll(@NonNull WebSocketConnection websocketConnection) {
+        String prefix = key(websocketConnection.getApiId(), websocketConnection.getStage(), "");
+        subscribers.forEach((key, connections) -> {
+            if (key.startsWith(prefix)) {
+                connections.remove(websocketConnection.getConnectionId());
+            }
+        });
+    }
+
+    @Override
+    @NonNull
+    public synchronized Stream<List<WebSocketConnection>> findAllByTopic(@NonNull String apiId, @NonNull String stage, @NonNull String topic) {
+        return Stream.of(new ArrayList<>(subscribers.getOrDefault(key(apiId, stage, topic), Map.of()).values()));
+    }
+
+    private static String key(String apiId, String stage, String topic) {
+        return apiId + "#" + stage + "#" + topic;
+    }
+}
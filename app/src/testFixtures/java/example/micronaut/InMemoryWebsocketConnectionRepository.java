@@ -0,0 +1,87 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Keeps connections in memory in the order they were saved, for the emulator, the benchmarks and the unit tests. Used
+ * with {@code dynamodb.client: memory}, which none of the DynamoDB repositories match.
+ */
+@Requires(property = "dynamodb.client", value = "memory")
+@Singleton
+public class InMemoryWebsocketConnectionRepository implements WebsocketConnectionRepository {
+    private final Map<String, WebSocketConnection> connections = new LinkedHashMap<>();
+    private final int pageSize;
+
+    @Inject
+    public InMemoryWebsocketConnectionRepository() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param pageSize Number of connections per page read, for tests of paginated reads
+     */
+    public InMemoryWebsocketConnectionRepository(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public synchronized void save(@NonNull WebSocketConnection websocketConnection) {
+        connections.put(key(websocketConnection), websocketConnection);
+    }
+
+    @Override
+    public synchronized void delete(@NonNull WebSocketConnection websocketConnection) {
+        connections.remove(key(websocketConnection));
+    }
+
+    @Override
+    public void saveAll(@NonNull Collection<? extends WebSocketConnection> websocketConnections) {
+        websocketConnections.forEach(this::save);
+    }
+
+    @Override
+    public void deleteAll(@NonNull Collection<? extends WebSocketConnection> websocketConnections) {
+        websocketConnections.forEach(this::delete);
+    }
+
+    @Override
+    @NonNull
+    public synchronized CompletableFuture<WebSocketConnection> heartbeatAndGetAsync(@NonNull WebSocketConnection websocketConnection) {
+        return CompletableFuture.completedFuture(connections.getOrDefault(key(websocketConnection), websocketConnection));
+    }
+
+    @Override
+    @NonNull
+    public synchronized Stream<List<WebSocketConnection>> findAllByApiIdAndStage(@NonNull String apiId, @NonNull String stage) {
+        List<List<WebSocketConnection>> pages = new ArrayList<>();
+        List<WebSocketConnection> page = new ArrayList<>();
+        for (WebSocketConnection connection : connections.values()) {
+            if (connection.getApiId().equals(apiId) && connection.getStage().equals(stage)) {
+                if (page.size() == pageSize) {
+                    pages.add(page);
+                    page = new ArrayList<>();
+                }
+                page.add(connection);
+            }
+        }
+        if (!page.isEmpty()) {
+            pages.add(page);
+        }
+        return pages.stream();
+    }
+
+    private static String key(WebSocketConnection connection) {
+        return connection.getConnectionId() + "#" + connection.getApiId() + "#" + connection.getStage();
+    }
+}
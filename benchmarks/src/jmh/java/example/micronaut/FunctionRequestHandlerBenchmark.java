@@ -0,0 +1,118 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link FunctionRequestHandler#execute(APIGatewayV2WebSocketEvent)} and
+ * {@link FunctionRequestStreamHandler#handleRequest} for each event type, with the repository and senders replaced by
+ * in-memory stand-ins. Priming and metrics output are disabled so that only the request path is measured.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FunctionRequestHandlerBenchmark {
+    private ApplicationContext applicationContext;
+    private FunctionRequestHandler handler;
+    private FunctionRequestStreamHandler streamHandler;
+    private APIGatewayV2WebSocketEvent connect;
+    private APIGatewayV2WebSocketEvent message;
+    private APIGatewayV2WebSocketEvent disconnect;
+    private byte[] connectJson;
+    private byte[] messageJson;
+    private byte[] disconnectJson;
+
+    @Setup
+    public void setup() throws IOException {
+        applicationContext = ApplicationContext.run(Map.of("priming.enabled", false,
+                "metrics.enabled", false,
+                "dynamodb.client", "memory",
+                "apigateway.management.client", "memory"));
+        handler = new FunctionRequestHandler(applicationContext);
+        streamHandler = new FunctionRequestStreamHandler(applicationContext);
+        connect = event("CONNECT", "$connect", null);
+        message = event("MESSAGE", "$default", "{\"action\":\"hello\"}");
+        disconnect = event("DISCONNECT", "$disconnect", null);
+        ObjectMapper objectMapper = applicationContext.getBean(ObjectMapper.class);
+        connectJson = objectMapper.writeValueAsBytes(connect);
+        messageJson = objectMapper.writeValueAsBytes(message);
+        disconnectJson = objectMapper.writeValueAsBytes(disconnect);
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public APIGatewayV2WebSocketResponse connect() {
+        return handler.execute(connect);
+    }
+
+    @Benchmark
+    public APIGatewayV2WebSocketResponse message() {
+        return handler.execute(message);
+    }
+
+    @Benchmark
+    public APIGatewayV2WebSocketResponse disconnect() {
+        return handler.execute(disconnect);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream streamConnect() throws IOException {
+        return handle(connectJson);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream streamMessage() throws IOException {
+        return handle(messageJson);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream streamDisconnect() throws IOException {
+        return handle(disconnectJson);
+    }
+
+    private ByteArrayOutputStream handle(byte[] json) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        streamHandler.handleRequest(new ByteArrayInputStream(json), output, null);
+        return output;
+    }
+
+    private static APIGatewayV2WebSocketEvent event(String eventType, String routeKey, String body) {
+        APIGatewayV2WebSocketEvent.RequestContext requestContext = new APIGatewayV2WebSocketEvent.RequestContext();
+        requestContext.setEventType(eventType);
+        requestContext.setRouteKey(routeKey);
+        requestContext.setApiId("ydvi4h9bvd");
+        requestContext.setStage("production");
+        requestContext.setConnectionId("VfDNVfH0oAMCJAg=");
+        requestContext.setDomainName("ydvi4h9bvd.execute-api.us-east-1.amazonaws.com");
+        APIGatewayV2WebSocketEvent event = new APIGatewayV2WebSocketEvent();
+        event.setRequestContext(requestContext);
+        event.setBody(body);
+        return event;
+    }
+}
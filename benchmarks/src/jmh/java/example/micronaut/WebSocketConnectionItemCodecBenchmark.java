@@ -0,0 +1,143 @@
+package example.micronaut;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link WebSocketConnectionItemCodec} with the per-call mapping it replaced. Run with {@code ./gradlew :benchmarks:jmh}
+ * and compare {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketConnectionItemCodecBenchmark {
+
+    private WebSocketConnectionItemCodec codec;
+    private WebSocketConnection connection;
+    private Map<String, AttributeValue> item;
+
+    @Setup
+    public void setup() {
+        codec = new WebSocketConnectionItemCodec(new DynamoConfiguration() {
+            @Override
+            public String getTableName() {
+                return "benchmark";
+            }
+
+            @Override
+            public int getGsi1Shards() {
+                return 8;
+            }
+
+            @Override
+            public boolean isGsi1ReadUnsharded() {
+                return false;
+            }
+
+            @Override
+            public Duration getConnectionTtl() {
+                return Duration.ofMinutes(30);
+            }
+
+            @Override
+            public int getCounterShards() {
+                return 4;
+            }
+
+            @Override
+            public boolean isCounters() {
+                return false;
+            }
+        });
+        connection = new WebSocketConnection("us-east-1",
+                "ydvi4h9bvd",
+                "production",
+                "x94eGsoAMCLig=",
+                "ydvi4h9bvd.execute-api.us-east-1.amazonaws.com");
+        item = codec.item(connection);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> item() {
+        return codec.item(connection);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> key() {
+        return codec.key(connection);
+    }
+
+    @Benchmark
+    public WebSocketConnection decode() {
+        return codec.connection(item);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> legacyItem() {
+        return LegacyMapping.item(connection);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> legacyKey() {
+        return LegacyMapping.keyForItem(connection);
+    }
+
+    /**
+     * The mapping previously done by {@code WebsocketConnectionRepositoryDynamo} on every call.
+     */
+    static final class LegacyMapping {
+        private static final String HASH = "#";
+
+        private LegacyMapping() {
+        }
+
+        static Map<String, AttributeValue> keyForItem(WebSocketConnection websocketConnection) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            AttributeValue pk = s(prefix(websocketConnection.getClass()) + websocketConnection.getConnectionId() +
+                    HASH + websocketConnection.getApiId() + HASH + websocketConnection.getStage());
+            item.put("pk", pk);
+            item.put("sk", pk);
+            return item;
+        }
+
+        static Map<String, AttributeValue> item(WebSocketConnection websocketConnection) {
+            Map<String, AttributeValue> result = new HashMap<>();
+            result.putAll(keyForItem(websocketConnection));
+            result.put("GSI1PK", AttributeValue.builder().s(websocketConnection.getClass().getSimpleName()).build());
+            result.put("GSI1SK", result.get("pk"));
+            result.put("region", s(websocketConnection.getRegion()));
+            result.put("connectionId", s(websocketConnection.getConnectionId()));
+            result.put("stage", s(websocketConnection.getStage()));
+            result.put("apiId", s(websocketConnection.getApiId()));
+            if (websocketConnection.getDomainName() != null) {
+                result.put("domainName", s(websocketConnection.getDomainName()));
+            }
+            return result;
+        }
+
+        private static String prefix(Class<?> cls) {
+            return cls.getSimpleName().toUpperCase() + HASH;
+        }
+
+        private static AttributeValue s(String str) {
+            return AttributeValue.builder().s(str).build();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package example.micronaut;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketConnectionUtilsBenchmark {
+
+    private final WebSocketConnection connection = new WebSocketConnection("us-east-1",
+            "ydvi4h9bvd",
+            "production",
+            "VfDNVfH0oAMCJAg=",
+            "ydvi4h9bvd.execute-api.us-east-1.amazonaws.com");
+
+    @Benchmark
+    public URI uriOf() {
+        return WebSocketConnectionUtils.uriOf(connection);
+    }
+}
@@ -0,0 +1,68 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a WebSocket event and writing the response the way {@link FunctionRequestHandler} gets them,
+ * data binding {@link APIGatewayV2WebSocketEvent} and {@link APIGatewayV2WebSocketResponse}, with
+ * {@link FunctionRequestStreamHandler}'s single pass parse and constant response.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketRequestParserBenchmark {
+    private static final byte[] RESPONSE_OK = "{\"statusCode\":200,\"isBase64Encoded\":false}".getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper objectMapper;
+    private WebSocketRequestParser parser;
+    private byte[] event;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper();
+        parser = new WebSocketRequestParser(objectMapper);
+        try (InputStream json = WebSocketRequestParserBenchmark.class.getClassLoader().getResourceAsStream("message-event.json")) {
+            event = json.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream databind() throws IOException {
+        WebSocketRequest request = WebSocketRequest.of(objectMapper.readValue(event, APIGatewayV2WebSocketEvent.class));
+        APIGatewayV2WebSocketResponse response = new APIGatewayV2WebSocketResponse();
+        response.setStatusCode(200);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        objectMapper.writeValue(output, response);
+        return request.getConnectionId() != null ? output : null;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream streaming() throws IOException {
+        WebSocketRequest request = parser.parse(new ByteArrayInputStream(event));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(RESPONSE_OK);
+        return request.getConnectionId() != null ? output : null;
+    }
+}
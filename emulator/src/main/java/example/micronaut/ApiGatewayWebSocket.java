@@ -0,0 +1,91 @@
+package example.micronaut;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2WebSocketEvent;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.websocket.WebSocketSession;
+import io.micronaut.websocket.annotation.OnClose;
+import io.micronaut.websocket.annotation.OnMessage;
+import io.micronaut.websocket.annotation.OnOpen;
+import io.micronaut.websocket.annotation.ServerWebSocket;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Turns WebSocket frames into the {@code $connect}, {@code $default} and {@code $disconnect} events API Gateway
+ * sends, and passes them to {@link FunctionRequestHandler} in process. Like the deployed API, a JSON message whose
+ * {@value WebSocketRoutes#ROUTE_SELECTION_KEY} names a custom route of the {@link WebSocketRouteTable} is routed to
+ * it. A codec is negotiated with the {@value MessageCodecs#QUERY_PARAMETER} query parameter only, subprotocols are not
+ * passed on.
+ */
+@ServerWebSocket("/{stage}")
+public class ApiGatewayWebSocket {
+    private static final String ATTRIBUTE_CONNECTION_ID = "connectionId";
+
+    private final FunctionRequestHandler handler;
+    private final EmulatorConnections connections;
+    private final EmulatorConfiguration configuration;
+    private final WebSocketRouteTable webSocketRouteTable;
+
+    public ApiGatewayWebSocket(ApplicationContext applicationContext,
+                               EmulatorConnections connections,
+                               EmulatorConfiguration configuration,
+                               WebSocketRouteTable webSocketRouteTable) {
+        this.handler = new FunctionRequestHandler(applicationContext);
+        this.connections = connections;
+        this.configuration = configuration;
+        this.webSocketRouteTable = webSocketRouteTable;
+    }
+
+    @OnOpen
+    public void onOpen(String stage, WebSocketSession session) {
+        EmulatorConnections.EmulatorConnection connection = connections.open(stage, session);
+        session.put(ATTRIBUTE_CONNECTION_ID, connection.getConnectionId());
+        APIGatewayV2WebSocketEvent event = event(connection, EventType.CONNECT, WebSocketRoutes.CONNECT, null);
+        session.getRequestParameters().getFirst(MessageCodecs.QUERY_PARAMETER)
+                .ifPresent(codec -> event.setQueryStringParameters(Map.of(MessageCodecs.QUERY_PARAMETER, codec)));
+        connections.submit(connection, () -> handler.execute(event));
+    }
+
+    @OnMessage
+    public void onMessage(String stage, String message, WebSocketSession session) {
+        connectionOf(session).ifPresent(connection ->
+                connections.submit(connection, () -> handler.execute(event(connection, EventType.MESSAGE, routeKey(message), message))));
+    }
+
+    @OnClose
+    public void onClose(String stage, WebSocketSession session) {
+        connectionOf(session).ifPresent(connection -> {
+            connections.close(connection.getConnectionId());
+            connections.submit(connection, () -> handler.execute(event(connection, EventType.DISCONNECT, WebSocketRoutes.DISCONNECT, null)));
+        });
+    }
+
+    private String routeKey(String message) {
+        return webSocketRouteTable.routeKeyOf(WebSocketRoutes.DEFAULT, message);
+    }
+
+    private Optional<EmulatorConnections.EmulatorConnection> connectionOf(WebSocketSession session) {
+        return session.get(ATTRIBUTE_CONNECTION_ID, String.class)
+                .flatMap(connections::find);
+    }
+
+    private APIGatewayV2WebSocketEvent event(EmulatorConnections.EmulatorConnection connection,
+                                             EventType eventType,
+                                             String routeKey,
+                                             String body) {
+        APIGatewayV2WebSocketEvent.RequestContext requestContext = new APIGatewayV2WebSocketEvent.RequestContext();
+        requestContext.setEventType(eventType.name());
+        requestContext.setRouteKey(routeKey);
+        requestContext.setConnectionId(connection.getConnectionId());
+        requestContext.setApiId(configuration.getApiId());
+        requestContext.setStage(connection.getStage());
+        requestContext.setDomainName(configuration.getDomainName());
+        requestContext.setConnectedAt(connection.getConnectedAt());
+        requestContext.setRequestTimeEpoch(System.currentTimeMillis());
+        APIGatewayV2WebSocketEvent event = new APIGatewayV2WebSocketEvent();
+        event.setRequestContext(requestContext);
+        event.setBody(body);
+        return event;
+    }
+}
@@ -0,0 +1,82 @@
+package example.micronaut;
+
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Delete;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Post;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The {@code @connections} management API of the emulated WebSocket API, the endpoint
+ * {@code apigateway.management.clients.endpoint-override} points the management API clients at.
+ */
+@Controller("/{stage}/@connections")
+public class ConnectionsController {
+    private static final String HEADER_ERROR_TYPE = "x-amzn-ErrorType";
+    private static final String GONE_EXCEPTION = "GoneException";
+
+    private final EmulatorConnections connections;
+
+    public ConnectionsController(EmulatorConnections connections) {
+        this.connections = connections;
+    }
+
+    @Post(uri = "/{connectionId}", consumes = MediaType.ALL)
+    public CompletableFuture<HttpResponse<?>> postToConnection(String stage, String connectionId, @Body byte[] data) {
+        return connections.find(connectionId)
+                .filter(connection -> connection.getStage().equals(stage) && connection.getSession().isOpen())
+                .map(connection -> send(connection, data)
+                        .<HttpResponse<?>>thenApply(sent -> HttpResponse.ok()))
+                .orElseGet(() -> CompletableFuture.completedFuture(gone(connectionId)));
+    }
+
+    @Get("/{connectionId}")
+    public HttpResponse<?> getConnection(String stage, String connectionId) {
+        return connections.find(connectionId)
+                .filter(connection -> connection.getStage().equals(stage))
+                .<HttpResponse<?>>map(connection -> HttpResponse.ok(Map.of("connectedAt", connection.getConnectedAt(),
+                        "identity", Map.of("sourceIp", "127.0.0.1"))))
+                .orElseGet(() -> gone(connectionId));
+    }
+
+    @Delete("/{connectionId}")
+    public HttpResponse<?> deleteConnection(String stage, String connectionId) {
+        return connections.find(connectionId)
+                .filter(connection -> connection.getStage().equals(stage))
+                .<HttpResponse<?>>map(connection -> {
+                    connection.getSession().close();
+                    return HttpResponse.noContent();
+                })
+                .orElseGet(() -> gone(connectionId));
+    }
+
+    /**
+     * Sends data which is valid UTF-8 as a text frame, and anything else, such as CBOR or gzipped messages, as a binary
+     * frame.
+     */
+    private static CompletableFuture<?> send(EmulatorConnections.EmulatorConnection connection, byte[] data) {
+        try {
+            String text = StandardCharsets.UTF_8.newDecoder()
+                    .decode(ByteBuffer.wrap(data))
+                    .toString();
+            return connection.getSession().sendAsync(text);
+        } catch (CharacterCodingException e) {
+            return connection.getSession().sendAsync(data);
+        }
+    }
+
+    private static HttpResponse<?> gone(String connectionId) {
+        return HttpResponse.status(HttpStatus.GONE)
+                .header(HEADER_ERROR_TYPE, GONE_EXCEPTION)
+                .body(Map.of("message", "connection " + connectionId + " is gone"));
+    }
+}
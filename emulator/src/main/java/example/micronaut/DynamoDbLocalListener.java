@@ -0,0 +1,52 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import jakarta.inject.Singleton;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+import java.net.URI;
+
+/**
+ * Points the DynamoDB clients at {@code emulator.dynamodb-endpoint}, for example DynamoDB Local, which
+ * {@code dynamodb.client} {@code sync} or {@code async} use.
+ */
+public final class DynamoDbLocalListener {
+    static final String PROPERTY_ENDPOINT = "emulator.dynamodb-endpoint";
+
+    private DynamoDbLocalListener() {
+    }
+
+    @Requires(property = PROPERTY_ENDPOINT)
+    @Singleton
+    public static class Sync implements BeanCreatedEventListener<DynamoDbClientBuilder> {
+        private final URI endpoint;
+
+        public Sync(@Property(name = PROPERTY_ENDPOINT) URI endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public DynamoDbClientBuilder onCreated(BeanCreatedEvent<DynamoDbClientBuilder> event) {
+            return event.getBean().endpointOverride(endpoint);
+        }
+    }
+
+    @Requires(property = PROPERTY_ENDPOINT)
+    @Singleton
+    public static class Async implements BeanCreatedEventListener<DynamoDbAsyncClientBuilder> {
+        private final URI endpoint;
+
+        public Async(@Property(name = PROPERTY_ENDPOINT) URI endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public DynamoDbAsyncClientBuilder onCreated(BeanCreatedEvent<DynamoDbAsyncClientBuilder> event) {
+            return event.getBean().endpointOverride(endpoint);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+
+import java.util.List;
+
+/**
+ * Creates the table at {@code emulator.dynamodb-endpoint} on startup if it does not exist, with the keys and indexes
+ * of the deployed table.
+ */
+@Requires(property = DynamoDbLocalListener.PROPERTY_ENDPOINT)
+@Singleton
+public class DynamoDbLocalTable {
+    private static final Logger LOG = LoggerFactory.getLogger(DynamoDbLocalTable.class);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoConfiguration dynamoConfiguration;
+
+    public DynamoDbLocalTable(DynamoDbClient dynamoDbClient, DynamoConfiguration dynamoConfiguration) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.dynamoConfiguration = dynamoConfiguration;
+    }
+
+    @EventListener
+    public void onStartup(StartupEvent event) {
+        createIfMissing();
+    }
+
+    /**
+     * @return Whether the table was created.
+     */
+    public boolean createIfMissing() {
+        String tableName = dynamoConfiguration.getTableName();
+        try {
+            dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(tableName).build());
+            return false;
+        } catch (ResourceNotFoundException e) {
+            dynamoDbClient.createTable(CreateTableRequest.builder()
+                    .tableName(tableName)
+                    .billingMode(BillingMode.PAY_PER_REQUEST)
+                    .attributeDefinitions(attribute(WebSocketConnectionItemCodec.ATTRIBUTE_PK),
+                            attribute(WebSocketConnectionItemCodec.ATTRIBUTE_SK),
+                            attribute(WebSocketConnectionItemCodec.ATTRIBUTE_GSI_1_PK),
+                            attribute(WebSocketConnectionItemCodec.ATTRIBUTE_GSI_1_SK),
+                            attribute(TopicSubscriptionItemCodec.ATTRIBUTE_GSI_2_PK),
+                            attribute(TopicSubscriptionItemCodec.ATTRIBUTE_GSI_2_SK))
+                    .keySchema(keySchema(WebSocketConnectionItemCodec.ATTRIBUTE_PK, WebSocketConnectionItemCodec.ATTRIBUTE_SK))
+                    .globalSecondaryIndexes(index(WebSocketConnectionItemCodec.INDEX_GSI_1,
+                                    WebSocketConnectionItemCodec.ATTRIBUTE_GSI_1_PK,
+                                    WebSocketConnectionItemCodec.ATTRIBUTE_GSI_1_SK),
+                            index(TopicSubscriptionItemCodec.INDEX_GSI_2,
+                                    TopicSubscriptionItemCodec.ATTRIBUTE_GSI_2_PK,
+                                    TopicSubscriptionItemCodec.ATTRIBUTE_GSI_2_SK))
+                    .build());
+            LOG.info("created table {}", tableName);
+            return true;
+        }
+    }
+
+    private static AttributeDefinition attribute(String name) {
+        return AttributeDefinition.builder()
+                .attributeName(name)
+                .attributeType(ScalarAttributeType.S)
+                .build();
+    }
+
+    private static List<KeySchemaElement> keySchema(String pk, String sk) {
+        return List.of(KeySchemaElement.builder().attributeName(pk).keyType(KeyType.HASH).build(),
+                KeySchemaElement.builder().attributeName(sk).keyType(KeyType.RANGE).build());
+    }
+
+    private static GlobalSecondaryIndex index(String indexName, String pk, String sk) {
+        return GlobalSecondaryIndex.builder()
+                .indexName(indexName)
+                .keySchema(keySchema(pk, sk))
+                .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package example.micronaut;
+
+import io.micronaut.runtime.Micronaut;
+
+/**
+ * Runs the function behind a local stand-in for an API Gateway WebSocket API:
+ * {@code ws://localhost:8080/<stage>} for clients and {@code http://localhost:8080/<stage>/@connections} for the
+ * management API.
+ */
+public class EmulatorApplication {
+    public static final String ENVIRONMENT = "emulator";
+
+    public static void main(String[] args) {
+        Micronaut.build(args)
+                .mainClass(EmulatorApplication.class)
+                .defaultEnvironments(ENVIRONMENT)
+                .start();
+    }
+}
@@ -0,0 +1,24 @@
+package example.micronaut;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import javax.validation.constraints.NotBlank;
+
+@ConfigurationProperties("emulator")
+public interface EmulatorConfiguration {
+
+    /**
+     * @return API id put in the events' request context.
+     */
+    @NotBlank
+    @Bindable(defaultValue = "local")
+    String getApiId();
+
+    /**
+     * @return Domain name put in the events' request context.
+     */
+    @NotBlank
+    @Bindable(defaultValue = "localhost")
+    String getDomainName();
+}
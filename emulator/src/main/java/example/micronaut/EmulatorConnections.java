@@ -0,0 +1,100 @@
+package example.micronaut;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.websocket.WebSocketSession;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Open WebSocket sessions by connection id. Events of a connection are handed to the function one at a time, in the
+ * order they arrived, on the IO executor so that the Netty event loop is never blocked.
+ */
+@Singleton
+public class EmulatorConnections {
+    private static final Logger LOG = LoggerFactory.getLogger(EmulatorConnections.class);
+    // API Gateway connection ids are 16 characters of base64
+    private static final int CONNECTION_ID_BYTES = 11;
+
+    private final Map<String, EmulatorConnection> connections = new ConcurrentHashMap<>();
+    private final ExecutorService executorService;
+
+    public EmulatorConnections(@Named(TaskExecutors.IO) ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    @NonNull
+    public EmulatorConnection open(@NonNull String stage, @NonNull WebSocketSession session) {
+        byte[] id = new byte[CONNECTION_ID_BYTES];
+        ThreadLocalRandom.current().nextBytes(id);
+        EmulatorConnection connection = new EmulatorConnection(Base64.getEncoder().encodeToString(id), stage, session);
+        connections.put(connection.getConnectionId(), connection);
+        return connection;
+    }
+
+    @NonNull
+    public Optional<EmulatorConnection> find(@NonNull String connectionId) {
+        return Optional.ofNullable(connections.get(connectionId));
+    }
+
+    public void close(@NonNull String connectionId) {
+        connections.remove(connectionId);
+    }
+
+    /**
+     * Runs the task after every task previously submitted for the same connection.
+     */
+    public void submit(@NonNull EmulatorConnection connection, @NonNull Runnable task) {
+        synchronized (connection) {
+            connection.tail = connection.tail
+                    .thenRunAsync(task, executorService)
+                    .exceptionally(e -> {
+                        LOG.warn("event of connection {} failed", connection.getConnectionId(), e);
+                        return null;
+                    });
+        }
+    }
+
+    public static class EmulatorConnection {
+        private final String connectionId;
+        private final String stage;
+        private final WebSocketSession session;
+        private final long connectedAt = System.currentTimeMillis();
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        EmulatorConnection(String connectionId, String stage, WebSocketSession session) {
+            this.connectionId = connectionId;
+            this.stage = stage;
+            this.session = session;
+        }
+
+        @NonNull
+        public String getConnectionId() {
+            return connectionId;
+        }
+
+        @NonNull
+        public String getStage() {
+            return stage;
+        }
+
+        @NonNull
+        public WebSocketSession getSession() {
+            return session;
+        }
+
+        public long getConnectedAt() {
+            return connectedAt;
+        }
+    }
+}
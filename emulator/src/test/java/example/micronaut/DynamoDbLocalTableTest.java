@@ -0,0 +1,108 @@
+package example.micronaut;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynamoDbLocalTableTest {
+    private final List<CreateTableRequest> created = new ArrayList<>();
+
+    @Test
+    void missingTableIsCreatedWithTheDeployedIndexes() {
+        DynamoDbLocalTable table = new DynamoDbLocalTable(new FakeDynamoDbClient(), configuration());
+
+        assertTrue(table.createIfMissing());
+
+        assertEquals(1, created.size());
+        CreateTableRequest request = created.get(0);
+        assertEquals("emulator", request.tableName());
+        assertEquals(List.of("GSI1", "GSI2"),
+                request.globalSecondaryIndexes().stream().map(GlobalSecondaryIndex::indexName).collect(Collectors.toList()));
+        assertEquals(6, request.attributeDefinitions().size());
+    }
+
+    @Test
+    void existingTableIsKept() {
+        DynamoDbLocalTable table = new DynamoDbLocalTable(new FakeDynamoDbClient(), configuration());
+        assertTrue(table.createIfMissing());
+
+        assertFalse(table.createIfMissing());
+        assertEquals(1, created.size());
+    }
+
+    private class FakeDynamoDbClient implements DynamoDbClient {
+        @Override
+        public DescribeTableResponse describeTable(DescribeTableRequest request) {
+            if (created.isEmpty()) {
+                throw ResourceNotFoundException.builder().message("not found").build();
+            }
+            return DescribeTableResponse.builder()
+                    .table(TableDescription.builder().tableName(request.tableName()).build())
+                    .build();
+        }
+
+        @Override
+        public CreateTableResponse createTable(CreateTableRequest request) {
+            created.add(request);
+            return CreateTableResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static DynamoConfiguration configuration() {
+        return new DynamoConfiguration() {
+            @Override
+            public String getTableName() {
+                return "emulator";
+            }
+
+            @Override
+            public int getGsi1Shards() {
+                return 1;
+            }
+
+            @Override
+            public boolean isGsi1ReadUnsharded() {
+                return false;
+            }
+
+            @Override
+            public Duration getConnectionTtl() {
+                return Duration.ofMinutes(30);
+            }
+
+            @Override
+            public int getCounterShards() {
+                return 4;
+            }
+
+            @Override
+            public boolean isCounters() {
+                return false;
+            }
+        };
+    }
+}
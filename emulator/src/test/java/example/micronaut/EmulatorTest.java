@@ -0,0 +1,86 @@
+package example.micronaut;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.websocket.WebSocketClient;
+import io.micronaut.websocket.annotation.ClientWebSocket;
+import io.micronaut.websocket.annotation.OnMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmulatorTest {
+    private static EmbeddedServer server;
+    private static HttpClient httpClient;
+
+    @BeforeAll
+    static void start() {
+        server = ApplicationContext.run(EmbeddedServer.class, Map.of("micronaut.server.port", -1,
+                "apigateway.management.clients.endpoint-override", "http://localhost:${micronaut.server.port}"),
+                EmulatorApplication.ENVIRONMENT);
+        httpClient = server.getApplicationContext().createBean(HttpClient.class, server.getURL());
+    }
+
+    @AfterAll
+    static void stop() {
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void inMemoryRepositoriesAreTheOnlyCandidates() {
+        ApplicationContext context = server.getApplicationContext();
+        assertTrue(context.getBean(WebsocketConnectionRepository.class) instanceof InMemoryWebsocketConnectionRepository);
+        assertEquals(1, context.getBeansOfType(WebsocketConnectionRepository.class).size());
+        assertTrue(context.getBean(TopicSubscriptionRepository.class) instanceof InMemoryTopicSubscriptionRepository);
+        assertEquals(1, context.getBeansOfType(TopicSubscriptionRepository.class).size());
+    }
+
+    @Test
+    void postToAnUnknownConnectionIsGone() {
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class, () -> httpClient.toBlocking()
+                .exchange(HttpRequest.POST("/production/@connections/unknown", "hola").contentType(MediaType.TEXT_PLAIN)));
+        assertEquals(HttpStatus.GONE, e.getStatus());
+        assertEquals("GoneException", e.getResponse().getHeaders().get("x-amzn-ErrorType"));
+    }
+
+    @Test
+    void connectSavesTheConnection() throws Exception {
+        WebsocketConnectionRepository repository = server.getApplicationContext().getBean(WebsocketConnectionRepository.class);
+        try (WebSocketClient webSocketClient = server.getApplicationContext().createBean(WebSocketClient.class, server.getURL());
+             TestClient client = Mono.from(webSocketClient.connect(TestClient.class, "/production")).block(Duration.ofSeconds(10))) {
+            List<WebSocketConnection> connections = List.of();
+            for (int attempt = 0; attempt < 50 && connections.isEmpty(); attempt++) {
+                Thread.sleep(100);
+                try (Stream<List<WebSocketConnection>> pages = repository.findAllByApiIdAndStage("local", "production")) {
+                    connections = pages.flatMap(List::stream).collect(Collectors.toList());
+                }
+            }
+            assertEquals(1, connections.size());
+            assertEquals("localhost", connections.get(0).getDomainName());
+        }
+    }
+
+    @ClientWebSocket
+    abstract static class TestClient implements AutoCloseable {
+        @OnMessage
+        void onMessage(String message) {
+        }
+    }
+}
@@ -2,6 +2,7 @@ package example.micronaut;
 
 import io.micronaut.aws.cdk.function.MicronautFunction;
 import io.micronaut.aws.cdk.function.MicronautFunctionFile;
+import io.micronaut.context.exceptions.ConfigurationException;
 import io.micronaut.starter.application.ApplicationType;
 import io.micronaut.starter.options.BuildTool;
 import software.amazon.awscdk.CfnOutput;
@@ -16,15 +17,32 @@ import software.amazon.awscdk.services.dynamodb.Attribute;
 import software.amazon.awscdk.services.dynamodb.AttributeType;
 import software.amazon.awscdk.services.dynamodb.BillingMode;
 import software.amazon.awscdk.services.dynamodb.GlobalSecondaryIndexProps;
+import software.amazon.awscdk.services.dynamodb.ITable;
+import software.amazon.awscdk.services.dynamodb.StreamViewType;
 import software.amazon.awscdk.services.dynamodb.Table;
+import software.amazon.awscdk.services.dynamodb.TableAttributes;
+import software.amazon.awscdk.services.lambda.Alias;
+import software.amazon.awscdk.services.lambda.CfnFunction;
 import software.amazon.awscdk.services.lambda.Code;
+import software.amazon.awscdk.services.lambda.FilterCriteria;
+import software.amazon.awscdk.services.lambda.FilterRule;
 import software.amazon.awscdk.services.lambda.Function;
+import software.amazon.awscdk.services.lambda.IFunction;
+import software.amazon.awscdk.services.lambda.StartingPosition;
 import software.amazon.awscdk.services.lambda.Tracing;
+import software.amazon.awscdk.services.lambda.eventsources.DynamoEventSource;
+import software.amazon.awscdk.services.lambda.eventsources.SqsDlq;
+import software.amazon.awscdk.services.lambda.eventsources.SqsEventSource;
 import software.amazon.awscdk.services.logs.RetentionDays;
+import software.amazon.awscdk.services.sqs.DeadLetterQueue;
+import software.amazon.awscdk.services.sqs.Queue;
 import software.constructs.Construct;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class AppStack extends Stack {
 
@@ -33,7 +51,31 @@ public class AppStack extends Stack {
     protected static final String ATTRIBUTE_GSI_1_PK = "GSI1PK";
     protected static final String ATTRIBUTE_GSI_1_SK = "GSI1SK";
     protected static final String INDEX_GSI_1 = "GSI1";
+    // topic subscriptions, partitioned by TOPIC#<apiId>#<stage>#<topic>
+    protected static final String ATTRIBUTE_GSI_2_PK = "GSI2PK";
+    protected static final String ATTRIBUTE_GSI_2_SK = "GSI2SK";
+    protected static final String INDEX_GSI_2 = "GSI2";
+    // epoch seconds after which DynamoDB deletes a connection or subscription item
+    protected static final String ATTRIBUTE_EXPIRES_AT = "expiresAt";
+    // sort key prefixes of the connection and subscription items the app's item codecs write
+    protected static final String SORT_KEY_PREFIX_CONNECTION = "WEBSOCKETCONNECTION#";
+    protected static final String SORT_KEY_PREFIX_SUBSCRIPTION = "TOPIC#";
+    // the connections of an API stage are spread across GSI1 partition keys WebSocketConnection#<apiId>#<stage>#0..n-1
+    // to avoid a hot partition
+    protected static final int GSI_1_SHARDS = 8;
+    protected static final String CONTEXT_SNAP_START = "snapStart";
+    protected static final int FUNCTION_TIMEOUT_SECONDS = 20;
+    protected static final String CONTEXT_DELIVERY_QUEUE = "deliveryQueue";
+    // jobs received this many times without being delivered move to the dead-letter queue
+    protected static final int DELIVERY_MAX_RECEIVE_COUNT = 3;
+    protected static final int DELIVERY_BATCH_SIZE = 10;
+    protected static final String CONTEXT_CONNECTION_COUNTERS = "connectionCounters";
+    protected static final int COUNTER_BATCH_SIZE = 100;
+    protected static final int COUNTER_RETRY_ATTEMPTS = 10;
+    // below the 10 minutes DynamoDB honours a transaction's client request token for, see createCounterFunction
+    protected static final int COUNTER_MAXIMUM_RECORD_AGE_MINUTES = 9;
     private final Project project;
+    private final boolean connectionCounters;
 
     public AppStack(final Project project, final Construct parent, final String id) {
         this(project, parent, id, null);
@@ -42,28 +84,85 @@ public class AppStack extends Stack {
     public AppStack(final Project project, final Construct parent, final String id, final StackProps props) {
         super(parent, id, props);
         this.project = project;
+        this.connectionCounters = isConnectionCounters();
 
-        Table table = createTable();
+        ITable table = project.isMultiRegion() && !project.getPrimaryRegion().equals(getRegion())
+                ? importReplica()
+                : createTable();
         Map<String, String> environmentVariables = new HashMap<>();
         environmentVariables.put("DYNAMODB_TABLE_NAME", table.getTableName());
-        // https://aws.amazon.com/blogs/compute/optimizing-aws-lambda-function-performance-for-java/
-        environmentVariables.put("JAVA_TOOL_OPTIONS", "-XX:+TieredCompilation -XX:TieredStopAtLevel=1");
+        environmentVariables.put("DYNAMODB_GSI1_SHARDS", String.valueOf(GSI_1_SHARDS));
+        if (!project.isGraalVMNative()) {
+            // https://aws.amazon.com/blogs/compute/optimizing-aws-lambda-function-performance-for-java/
+            environmentVariables.put("JAVA_TOOL_OPTIONS", "-XX:+TieredCompilation -XX:TieredStopAtLevel=1");
+        }
+
+        Queue deliveryQueue = isDeliveryQueue() ? createDeliveryQueue() : null;
+        if (deliveryQueue != null) {
+            environmentVariables.put("DELIVERY_QUEUE_ENABLED", "true");
+            environmentVariables.put("DELIVERY_QUEUE_QUEUE_URL", deliveryQueue.getQueueUrl());
+        }
+        if (connectionCounters) {
+            environmentVariables.put("DYNAMODB_COUNTERS", "true");
+        }
 
         Module websocketsModule = project.findModuleByName("app");
         Function websocketsFunction = createFunction(environmentVariables,
                 websocketsModule.getName(),
                 functionHandler(websocketsModule));
         table.grantReadWriteData(websocketsFunction);
+        IFunction websocketsTarget = isSnapStart() ? snapStart(websocketsFunction) : websocketsFunction;
 
-        WebSocketApi webSocketApi = createWebSocketApi(project.getName(), websocketsFunction);
+        WebSocketApi webSocketApi = createWebSocketApi(project.getName(), websocketsTarget, websocketsModule.getRoutes());
         webSocketApi.grantManageConnections(websocketsFunction);
         WebSocketStage stage = createWebSocketStage(project.getName(), webSocketApi);
         stage.grantManagementApiAccess(websocketsFunction);
+
+        if (deliveryQueue != null) {
+            deliveryQueue.grantSendMessages(websocketsFunction);
+            Function deliveryFunction = createFunction(environmentVariables,
+                    ApplicationType.FUNCTION,
+                    "delivery",
+                    websocketsModule.getName(),
+                    websocketsModule.getPackageName() + ".DeliveryQueueRequestHandler");
+            deliveryFunction.addEventSource(SqsEventSource.Builder.create(deliveryQueue)
+                    .batchSize(DELIVERY_BATCH_SIZE)
+                    .maxBatchingWindow(Duration.seconds(1))
+                    .reportBatchItemFailures(true)
+                    .build());
+            table.grantReadWriteData(deliveryFunction);
+            // an interrupted fan-out queues the rest of it as a new job
+            deliveryQueue.grantSendMessages(deliveryFunction);
+            webSocketApi.grantManageConnections(deliveryFunction);
+            stage.grantManagementApiAccess(deliveryFunction);
+        }
+        if (connectionCounters && table instanceof Table) {
+            createCounterFunction((Table) table, environmentVariables, websocketsModule);
+        }
         output(stage);
     }
 
+    /**
+     * With several regions, the primary region's stack creates the table with a fixed name and a replica in every other
+     * region, which makes it a DynamoDB global table. Connections replicate everywhere, but each region's API has its own
+     * id, so a regional function only reads, and posts to, the connections of its own API through its local endpoint.
+     * Replication is not free: every write, heartbeats and subscriptions included, is billed again as a replicated write
+     * in each other region, and every replica and its indexes store the rows of all regions. Deploy each region as a
+     * single-region stack instead when failing over connection state is not needed.
+     * With connection counters the table has a stream of new and old images.
+     */
     public Table createTable() {
-        Table table = Table.Builder.create(this, project.getName() + "-table")
+        Table.Builder builder = Table.Builder.create(this, project.getName() + "-table");
+        if (project.isMultiRegion()) {
+            builder.tableName(globalTableName())
+                    .replicationRegions(project.getRegions().stream()
+                            .filter(region -> !region.equals(project.getPrimaryRegion()))
+                            .collect(Collectors.toList()));
+        }
+        if (connectionCounters) {
+            builder.stream(StreamViewType.NEW_AND_OLD_IMAGES);
+        }
+        Table table = builder
                 .partitionKey(Attribute.builder()
                         .name(ATTRIBUTE_PK)
                         .type(AttributeType.STRING)
@@ -73,13 +172,31 @@ public class AppStack extends Stack {
                         .type(AttributeType.STRING)
                         .build())
                 .billingMode(BillingMode.PAY_PER_REQUEST)
+                .timeToLiveAttribute(ATTRIBUTE_EXPIRES_AT)
                 .build();
         table.addGlobalSecondaryIndex(globalSecondaryIndexProps(INDEX_GSI_1,
                 ATTRIBUTE_GSI_1_PK,
                 ATTRIBUTE_GSI_1_SK));
+        table.addGlobalSecondaryIndex(globalSecondaryIndexProps(INDEX_GSI_2,
+                ATTRIBUTE_GSI_2_PK,
+                ATTRIBUTE_GSI_2_SK));
         return table;
     }
 
+    /**
+     * The replica of the global table in this stack's region, created by the primary region's stack.
+     */
+    private ITable importReplica() {
+        return Table.fromTableAttributes(this, project.getName() + "-table", TableAttributes.builder()
+                .tableName(globalTableName())
+                .globalIndexes(List.of(INDEX_GSI_1, INDEX_GSI_2))
+                .build());
+    }
+
+    private String globalTableName() {
+        return project.getName() + "-table";
+    }
+
     private GlobalSecondaryIndexProps globalSecondaryIndexProps(String indexName,
                                                                 String pk,
                                                                 String sk) {
@@ -99,20 +216,21 @@ public class AppStack extends Stack {
     private Function createFunction(Map<String, String> environmentVariables,
                                     String moduleName,
                                     String handler) {
-        return createFunction(environmentVariables, ApplicationType.FUNCTION, moduleName, handler);
+        return createFunction(environmentVariables, ApplicationType.FUNCTION, moduleName, moduleName, handler);
     }
 
     private Function createFunction(Map<String, String> environmentVariables,
                                     ApplicationType applicationType,
+                                    String functionName,
                                     String moduleName,
                                     String handler) {
         Function.Builder builder =  MicronautFunction.create(applicationType,
-                        false,
+                        project.isGraalVMNative(),
                         this,
-                        project.getName() + moduleName + "-java-function")
+                        project.getName() + functionName + "-java-function")
                 .environment(environmentVariables)
-                .code(Code.fromAsset(functionPath(moduleName)))
-                .timeout(Duration.seconds(20))
+                .code(Code.fromAsset(functionPath(moduleName, project.isGraalVMNative())))
+                .timeout(Duration.seconds(FUNCTION_TIMEOUT_SECONDS))
                 .memorySize(1024)
                 .tracing(Tracing.ACTIVE)
                 .logRetention(RetentionDays.FIVE_DAYS);
@@ -120,8 +238,118 @@ public class AppStack extends Stack {
         return (handler != null) ? builder.handler(handler).build() : builder.build();
     }
 
-    private WebSocketApi createWebSocketApi(String projectName, Function function) {
-        return WebSocketApi.Builder.create(this, projectName + "-function-api-websocket")
+    /**
+     * SnapStart is enabled with {@code cdk deploy -c snapStart=true}.
+     */
+    private boolean isSnapStart() {
+        Object snapStart = getNode().tryGetContext(CONTEXT_SNAP_START);
+        boolean enabled = snapStart != null && Boolean.parseBoolean(snapStart.toString());
+        if (enabled && project.isGraalVMNative()) {
+            throw new ConfigurationException("SnapStart is not available for native executables on the provided.al2 runtime");
+        }
+        return enabled;
+    }
+
+    /**
+     * Queue-decoupled fan-out is enabled with {@code cdk deploy -c deliveryQueue=true}: publishes are acknowledged once
+     * enqueued, and a second function consumes the queue with partial batch failure reporting.
+     */
+    private boolean isDeliveryQueue() {
+        Object deliveryQueue = getNode().tryGetContext(CONTEXT_DELIVERY_QUEUE);
+        boolean enabled = deliveryQueue != null && Boolean.parseBoolean(deliveryQueue.toString());
+        if (enabled && project.isGraalVMNative()) {
+            throw new ConfigurationException("The delivery queue consumer needs the Java runtime, the native runtime only serves WebSocket events");
+        }
+        return enabled;
+    }
+
+    /**
+     * Connection counters are enabled with {@code cdk deploy -c connectionCounters=true}: a function consuming the
+     * table's stream keeps a count of connections and topic subscribers which the repositories read in one query.
+     */
+    private boolean isConnectionCounters() {
+        Object counters = getNode().tryGetContext(CONTEXT_CONNECTION_COUNTERS);
+        boolean enabled = counters != null && Boolean.parseBoolean(counters.toString());
+        if (enabled && project.isGraalVMNative()) {
+            throw new ConfigurationException("The connection counter consumer needs the Java runtime, the native runtime only serves WebSocket events");
+        }
+        return enabled;
+    }
+
+    /**
+     * Only the stack which owns the table consumes its stream. A replica's stream also carries the writes replicated
+     * from the other regions, so one consumer counts every connection once and the counter items replicate like any
+     * other. Batches are not bisected on error: the consumer makes a retry of the same batch idempotent, not of its
+     * halves, with client request tokens which DynamoDB honours for 10 minutes only. The maximum record age ends the
+     * retries of a batch before then, as its first attempt read records no older than its retries do, however long the
+     * backoff between them. Only inserts and removals of connection and subscription items invoke it, so neither heartbeats nor the
+     * consumer's own counter updates do, and the batches still failing after the retries are recorded in a dead-letter
+     * queue, as the counts they did not apply are off until corrected.
+     */
+    private void createCounterFunction(Table table,
+                                       Map<String, String> environmentVariables,
+                                       Module websocketsModule) {
+        Function counterFunction = createFunction(environmentVariables,
+                ApplicationType.FUNCTION,
+                "counters",
+                websocketsModule.getName(),
+                websocketsModule.getPackageName() + ".ConnectionCounterRequestHandler");
+        Queue deadLetterQueue = Queue.Builder.create(this, project.getName() + "-counters-dlq")
+                .retentionPeriod(Duration.days(14))
+                .build();
+        counterFunction.addEventSource(DynamoEventSource.Builder.create(table)
+                .startingPosition(StartingPosition.TRIM_HORIZON)
+                .batchSize(COUNTER_BATCH_SIZE)
+                .maxBatchingWindow(Duration.seconds(1))
+                .retryAttempts(COUNTER_RETRY_ATTEMPTS)
+                .maximumRecordAge(Duration.minutes(COUNTER_MAXIMUM_RECORD_AGE_MINUTES))
+                .onFailure(new SqsDlq(deadLetterQueue))
+                .filters(List.of(insertOrRemoveFilter(SORT_KEY_PREFIX_CONNECTION), insertOrRemoveFilter(SORT_KEY_PREFIX_SUBSCRIPTION)))
+                .build());
+        table.grantReadWriteData(counterFunction);
+    }
+
+    private static Map<String, Object> insertOrRemoveFilter(String sortKeyPrefix) {
+        return FilterCriteria.filter(Map.of(
+                "eventName", FilterRule.or("INSERT", "REMOVE"),
+                "dynamodb", Map.of("Keys", Map.of(ATTRIBUTE_SK, Map.of("S", FilterRule.beginsWith(sortKeyPrefix))))));
+    }
+
+    /**
+     * The visibility timeout covers six times the function timeout, as the SQS event source requires at least the
+     * function timeout and retries of a batch otherwise overlap.
+     */
+    private Queue createDeliveryQueue() {
+        Queue deadLetterQueue = Queue.Builder.create(this, project.getName() + "-delivery-dlq")
+                .retentionPeriod(Duration.days(14))
+                .build();
+        return Queue.Builder.create(this, project.getName() + "-delivery-queue")
+                .visibilityTimeout(Duration.seconds(FUNCTION_TIMEOUT_SECONDS * 6))
+                .deadLetterQueue(DeadLetterQueue.builder()
+                        .queue(deadLetterQueue)
+                        .maxReceiveCount(DELIVERY_MAX_RECEIVE_COUNT)
+                        .build())
+                .build();
+    }
+
+    /**
+     * SnapStart only applies to published versions, so the API integrates with an alias of the current version.
+     */
+    private IFunction snapStart(Function function) {
+        CfnFunction cfnFunction = (CfnFunction) function.getNode().getDefaultChild();
+        cfnFunction.addPropertyOverride("SnapStart", Collections.singletonMap("ApplyOn", "PublishedVersions"));
+        return Alias.Builder.create(this, project.getName() + "-function-alias")
+                .aliasName("live")
+                .version(function.getCurrentVersion())
+                .build();
+    }
+
+    /**
+     * Besides {@code $connect}, {@code $disconnect} and {@code $default}, every custom route of the module gets a route
+     * with an integration of its own, selected by the "action" field of a JSON message.
+     */
+    private WebSocketApi createWebSocketApi(String projectName, IFunction function, List<String> routes) {
+        WebSocketApi webSocketApi = WebSocketApi.Builder.create(this, projectName + "-function-api-websocket")
                 .defaultRouteOptions(WebSocketRouteOptions.builder()
                         .integration((new WebSocketLambdaIntegration("default-route-integration", function)))
                         .build())
@@ -132,6 +360,12 @@ public class AppStack extends Stack {
                         .integration((new WebSocketLambdaIntegration("disconnect-route-integration", function)))
                         .build())
                 .build();
+        for (String route : routes) {
+            webSocketApi.addRoute(route, WebSocketRouteOptions.builder()
+                    .integration(new WebSocketLambdaIntegration(route + "-route-integration", function))
+                    .build());
+        }
+        return webSocketApi;
     }
 
     private WebSocketStage createWebSocketStage(String projectName, WebSocketApi webSocketApi) {
@@ -143,16 +377,16 @@ public class AppStack extends Stack {
     }
 
     private String functionHandler(Module module) {
-        return module.getPackageName() + ".FunctionRequestHandler";
+        return module.getPackageName() + ".FunctionRequestStreamHandler";
     }
 
-    private static String functionPath(String moduleName) {
-        return "../" + moduleName + "/build/libs/" + functionFilename(moduleName);
+    private static String functionPath(String moduleName, boolean graalVMNative) {
+        return "../" + moduleName + "/build/libs/" + functionFilename(moduleName, graalVMNative);
     }
 
-    private static String functionFilename(String moduleName) {
+    private static String functionFilename(String moduleName, boolean graalVMNative) {
         return MicronautFunctionFile.builder()
-                .graalVMNative(false)
+                .graalVMNative(graalVMNative)
                 .version("0.1")
                 .archiveBaseName(moduleName)
                 .buildTool(BuildTool.GRADLE)
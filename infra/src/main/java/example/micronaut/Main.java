@@ -1,25 +1,92 @@
 package example.micronaut;
 
+import io.micronaut.context.exceptions.ConfigurationException;
 import software.amazon.awscdk.App;
 import software.amazon.awscdk.Environment;
 import software.amazon.awscdk.StackProps;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class Main {
     private final static String ROOT_PACKAGE = "example.micronaut";
     private final static String PROJECT_NAME = "MicronautApigatewayWebsockets";
+    private final static String CONTEXT_GRAALVM_NATIVE = "graalVMNative";
+    private final static String CONTEXT_REGIONS = "regions";
+    private final static String ROUTE_KEYS_RESOURCE = "/websocket-routes.txt";
 
     public static void main(final String[] args) {
         App app = new App();
+        // cdk deploy -c graalVMNative=true deploys the native executable built by ./gradlew :app:buildNativeLambda
+        Object graalVMNative = app.getNode().tryGetContext(CONTEXT_GRAALVM_NATIVE);
+        // cdk deploy --all -c regions=us-east-1,eu-west-1 deploys one stack per region sharing a DynamoDB global table
+        List<String> regions = regions(app.getNode().tryGetContext(CONTEXT_REGIONS));
         Project project = new Project(PROJECT_NAME,
-                Collections.singletonList(new Module("app", ROOT_PACKAGE)));
-        new AppStack(project, app,  project.getName()+ "AppStack", StackProps.builder()
+                // the custom routes are those of the app's @WebSocketRoute handlers
+                Collections.singletonList(new Module("app", ROOT_PACKAGE, routeKeys())),
+                graalVMNative != null && Boolean.parseBoolean(graalVMNative.toString()),
+                regions);
+        if (!project.isMultiRegion()) {
+            new AppStack(project, app,  project.getName()+ "AppStack", stackProps(regions.isEmpty()
+                    ? System.getenv("CDK_DEFAULT_REGION")
+                    : regions.get(0)));
+        } else {
+            AppStack primary = null;
+            for (String region : regions) {
+                AppStack stack = new AppStack(project, app, project.getName() + "AppStack-" + region, stackProps(region));
+                if (primary == null) {
+                    primary = stack;
+                } else {
+                    // the replica a regional stack reads is created by the primary stack
+                    stack.addDependency(primary);
+                }
+            }
+        }
+        app.synth();
+    }
+
+    private static StackProps stackProps(String region) {
+        return StackProps.builder()
                 .env(Environment.builder()
                         .account(System.getenv("CDK_DEFAULT_ACCOUNT"))
-                        .region(System.getenv("CDK_DEFAULT_REGION"))
+                        .region(region)
                         .build())
-                .build());
-        app.synth();
+                .build();
+    }
+
+    /**
+     * @return The custom route keys the app's build generated, see {@code :app:generateRouteKeys}
+     */
+    private static List<String> routeKeys() {
+        try (InputStream in = Main.class.getResourceAsStream(ROUTE_KEYS_RESOURCE)) {
+            if (in == null) {
+                throw new ConfigurationException("Resource " + ROUTE_KEYS_RESOURCE + " not found, it is copied from the app's build by ./gradlew :infra:processResources");
+            }
+            return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)).lines()
+                    .map(String::trim)
+                    .filter(routeKey -> !routeKey.isEmpty())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> regions(Object context) {
+        if (context == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(context.toString().split(","))
+                .map(String::trim)
+                .filter(region -> !region.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
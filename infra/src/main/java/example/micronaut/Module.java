@@ -2,14 +2,26 @@ package example.micronaut;
 
 import io.micronaut.core.annotation.Introspected;
 
+import java.util.Collections;
+import java.util.List;
+
 @Introspected
 public class Module {
     private final String name;
     private final String packageName;
+    private final List<String> routes;
 
     public Module(String name, String packageName) {
+        this(name, packageName, Collections.emptyList());
+    }
+
+    /**
+     * @param routes Custom WebSocket routes of the module's function
+     */
+    public Module(String name, String packageName, List<String> routes) {
         this.name = name;
         this.packageName = packageName;
+        this.routes = routes;
     }
 
     public String getName() {
@@ -19,4 +31,8 @@ public class Module {
     public String getPackageName() {
         return packageName;
     }
+
+    public List<String> getRoutes() {
+        return routes;
+    }
 }
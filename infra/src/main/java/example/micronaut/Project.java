@@ -4,6 +4,8 @@ import io.micronaut.context.exceptions.ConfigurationException;
 import io.micronaut.core.annotation.Introspected;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 @Introspected
 public class Project {
@@ -11,10 +13,34 @@ public class Project {
 
     private final Collection<Module> modules;
 
+    private final boolean graalVMNative;
+
+    private final List<String> regions;
+
     public Project(String name,
                    Collection<Module> modules) {
+        this(name, modules, false);
+    }
+
+    public Project(String name,
+                   Collection<Module> modules,
+                   boolean graalVMNative) {
+        this(name, modules, graalVMNative, Collections.emptyList());
+    }
+
+    /**
+     * @param graalVMNative Whether functions are deployed as GraalVM native executables on the provided.al2 runtime
+     * @param regions Regions the stack is deployed to, active-active, the first one holding the primary table. Empty for
+     *                a single deployment to the default region.
+     */
+    public Project(String name,
+                   Collection<Module> modules,
+                   boolean graalVMNative,
+                   List<String> regions) {
         this.name = name;
         this.modules = modules;
+        this.graalVMNative = graalVMNative;
+        this.regions = regions;
     }
 
     public Collection<Module> getModules() {
@@ -25,6 +51,22 @@ public class Project {
         return name;
     }
 
+    public boolean isGraalVMNative() {
+        return graalVMNative;
+    }
+
+    public List<String> getRegions() {
+        return regions;
+    }
+
+    public boolean isMultiRegion() {
+        return regions.size() > 1;
+    }
+
+    public String getPrimaryRegion() {
+        return regions.isEmpty() ? null : regions.get(0);
+    }
+
     public Module findModuleByName(String name) throws ConfigurationException {
         return getModules()
                 .stream()
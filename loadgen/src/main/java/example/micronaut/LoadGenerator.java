@@ -0,0 +1,320 @@
+package example.micronaut;
+
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the echo route of a WebSocket API: opens connections at a fixed rate, sends messages at a fixed rate across
+ * them and waits for the {@code "You said " + body} replies, then closes every connection. Replies merged into JSON
+ * array frames by outbound coalescing are counted one element at a time. Latencies are measured
+ * from the time an operation was scheduled rather than when it was issued, so that a stalled target is not hidden by
+ * the generator slowing down with it. Exits with 1 when a configured SLO is breached and 2 on invalid options.
+ */
+public class LoadGenerator {
+    private static final String MESSAGE_PREFIX = "loadgen:";
+    private static final String REPLY_PREFIX = "You said " + MESSAGE_PREFIX;
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final LoadGeneratorOptions options;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final Recorder connectLatency = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final Recorder roundTripLatency = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private final LongAdder connectErrors = new LongAdder();
+    private final LongAdder messageErrors = new LongAdder();
+    private final LongAdder disconnectErrors = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    public LoadGenerator(LoadGeneratorOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadGeneratorOptions options;
+        try {
+            options = LoadGeneratorOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadGeneratorOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        LoadGeneratorReport report = new LoadGenerator(options).run();
+        report.print(System.out);
+        List<String> breaches = report.sloBreaches(options);
+        breaches.forEach(breach -> System.err.println("SLO breached: " + breach));
+        System.exit(exitCode(breaches));
+    }
+
+    /**
+     * @return 1 when an SLO was breached, 0 otherwise
+     */
+    static int exitCode(List<String> sloBreaches) {
+        return sloBreaches.isEmpty() ? 0 : 1;
+    }
+
+    public LoadGeneratorReport run() throws InterruptedException {
+        double connectSeconds = connect();
+        long sent = connections.isEmpty() ? 0 : sendMessages();
+        int disconnects = disconnect();
+        return new LoadGeneratorReport(connectLatency.getIntervalHistogram(),
+                roundTripLatency.getIntervalHistogram(),
+                options.getConnections(),
+                connectErrors.sum(),
+                connectSeconds,
+                sent,
+                received.sum(),
+                messageErrors.sum(),
+                disconnects,
+                disconnectErrors.sum());
+    }
+
+    /**
+     * @return Seconds between the first connect being scheduled and the last one completing
+     */
+    private double connect() throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getConnectRate();
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> connects = new ArrayList<>(options.getConnections());
+        for (int i = 0; i < options.getConnections(); i++) {
+            long scheduled = start + i * intervalNanos;
+            parkUntil(scheduled);
+            Connection connection = new Connection();
+            connects.add(connection.open(httpClient.newWebSocketBuilder()
+                    .connectTimeout(options.getTimeout())
+                    .buildAsync(options.getUrl(), connection))
+                    .whenComplete((webSocket, e) -> {
+                        if (e != null) {
+                            connectErrors.increment();
+                            return;
+                        }
+                        connectLatency.recordValue(Math.min(System.nanoTime() - scheduled, HIGHEST_TRACKABLE_NANOS));
+                        synchronized (connections) {
+                            connections.add(connection);
+                        }
+                    }));
+        }
+        await(connects);
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    /**
+     * @return Number of messages sent
+     */
+    private long sendMessages() throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getMessageRate();
+        long total = options.getDuration().toSeconds() * options.getMessageRate();
+        long start = System.nanoTime();
+        for (long sequence = 0; sequence < total; sequence++) {
+            long scheduled = start + sequence * intervalNanos;
+            parkUntil(scheduled);
+            long messageSequence = sequence;
+            inFlight.put(messageSequence, scheduled);
+            connections.get((int) (sequence % connections.size()))
+                    .send(MESSAGE_PREFIX + messageSequence)
+                    .whenComplete((webSocket, e) -> {
+                        if (e != null && inFlight.remove(messageSequence) != null) {
+                            messageErrors.increment();
+                        }
+                    });
+        }
+        long deadline = System.nanoTime() + options.getTimeout().toNanos();
+        while (!inFlight.isEmpty() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        // replies which did not arrive in time
+        messageErrors.add(inFlight.size());
+        inFlight.clear();
+        return total;
+    }
+
+    /**
+     * @return Number of connections closed
+     */
+    private int disconnect() throws InterruptedException {
+        List<CompletableFuture<?>> closes = new ArrayList<>(connections.size());
+        for (Connection connection : connections) {
+            closes.add(connection.close().whenComplete((webSocket, e) -> {
+                if (e != null) {
+                    disconnectErrors.increment();
+                }
+            }));
+        }
+        await(closes);
+        return closes.size();
+    }
+
+    private void await(List<CompletableFuture<?>> futures) throws InterruptedException {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(options.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // failures are counted by each future
+        }
+    }
+
+    private static void parkUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void onFrame(String frame) {
+        for (String reply : replies(frame)) {
+            onReply(reply);
+        }
+    }
+
+    /**
+     * @return The replies in a text frame: the string elements of a JSON array, as posted with
+     * {@code outbound-coalescing.enabled}, else the frame itself. Other elements are skipped, as no reply to a message
+     * of the generator is one.
+     */
+    static List<String> replies(String frame) {
+        if (frame.isEmpty() || frame.charAt(0) != '[') {
+            return List.of(frame);
+        }
+        List<String> replies = new ArrayList<>();
+        int depth = 0;
+        int i = 0;
+        while (i < frame.length()) {
+            char c = frame.charAt(i++);
+            if (c == '[' || c == '{') {
+                depth++;
+            } else if (c == ']' || c == '}') {
+                depth--;
+            } else if (c == '"') {
+                StringBuilder text = new StringBuilder();
+                i = readString(frame, i, text);
+                if (depth == 1) {
+                    replies.add(text.toString());
+                }
+            }
+        }
+        return replies;
+    }
+
+    /**
+     * Reads a JSON string whose opening quote was read.
+     *
+     * @return The index after its closing quote
+     */
+    private static int readString(String frame, int start, StringBuilder text) {
+        int i = start;
+        while (i < frame.length()) {
+            char c = frame.charAt(i++);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\' && i < frame.length()) {
+                char escaped = frame.charAt(i++);
+                switch (escaped) {
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'u':
+                        try {
+                            c = (char) Integer.parseInt(frame.substring(i, i + 4), 16);
+                        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                            // not a string the API posted, skipped with the rest of the frame
+                            return frame.length();
+                        }
+                        i += 4;
+                        break;
+                    default:
+                        c = escaped;
+                }
+            }
+            text.append(c);
+        }
+        return i;
+    }
+
+    private void onReply(String text) {
+        if (!text.startsWith(REPLY_PREFIX)) {
+            return;
+        }
+        long now = System.nanoTime();
+        Long scheduled;
+        try {
+            scheduled = inFlight.remove(Long.parseLong(text.substring(REPLY_PREFIX.length())));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (scheduled != null) {
+            roundTripLatency.recordValue(Math.min(now - scheduled, HIGHEST_TRACKABLE_NANOS));
+            received.increment();
+        }
+    }
+
+    /**
+     * A WebSocket connection. Sends are chained because {@link WebSocket} does not accept a send while the previous one
+     * is incomplete.
+     */
+    private class Connection implements WebSocket.Listener {
+        private final StringBuilder text = new StringBuilder();
+        private CompletableFuture<WebSocket> lastSend;
+
+        /**
+         * @param webSocket The result of building this connection, which the first send waits for
+         */
+        synchronized CompletableFuture<WebSocket> open(CompletableFuture<WebSocket> webSocket) {
+            lastSend = webSocket;
+            return webSocket;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                onFrame(text.toString());
+                text.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        synchronized CompletableFuture<WebSocket> send(String message) {
+            lastSend = lastSend.thenCompose(webSocket -> webSocket.sendText(message, true));
+            return lastSend;
+        }
+
+        synchronized CompletableFuture<WebSocket> close() {
+            lastSend = lastSend.thenCompose(webSocket -> webSocket.sendClose(WebSocket.NORMAL_CLOSURE, ""));
+            return lastSend;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package example.micronaut;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of {@link LoadGenerator}, given as {@code --name=value}.
+ */
+public class LoadGeneratorOptions {
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: LoadGenerator --url=<ws url> [options]",
+            "  --connections=<n>         connections opened (default 1000)",
+            "  --connect-rate=<n>        connections opened per second (default 200)",
+            "  --message-rate=<n>        messages sent per second across all connections (default 500)",
+            "  --duration=<seconds>      length of the message phase (default 60)",
+            "  --timeout=<seconds>       time after which a connect or a reply counts as an error (default 10)",
+            "  --slo-p99=<ms>            fail when the p99 round trip exceeds this",
+            "  --slo-p999=<ms>           fail when the p99.9 round trip exceeds this",
+            "  --slo-error-rate=<ratio>  fail when the share of failed connects, messages and closes exceeds this");
+
+    private final URI url;
+    private final int connections;
+    private final int connectRate;
+    private final int messageRate;
+    private final Duration duration;
+    private final Duration timeout;
+    private final Double sloP99Millis;
+    private final Double sloP999Millis;
+    private final Double sloErrorRate;
+
+    LoadGeneratorOptions(Map<String, String> options) {
+        String url = options.get("url");
+        if (url == null) {
+            throw new IllegalArgumentException("--url is required");
+        }
+        this.url = URI.create(url);
+        this.connections = positiveInt(options, "connections", 1000);
+        this.connectRate = positiveInt(options, "connect-rate", 200);
+        this.messageRate = positiveInt(options, "message-rate", 500);
+        this.duration = Duration.ofSeconds(positiveInt(options, "duration", 60));
+        this.timeout = Duration.ofSeconds(positiveInt(options, "timeout", 10));
+        this.sloP99Millis = optionalDouble(options, "slo-p99");
+        this.sloP999Millis = optionalDouble(options, "slo-p999");
+        this.sloErrorRate = optionalDouble(options, "slo-error-rate");
+    }
+
+    public static LoadGeneratorOptions parse(String... args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("unexpected argument " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadGeneratorOptions(options);
+    }
+
+    private static int positiveInt(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int result = Integer.parseInt(value);
+        if (result <= 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+        return result;
+    }
+
+    private static Double optionalDouble(Map<String, String> options, String name) {
+        String value = options.get(name);
+        return value == null ? null : Double.valueOf(value);
+    }
+
+    public URI getUrl() {
+        return url;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public int getConnectRate() {
+        return connectRate;
+    }
+
+    public int getMessageRate() {
+        return messageRate;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public Double getSloP99Millis() {
+        return sloP99Millis;
+    }
+
+    public Double getSloP999Millis() {
+        return sloP999Millis;
+    }
+
+    public Double getSloErrorRate() {
+        return sloErrorRate;
+    }
+}
@@ -0,0 +1,98 @@
+package example.micronaut;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Outcome of a {@link LoadGenerator} run. Latencies are recorded in nanoseconds and reported in milliseconds.
+ */
+public class LoadGeneratorReport {
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final Histogram connectLatency;
+    private final Histogram roundTripLatency;
+    private final long connectAttempts;
+    private final long connectErrors;
+    private final double connectSeconds;
+    private final long messagesSent;
+    private final long messagesReceived;
+    private final long messageErrors;
+    private final long disconnectAttempts;
+    private final long disconnectErrors;
+
+    LoadGeneratorReport(Histogram connectLatency,
+                        Histogram roundTripLatency,
+                        long connectAttempts,
+                        long connectErrors,
+                        double connectSeconds,
+                        long messagesSent,
+                        long messagesReceived,
+                        long messageErrors,
+                        long disconnectAttempts,
+                        long disconnectErrors) {
+        this.connectLatency = connectLatency;
+        this.roundTripLatency = roundTripLatency;
+        this.connectAttempts = connectAttempts;
+        this.connectErrors = connectErrors;
+        this.connectSeconds = connectSeconds;
+        this.messagesSent = messagesSent;
+        this.messagesReceived = messagesReceived;
+        this.messageErrors = messageErrors;
+        this.disconnectAttempts = disconnectAttempts;
+        this.disconnectErrors = disconnectErrors;
+    }
+
+    public double getConnectThroughput() {
+        return connectSeconds > 0 ? (connectAttempts - connectErrors) / connectSeconds : 0;
+    }
+
+    public double getErrorRate() {
+        long attempts = connectAttempts + messagesSent + disconnectAttempts;
+        return attempts == 0 ? 0 : (double) (connectErrors + messageErrors + disconnectErrors) / attempts;
+    }
+
+    public double getRoundTripMillis(double percentile) {
+        return roundTripLatency.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "connect     %d ok, %d failed, %.1f connections/s%n",
+                connectAttempts - connectErrors, connectErrors, getConnectThroughput());
+        printLatency(out, "connect", connectLatency);
+        out.printf(Locale.ROOT, "messages    %d sent, %d replies, %d failed or timed out%n",
+                messagesSent, messagesReceived, messageErrors);
+        printLatency(out, "round trip", roundTripLatency);
+        out.printf(Locale.ROOT, "disconnect  %d ok, %d failed%n", disconnectAttempts - disconnectErrors, disconnectErrors);
+        out.printf(Locale.ROOT, "error rate  %.4f%n", getErrorRate());
+    }
+
+    private static void printLatency(PrintStream out, String name, Histogram histogram) {
+        out.printf(Locale.ROOT, "%-11s p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                name,
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    /**
+     * @return A description of each threshold of the options which this run exceeded
+     */
+    public List<String> sloBreaches(LoadGeneratorOptions options) {
+        List<String> breaches = new ArrayList<>();
+        if (options.getSloP99Millis() != null && getRoundTripMillis(99) > options.getSloP99Millis()) {
+            breaches.add(String.format(Locale.ROOT, "p99 %.2f ms > %.2f ms", getRoundTripMillis(99), options.getSloP99Millis()));
+        }
+        if (options.getSloP999Millis() != null && getRoundTripMillis(99.9) > options.getSloP999Millis()) {
+            breaches.add(String.format(Locale.ROOT, "p99.9 %.2f ms > %.2f ms", getRoundTripMillis(99.9), options.getSloP999Millis()));
+        }
+        if (options.getSloErrorRate() != null && getErrorRate() > options.getSloErrorRate()) {
+            breaches.add(String.format(Locale.ROOT, "error rate %.4f > %.4f", getErrorRate(), options.getSloErrorRate()));
+        }
+        return breaches;
+    }
+}
@@ -0,0 +1,60 @@
+package example.micronaut;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoadGeneratorOptionsTest {
+
+    @Test
+    void optionsWhichAreNotGivenHaveTheirDefault() {
+        LoadGeneratorOptions options = LoadGeneratorOptions.parse("--url=ws://localhost:8080/production");
+
+        assertEquals(URI.create("ws://localhost:8080/production"), options.getUrl());
+        assertEquals(1000, options.getConnections());
+        assertEquals(200, options.getConnectRate());
+        assertEquals(500, options.getMessageRate());
+        assertEquals(Duration.ofSeconds(60), options.getDuration());
+        assertEquals(Duration.ofSeconds(10), options.getTimeout());
+        assertNull(options.getSloP99Millis());
+        assertNull(options.getSloP999Millis());
+        assertNull(options.getSloErrorRate());
+    }
+
+    @Test
+    void optionsAreParsed() {
+        LoadGeneratorOptions options = LoadGeneratorOptions.parse("--url=ws://localhost:8080/production",
+                "--connections=20",
+                "--connect-rate=5",
+                "--message-rate=50",
+                "--duration=3",
+                "--timeout=2",
+                "--slo-p99=250",
+                "--slo-p999=500.5",
+                "--slo-error-rate=0.01");
+
+        assertEquals(20, options.getConnections());
+        assertEquals(5, options.getConnectRate());
+        assertEquals(50, options.getMessageRate());
+        assertEquals(Duration.ofSeconds(3), options.getDuration());
+        assertEquals(Duration.ofSeconds(2), options.getTimeout());
+        assertEquals(250, options.getSloP99Millis());
+        assertEquals(500.5, options.getSloP999Millis());
+        assertEquals(0.01, options.getSloErrorRate());
+    }
+
+    @Test
+    void invalidOptionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, LoadGeneratorOptions::parse);
+        assertThrows(IllegalArgumentException.class, () -> LoadGeneratorOptions.parse("--url=ws://localhost", "connections=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGeneratorOptions.parse("--url=ws://localhost", "--connections"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGeneratorOptions.parse("--url=ws://localhost", "--connections=0"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGeneratorOptions.parse("--url=ws://localhost", "--duration=ten"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGeneratorOptions.parse("--url=ws://localhost", "--slo-p99=fast"));
+    }
+}
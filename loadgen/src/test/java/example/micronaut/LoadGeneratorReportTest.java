@@ -0,0 +1,70 @@
+package example.micronaut;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadGeneratorReportTest {
+    private static final String URL = "--url=ws://localhost:8080/production";
+
+    @Test
+    void errorRateCountsFailedConnectsMessagesAndCloses() {
+        LoadGeneratorReport report = report(millis(1), 10, 1, 80, 2, 9, 7);
+
+        assertEquals(10d / 99, report.getErrorRate(), 1e-9);
+    }
+
+    @Test
+    void runWithinItsSlosExitsWithZero() {
+        LoadGeneratorReport report = report(millis(100), 10, 0, 100, 0, 10, 0);
+
+        List<String> breaches = report.sloBreaches(LoadGeneratorOptions.parse(URL,
+                "--slo-p99=250", "--slo-p999=250", "--slo-error-rate=0"));
+
+        assertEquals(List.of(), breaches);
+        assertEquals(0, LoadGenerator.exitCode(breaches));
+    }
+
+    @Test
+    void runBreachingItsSlosExitsWithOne() {
+        LoadGeneratorReport report = report(millis(300), 10, 0, 100, 0, 10, 1);
+
+        List<String> breaches = report.sloBreaches(LoadGeneratorOptions.parse(URL,
+                "--slo-p99=250", "--slo-p999=250", "--slo-error-rate=0"));
+
+        assertEquals(3, breaches.size());
+        assertTrue(breaches.get(0).startsWith("p99 "));
+        assertTrue(breaches.get(1).startsWith("p99.9 "));
+        assertTrue(breaches.get(2).startsWith("error rate "));
+        assertEquals(1, LoadGenerator.exitCode(breaches));
+    }
+
+    @Test
+    void runWithoutSlosExitsWithZero() {
+        LoadGeneratorReport report = report(millis(300), 10, 10, 0, 0, 0, 0);
+
+        assertEquals(0, LoadGenerator.exitCode(report.sloBreaches(LoadGeneratorOptions.parse(URL))));
+    }
+
+    private static LoadGeneratorReport report(Histogram roundTripLatency,
+                                              long connects,
+                                              long connectErrors,
+                                              long messages,
+                                              long messageErrors,
+                                              long disconnects,
+                                              long disconnectErrors) {
+        return new LoadGeneratorReport(millis(1), roundTripLatency, connects, connectErrors, 1,
+                messages, messages - messageErrors, messageErrors, disconnects, disconnectErrors);
+    }
+
+    private static Histogram millis(long value) {
+        Histogram histogram = new Histogram(TimeUnit.MINUTES.toNanos(1), 3);
+        histogram.recordValue(TimeUnit.MILLISECONDS.toNanos(value));
+        return histogram;
+    }
+}
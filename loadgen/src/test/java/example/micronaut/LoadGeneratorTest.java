@@ -0,0 +1,28 @@
+package example.micronaut;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoadGeneratorTest {
+
+    @Test
+    void aPlainFrameIsOneReply() {
+        assertEquals(List.of("You said loadgen:1"), LoadGenerator.replies("You said loadgen:1"));
+    }
+
+    @Test
+    void aCoalescedFrameIsOneReplyPerStringElement() {
+        assertEquals(List.of("You said loadgen:1"), LoadGenerator.replies("[\"You said loadgen:1\"]"));
+        assertEquals(List.of("You said loadgen:1", "You said loadgen:2"),
+                LoadGenerator.replies("[\"You said loadgen:1\",\"You said loadgen:2\"]"));
+    }
+
+    @Test
+    void escapesAreDecodedAndElementsWhichAreNotStringsSkipped() {
+        assertEquals(List.of("a\"b\\c\ndé", "You said loadgen:3"),
+                LoadGenerator.replies("[{\"x\":\"y\"},\"a\\\"b\\\\c\\nd\\u00e9\",[\"z\"],42,\"You said loadgen:3\"]"));
+    }
+}